@@ -1,11 +1,5 @@
 package godaddy.registry.jtoolkit2.se;
 
-import godaddy.registry.jtoolkit2.Timer;
-
-import java.text.SimpleDateFormat;
-import java.text.FieldPosition;
-import java.util.Date;
-
 /**
  * Provides generated unique client transaction identifiers for use in EPP
  * commands as the value of the epp:clTRID element.  The class should first be
@@ -13,10 +7,8 @@ import java.util.Date;
  */
 public final class CLTRID implements java.io.Serializable {
     private static final long serialVersionUID = 6808939605799601108L;
-    private static final int BUFFER_SIZE = 24;
-    private static final int MAX_VAL = 1000;
-    private static int val = 0;
-    private static String clID = "";
+    private static volatile ClTRIDGenerator generator = new StripedClTRIDGenerator();
+    private static volatile String clID = "";
 
     private CLTRID() {
         // intentionally do nothing, make checkstyle happy
@@ -26,36 +18,37 @@ public final class CLTRID implements java.io.Serializable {
      * Generate a unique client transaction identifier and return the value.
      */
     public static String nextVal() {
-        StringBuffer buffer = new StringBuffer(BUFFER_SIZE);
-        buffer.append(clID);
-        Date date = new Date(Timer.now());
-        SimpleDateFormat format = new SimpleDateFormat(".yyyyMMdd.HHmmss.");
-        assert date != null;
-        assert buffer != null;
-        assert format != null;
-        buffer = format.format(date, buffer, new FieldPosition(0));
-        buffer.append(String.valueOf(val));
-        CLTRID.inc();
-
-        return new String(buffer);
+        return generator.nextVal();
     }
 
     /**
      * Set the client identifier for generating client transaction IDs.  This
      * constitutes the first part of the clTRID and helps to ensure uniqueness
-     * of clTRIDs within a Registry system.
+     * of clTRIDs within a Registry system.  Switching to another client
+     * identifier continues the sequence last used with it, while setting the
+     * current client identifier again starts a new sequence of identifiers,
+     * which may repeat those already generated in the current second.
      */
-    public static void setClID(String clID) {
+    public static synchronized void setClID(String clID) {
         CLTRID.clID = clID;
-        val = 0;
+        generator.setClID(clID);
+    }
+
+    /**
+     * Get the client identifier which prefixes generated client transaction
+     * IDs.
+     */
+    public static String getClID() {
+        return clID;
     }
 
-    private static void inc() {
-        if (val >= MAX_VAL) {
-            val = 0;
-        } else {
-            val++;
-        }
+    /**
+     * Replace the generator of client transaction IDs, which by default is a
+     * {@link StripedClTRIDGenerator}.  The generator is given the current
+     * client identifier.
+     */
+    public static synchronized void setGenerator(ClTRIDGenerator clTRIDGenerator) {
+        clTRIDGenerator.setClID(clID);
+        generator = clTRIDGenerator;
     }
 }
-
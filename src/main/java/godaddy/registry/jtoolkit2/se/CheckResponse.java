@@ -1,9 +1,16 @@
 package godaddy.registry.jtoolkit2.se;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 import javax.xml.xpath.XPathExpressionException;
 
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import godaddy.registry.jtoolkit2.xml.StreamElement;
+import godaddy.registry.jtoolkit2.xml.UnsupportedContentException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
 /**
@@ -28,6 +35,9 @@ public abstract class CheckResponse<I> extends DataResponse {
     protected static final String CHKDATA_AVAIL_EXPR = "/OBJ:IDENT/@avail";
     protected static final String CHKDATA_REASON_EXPR = "/OBJ:reason/text()";
 
+    private static final String INDEX_PREDICATE = "[IDX]";
+    private static final String SELF_EXPR = ".";
+
     private static final long serialVersionUID = 7769699662780402541L;
 
     private HashMap<I, Availability> availMap;
@@ -35,6 +45,11 @@ public abstract class CheckResponse<I> extends DataResponse {
     private boolean[] availArray;
     private String[] reasonArray;
 
+    private transient List<Availability> streamedAvail;
+    private transient I streamedKey;
+    private transient boolean streamedAvailable;
+    private transient String streamedReason;
+
     public CheckResponse(ObjectType objectType) {
         super(StandardCommandType.CHECK, objectType);
         availMap = new HashMap<I, Availability>();
@@ -73,18 +88,19 @@ public abstract class CheckResponse<I> extends DataResponse {
         }
 
         try {
-            int cdCount = xmlDoc.getNodeCount(chkDataCountExpr());
+            // Each cd is queried relative to itself rather than by an indexed absolute expression.
+            NodeList cds = xmlDoc.getElements(chkDataIndexExpr().replace(INDEX_PREDICATE, ""));
+            int cdCount = cds == null ? 0 : cds.getLength();
             availArray = new boolean[cdCount];
             reasonArray = new String[cdCount];
 
             for (int i = 0; i < cdCount; i++) {
-                String qry = replaceIndex(chkDataIndexExpr(), i + 1);
-                final I key = getKey(xmlDoc, qry);
-                final String chkDataAvailExpr = chkDataAvailExpr();
-                String availStr = xmlDoc.getNodeValue(qry + chkDataAvailExpr);
+                XMLDocument cdDoc = new XMLDocument((Element) cds.item(i));
+                final I key = getKey(cdDoc, SELF_EXPR);
+                String availStr = cdDoc.getNodeValue(SELF_EXPR + chkDataAvailExpr());
                 boolean avail = (availStr.equals("1") ? true : false);
                 availArray[i] = avail;
-                String reason = xmlDoc.getNodeValue(qry + chkDataReasonExpr());
+                String reason = cdDoc.getNodeValue(SELF_EXPR + chkDataReasonExpr());
                 if (reason != null && reason.length() > 0) {
                     reasonArray[i] = reason;
                 }
@@ -96,10 +112,84 @@ public abstract class CheckResponse<I> extends DataResponse {
         }
     }
 
+    @Override
+    protected void startElement(StreamElement element) throws UnsupportedContentException {
+        super.startElement(element);
+
+        final int depth = element.getDepth();
+        if (depth < 4 || !isChkData(element)) {
+            return;
+        }
+
+        if (depth == 4) {
+            streamedAvail = new ArrayList<Availability>();
+        } else if (depth == 5) {
+            streamedKey = null;
+            streamedAvailable = false;
+            streamedReason = null;
+        } else if (depth == 6 && !"reason".equals(element.getLocalName())) {
+            streamedAvailable = "1".equals(element.getAttribute("avail"));
+        }
+    }
+
+    @Override
+    protected void endElement(StreamElement element) throws UnsupportedContentException {
+        super.endElement(element);
+
+        final int depth = element.getDepth();
+        if (depth < 5 || !isChkData(element)) {
+            return;
+        }
+
+        if (depth == 5) {
+            Availability availability = new Availability(streamedAvailable, streamedReason);
+            streamedAvail.add(availability);
+            availMap.put(streamedKey, availability);
+        } else if (depth == 6) {
+            if ("reason".equals(element.getLocalName())) {
+                streamedReason = textValue(element);
+            } else {
+                streamedKey = getKey(element.getText());
+            }
+        }
+    }
+
+    @Override
+    protected void endDocument() {
+        super.endDocument();
+
+        if (resultArray[0].succeeded()) {
+            int cdCount = streamedAvail == null ? 0 : streamedAvail.size();
+            availArray = new boolean[cdCount];
+            reasonArray = new String[cdCount];
+            for (int i = 0; i < cdCount; i++) {
+                availArray[i] = streamedAvail.get(i).isAvail();
+                reasonArray[i] = streamedAvail.get(i).getReason();
+            }
+        }
+        streamedAvail = null;
+    }
+
+    private boolean isChkData(StreamElement element) {
+        return "resData".equals(element.getLocalName(3)) && "chkData".equals(element.getLocalName(4))
+                && getObjType().getURI().equals(element.getNamespaceURI(4));
+    }
+
+    /**
+     * Returns an object identifier given the text of the identifier element of a check data element, when the
+     * response is initialised in a single pass. Subclasses which support that must override this.
+     * @param identifier the text of the identifier element
+     * @return an object identifier
+     * @throws UnsupportedContentException if the identifier cannot be converted
+     */
+    protected I getKey(String identifier) throws UnsupportedContentException {
+        throw new UnsupportedContentException(getClass().getName());
+    }
+
     /**
      * Returns an object identifier given an XPath expression for a check data element.
-     * @param xmlDoc the EPP check response message
-     * @param qry the XPath query expression
+     * @param xmlDoc the EPP check response message, or the check data element itself
+     * @param qry the XPath query expression, which may be relative to the given document
      * @return an object identifier
      * @throws XPathExpressionException
      */
@@ -0,0 +1,22 @@
+package godaddy.registry.jtoolkit2.se;
+
+/**
+ * Generates the client transaction identifiers assigned to commands by
+ * {@link CLTRID}.  Implementations must be thread-safe, and must never
+ * generate the same identifier twice for the same client identifier within a
+ * sequence.
+ *
+ * @see CLTRID#setGenerator(ClTRIDGenerator)
+ */
+public interface ClTRIDGenerator {
+    /**
+     * Set the client identifier which prefixes generated identifiers.  Setting
+     * the current client identifier again starts a new sequence.
+     */
+    void setClID(String clID);
+
+    /**
+     * Generate a unique client transaction identifier.
+     */
+    String nextVal();
+}
@@ -25,6 +25,7 @@ public abstract class Command extends SendSE {
     protected org.w3c.dom.Element extension;
 
     private final CommandType cmdType;
+    private volatile String clTRID;
 
     /**
      * @throws IllegalArgumentException if {@code commandType} is {@code null}.
@@ -59,10 +60,22 @@ public abstract class Command extends SendSE {
      * will also fail.
      */
     protected String toXMLImpl(XmlOutputConfig xmlOutputConfig) throws org.xml.sax.SAXException {
-        xmlWriter.appendChild(command, "clTRID").setTextContent(CLTRID.nextVal());
+        clTRID = CLTRID.nextVal();
+        xmlWriter.appendChild(command, "clTRID").setTextContent(clTRID);
         return xmlWriter.toXML(xmlOutputConfig);
     }
 
+    /**
+     * Get the client transaction identifier included in the command. This is
+     * assigned when the command is first serialized.
+     *
+     * @return the clTRID of the command, or null if the command has not yet
+     * been serialized
+     */
+    public String getCLTRID() {
+        return clTRID;
+    }
+
     public int appendExtension(final CommandExtension ce) {
         int result = APPEND_EXTENSION_STATUS_FAILED;
         if (ce == null) {
@@ -0,0 +1,242 @@
+package godaddy.registry.jtoolkit2.se;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.SAXException;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+import godaddy.registry.jtoolkit2.xml.XMLEscaper;
+import godaddy.registry.jtoolkit2.xml.XmlOutputConfig;
+
+/**
+ * A precompiled EPP command, for sending many commands which differ only in a
+ * few values, such as domain check and info commands.  A template is compiled
+ * from a fully configured prototype command, including any extensions, and a
+ * sample value for each slot: a value of the prototype which is to vary
+ * between commands.  The prototype is serialized (and validated, if
+ * validation is enabled) once, and split into constant UTF-8 encoded segments
+ * around the slots and the clTRID.  Each call to {@link #stamp(String...)}
+ * then only escapes the slot values, assigns a new clTRID and copies the
+ * segments into a new {@link StampedCommand}.
+ *
+ * <p>
+ * Each sample value must occur exactly once in the serialized prototype,
+ * either as element text or as an attribute value.  Stamped commands are not
+ * validated, so slot values must be of the kind the prototype's sample values
+ * were; a template compiled from a domain check command with two names stamps
+ * domain check commands with two names.
+ * </p>
+ *
+ * <p>
+ * Templates are immutable and may be shared between threads.
+ * </p>
+ *
+ * <pre>
+ * Command prototype = new DomainCheckCommand(new String[] {"name1.com.au", "name2.com.au"});
+ * CommandTemplate template = CommandTemplate.compile(prototype, XmlOutputConfig.defaultConfig(),
+ *         "name1.com.au", "name2.com.au");
+ * Transaction tx = new Transaction(template.stamp("example.com.au", "example.net.au"), response);
+ * sessionManager.execute(tx);
+ * </pre>
+ */
+public final class CommandTemplate {
+    private static final int CLTRID_SLOT = -1;
+
+    private final CommandType commandType;
+    private final int valueCount;
+    /// One more segment than there are slots; slot i lies between segments i and i + 1.
+    private final byte[][] segments;
+    /// The index of the stamped value filling each slot, or CLTRID_SLOT.
+    private final int[] slotValues;
+    private final boolean[] attributeSlots;
+
+    private CommandTemplate(CommandType commandType, int valueCount, byte[][] segments, int[] slotValues,
+            boolean[] attributeSlots) {
+        this.commandType = commandType;
+        this.valueCount = valueCount;
+        this.segments = segments;
+        this.slotValues = slotValues;
+        this.attributeSlots = attributeSlots;
+    }
+
+    /**
+     * Compile a template from the given prototype, serialized with the default
+     * output configuration.
+     *
+     * @see #compile(Command, XmlOutputConfig, String...)
+     */
+    public static CommandTemplate compile(Command prototype, String... samples) throws SAXException {
+        return compile(prototype, XmlOutputConfig.defaultConfig(), samples);
+    }
+
+    /**
+     * Compile a template from the given prototype.
+     *
+     * @param prototype the command to stamp copies of; it should not be used
+     * for anything else, as it is serialized by this method.
+     *
+     * @param xmlOutputConfig the output configuration of the sessions stamped
+     * commands will be written to.
+     *
+     * @param samples the value of the prototype to be replaced by each slot
+     * value when stamping, in the order in which slot values are given to
+     * {@link #stamp(String...)}.
+     *
+     * @throws SAXException the prototype failed schema validation.
+     *
+     * @throws IllegalArgumentException a sample value does not occur exactly
+     * once in the serialized prototype, or overlaps another, or the serialized
+     * prototype has no clTRID.
+     */
+    public static CommandTemplate compile(Command prototype, XmlOutputConfig xmlOutputConfig, String... samples)
+            throws SAXException {
+        String xml = prototype.toXML(xmlOutputConfig);
+
+        // Every stamped command must carry its own clTRID, by which its response is matched.
+        int clTRIDStart = -1;
+        String clTRID = null;
+        if (prototype.getCLTRID() != null) {
+            clTRID = XMLEscaper.escape(prototype.getCLTRID(), false);
+            clTRIDStart = xml.lastIndexOf('>' + clTRID + '<');
+        }
+        if (clTRIDStart < 0) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("se.command.template.cltrid.missing"));
+        }
+
+        List<Slot> slots = new ArrayList<Slot>(samples.length + 1);
+        slots.add(new Slot(CLTRID_SLOT, clTRIDStart + 1, clTRID.length(), false));
+        for (int i = 0; i < samples.length; i++) {
+            slots.add(locate(xml, samples[i], i));
+        }
+        slots.sort((a, b) -> Integer.compare(a.start, b.start));
+
+        byte[][] segments = new byte[slots.size() + 1][];
+        int[] slotValues = new int[slots.size()];
+        boolean[] attributeSlots = new boolean[slots.size()];
+        int segmentStart = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            if (slot.start < segmentStart) {
+                Slot overlapping = slot.value == CLTRID_SLOT ? slots.get(i - 1) : slot;
+                throw new IllegalArgumentException(ErrorPkg.getMessage("se.command.template.slot.overlap",
+                        "<<sample>>", samples[overlapping.value]));
+            }
+            segments[i] = xml.substring(segmentStart, slot.start).getBytes(StandardCharsets.UTF_8);
+            slotValues[i] = slot.value;
+            attributeSlots[i] = slot.attribute;
+            segmentStart = slot.start + slot.length;
+        }
+        segments[slots.size()] = xml.substring(segmentStart).getBytes(StandardCharsets.UTF_8);
+
+        return new CommandTemplate(prototype.getCommandType(), samples.length, segments, slotValues,
+                attributeSlots);
+    }
+
+    private static Slot locate(String xml, String sample, int value) {
+        String found = XMLEscaper.escape(sample, false);
+        int start = sample.isEmpty() ? -1 : xml.indexOf(found);
+
+        // Only the quotation mark is escaped differently in attribute values.
+        String attributeValue = XMLEscaper.escape(sample, true);
+        if (!sample.isEmpty() && !attributeValue.equals(found)) {
+            int attributeStart = xml.indexOf(attributeValue);
+            if (attributeStart >= 0) {
+                if (start >= 0) {
+                    throw new IllegalArgumentException(ErrorPkg.getMessage("se.command.template.slot.ambiguous",
+                            "<<sample>>", sample));
+                }
+                start = attributeStart;
+                found = attributeValue;
+            }
+        }
+
+        if (start < 0) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("se.command.template.slot.missing",
+                    "<<sample>>", sample));
+        }
+        if (xml.indexOf(found, start + 1) >= 0) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("se.command.template.slot.ambiguous",
+                    "<<sample>>", sample));
+        }
+        return new Slot(value, start, found.length(), isInTag(xml, start));
+    }
+
+    private static boolean isInTag(String xml, int index) {
+        return xml.lastIndexOf('<', index) > xml.lastIndexOf('>', index);
+    }
+
+    public CommandType getCommandType() {
+        return commandType;
+    }
+
+    /**
+     * @return the number of values to be given to {@link #stamp(String...)}
+     */
+    public int getSlotCount() {
+        return valueCount;
+    }
+
+    /**
+     * Stamp out a command with the given slot values and a new clTRID.
+     *
+     * @param values the value of each slot, in the order of the sample values
+     * the template was compiled with.
+     *
+     * @throws IllegalArgumentException the number of values is not the number
+     * of slots, or a value is null.
+     */
+    public StampedCommand stamp(String... values) {
+        if (values.length != valueCount) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("se.command.template.values.count",
+                    new String[] {"<<expected>>", "<<actual>>"},
+                    new int[] {valueCount, values.length}));
+        }
+
+        String clTRID = null;
+        byte[][] slots = new byte[slotValues.length][];
+        int length = segments[slotValues.length].length;
+        for (int i = 0; i < slotValues.length; i++) {
+            String value;
+            if (slotValues[i] == CLTRID_SLOT) {
+                clTRID = CLTRID.nextVal();
+                value = clTRID;
+            } else {
+                value = values[slotValues[i]];
+                if (value == null) {
+                    throw new IllegalArgumentException(ErrorPkg.getMessage("se.command.template.value.missing",
+                            "<<index>>", String.valueOf(slotValues[i])));
+                }
+            }
+            slots[i] = XMLEscaper.escape(value, attributeSlots[i]).getBytes(StandardCharsets.UTF_8);
+            length += segments[i].length + slots[i].length;
+        }
+
+        byte[] encoded = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < slots.length; i++) {
+            System.arraycopy(segments[i], 0, encoded, offset, segments[i].length);
+            offset += segments[i].length;
+            System.arraycopy(slots[i], 0, encoded, offset, slots[i].length);
+            offset += slots[i].length;
+        }
+        System.arraycopy(segments[slots.length], 0, encoded, offset, segments[slots.length].length);
+
+        return new StampedCommand(commandType, clTRID, encoded);
+    }
+
+    private static final class Slot {
+        private final int value;
+        private final int start;
+        private final int length;
+        private final boolean attribute;
+
+        Slot(int value, int start, int length, boolean attribute) {
+            this.value = value;
+            this.start = start;
+            this.length = length;
+            this.attribute = attribute;
+        }
+    }
+}
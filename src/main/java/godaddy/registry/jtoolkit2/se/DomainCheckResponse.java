@@ -50,6 +50,16 @@ public class DomainCheckResponse extends CheckResponse<String> {
         return xmlDoc.getNodeValue(qry + chkDataTextExpr());
     }
 
+    @Override
+    protected String getKey(final String identifier) {
+        return identifier;
+    }
+
+    @Override
+    protected boolean isStreamDecodable() {
+        return getClass() == DomainCheckResponse.class && areExtensionsStreamDecodable();
+    }
+
     private static String exprReplace(String expr) {
         return expr.replaceAll(
                 OBJ, StandardObjectType.DOMAIN.getName()
@@ -2,12 +2,19 @@ package godaddy.registry.jtoolkit2.se;
 
 import godaddy.registry.jtoolkit2.EPPDateFormatter;
 
+import godaddy.registry.jtoolkit2.xml.StreamElement;
+import godaddy.registry.jtoolkit2.xml.UnsupportedContentException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
+import java.util.List;
 
 import javax.xml.xpath.XPathExpressionException;
 
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
 /**
  * Use this to access domain object information as provided in an EPP domain
  * info response compliant with RFC5730 and RFC5731. Such a service element is
@@ -39,13 +46,12 @@ public class DomainInfoResponse extends InfoResponse {
     protected static final String DOM_CON_TECH_EXPR = DOM_CON_EXPR.replaceFirst("TYPE", "tech");
     protected static final String DOM_CON_ADMIN_EXPR = DOM_CON_EXPR.replaceFirst("TYPE", "admin");
     protected static final String DOM_CON_BILLING_EXPR = DOM_CON_EXPR.replaceFirst("TYPE", "billing");
-    private static final String DOMAIN_HOST_ATTR_COUNT_EXPR =
-            "count(" + DOM_INF_DATA_EXPR + "/domain:ns/domain:hostAttr)";
-    private static final String DOMAIN_ATTR_EXPR_IDX = DOM_INF_DATA_EXPR + "/domain:ns/domain:hostAttr[IDX]";
-    private static final String DOMAIN_TXT_EXPR = "/text()";
-    private static final String HOS_ADDR_IP_EXPR = "/@ip";
-    private static final String HOST_ATTR_IDX_EXPR = "/domain:hostAddr[IDX]";
-    private static final String HOST_ATTR_EXPR = "/domain:hostAddr";
+    private static final String DOMAIN_HOST_ATTR_EXPR = DOM_INF_DATA_EXPR + "/domain:ns/domain:hostAttr";
+    // Relative to each hostAttr element, then to each of its hostAddr elements.
+    private static final String HOST_NAME_EXPR = "domain:hostName/text()";
+    private static final String HOST_ADDR_EXPR = "domain:hostAddr";
+    private static final String DOMAIN_TXT_EXPR = "text()";
+    private static final String HOS_ADDR_IP_EXPR = "@ip";
 
     private static final long serialVersionUID = -5948394715740177139L;
 
@@ -56,6 +62,12 @@ public class DomainInfoResponse extends InfoResponse {
     private String exDateStr;
     private Host[] nameserverHosts;
 
+    private transient List<String> streamedDelHosts, streamedSubHosts;
+    private transient List<String> streamedTechContacts, streamedAdminContacts, streamedBillingContacts;
+    private transient List<Host> streamedHosts;
+    private transient List<InetAddress> streamedAddresses;
+    private transient String streamedContactType, streamedHostName, streamedIPVersion;
+
     public DomainInfoResponse() {
         super(StandardObjectType.DOMAIN);
     }
@@ -160,19 +172,20 @@ public class DomainInfoResponse extends InfoResponse {
                 exDate = EPPDateFormatter.fromXSDateTime(exDateStr);
             }
             delHosts = xmlDoc.getNodeValues(DOM_NS_EXPR);
-            int attrCount = xmlDoc.getNodeCount(DOMAIN_HOST_ATTR_COUNT_EXPR);
+            NodeList hostAttrs = xmlDoc.getElements(DOMAIN_HOST_ATTR_EXPR);
+            int attrCount = hostAttrs == null ? 0 : hostAttrs.getLength();
             nameserverHosts = new Host[attrCount];
 
             for (int k = 0; k < attrCount; k++) {
-                String hostAttrExpr = ReceiveSE.replaceIndex(DOMAIN_ATTR_EXPR_IDX, k + 1);
-                String hostName = xmlDoc.getNodeValue(hostAttrExpr + "/domain:hostName" + DOMAIN_TXT_EXPR);
-                String hostAddrExpr = hostAttrExpr + HOST_ATTR_IDX_EXPR;
-                int addrCount = xmlDoc.getNodeCount("count(" + hostAttrExpr + HOST_ATTR_EXPR + ")");
+                XMLDocument hostAttrDoc = new XMLDocument((Element) hostAttrs.item(k));
+                String hostName = hostAttrDoc.getNodeValue(HOST_NAME_EXPR);
+                NodeList hostAddrs = hostAttrDoc.getElements(HOST_ADDR_EXPR);
+                int addrCount = hostAddrs == null ? 0 : hostAddrs.getLength();
                 InetAddress[] inetAddresses = new InetAddress[addrCount];
                 for (int i = 0; i < addrCount; i++) {
-                    String qry = ReceiveSE.replaceIndex(hostAddrExpr, i + 1);
-                    String addr = xmlDoc.getNodeValue(qry + DOMAIN_TXT_EXPR);
-                    String version = xmlDoc.getNodeValue(qry + HOS_ADDR_IP_EXPR);
+                    XMLDocument hostAddrDoc = new XMLDocument((Element) hostAddrs.item(i));
+                    String addr = hostAddrDoc.getNodeValue(DOMAIN_TXT_EXPR);
+                    String version = hostAddrDoc.getNodeValue(HOS_ADDR_IP_EXPR);
                     inetAddresses[i] = new InetAddress(IPVersion.value(version), addr);
                 }
                 nameserverHosts[k] = new Host(hostName, inetAddresses);
@@ -187,6 +200,125 @@ public class DomainInfoResponse extends InfoResponse {
         }
     }
 
+    @Override
+    protected boolean isStreamDecodable() {
+        return getClass() == DomainInfoResponse.class && areExtensionsStreamDecodable();
+    }
+
+    @Override
+    protected void startElement(StreamElement element) throws UnsupportedContentException {
+        super.startElement(element);
+
+        if (!isInfData(element)) {
+            return;
+        }
+
+        final int depth = element.getDepth();
+        final String name = element.getLocalName();
+        if (depth == 5 && "contact".equals(name)) {
+            streamedContactType = element.getAttribute("type");
+        } else if (depth == 6 && "hostAttr".equals(name)) {
+            streamedHostName = null;
+            streamedAddresses = new ArrayList<InetAddress>();
+        } else if (depth == 7 && "hostAddr".equals(name)) {
+            streamedIPVersion = element.getAttribute("ip");
+        }
+    }
+
+    @Override
+    protected void endElement(StreamElement element) throws UnsupportedContentException {
+        super.endElement(element);
+
+        if (!isInfData(element)) {
+            return;
+        }
+
+        final int depth = element.getDepth();
+        final String name = element.getLocalName();
+        if (depth == 5) {
+            if ("name".equals(name)) {
+                this.name = textValue(element);
+            } else if ("registrant".equals(name)) {
+                registrantID = textValue(element);
+            } else if ("exDate".equals(name)) {
+                exDateStr = textValue(element);
+                if (exDateStr != null) {
+                    exDate = EPPDateFormatter.fromXSDateTime(exDateStr);
+                }
+            } else if ("host".equals(name)) {
+                streamedSubHosts = addText(streamedSubHosts, element);
+            } else if ("contact".equals(name)) {
+                if ("tech".equals(streamedContactType)) {
+                    streamedTechContacts = addText(streamedTechContacts, element);
+                } else if ("admin".equals(streamedContactType)) {
+                    streamedAdminContacts = addText(streamedAdminContacts, element);
+                } else if ("billing".equals(streamedContactType)) {
+                    streamedBillingContacts = addText(streamedBillingContacts, element);
+                }
+            }
+        } else if (depth == 6) {
+            final String parent = element.getLocalName(5);
+            if ("authInfo".equals(parent) && "pw".equals(name)) {
+                pw = textValue(element);
+            } else if ("ns".equals(parent)) {
+                if ("hostObj".equals(name)) {
+                    streamedDelHosts = addText(streamedDelHosts, element);
+                } else if ("hostAttr".equals(name)) {
+                    if (streamedHosts == null) {
+                        streamedHosts = new ArrayList<Host>();
+                    }
+                    streamedHosts.add(new Host(streamedHostName,
+                            streamedAddresses.toArray(new InetAddress[streamedAddresses.size()])));
+                }
+            }
+        } else if (depth == 7 && "hostAttr".equals(element.getLocalName(6))) {
+            if ("hostName".equals(name)) {
+                streamedHostName = textValue(element);
+            } else if ("hostAddr".equals(name)) {
+                streamedAddresses.add(new InetAddress(IPVersion.value(streamedIPVersion), textValue(element)));
+            }
+        }
+    }
+
+    @Override
+    protected void endDocument() {
+        super.endDocument();
+
+        if (resultArray[0].succeeded()) {
+            delHosts = toArray(streamedDelHosts);
+            subHosts = toArray(streamedSubHosts);
+            techContacts = toArray(streamedTechContacts);
+            adminContacts = toArray(streamedAdminContacts);
+            billingContacts = toArray(streamedBillingContacts);
+            nameserverHosts = streamedHosts == null ? new Host[0]
+                    : streamedHosts.toArray(new Host[streamedHosts.size()]);
+        }
+
+        streamedDelHosts = null;
+        streamedSubHosts = null;
+        streamedTechContacts = null;
+        streamedAdminContacts = null;
+        streamedBillingContacts = null;
+        streamedHosts = null;
+        streamedAddresses = null;
+    }
+
+    // As with XMLDocument.getNodeValues, an element without text is skipped and an empty list is null.
+    private static List<String> addText(List<String> values, StreamElement element) {
+        final String text = textValue(element);
+        if (text == null) {
+            return values;
+        }
+
+        final List<String> list = values == null ? new ArrayList<String>() : values;
+        list.add(text);
+        return list;
+    }
+
+    private static String[] toArray(List<String> values) {
+        return values == null ? null : values.toArray(new String[values.size()]);
+    }
+
     @Override
     public String toString() {
         String retval = super.toString();
@@ -1,9 +1,16 @@
 package godaddy.registry.jtoolkit2.se;
 
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
+import java.util.List;
 import javax.xml.xpath.XPathExpressionException;
 
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
 import godaddy.registry.jtoolkit2.EPPDateFormatter;
+import godaddy.registry.jtoolkit2.xml.StreamElement;
+import godaddy.registry.jtoolkit2.xml.UnsupportedContentException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
 /**
@@ -35,6 +42,8 @@ public abstract class InfoResponse extends DataResponse {
     private static final String STATUS_S_EXPR = "/@s";
     private static final String STATUS_REASON_EXPR = "/text()";
     private static final String STATUS_LANG_EXPR = "/@lang";
+    private static final String INDEX_PREDICATE = "[IDX]";
+    private static final String SELF_EXPR = ".";
 
     private String roid;
     private String clID;
@@ -45,6 +54,9 @@ public abstract class InfoResponse extends DataResponse {
     private GregorianCalendar trDate;
     private Status[] statuses;
 
+    private transient List<Status> streamedStatuses;
+    private transient String streamedStatus, streamedStatusLang;
+
     public InfoResponse(ObjectType objectType) {
         super(StandardCommandType.INFO, objectType);
     }
@@ -105,13 +117,13 @@ public abstract class InfoResponse extends DataResponse {
 
             String statusCountExpr = statusCountExpr();
             if (statusCountExpr != null) {
-                int statusCount = xmlDoc.getNodeCount(statusCountExpr);
-                statuses = new Status[statusCount];
+                NodeList statusNodes = xmlDoc.getElements(statusExpr().replace(INDEX_PREDICATE, ""));
+                statuses = new Status[statusNodes == null ? 0 : statusNodes.getLength()];
                 for (int i = 0; i < statuses.length; i++) {
-                    String qry = ReceiveSE.replaceIndex(statusExpr(), i + 1);
-                    String reason = xmlDoc.getNodeValue(qry + STATUS_REASON_EXPR);
-                    String s = xmlDoc.getNodeValue(qry + STATUS_S_EXPR);
-                    String lang = xmlDoc.getNodeValue(qry + STATUS_LANG_EXPR);
+                    XMLDocument statusDoc = new XMLDocument((Element) statusNodes.item(i));
+                    String reason = statusDoc.getNodeValue(SELF_EXPR + STATUS_REASON_EXPR);
+                    String s = statusDoc.getNodeValue(SELF_EXPR + STATUS_S_EXPR);
+                    String lang = statusDoc.getNodeValue(SELF_EXPR + STATUS_LANG_EXPR);
                     statuses[i] = new Status(s, reason, lang);
                 }
             }
@@ -120,6 +132,67 @@ public abstract class InfoResponse extends DataResponse {
         }
     }
 
+    @Override
+    protected void startElement(StreamElement element) throws UnsupportedContentException {
+        super.startElement(element);
+
+        if (element.getDepth() == 5 && isInfData(element) && "status".equals(element.getLocalName())) {
+            streamedStatus = element.getAttribute("s");
+            streamedStatusLang = element.getAttribute("lang");
+        }
+    }
+
+    @Override
+    protected void endElement(StreamElement element) throws UnsupportedContentException {
+        super.endElement(element);
+
+        if (element.getDepth() != 5 || !isInfData(element)) {
+            return;
+        }
+
+        final String name = element.getLocalName();
+        if ("roid".equals(name)) {
+            roid = textValue(element);
+        } else if ("crID".equals(name)) {
+            crID = textValue(element);
+        } else if ("upID".equals(name)) {
+            upID = textValue(element);
+        } else if ("clID".equals(name)) {
+            clID = textValue(element);
+        } else if ("crDate".equals(name)) {
+            crDate = EPPDateFormatter.fromXSDateTime(textValue(element));
+        } else if ("upDate".equals(name)) {
+            upDate = EPPDateFormatter.fromXSDateTime(textValue(element));
+        } else if ("trDate".equals(name)) {
+            trDate = EPPDateFormatter.fromXSDateTime(textValue(element));
+        } else if ("status".equals(name)) {
+            if (streamedStatuses == null) {
+                streamedStatuses = new ArrayList<Status>();
+            }
+            streamedStatuses.add(new Status(streamedStatus, textValue(element), streamedStatusLang));
+        }
+    }
+
+    @Override
+    protected void endDocument() {
+        super.endDocument();
+
+        if (resultArray[0].succeeded()) {
+            statuses = streamedStatuses == null ? new Status[0]
+                    : streamedStatuses.toArray(new Status[streamedStatuses.size()]);
+        }
+        streamedStatuses = null;
+    }
+
+    /**
+     * @return true if the given element is, or is within, the infData element of this response's object type
+     */
+    protected boolean isInfData(StreamElement element) {
+        return element.getDepth() >= 4 && "resData".equals(element.getLocalName(3))
+                && "infData".equals(element.getLocalName(4))
+                && getObjType().getURI().equals(element.getNamespaceURI(4));
+    }
+
     protected abstract String roidExpr();
     protected abstract String crIDExpr();
     protected abstract String upIDExpr();
@@ -12,6 +12,8 @@ import godaddy.registry.jtoolkit2.se.idn.ietf.DomainInfoIetfIdnResponseExtension
 import godaddy.registry.jtoolkit2.se.maintenance.MaintenanceWindowInfoResponse;
 import godaddy.registry.jtoolkit2.se.rgp.DomainInfoRgpResponseExtension;
 import godaddy.registry.jtoolkit2.se.secdns.SecDnsDomainInfoResponseExtension;
+import godaddy.registry.jtoolkit2.xml.StreamElement;
+import godaddy.registry.jtoolkit2.xml.UnsupportedContentException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
 /**
@@ -136,6 +138,23 @@ public class PollResponse extends Response {
         debugLogger.finest("exit");
     }
 
+    @Override
+    protected boolean isStreamDecodable() {
+        return getClass() == PollResponse.class && areExtensionsStreamDecodable();
+    }
+
+    /**
+     * Only poll responses without a resData element, such as those to poll ack commands, can be initialised in a
+     * single pass, since the resData element is made available as a DOM Element.
+     */
+    @Override
+    protected void startElement(StreamElement element) throws UnsupportedContentException {
+        if (element.getDepth() == 3 && "resData".equals(element.getLocalName())) {
+            throw new UnsupportedContentException(getClass().getName() + ": resData");
+        }
+        super.startElement(element);
+    }
+
     private void getChildNodeResponse(XMLDocument xmlDoc, Node childNode) {
         String childName = childNode.getLocalName();
 
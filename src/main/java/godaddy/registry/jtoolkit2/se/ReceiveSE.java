@@ -44,7 +44,7 @@ public abstract class ReceiveSE implements java.io.Serializable {
      * @return the string
      */
     public static String replaceIndex(final String inputExpr, final int index) {
-        return inputExpr.replaceAll("IDX", String.valueOf(index));
+        return inputExpr.replace("IDX", String.valueOf(index));
     }
 
     /**
@@ -1,16 +1,24 @@
 package godaddy.registry.jtoolkit2.se;
 
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Vector;
+import java.util.logging.Level;
 
 import javax.xml.xpath.XPathExpressionException;
 
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import godaddy.registry.jtoolkit2.EPPDateFormatter;
 import godaddy.registry.jtoolkit2.ErrorPkg;
+import godaddy.registry.jtoolkit2.xml.ParsingException;
+import godaddy.registry.jtoolkit2.xml.StreamElement;
+import godaddy.registry.jtoolkit2.xml.StreamHandler;
+import godaddy.registry.jtoolkit2.xml.StreamingParser;
+import godaddy.registry.jtoolkit2.xml.UnsupportedContentException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
 /**
@@ -32,17 +40,16 @@ public class Response extends ReceiveSE {
 
     private static final String DEFAULT_LANGUAGE = "en";
 
-    private static final String RESULT_COUNT_EXPR = "count(" + RESPONSE_EXPR + "/e:result)";
+    private static final String RESULT_EXPR = RESPONSE_EXPR + "/e:result";
 
-    private static final String RESULT_EXPR = RESPONSE_EXPR + "/e:result[IDX]";
+    // Relative to each result element.
+    private static final String RESULT_CODE_EXPR = "@code";
 
-    private static final String RESULT_CODE_EXPR = "/@code";
+    private static final String RESULT_MSG_EXPR = "e:msg";
 
-    private static final String RESULT_MSG_EXPR = "/e:msg";
+    private static final String RESULT_VALUE_EXPR = "e:value";
 
-    private static final String RESULT_VALUE_EXPR = "/e:value";
-
-    private static final String RESULT_XVALUE_EXPR = "/e:extValue";
+    private static final String RESULT_XVALUE_EXPR = "e:extValue";
 
     private static final String MSGQ_COUNT_EXPR = RESPONSE_EXPR + "/e:msgQ/@count";
 
@@ -58,6 +65,16 @@ public class Response extends ReceiveSE {
 
     private static final String SVTRID_EXPR = RESPONSE_EXPR + "/e:trID/e:svTRID/text()";
 
+    private static final String RESPONSE = "response";
+
+    private static final String RESULT = "result";
+
+    private static final String MSGQ = "msgQ";
+
+    private static final String TRID = "trID";
+
+    private static final String EXTENSION = "extension";
+
     protected Result[] resultArray;
 
     private String clTRID, svTRID;
@@ -74,8 +91,14 @@ public class Response extends ReceiveSE {
 
     private XMLDocument xmlDoc;
 
+    private String sourceXML;
+
     private final List<ResponseExtension> extensions;
 
+    private transient List<Result> streamedResults;
+
+    private transient String streamedCode, streamedMsg;
+
     public Response() {
         extensions = new Vector<ResponseExtension>(1);
     }
@@ -144,16 +167,17 @@ public class Response extends ReceiveSE {
         xmlDoc = xmlDocArg;
 
         try {
-            final int resultCount = xmlDoc.getNodeCount(RESULT_COUNT_EXPR);
+            final NodeList results = xmlDoc.getElements(RESULT_EXPR);
+            final int resultCount = results == null ? 0 : results.getLength();
             resultArray = new Result[resultCount];
 
             for (int i = 0; i < resultCount; i++) {
-                final String qry = ReceiveSE.replaceIndex(RESULT_EXPR, i + 1);
-                final String code = xmlDoc.getNodeValue(qry + RESULT_CODE_EXPR);
-                final String message = xmlDoc.getNodeValue(qry + RESULT_MSG_EXPR);
-                final NodeList value = xmlDoc.getElements(qry + RESULT_VALUE_EXPR);
+                final XMLDocument resultDoc = new XMLDocument((Element) results.item(i));
+                final String code = resultDoc.getNodeValue(RESULT_CODE_EXPR);
+                final String message = resultDoc.getNodeValue(RESULT_MSG_EXPR);
+                final NodeList value = resultDoc.getElements(RESULT_VALUE_EXPR);
 
-                final NodeList extValues = xmlDoc.getElements(qry + RESULT_XVALUE_EXPR);
+                final NodeList extValues = resultDoc.getElements(RESULT_XVALUE_EXPR);
                 Node[] valueNodes = null;
                 String[] reasons = null;
 
@@ -212,6 +236,198 @@ public class Response extends ReceiveSE {
         debugLogger.finest("exit");
     }
 
+    /**
+     * Initialise this response from the given XML in a single pass, without building a DOM representation of the
+     * response or evaluating XPath expressions. Only some response classes and extensions support this, and then only
+     * for responses whose content they can interpret without a DOM; if either is not the case, this returns false
+     * and the response must instead be initialised using {@link #fromXML(XMLDocument)}. The XML is not validated
+     * against the EPP schemas.
+     *
+     * @param xml the EPP response XML
+     * @param parser the parser with which to read the XML
+     * @return true if this response was initialised, else false
+     * @throws ParsingException if the XML is not well-formed
+     */
+    public boolean fromXML(final String xml, final StreamingParser parser) throws ParsingException {
+        return fromStream(xml, handler -> parser.parse(xml, handler));
+    }
+
+    /**
+     * Initialise this response in a single pass from the XML encoded in the given range of bytes, without first
+     * decoding it to a String. This is otherwise as {@link #fromXML(String, StreamingParser)}.
+     *
+     * @param sourceXML the decoded XML, to be returned by {@link #getSourceXMLString()}, or null if it is not needed
+     */
+    public boolean fromXML(final byte[] xml, final int offset, final int length, final String sourceXML,
+            final StreamingParser parser) throws ParsingException {
+        return fromStream(sourceXML, handler -> parser.parse(xml, offset, length, handler));
+    }
+
+    private boolean fromStream(final String xml, final StreamSource source) throws ParsingException {
+        if (!isStreamDecodable()) {
+            return false;
+        }
+
+        debugLogger.finest("enter");
+        xmlDoc = null;
+        sourceXML = xml;
+        msgID = null;
+        msgLang = null;
+        streamedResults = new ArrayList<Result>(1);
+
+        try {
+            source.parse(new StreamHandler() {
+                @Override
+                public void startElement(StreamElement element) throws UnsupportedContentException {
+                    Response.this.startElement(element);
+                }
+
+                @Override
+                public void endElement(StreamElement element) throws UnsupportedContentException {
+                    Response.this.endElement(element);
+                }
+            });
+            endDocument();
+        } catch (final UnsupportedContentException uce) {
+            debugLogger.fine(uce.getMessage());
+            return false;
+        } finally {
+            streamedResults = null;
+        }
+
+        debugLogger.finest("exit");
+        return true;
+    }
+
+    /**
+     * Indicates whether this response, and each of its registered extensions, can be initialised using
+     * {@link #fromXML(String, StreamingParser)}. Subclasses which support that override this, and must not claim
+     * support on behalf of their own subclasses.
+     */
+    protected boolean isStreamDecodable() {
+        return getClass() == Response.class && areExtensionsStreamDecodable();
+    }
+
+    protected final boolean areExtensionsStreamDecodable() {
+        for (ResponseExtension extension : extensions) {
+            if (!extension.isStreamDecodable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Receive the start of an element of the response XML. Subclasses which override this must invoke this method.
+     *
+     * @throws UnsupportedContentException if the element can only be interpreted using a DOM representation
+     */
+    protected void startElement(final StreamElement element) throws UnsupportedContentException {
+        final int depth = element.getDepth();
+        if (depth < 3 || !RESPONSE.equals(element.getLocalName(2))) {
+            return;
+        }
+
+        final String parent = element.getLocalName(3);
+        if (EXTENSION.equals(parent)) {
+            if (depth > 3) {
+                for (ResponseExtension extension : extensions) {
+                    extension.startElement(element);
+                }
+            }
+        } else if (depth == 3) {
+            if (RESULT.equals(parent)) {
+                streamedCode = element.getAttribute("code");
+                streamedMsg = null;
+            } else if (MSGQ.equals(parent)) {
+                final String msgQcount = element.getAttribute("count");
+                if (msgQcount != null && msgQcount.length() > 0) {
+                    msgCount = Integer.parseInt(msgQcount);
+                }
+                msgID = element.getAttribute("id");
+            }
+        } else if (depth == 4) {
+            final String name = element.getLocalName();
+            if (RESULT.equals(parent) && ("value".equals(name) || "extValue".equals(name))) {
+                throw new UnsupportedContentException(RESULT + "/" + name);
+            } else if (MSGQ.equals(parent) && "msg".equals(name)) {
+                msgLang = element.getAttribute("lang");
+            }
+        }
+    }
+
+    /**
+     * Receive the end of an element of the response XML. Subclasses which override this must invoke this method.
+     *
+     * @throws UnsupportedContentException if the element can only be interpreted using a DOM representation
+     */
+    protected void endElement(final StreamElement element) throws UnsupportedContentException {
+        final int depth = element.getDepth();
+        if (depth < 3 || !RESPONSE.equals(element.getLocalName(2))) {
+            return;
+        }
+
+        final String parent = element.getLocalName(3);
+        if (EXTENSION.equals(parent)) {
+            if (depth > 3) {
+                for (ResponseExtension extension : extensions) {
+                    extension.endElement(element);
+                }
+            }
+        } else if (depth == 3) {
+            if (RESULT.equals(parent)) {
+                final Result result = new Result(Integer.parseInt(streamedCode), streamedMsg, null, null, null);
+                streamedResults.add(result);
+                if (debugLogger.isLoggable(Level.FINER)) {
+                    debugLogger.finer(result.toString());
+                }
+            }
+        } else if (depth == 4) {
+            final String name = element.getLocalName();
+            if (RESULT.equals(parent)) {
+                if ("msg".equals(name)) {
+                    streamedMsg = element.getText();
+                }
+            } else if (MSGQ.equals(parent)) {
+                if ("qDate".equals(name)) {
+                    final String msgQqDate = element.getText();
+                    if (msgQqDate.length() > 0) {
+                        qDate = EPPDateFormatter.fromXSDateTime(msgQqDate);
+                    }
+                } else if ("msg".equals(name)) {
+                    msg = textValue(element);
+                }
+            } else if (TRID.equals(parent)) {
+                if ("clTRID".equals(name)) {
+                    clTRID = textValue(element);
+                } else if ("svTRID".equals(name)) {
+                    svTRID = textValue(element);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receive the end of the response XML, once every element has been received. Subclasses which override this must
+     * invoke this method first.
+     */
+    protected void endDocument() {
+        resultArray = streamedResults.toArray(new Result[streamedResults.size()]);
+        for (ResponseExtension extension : extensions) {
+            extension.endDocument();
+        }
+    }
+
+    /**
+     * Get the text of the given element as would be selected by the XPath expression {@code text()}.
+     *
+     * @return the element's text, or null if it has none
+     */
+    protected static String textValue(final StreamElement element) {
+        final String text = element.getText();
+        return text.length() == 0 ? null : text;
+    }
+
     public void registerExtension(final ResponseExtension extension) {
         extensions.add(extension);
     }
@@ -226,7 +442,13 @@ public class Response extends ReceiveSE {
     }
 
     public String getSourceXMLString() {
-        return xmlDoc.getSourceXMLString();
+        return xmlDoc == null ? sourceXML : xmlDoc.getSourceXMLString();
     }
 
+    /**
+     * An XML document to be presented to a StreamHandler by a StreamingParser.
+     */
+    private interface StreamSource {
+        void parse(StreamHandler handler) throws ParsingException, UnsupportedContentException;
+    }
 }
@@ -3,6 +3,8 @@ package godaddy.registry.jtoolkit2.se;
 import java.io.Serializable;
 import javax.xml.xpath.XPathExpressionException;
 
+import godaddy.registry.jtoolkit2.xml.StreamElement;
+import godaddy.registry.jtoolkit2.xml.UnsupportedContentException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
 
@@ -49,4 +51,39 @@ public abstract class ResponseExtension implements Serializable {
      * @return true if the extension has been initialised, else false.
      */
     public abstract boolean isInitialised();
+
+    /**
+     * Indicates whether this extension can be initialised in a single pass over the EPP response, through
+     * startElement, endElement and endDocument, as an alternative to fromXML. By default it cannot.
+     *
+     * @return true if this extension supports single-pass initialisation, else false.
+     */
+    protected boolean isStreamDecodable() {
+        return false;
+    }
+
+    /**
+     * Receive the start of an element within the extension element of the EPP response. This is invoked for every
+     * element within the extension element, including those belonging to other extensions.
+     *
+     * @param element the element, which must not be retained
+     * @throws UnsupportedContentException if the element can only be interpreted using fromXML
+     */
+    protected void startElement(StreamElement element) throws UnsupportedContentException {
+    }
+
+    /**
+     * Receive the end of an element within the extension element of the EPP response.
+     *
+     * @param element the element, which must not be retained
+     * @throws UnsupportedContentException if the element can only be interpreted using fromXML
+     */
+    protected void endElement(StreamElement element) throws UnsupportedContentException {
+    }
+
+    /**
+     * Receive the end of the EPP response, once every element has been received.
+     */
+    protected void endDocument() {
+    }
 }
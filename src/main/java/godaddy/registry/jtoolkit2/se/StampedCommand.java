@@ -0,0 +1,89 @@
+package godaddy.registry.jtoolkit2.se;
+
+import java.nio.charset.StandardCharsets;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+import godaddy.registry.jtoolkit2.xml.XmlOutputConfig;
+
+/**
+ * A wire-ready EPP command stamped from a {@link CommandTemplate}.  The
+ * command is held only in its encoded form, so that it may be written to a
+ * session without being serialized or validated again.
+ *
+ * @see godaddy.registry.jtoolkit2.session.Transaction#Transaction(StampedCommand, Response)
+ * @see godaddy.registry.jtoolkit2.session.Session#write(StampedCommand)
+ */
+public final class StampedCommand {
+    private final CommandType commandType;
+    private final String clTRID;
+    private final byte[] encoded;
+
+    StampedCommand(CommandType commandType, String clTRID, byte[] encoded) {
+        this.commandType = commandType;
+        this.clTRID = clTRID;
+        this.encoded = encoded;
+    }
+
+    public CommandType getCommandType() {
+        return commandType;
+    }
+
+    /**
+     * @return the client transaction identifier stamped into the command
+     */
+    public String getCLTRID() {
+        return clTRID;
+    }
+
+    /**
+     * Get the UTF-8 encoded XML of the command, without the RFC5734 length
+     * header.  The returned array is not copied and must not be modified.
+     */
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * @return the XML of the command
+     */
+    public String toXML() {
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get a {@link Command} whose type, clTRID and XML are those of this
+     * stamped command, for code which handles commands only in that form.
+     * The returned command cannot be extended.
+     */
+    public Command toCommand() {
+        return new CommandView(this);
+    }
+
+    private static final class CommandView extends Command {
+        private static final long serialVersionUID = -3466305216546413502L;
+
+        private final String xml;
+        private final String clTRID;
+
+        CommandView(StampedCommand stamped) {
+            super(stamped.getCommandType());
+            xml = stamped.toXML();
+            clTRID = stamped.getCLTRID();
+        }
+
+        @Override
+        protected String toXMLImpl(XmlOutputConfig xmlOutputConfig) {
+            return xml;
+        }
+
+        @Override
+        public String getCLTRID() {
+            return clTRID;
+        }
+
+        @Override
+        public int appendExtension(CommandExtension ce) {
+            throw new UnsupportedOperationException(ErrorPkg.getMessage("se.command.stamped.extension"));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package godaddy.registry.jtoolkit2.se;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import godaddy.registry.jtoolkit2.Timer;
+
+/**
+ * The default clTRID generator, which generates identifiers of the form
+ * <code>clID.yyyyMMdd.HHmmss.n</code>, where n counts up from zero for each
+ * client identifier.  Switching back to a client identifier which was used
+ * before resumes its count; only setting the current client identifier again
+ * restarts it.  Unlike the counter this replaces, n does not wrap, so
+ * identifiers are unique however many are generated in a second.
+ *
+ * <p>
+ * Generation takes no lock.  Each thread reserves a block of counter values at
+ * a time from the shared counter, so threads rarely contend for it, and the
+ * time part is formatted at most once per second.  Values are consecutive
+ * within a thread, but interleave in blocks between threads.
+ * </p>
+ */
+public final class StripedClTRIDGenerator implements ClTRIDGenerator {
+    private static final int BLOCK_SIZE = 64;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern(".yyyyMMdd.HHmmss.");
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+    private final ConcurrentMap<String, Sequence> sequences = new ConcurrentHashMap<>();
+    private volatile Sequence sequence = sequences.computeIfAbsent("", Sequence::new);
+
+    @Override
+    public synchronized void setClID(String clID) {
+        if (sequence.clID.equals(clID)) {
+            sequence = new Sequence(clID);
+            sequences.put(clID, sequence);
+        } else {
+            sequence = sequences.computeIfAbsent(clID, Sequence::new);
+        }
+    }
+
+    @Override
+    public String nextVal() {
+        Sequence current = sequence;
+        Block block = blocks.get();
+        if (block.sequence != current || block.next == block.end) {
+            block.sequence = current;
+            block.next = current.counter.getAndAdd(BLOCK_SIZE);
+            block.end = block.next + BLOCK_SIZE;
+        }
+        return current.getPrefix(Timer.now()) + block.next++;
+    }
+
+    /**
+     * The counter and cached prefix for one client identifier.
+     */
+    private static final class Sequence {
+        private final String clID;
+        private final AtomicLong counter = new AtomicLong();
+        private volatile Prefix prefix;
+
+        Sequence(String clID) {
+            this.clID = clID;
+        }
+
+        String getPrefix(long now) {
+            long second = Math.floorDiv(now, MILLIS_PER_SECOND);
+            Prefix cached = prefix;
+            if (cached == null || cached.second != second) {
+                String time = TIME_FORMAT.format(Instant.ofEpochMilli(now).atZone(ZoneId.systemDefault()));
+                cached = new Prefix(second, clID + time);
+                prefix = cached;
+            }
+            return cached.text;
+        }
+    }
+
+    private static final class Prefix {
+        private final long second;
+        private final String text;
+
+        Prefix(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+
+    /**
+     * The counter values reserved by one thread.
+     */
+    private static final class Block {
+        private Sequence sequence;
+        private long next;
+        private long end;
+    }
+}
@@ -26,6 +26,14 @@ public class CreditType {
         fee = new BigDecimal(node.getFirstChild().getNodeValue());
     }
 
+    CreditType(String description, String language, String fee) {
+        this.description = description == null ? "Default" : description;
+        if (language != null) {
+            this.language = language;
+        }
+        this.fee = new BigDecimal(fee);
+    }
+
     public String getDescription() {
         return description;
     }
@@ -2,10 +2,13 @@ package godaddy.registry.jtoolkit2.se.fee10;
 
 
 import static godaddy.registry.jtoolkit2.se.ExtendedObjectType.FEEV10;
-import static godaddy.registry.jtoolkit2.se.ReceiveSE.replaceIndex;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.xpath.XPathExpressionException;
 
+import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 import godaddy.registry.jtoolkit2.se.DomainCreateCommand;
@@ -13,6 +16,7 @@ import godaddy.registry.jtoolkit2.se.DomainCreateResponse;
 import godaddy.registry.jtoolkit2.se.Period;
 import godaddy.registry.jtoolkit2.se.PeriodUnit;
 import godaddy.registry.jtoolkit2.se.ResponseExtension;
+import godaddy.registry.jtoolkit2.xml.StreamElement;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
 /**
@@ -37,9 +41,9 @@ public class DomainCheckFeeResponseExtension extends ResponseExtension {
             + "/"  + FEE_CHECK_PREFIX + ":RESPONSE_TYPE", ResponseExtension.CHK_DATA);
 
     private static final String CHKDATA_CURRENCY_EXPR = CHKDATA_EXPR + "/" + FEE_CHECK_PREFIX + ":currency/text()";
-    private static final String CHKDATA_COUNT_EXPR = "count(" + CHKDATA_EXPR + "/*)";
-    private static final String CHKDATA_IND_EXPR = CHKDATA_EXPR + "/" + FEE_CHECK_PREFIX + ":cd[IDX]";
-    private static final String CHKDATA_COMMAND_IND_EXPR = "/" + FEE_CHECK_PREFIX + ":command[IDX]";
+    private static final String CD = "cd";
+    private static final String SELF_EXPR = ".";
+    private static final String CHKDATA_COMMAND_EXPR = "/" + FEE_CHECK_PREFIX + ":command";
     private static final String CHKDATA_DOMAIN_NAME_EXPR = "/" + FEE_CHECK_PREFIX + ":objID/text()";
     private static final String CHKDATA_DOMAIN_FEE_CLASS_EXPR = "/" + FEE_CHECK_PREFIX + ":class/text()";
     private static final String CHKDATA_DOMAIN_REASON_EXPR = "/" + FEE_CHECK_PREFIX + ":reason";
@@ -58,31 +62,49 @@ public class DomainCheckFeeResponseExtension extends ResponseExtension {
 
     private FeeCheckData feeCheckData;
 
+    private transient FeeCheckData streamedCheckData;
+    private transient int streamedChildCount, streamedCDCount;
+    private transient FeeCD streamedCD;
+    private transient FeeCheckCommand streamedCommand;
+    private transient String streamedUnit, streamedLang, streamedDescription, streamedRefundable,
+            streamedGracePeriod, streamedApplied;
+
     @Override
     public void fromXML(XMLDocument xmlDoc) throws XPathExpressionException {
         feeCheckData = new FeeCheckData();
         feeCheckData.setCurrency(parseTextValue(xmlDoc, CHKDATA_CURRENCY_EXPR));
-        int checkDataCount = xmlDoc.getNodeCount(CHKDATA_COUNT_EXPR);
+        // Each cd is queried relative to itself. As before, any chkData child other than a cd (the currency)
+        // yields a further, empty FeeCD.
+        List<Element> children = xmlDoc.getChildElements(CHKDATA_EXPR);
+        List<Element> cds = new ArrayList<Element>(children.size());
+        for (Element child : children) {
+            if (CD.equals(child.getLocalName())) {
+                cds.add(child);
+            }
+        }
+        int checkDataCount = children.size();
         for (int checkDataIndex = 0; checkDataIndex < checkDataCount; checkDataIndex++) {
             final FeeCD feeCD = new FeeCD();
-            parseFeeCDNode(xmlDoc, feeCD, checkDataIndex);
+            if (checkDataIndex < cds.size()) {
+                parseFeeCDNode(new XMLDocument(cds.get(checkDataIndex)), feeCD);
+            }
             feeCheckData.addCD(feeCD);
         }
         initialised = checkDataCount > 0;
     }
 
-    private void parseFeeCDNode(XMLDocument xmlDoc, FeeCD feeCD, int checkDataIndex) throws XPathExpressionException {
-        String cdQueryPath = replaceIndex(CHKDATA_IND_EXPR, checkDataIndex + 1);
+    private void parseFeeCDNode(XMLDocument cdDoc, FeeCD feeCD) throws XPathExpressionException {
+        feeCD.setObjId(parseTextValue(cdDoc, SELF_EXPR + CHKDATA_DOMAIN_NAME_EXPR));
+        feeCD.setFeeClass(parseTextValue(cdDoc, SELF_EXPR + CHKDATA_DOMAIN_FEE_CLASS_EXPR));
 
-        feeCD.setObjId(parseTextValue(xmlDoc, cdQueryPath + CHKDATA_DOMAIN_NAME_EXPR));
-        feeCD.setFeeClass(parseTextValue(xmlDoc, cdQueryPath + CHKDATA_DOMAIN_FEE_CLASS_EXPR));
-
-        int commandCount = xmlDoc.getNodeCount("count(" + cdQueryPath + "/" + FEE_CHECK_PREFIX + ":command)");
-        for (int i = 0; i < commandCount; i++) {
-            feeCD.addCommand(parseCommandNode(xmlDoc, cdQueryPath, i));
+        NodeList commands = cdDoc.getElements(SELF_EXPR + CHKDATA_COMMAND_EXPR);
+        if (commands != null) {
+            for (int i = 0; i < commands.getLength(); i++) {
+                feeCD.addCommand(parseCommandNode(new XMLDocument((Element) commands.item(i))));
+            }
         }
-        feeCD.setReason(parseReason(xmlDoc, cdQueryPath + CHKDATA_DOMAIN_REASON_EXPR));
-        if ("1".equals(parseTextValue(xmlDoc, cdQueryPath + "/@avail"))) {
+        feeCD.setReason(parseReason(cdDoc, SELF_EXPR + CHKDATA_DOMAIN_REASON_EXPR));
+        if ("1".equals(parseTextValue(cdDoc, SELF_EXPR + "/@avail"))) {
             feeCD.setAvailable(true);
         }
     }
@@ -91,19 +113,18 @@ public class DomainCheckFeeResponseExtension extends ResponseExtension {
         return xmlDoc.getNodeValue(queryPath);
     }
 
-    private FeeCheckCommand parseCommandNode(XMLDocument xmlDoc, String cdQueryPath, int commandIndex)
-            throws XPathExpressionException {
-        String commandQueryPath = cdQueryPath + replaceIndex(CHKDATA_COMMAND_IND_EXPR, commandIndex + 1);
+    private FeeCheckCommand parseCommandNode(XMLDocument commandDoc) throws XPathExpressionException {
+        String commandQueryPath = SELF_EXPR;
 
         final FeeCheckCommand command =
-                new FeeCheckCommand(xmlDoc.getNodeValue(commandQueryPath + CHKDATA_COMMAND_NAME_EXPR),
-                        xmlDoc.getNodeValue(commandQueryPath + CHKDATA_COMMAND_PHASE_EXPR),
-                        xmlDoc.getNodeValue(commandQueryPath + CHKDATA_COMMAND_SUBPHASE_EXPR));
-        command.setPeriod(parsePeriod(xmlDoc, commandQueryPath));
+                new FeeCheckCommand(commandDoc.getNodeValue(commandQueryPath + CHKDATA_COMMAND_NAME_EXPR),
+                        commandDoc.getNodeValue(commandQueryPath + CHKDATA_COMMAND_PHASE_EXPR),
+                        commandDoc.getNodeValue(commandQueryPath + CHKDATA_COMMAND_SUBPHASE_EXPR));
+        command.setPeriod(parsePeriod(commandDoc, commandQueryPath));
 
-        parseFeeNodes(xmlDoc, command, commandQueryPath + CHKDATA_FEE_NODES_EXPR);
-        parseCreditNodes(xmlDoc, command, commandQueryPath + CHKDATA_CREDIT_NODES_EXPR);
-        command.setReason(parseReason(xmlDoc, commandQueryPath + CHKDATA_COMMAND_REASON_EXPR));
+        parseFeeNodes(commandDoc, command, commandQueryPath + CHKDATA_FEE_NODES_EXPR);
+        parseCreditNodes(commandDoc, command, commandQueryPath + CHKDATA_CREDIT_NODES_EXPR);
+        command.setReason(parseReason(commandDoc, commandQueryPath + CHKDATA_COMMAND_REASON_EXPR));
 
         return command;
     }
@@ -143,6 +164,119 @@ public class DomainCheckFeeResponseExtension extends ResponseExtension {
         }
     }
 
+    @Override
+    protected boolean isStreamDecodable() {
+        return true;
+    }
+
+    @Override
+    protected void startElement(StreamElement element) {
+        if (!FEEV10.getURI().equals(element.getNamespaceURI(4)) || !CHK_DATA.equals(element.getLocalName(4))) {
+            return;
+        }
+
+        final String name = element.getLocalName();
+        switch (element.getDepth()) {
+        case 4:
+            streamedCheckData = new FeeCheckData();
+            streamedChildCount = 0;
+            streamedCDCount = 0;
+            break;
+        case 5:
+            streamedChildCount++;
+            if (CD.equals(name)) {
+                streamedCDCount++;
+                streamedCD = new FeeCD();
+                streamedCD.setAvailable("1".equals(element.getAttribute("avail")));
+            }
+            break;
+        case 6:
+            if ("command".equals(name)) {
+                streamedCommand = new FeeCheckCommand(element.getAttribute("name"), element.getAttribute("phase"),
+                        element.getAttribute("subphase"));
+            } else if ("reason".equals(name)) {
+                streamedLang = element.getAttribute("lang");
+            }
+            break;
+        case 7:
+            if ("period".equals(name)) {
+                streamedUnit = element.getAttribute("unit");
+            } else if ("reason".equals(name)) {
+                streamedLang = element.getAttribute("lang");
+            } else {
+                streamedDescription = element.getAttribute("description");
+                streamedLang = element.getAttribute("lang");
+                streamedRefundable = element.getAttribute("refundable");
+                streamedGracePeriod = element.getAttribute("grace-period");
+                streamedApplied = element.getAttribute("applied");
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    @Override
+    protected void endElement(StreamElement element) {
+        if (streamedCheckData == null || !FEEV10.getURI().equals(element.getNamespaceURI(4))
+                || !CHK_DATA.equals(element.getLocalName(4))) {
+            return;
+        }
+
+        final String name = element.getLocalName();
+        final String text = element.getText();
+        final String value = text.length() == 0 ? null : text;
+        switch (element.getDepth()) {
+        case 5:
+            if ("currency".equals(name)) {
+                streamedCheckData.setCurrency(value);
+            } else if (CD.equals(name)) {
+                streamedCheckData.addCD(streamedCD);
+            }
+            break;
+        case 6:
+            if ("objID".equals(name)) {
+                streamedCD.setObjId(value);
+            } else if ("class".equals(name)) {
+                streamedCD.setFeeClass(value);
+            } else if ("command".equals(name)) {
+                streamedCD.addCommand(streamedCommand);
+            } else if ("reason".equals(name)) {
+                streamedCD.setReason(value == null ? null : new ReasonType(streamedLang, value));
+            }
+            break;
+        case 7:
+            if ("period".equals(name)) {
+                streamedCommand.setPeriod(value == null ? null
+                        : new Period(PeriodUnit.value(streamedUnit), Integer.parseInt(value)));
+            } else if ("fee".equals(name)) {
+                streamedCommand.addFee(new FeeType(streamedDescription, streamedLang, streamedRefundable,
+                        streamedGracePeriod, streamedApplied, text));
+            } else if ("credit".equals(name)) {
+                streamedCommand.addCredit(new CreditType(streamedDescription, streamedLang, text));
+            } else if ("reason".equals(name)) {
+                streamedCommand.setReason(value == null ? null : new ReasonType(streamedLang, value));
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    @Override
+    protected void endDocument() {
+        if (streamedChildCount > streamedCDCount) {
+            // Consistent with fromXML, which reads a cd for each child of chkData, including currency.
+            streamedCheckData.addCD(new FeeCD());
+        }
+        feeCheckData = streamedCheckData == null ? new FeeCheckData() : streamedCheckData;
+        initialised = streamedChildCount > 0;
+        streamedCheckData = null;
+        streamedChildCount = 0;
+        streamedCD = null;
+        streamedCommand = null;
+    }
+
     @Override
     public boolean isInitialised() {
         return initialised;
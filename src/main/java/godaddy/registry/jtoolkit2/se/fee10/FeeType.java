@@ -41,6 +41,20 @@ public class FeeType {
         fee = new BigDecimal(node.getFirstChild().getNodeValue());
     }
 
+    FeeType(String description, String language, String refundable, String gracePeriod, String applied,
+            String fee) {
+        this.description = description == null ? "Default" : description;
+        if (language != null) {
+            this.language = language;
+        }
+        this.refundable = "1".equals(refundable);
+        this.gracePeriod = gracePeriod;
+        if (applied != null) {
+            this.applied = AppliedType.valueOf(applied);
+        }
+        this.fee = new BigDecimal(fee);
+    }
+
     public FeeType() {
     }
 
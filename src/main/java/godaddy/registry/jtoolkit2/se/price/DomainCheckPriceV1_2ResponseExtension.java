@@ -7,9 +7,12 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
+import godaddy.registry.jtoolkit2.se.ExtendedObjectType;
+
 import godaddy.registry.jtoolkit2.se.Period;
 import godaddy.registry.jtoolkit2.se.PeriodUnit;
 import godaddy.registry.jtoolkit2.se.ResponseExtension;
+import godaddy.registry.jtoolkit2.xml.StreamElement;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
 /**
@@ -47,6 +50,9 @@ public class DomainCheckPriceV1_2ResponseExtension extends ResponseExtension {
     private Map<Long, PriceInfo> priceIndexMap;
     private boolean initialised;
 
+    private transient int streamedCount;
+    private transient String streamedName, streamedCategory, streamedUnit, streamedPeriod, streamedCreatePrice,
+            streamedRenewPrice, streamedRestorePrice, streamedTransferPrice, streamedReason;
 
     public DomainCheckPriceV1_2ResponseExtension() {
         priceNameMap = new HashMap<String, PriceInfo>();
@@ -93,6 +99,86 @@ public class DomainCheckPriceV1_2ResponseExtension extends ResponseExtension {
         initialised = (priceCount > 0);
     }
 
+    @Override
+    protected boolean isStreamDecodable() {
+        return true;
+    }
+
+    @Override
+    protected void startElement(StreamElement element) {
+        if (!isChkData(element)) {
+            return;
+        }
+
+        if (element.getDepth() == 5) {
+            streamedCount++;
+            streamedName = null;
+            streamedCategory = null;
+            streamedUnit = null;
+            streamedPeriod = null;
+            streamedCreatePrice = null;
+            streamedRenewPrice = null;
+            streamedRestorePrice = null;
+            streamedTransferPrice = null;
+            streamedReason = null;
+        } else if (element.getDepth() == 6 && "period".equals(element.getLocalName())) {
+            streamedUnit = element.getAttribute("unit");
+        }
+    }
+
+    @Override
+    protected void endElement(StreamElement element) {
+        if (!isChkData(element)) {
+            return;
+        }
+
+        if (element.getDepth() == 5) {
+            Period period = streamedPeriod == null ? null
+                    : new Period(PeriodUnit.value(streamedUnit), Integer.parseInt(streamedPeriod));
+            PriceInfo priceInfo = new PriceInfo(streamedCategory, period, toPrice(streamedCreatePrice),
+                    toPrice(streamedRenewPrice), toPrice(streamedRestorePrice), toPrice(streamedTransferPrice),
+                    streamedReason);
+            priceIndexMap.put((long) streamedCount, priceInfo);
+            priceNameMap.put(streamedName, priceInfo);
+        } else if (element.getDepth() == 6) {
+            final String name = element.getLocalName();
+            final String text = element.getText();
+            final String value = text.length() == 0 ? null : text;
+            if ("name".equals(name)) {
+                streamedName = value;
+            } else if ("category".equals(name)) {
+                streamedCategory = text;
+            } else if ("period".equals(name)) {
+                streamedPeriod = value;
+            } else if ("createPrice".equals(name)) {
+                streamedCreatePrice = value;
+            } else if ("renewPrice".equals(name)) {
+                streamedRenewPrice = value;
+            } else if ("restorePrice".equals(name)) {
+                streamedRestorePrice = value;
+            } else if ("transferPrice".equals(name)) {
+                streamedTransferPrice = value;
+            } else if ("reason".equals(name)) {
+                streamedReason = value;
+            }
+        }
+    }
+
+    @Override
+    protected void endDocument() {
+        initialised = streamedCount > 0;
+        streamedCount = 0;
+    }
+
+    private static boolean isChkData(StreamElement element) {
+        return ExtendedObjectType.PRICEV12.getURI().equals(element.getNamespaceURI(4))
+                && CHK_DATA.equals(element.getLocalName(4));
+    }
+
+    private static BigDecimal toPrice(String value) {
+        return value == null ? null : BigDecimal.valueOf(Double.parseDouble(value));
+    }
+
     @Override
     public boolean isInitialised() {
         return initialised;
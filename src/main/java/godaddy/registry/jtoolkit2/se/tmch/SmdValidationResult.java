@@ -0,0 +1,35 @@
+package godaddy.registry.jtoolkit2.se.tmch;
+
+/**
+ * The outcome of validating one of the SMDs passed to
+ * {@link TmchValidatingParser#validateAndParseEncodedSignedMarkData(java.util.List, java.util.Date,
+ * java.util.concurrent.Executor)}: either the parsed SignedMarkData, or the reason that the SMD is not valid.
+ */
+public final class SmdValidationResult {
+    private final SignedMarkData signedMarkData;
+    private final Exception failure;
+
+    SmdValidationResult(SignedMarkData signedMarkData, Exception failure) {
+        this.signedMarkData = signedMarkData;
+        this.failure = failure;
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+
+    /**
+     * The parsed SignedMarkData, or null if the SMD is not valid.
+     */
+    public SignedMarkData getSignedMarkData() {
+        return signedMarkData;
+    }
+
+    /**
+     * The exception which validation of the SMD threw, such as an {@link
+     * godaddy.registry.jtoolkit2.se.tmch.exception.ExpiredSignedMarkDataException}, or null if the SMD is valid.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+}
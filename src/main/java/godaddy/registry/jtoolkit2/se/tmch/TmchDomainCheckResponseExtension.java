@@ -1,7 +1,11 @@
 package godaddy.registry.jtoolkit2.se.tmch;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.xpath.XPathExpressionException;
 
@@ -113,4 +117,18 @@ public class TmchDomainCheckResponseExtension extends ResponseExtension {
         ClaimsInfo claimsInfo = claimsIndexMap.get(index);
         return claimsInfo == null ? null : claimsInfo.getClaimsKey();
     }
+
+    /**
+     * @return the distinct claims keys of the domains checked, in the order of the domains in the response
+     */
+    public final List<String> getClaimsKeys() {
+        Set<String> claimsKeys = new LinkedHashSet<String>();
+        for (long index = 1; index <= claimsIndexMap.size(); index++) {
+            String claimsKey = getClaimsKey(index);
+            if (claimsKey != null) {
+                claimsKeys.add(claimsKey);
+            }
+        }
+        return new ArrayList<String>(claimsKeys);
+    }
 }
@@ -0,0 +1,303 @@
+package godaddy.registry.jtoolkit2.se.tmch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+
+/**
+ * Holds the TMCH Certificate Revocation List and SMD Revocation List against which a {@link TmchValidatingParser}
+ * checks each SMD.  Revoked SMD identifiers are hashed, so checking an SMD takes constant time however long the
+ * SMDRL grows.
+ *
+ * <p>A store loaded from files may be reloaded whenever a newer version of either file is published, without
+ * interrupting validation: a new CRL replaces the old atomically, and as the SMDRL only ever has entries appended,
+ * reading resumes at the last entry previously read, so only the lines added since are read and parsed.  Should an
+ * SMDRL be found not to extend the previously loaded list, it is loaded in full and then replaces the old list
+ * atomically.</p>
+ */
+public class TmchRevocationStore {
+    private static final Logger LOGGER = Logger.getLogger(TmchRevocationStore.class.getPackage().getName()
+            + ".debug");
+
+    /**
+     * The state of the SMD Revocation List.  Revoked identifiers are added to the set in place as the list is
+     * extended, so a reload never holds two copies of a long list.
+     */
+    private static final class SmdRevocationList {
+        final Set<String> smdIds;
+        /// The byte offset of the last entry in the file, or -1 if none has been read from a file.
+        final long lastEntryOffset;
+        final String lastEntry;
+
+        SmdRevocationList(Set<String> smdIds, long lastEntryOffset, String lastEntry) {
+            this.smdIds = smdIds;
+            this.lastEntryOffset = lastEntryOffset;
+            this.lastEntry = lastEntry;
+        }
+    }
+
+    /**
+     * Reads the US-ASCII lines of a file from a given byte offset, keeping track of the offset of each line.  Lines
+     * are terminated by a line feed, optionally preceded by a carriage return.
+     */
+    private static final class SmdRevocationListReader implements Closeable {
+        private static final int BUFFER_SIZE = 8192;
+
+        private final FileInputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int next;
+        private int limit;
+        private long position;
+
+        SmdRevocationListReader(File file, long offset) throws IOException {
+            in = new FileInputStream(file);
+            try {
+                in.getChannel().position(offset);
+            } catch (IOException ioe) {
+                in.close();
+                throw ioe;
+            }
+            position = offset;
+        }
+
+        /**
+         * The byte offset of the next line to be read.
+         */
+        long getPosition() {
+            return position;
+        }
+
+        String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                if (next == limit) {
+                    limit = in.read(buffer);
+                    next = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return line.length() == 0 ? null : line.toString();
+                    }
+                }
+                byte b = buffer[next++];
+                position++;
+                if (b == '\n') {
+                    int length = line.length();
+                    if (length > 0 && line.charAt(length - 1) == '\r') {
+                        line.setLength(length - 1);
+                    }
+                    return line.toString();
+                }
+                line.append((char) b);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private final File certificateRevocationListFile;
+    private final File smdRevocationListFile;
+
+    private volatile CRL certificateRevocationList;
+    private volatile SmdRevocationList smdRevocationList;
+
+    private long crlLastModified;
+    private long crlLength;
+    private long smdrlLastModified;
+    private long smdrlLength;
+
+    /**
+     * Load a store from the given files, which may later be reloaded using {@link #reload()}.
+     *
+     * @param certificateRevocationList the Certificate Revocation List file
+     * @param smdRevocationList the SMD Revocation List file
+     * @throws CertificateException if an exception occurs while processing the CRL
+     * @throws CRLException if an exception occurs while processing the CRL
+     * @throws IOException if either file cannot be read
+     */
+    public TmchRevocationStore(File certificateRevocationList, File smdRevocationList)
+            throws CertificateException, CRLException, IOException {
+        certificateRevocationListFile = certificateRevocationList;
+        smdRevocationListFile = smdRevocationList;
+        reloadCertificateRevocationList();
+        reloadSmdRevocationList();
+    }
+
+    /**
+     * Create a store holding the given CRL and the SMDRL read from the given reader, which cannot be reloaded.
+     */
+    TmchRevocationStore(CRL certificateRevocationList, BufferedReader smdRevocationList) throws IOException {
+        certificateRevocationListFile = null;
+        smdRevocationListFile = null;
+        this.certificateRevocationList = certificateRevocationList;
+        this.smdRevocationList = readSmdRevocationList(smdRevocationList);
+    }
+
+    public boolean isSmdRevoked(String smdId) {
+        return smdId != null && smdRevocationList.smdIds.contains(smdId);
+    }
+
+    public boolean isCertificateRevoked(Certificate certificate) {
+        return certificateRevocationList.isRevoked(certificate);
+    }
+
+    /**
+     * The number of SMDs listed by the SMD Revocation List.
+     */
+    public int getSmdRevocationListSize() {
+        return smdRevocationList.smdIds.size();
+    }
+
+    /**
+     * Reload either file if it has been modified since it was last loaded.  If a file cannot be loaded, the
+     * previously loaded version remains in use.
+     *
+     * @return whether either file was reloaded
+     * @throws CertificateException if an exception occurs while processing the CRL
+     * @throws CRLException if an exception occurs while processing the CRL
+     * @throws IOException if either file cannot be read
+     */
+    public synchronized boolean reload() throws CertificateException, CRLException, IOException {
+        if (smdRevocationListFile == null) {
+            return false;
+        }
+
+        boolean reloaded = false;
+        if (certificateRevocationListFile.lastModified() != crlLastModified
+                || certificateRevocationListFile.length() != crlLength) {
+            reloadCertificateRevocationList();
+            reloaded = true;
+        }
+        if (smdRevocationListFile.lastModified() != smdrlLastModified
+                || smdRevocationListFile.length() != smdrlLength) {
+            reloadSmdRevocationList();
+            reloaded = true;
+        }
+        return reloaded;
+    }
+
+    /**
+     * Check for newer files periodically using the given executor, as described for {@link #reload()}.  Failures to
+     * reload are logged, and the files checked again after the next period.
+     *
+     * @return the future by which the periodic reload may be cancelled
+     */
+    public ScheduledFuture<?> scheduleReload(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, ErrorPkg.getMessage("tmch.revocation.reload.failed"), e);
+            }
+        }, period, period, unit);
+    }
+
+    private void reloadCertificateRevocationList() throws CertificateException, CRLException, IOException {
+        long lastModified = certificateRevocationListFile.lastModified();
+        long length = certificateRevocationListFile.length();
+        try (InputStream in = new FileInputStream(certificateRevocationListFile)) {
+            certificateRevocationList = CertificateFactory.getInstance("X.509").generateCRL(in);
+        }
+        crlLastModified = lastModified;
+        crlLength = length;
+    }
+
+    private void reloadSmdRevocationList() throws IOException {
+        long lastModified = smdRevocationListFile.lastModified();
+        long length = smdRevocationListFile.length();
+        SmdRevocationList previous = smdRevocationList;
+        SmdRevocationList list = null;
+        if (previous != null && previous.lastEntry != null) {
+            list = extendSmdRevocationList(previous);
+            if (list == null) {
+                LOGGER.info(ErrorPkg.getMessage("tmch.smdrl.replaced"));
+            }
+        }
+        if (list == null) {
+            try (SmdRevocationListReader reader = new SmdRevocationListReader(smdRevocationListFile, 0L)) {
+                // The first line gives the list's version and date of generation, and the second names the columns.
+                reader.readLine();
+                reader.readLine();
+                list = readEntries(reader, ConcurrentHashMap.<String>newKeySet(), -1L, null);
+            }
+        }
+        smdRevocationList = list;
+        smdrlLastModified = lastModified;
+        smdrlLength = length;
+    }
+
+    /**
+     * Extend the given list with the entries which follow its last entry in the file.
+     *
+     * @return the list extended, or null if the file no longer has the list's last entry at the same offset
+     */
+    private SmdRevocationList extendSmdRevocationList(SmdRevocationList previous) throws IOException {
+        try (SmdRevocationListReader reader = new SmdRevocationListReader(smdRevocationListFile,
+                previous.lastEntryOffset)) {
+            if (!previous.lastEntry.equals(reader.readLine())) {
+                return null;
+            }
+            return readEntries(reader, previous.smdIds, previous.lastEntryOffset, previous.lastEntry);
+        }
+    }
+
+    /**
+     * Add the entries read from the given reader to the given set of revoked identifiers.
+     */
+    private static SmdRevocationList readEntries(SmdRevocationListReader reader, Set<String> smdIds,
+            long lastEntryOffset, String lastEntry) throws IOException {
+        long offset = reader.getPosition();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                addEntry(smdIds, line);
+                lastEntryOffset = offset;
+                lastEntry = line;
+            }
+            offset = reader.getPosition();
+        }
+        return new SmdRevocationList(smdIds, lastEntryOffset, lastEntry);
+    }
+
+    /**
+     * Read an SMD Revocation List in full from the given reader.  The list read cannot be extended.
+     */
+    private static SmdRevocationList readSmdRevocationList(BufferedReader reader) throws IOException {
+        // The first line gives the list's version and date of generation, and the second names the columns.
+        reader.readLine();
+        reader.readLine();
+
+        Set<String> smdIds = ConcurrentHashMap.newKeySet();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                addEntry(smdIds, line);
+            }
+        }
+        return new SmdRevocationList(smdIds, -1L, null);
+    }
+
+    private static void addEntry(Set<String> smdIds, String line) {
+        int comma = line.indexOf(',');
+        smdIds.add(comma < 0 ? line : line.substring(0, comma));
+    }
+}
@@ -27,6 +27,10 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import javax.xml.bind.DatatypeConverter;
 import javax.xml.crypto.MarshalException;
 import javax.xml.crypto.dsig.XMLSignature;
@@ -58,6 +62,7 @@ import godaddy.registry.jtoolkit2.xml.ParsingException;
 
 /**
  * This defines the operations to facilitate validation and parsing of signed mark data for TMCH.
+ * A TmchValidatingParser is thread-safe, so a single instance may validate many SMDs concurrently.
  */
 public class TmchValidatingParser extends TmchXmlParser {
 
@@ -76,14 +81,18 @@ public class TmchValidatingParser extends TmchXmlParser {
             + DS_BASE_EXPR + "Signature" + DS_BASE_EXPR + "KeyInfo" + DS_BASE_EXPR + "X509Data"
             + DS_BASE_EXPR + "X509Certificate";
 
-    private final List<String> smdrlIdList = new ArrayList<String>();
+    // Bounds the cache of validated certificates, although few certificates should ever be issued by the TMCH CA.
+    private static final int MAX_VALIDATED_CERTIFICATES = 256;
 
-    private final CRL certRevocationList;
+    private final TmchRevocationStore revocationStore;
     private final CertificateFactory certificateFactory;
     private final KeyStore icannCertificateTrustStore;
 
-    private XPath xPath;
-    private final XMLSignatureFactory xmlSignatureFactory;
+    private final ThreadLocal<XPath> xPaths = new ThreadLocal<XPath>();
+    private final ThreadLocal<XMLSignatureFactory> xmlSignatureFactories = new ThreadLocal<XMLSignatureFactory>();
+    private final ThreadLocal<CertPathValidator> certPathValidators = new ThreadLocal<CertPathValidator>();
+    private volatile PKIXParameters pkixParameters;
+    private final Set<X509Certificate> validatedCertificates = ConcurrentHashMap.newKeySet();
 
     /**
      * Instantiate a TmchValidatingParser which validates and parses an encoded SMD.
@@ -102,31 +111,41 @@ public class TmchValidatingParser extends TmchXmlParser {
             throws CertificateException, CRLException, IOException, KeyStoreException, NoSuchAlgorithmException {
 
         certificateFactory = CertificateFactory.getInstance("X.509");
-        certRevocationList = certificateFactory.generateCRL(certificateRevocationList);
+        CRL certRevocationList = certificateFactory.generateCRL(certificateRevocationList);
+        revocationStore = new TmchRevocationStore(certRevocationList,
+                new BufferedReader(new InputStreamReader(smdRevocationList)));
 
-        xPath = XPathFactory.newInstance().newXPath();
-        xPath.setNamespaceContext(new NamespaceContextImpl());
-
-        readSmdRevocationList(smdRevocationList);
+        icannCertificateTrustStore = loadTrustStore(tmchIssuingAuthorityCert);
+    }
 
-        Certificate icannTmchCACertificate = certificateFactory.generateCertificate(tmchIssuingAuthorityCert);
+    /**
+     * Instantiate a TmchValidatingParser which validates and parses an encoded SMD, checking revocation against the
+     * given store.  The store may be reloaded while the parser is in use.
+     *
+     * @param revocationStore the Certificate and SMD Revocation Lists
+     * @param tmchIssuingAuthorityCert the SMD Issuing Authority Certificate
+     * @throws CertificateException if an exception occurs while processing Issuing Authority certificate
+     * @throws IOException if an exception occurs while processing Issuing Authority certificate
+     * @throws KeyStoreException if an exception occurs while processing Issuing Authority certificate
+     * @throws NoSuchAlgorithmException if an exception occurs while processing Issuing Authority certificate
+     */
+    public TmchValidatingParser(TmchRevocationStore revocationStore, InputStream tmchIssuingAuthorityCert)
+            throws CertificateException, IOException, KeyStoreException, NoSuchAlgorithmException {
 
-        icannCertificateTrustStore = KeyStore.getInstance(KeyStore.getDefaultType());
-        icannCertificateTrustStore.load(null, null);
-        icannCertificateTrustStore.setCertificateEntry("tmchCA", icannTmchCACertificate);
+        certificateFactory = CertificateFactory.getInstance("X.509");
+        this.revocationStore = revocationStore;
 
-        xmlSignatureFactory = XMLSignatureFactory.getInstance();
+        icannCertificateTrustStore = loadTrustStore(tmchIssuingAuthorityCert);
     }
 
-    private void readSmdRevocationList(InputStream smdRevocationList) throws IOException {
-        BufferedReader smdrlReader = new BufferedReader(new InputStreamReader(smdRevocationList));
-        smdrlReader.readLine();
-        smdrlReader.readLine();
-        String line;
-        while ((line = smdrlReader.readLine()) != null) {
-            String[] smdrlTokens = line.split(",");
-            smdrlIdList.add(smdrlTokens[0]);
-        }
+    private KeyStore loadTrustStore(InputStream tmchIssuingAuthorityCert)
+            throws CertificateException, IOException, KeyStoreException, NoSuchAlgorithmException {
+        Certificate icannTmchCACertificate = certificateFactory.generateCertificate(tmchIssuingAuthorityCert);
+
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("tmchCA", icannTmchCACertificate);
+        return trustStore;
     }
 
     /**
@@ -176,6 +195,40 @@ public class TmchValidatingParser extends TmchXmlParser {
         return validateEncodedSignedMarkDataForDate(encodedSignedMarkData, new Date());
     }
 
+    /**
+     * Decodes and validates each of the provided base64-encoded SMDs based on the provided date, validating them
+     * concurrently on the given executor.  Each SMD which passes validation is parsed into a SignedMarkData bean.
+     *
+     * @param encodedSignedMarkData Input streams to the base64-encoded SMDs to be validated
+     * @param dateForValidation The date against which the input SMDs need to be validated against
+     * @param executor The executor on which the SMDs are validated
+     * @return the result of validating each SMD, in the order of the input streams, which holds either the parsed
+     * SignedMarkData or the exception which the single SMD validation method would have thrown
+     */
+    public List<SmdValidationResult> validateAndParseEncodedSignedMarkData(
+            List<? extends InputStream> encodedSignedMarkData, final Date dateForValidation, Executor executor) {
+        List<CompletableFuture<SmdValidationResult>> futures =
+                new ArrayList<CompletableFuture<SmdValidationResult>>(encodedSignedMarkData.size());
+        for (final InputStream encoded : encodedSignedMarkData) {
+            futures.add(CompletableFuture.supplyAsync(() -> validate(encoded, dateForValidation), executor));
+        }
+
+        List<SmdValidationResult> results = new ArrayList<SmdValidationResult>(futures.size());
+        for (CompletableFuture<SmdValidationResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private SmdValidationResult validate(InputStream encodedSignedMarkData, Date dateForValidation) {
+        try {
+            return new SmdValidationResult(
+                    validateEncodedSignedMarkDataForDate(encodedSignedMarkData, dateForValidation), null);
+        } catch (Exception e) {
+            return new SmdValidationResult(null, e);
+        }
+    }
+
     private SignedMarkData validateEncodedSignedMarkDataForDate(InputStream encodedSignedMarkData,
                                                                 Date dateForValidation) throws
             IOException, DecoderException, ParserConfigurationException, XPathExpressionException,
@@ -191,16 +244,32 @@ public class TmchValidatingParser extends TmchXmlParser {
             throw new InvalidSignedMarkDataException(e);
         }
 
-        Node signatureNode = extractSignatureNode(document);
-        X509Certificate x509Certificate = extractCertificateFromDocument(document);
+        // XPath instances are not thread-safe.
+        XPath xPath = xPaths.get();
+        if (xPath == null) {
+            xPath = XPathFactory.newInstance().newXPath();
+            xPath.setNamespaceContext(new NamespaceContextImpl());
+            xPaths.set(xPath);
+        }
+
+        Node signatureNode = (Node) xPath.evaluate(SMD_DS_SIGNATURE_EXPR, document, XPathConstants.NODE);
+        String certificateString = xPath.evaluate(CERTIFICATE_XPATH_EXPR, document);
+        String smdId = xPath.evaluate(SMD_ID_EXPR, document);
+        String notBefore = xPath.evaluate(SMD_NOT_BEFORE_EXPR, document);
+        String notAfter = xPath.evaluate(SMD_NOT_AFTER_EXPR, document);
+
+        if (signatureNode == null) {
+            throw new SmdSignatureMissingException();
+        }
+        X509Certificate x509Certificate = generateCertificate(certificateString);
 
         validateSignature(signatureNode, x509Certificate);
         assertCertificateIsValid(dateForValidation, x509Certificate);
         assertCertificateNotRevoked(x509Certificate);
-        assertSmdNotRevoked(document);
+        assertSmdNotRevoked(smdId);
 
-        Calendar notBeforeDate = DatatypeConverter.parseDate(xPath.evaluate(SMD_NOT_BEFORE_EXPR, document));
-        Calendar notAfterDate = DatatypeConverter.parseDate(xPath.evaluate(SMD_NOT_AFTER_EXPR, document));
+        Calendar notBeforeDate = DatatypeConverter.parseDate(notBefore);
+        Calendar notAfterDate = DatatypeConverter.parseDate(notAfter);
 
         if (dateForValidation.before(notBeforeDate.getTime())) {
             throw new NotYetValidSignedMarkDataException(notBeforeDate.getTime());
@@ -210,30 +279,26 @@ public class TmchValidatingParser extends TmchXmlParser {
             throw new ExpiredSignedMarkDataException(notAfterDate.getTime());
         }
 
-        return parseDecodedSignedMarkData(new ByteArrayInputStream(dataBytes));
+        return toSignedMarkData(document);
     }
 
-    private void assertSmdNotRevoked(Document document) throws XPathExpressionException {
-        String smdId = xPath.evaluate(SMD_ID_EXPR, document);
-
-        if (smdrlIdList.contains(smdId)) {
+    private void assertSmdNotRevoked(String smdId) {
+        if (revocationStore.isSmdRevoked(smdId)) {
             throw new TmchSmdRevokedException(smdId);
         }
     }
 
-    private Node extractSignatureNode(Document document) throws XPathExpressionException {
-        Node signatureNode = (Node) xPath.evaluate(SMD_DS_SIGNATURE_EXPR, document, XPathConstants.NODE);
-
-        if (signatureNode == null) {
-            throw new SmdSignatureMissingException();
-        }
-        return signatureNode;
-    }
-
     private void validateSignature(Node signatureNode, X509Certificate x509Certificate) {
         DOMValidateContext validateContext = new DOMValidateContext(x509Certificate.getPublicKey(), signatureNode);
         signatureNode.getOwnerDocument().getDocumentElement().setIdAttribute("id", true);
 
+        // XMLSignatureFactory instances are not thread-safe.
+        XMLSignatureFactory xmlSignatureFactory = xmlSignatureFactories.get();
+        if (xmlSignatureFactory == null) {
+            xmlSignatureFactory = XMLSignatureFactory.getInstance();
+            xmlSignatureFactories.set(xmlSignatureFactory);
+        }
+
         XMLSignature xmlSignature;
         try {
             xmlSignature = xmlSignatureFactory.unmarshalXMLSignature(validateContext);
@@ -255,29 +320,54 @@ public class TmchValidatingParser extends TmchXmlParser {
             CertificateException,
             KeyStoreException,
             InvalidAlgorithmParameterException {
-        CertPathValidator certPathValidator = CertPathValidator.getInstance("PKIX");
+        // With revocation checking disabled and a fixed trust anchor, the outcome of validating a certificate's path
+        // depends on the date only through the certificate's validity period.
+        if (validatedCertificates.contains(x509Certificate) && !currentDate.before(x509Certificate.getNotBefore())
+                && !currentDate.after(x509Certificate.getNotAfter())) {
+            return;
+        }
+
+        CertPathValidator certPathValidator = certPathValidators.get();
+        if (certPathValidator == null) {
+            certPathValidator = CertPathValidator.getInstance("PKIX");
+            certPathValidators.set(certPathValidator);
+        }
 
         CertPath certPath = certificateFactory.generateCertPath(Arrays.asList(x509Certificate));
-        PKIXParameters pkixParameters = new PKIXParameters(icannCertificateTrustStore);
-        pkixParameters.setRevocationEnabled(false);
-        pkixParameters.setDate(currentDate);
+        PKIXParameters parameters = (PKIXParameters) getPkixParameters().clone();
+        parameters.setDate(currentDate);
         try {
-            certPathValidator.validate(certPath, pkixParameters);
+            certPathValidator.validate(certPath, parameters);
         } catch (CertPathValidatorException e) {
             throw new TmchInvalidCertificateException(x509Certificate, e);
         }
+
+        if (validatedCertificates.size() >= MAX_VALIDATED_CERTIFICATES) {
+            validatedCertificates.clear();
+        }
+        validatedCertificates.add(x509Certificate);
+    }
+
+    private PKIXParameters getPkixParameters() throws KeyStoreException, InvalidAlgorithmParameterException {
+        // Initialisation may race, but the parameters are never modified once published.
+        PKIXParameters parameters = pkixParameters;
+        if (parameters == null) {
+            parameters = new PKIXParameters(icannCertificateTrustStore);
+            parameters.setRevocationEnabled(false);
+            pkixParameters = parameters;
+        }
+        return parameters;
     }
 
     private X509Certificate assertCertificateNotRevoked(X509Certificate x509Certificate) {
 
-        if (certRevocationList.isRevoked(x509Certificate)) {
+        if (revocationStore.isCertificateRevoked(x509Certificate)) {
             throw new TmchCertificateRevokedException(x509Certificate);
         }
         return x509Certificate;
     }
 
-    private X509Certificate extractCertificateFromDocument(Document document) throws XPathExpressionException {
-        String certificateString = xPath.evaluate(CERTIFICATE_XPATH_EXPR, document);
+    private X509Certificate generateCertificate(String certificateString) {
         String certificateEntireContent = CERTIFICATE_BEGIN_DELIMITER + certificateString + CERTIFICATE_END_DELIMITER;
 
         try {
@@ -25,6 +25,19 @@ public class TmchXmlParser {
 
     public static final int BUFFER_SIZE = 1024;
 
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY;
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS = new ThreadLocal<DocumentBuilder>();
+
+    static {
+        DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+        DOCUMENT_BUILDER_FACTORY.setNamespaceAware(true);
+        try {
+            DOCUMENT_BUILDER_FACTORY.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (ParserConfigurationException pce) {
+            throw new ExceptionInInitializerError(pce);
+        }
+    }
+
     /**
      * Extracts the base64 encoded part from the given SMD file input stream,
      * part that is between delimiters "-----BEGIN ENCODED SMD-----\n" and "-----END ENCODED SMD-----"
@@ -73,7 +86,13 @@ public class TmchXmlParser {
      */
     public static SignedMarkData parseDecodedSignedMarkData(final InputStream decodedSignedMarkData) throws
             IOException, ParserConfigurationException, SAXException {
-        Document document = loadSmdXmlIntoDocument(decodedSignedMarkData);
+        return toSignedMarkData(loadSmdXmlIntoDocument(decodedSignedMarkData));
+    }
+
+    /**
+     * Load the SignedMarkData bean from an SMD document which has already been parsed.
+     */
+    protected static SignedMarkData toSignedMarkData(Document document) {
         SignedMarkData signedMarkData = new SignedMarkData();
         signedMarkData.fromXML(new XMLDocument(document.getDocumentElement()));
 
@@ -82,13 +101,20 @@ public class TmchXmlParser {
 
     protected static Document loadSmdXmlIntoDocument(InputStream decodedSignedMarkData) throws
             ParserConfigurationException, IOException, SAXException {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
-        documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-
-        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        DocumentBuilder documentBuilder = DOCUMENT_BUILDERS.get();
+        if (documentBuilder == null) {
+            // DocumentBuilderFactory is not thread-safe.
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                documentBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            DOCUMENT_BUILDERS.set(documentBuilder);
+        }
 
-         return documentBuilder.parse(decodedSignedMarkData);
+        try {
+            return documentBuilder.parse(decodedSignedMarkData);
+        } finally {
+            documentBuilder.reset();
+        }
     }
 
     private static String loadInputStreamIntoString(InputStream inputStream) throws IOException {
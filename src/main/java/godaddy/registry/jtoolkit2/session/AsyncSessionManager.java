@@ -0,0 +1,41 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A SessionManager which can also execute Transactions without blocking the calling thread. Transactions submitted
+ * through <code>executeAsync</code> are queued and processed by the SessionManager with the same session selection,
+ * rate limiting and retry behaviour as the corresponding blocking <code>execute</code> method. The returned future is
+ * completed on the executor supplied by the caller, so application callbacks never run on the toolkit's I/O threads.
+ *
+ * <p>The default SessionManager implementation, {@link SessionManagerImpl}, implements this interface, so the instance
+ * returned by {@link SessionManagerFactory#newInstance(SessionManagerProperties)} may be cast to AsyncSessionManager
+ * unless an alternative SessionManager class has been configured.</p>
+ */
+public interface AsyncSessionManager extends SessionManager {
+    /**
+     * Queue a single Transaction for execution. The future completes normally with the given Transaction once its
+     * response has been received, or exceptionally with the exception which the blocking
+     * {@link SessionManager#execute(Transaction)} would have thrown. In the exceptional case the Transaction's state is
+     * also updated: RETRY if every attempt failed due to an I/O error, or FATAL_ERROR if it should not be re-attempted.
+     * A command failure reported by the server leaves the Transaction PROCESSED, so its response may be inspected.
+     *
+     * @param tx the Transaction to be executed
+     * @param completionExecutor the executor on which the returned future is completed
+     * @return a future completed with <code>tx</code>
+     */
+    CompletableFuture<Transaction> executeAsync(Transaction tx, Executor completionExecutor);
+
+    /**
+     * Queue a sequence of Transactions for pipelined execution over a single session, as described for
+     * {@link SessionManager#execute(Transaction[])}. The future completes normally with the given array once every
+     * eligible Transaction has been attempted; the state of each Transaction then indicates its outcome. It completes
+     * exceptionally only if the sequence could not be attempted at all.
+     *
+     * @param txs the Transactions to be executed
+     * @param completionExecutor the executor on which the returned future is completed
+     * @return a future completed with <code>txs</code>
+     */
+    CompletableFuture<Transaction[]> executeAsync(Transaction[] txs, Executor completionExecutor);
+}
@@ -0,0 +1,96 @@
+package godaddy.registry.jtoolkit2.session;
+
+import godaddy.registry.jtoolkit2.se.DomainCheckResponse;
+import godaddy.registry.jtoolkit2.se.ResponseExtension;
+
+/**
+ * The availability of one domain name checked by a {@link BulkDomainChecker}.
+ * The response to the check command which included the name, and the
+ * response extension registered with it, if any, are shared by the results of
+ * every name checked by that command.
+ */
+public final class BulkCheckResult {
+    private final String name;
+    private final DomainCheckResponse response;
+    private final ResponseExtension extension;
+    private final int resultCode;
+    private final Throwable cause;
+
+    BulkCheckResult(String name, DomainCheckResponse response, ResponseExtension extension, int resultCode,
+            Throwable cause) {
+        this.name = name;
+        this.response = response;
+        this.extension = extension;
+        this.resultCode = resultCode;
+        this.cause = cause;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the server reported the availability of the name.  If not, the
+     * check command failed: either the server's response reported an error,
+     * given by {@link #getResultCode()}, or no response was received, for the
+     * reason given by {@link #getCause()}.
+     */
+    public boolean isChecked() {
+        return cause == null && resultCode < 2000 && response.getNameIDs().contains(name);
+    }
+
+    /**
+     * Whether the name is available for provisioning; false if it is not, or
+     * if it was not checked.
+     */
+    public boolean isAvailable() {
+        return isChecked() && response.isAvailable(name);
+    }
+
+    /**
+     * The server's reason that the name is not available, if given.
+     */
+    public String getReason() {
+        return isChecked() ? response.getReason(name) : null;
+    }
+
+    /**
+     * The result code of the response to the check command, or 0 if no
+     * response was received.
+     */
+    public int getResultCode() {
+        return resultCode;
+    }
+
+    /**
+     * The response to the check command, or null if none was received.
+     */
+    public DomainCheckResponse getResponse() {
+        return cause == null ? response : null;
+    }
+
+    /**
+     * The response extension registered with the response to the check
+     * command, such as a <code>DomainCheckFeeResponseExtension</code>, or null
+     * if none was requested or no response was received.
+     */
+    public ResponseExtension getExtension() {
+        return cause == null ? extension : null;
+    }
+
+    /**
+     * The reason that no response was received to the check command, or null
+     * if a response was received.
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        if (isChecked()) {
+            return name + (isAvailable() ? " available" : " unavailable");
+        }
+        return name + " not checked: " + (cause != null ? cause : "result code " + resultCode);
+    }
+}
@@ -0,0 +1,269 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+import godaddy.registry.jtoolkit2.se.CommandExtension;
+import godaddy.registry.jtoolkit2.se.DomainCheckCommand;
+import godaddy.registry.jtoolkit2.se.DomainCheckResponse;
+import godaddy.registry.jtoolkit2.se.Period;
+import godaddy.registry.jtoolkit2.se.ResponseExtension;
+import godaddy.registry.jtoolkit2.se.Result;
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeCommandExtension;
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeResponseExtension;
+import godaddy.registry.jtoolkit2.se.fee10.FeeCheckCommand;
+import godaddy.registry.jtoolkit2.se.price.DomainCheckPriceV1_2CommandExtension;
+import godaddy.registry.jtoolkit2.se.price.DomainCheckPriceV1_2ResponseExtension;
+
+/**
+ * Checks the availability of any number of domain names.  Names are checked
+ * in batches of at most {@link #setMaxNamesPerCommand(int)} names per check
+ * command, and the commands are executed concurrently through an
+ * {@link AsyncSessionManager}, which spreads them across its pooled sessions
+ * within the configured <code>check</code> command limits.  Results are
+ * delivered as each response arrives, so the names and results of a large
+ * check need never be held in memory together.
+ *
+ * <pre>
+ * BulkDomainChecker checker = new BulkDomainChecker(asyncSessionManager);
+ * checker.setFeeCheck("USD", Collections.singletonList(new FeeCheckCommand("create")));
+ * checker.check(candidateNames, result -&gt; {
+ *     if (result.isAvailable()) {
+ *         FeeCheckData fees = ((DomainCheckFeeResponseExtension) result.getExtension()).getFeeCheckData();
+ *         ...
+ *     }
+ * });
+ * </pre>
+ *
+ * <p>A checker may be used for any number of checks, but its settings should
+ * not be changed while a check is in progress.</p>
+ */
+public class BulkDomainChecker {
+    /**
+     * The number of names per command if not configured, which most registries accept.
+     */
+    public static final int DEFAULT_MAX_NAMES_PER_COMMAND = 20;
+
+    private final AsyncSessionManager manager;
+    private int maxNamesPerCommand = DEFAULT_MAX_NAMES_PER_COMMAND;
+    private int maxCommandsInFlight;
+    private CommandExtension commandExtension;
+    private Supplier<? extends ResponseExtension> responseExtension;
+
+    /**
+     * Create a checker executing commands through the given session manager,
+     * with as many commands in flight as the manager's session pool may have
+     * sessions.
+     */
+    public BulkDomainChecker(AsyncSessionManager manager) {
+        this.manager = manager;
+        SessionManagerProperties properties = manager.getProperties();
+        maxCommandsInFlight = properties == null ? 1
+                : Math.max(1, properties.getSessionPoolProperties().getMaximumPoolSize());
+    }
+
+    /**
+     * Set the largest number of names included in each check command, which
+     * should not exceed the server's limit.
+     */
+    public void setMaxNamesPerCommand(int maxNamesPerCommand) {
+        if (maxNamesPerCommand < 1) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("epp.session.bulk.names.invalid",
+                    "<<count>>", String.valueOf(maxNamesPerCommand)));
+        }
+        this.maxNamesPerCommand = maxNamesPerCommand;
+    }
+
+    public int getMaxNamesPerCommand() {
+        return maxNamesPerCommand;
+    }
+
+    /**
+     * Set the largest number of check commands awaiting responses at once.
+     * More than the number of sessions is only useful if commands are
+     * pipelined.
+     */
+    public void setMaxCommandsInFlight(int maxCommandsInFlight) {
+        if (maxCommandsInFlight < 1) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("epp.session.bulk.inflight.invalid",
+                    "<<count>>", String.valueOf(maxCommandsInFlight)));
+        }
+        this.maxCommandsInFlight = maxCommandsInFlight;
+    }
+
+    public int getMaxCommandsInFlight() {
+        return maxCommandsInFlight;
+    }
+
+    /**
+     * Add the given extension to every check command, and register a response
+     * extension from the given supplier with each response, for example to
+     * request fees or prices.  The command extension is shared by every
+     * command, so must not be modified while a check is in progress.
+     *
+     * @param commandExtension the command extension, or null for none.
+     * @param responseExtension supplies a new response extension for each
+     * response, or null for none.
+     */
+    public void setExtension(CommandExtension commandExtension,
+            Supplier<? extends ResponseExtension> responseExtension) {
+        this.commandExtension = commandExtension;
+        this.responseExtension = responseExtension;
+    }
+
+    /**
+     * Request the fees of the given commands for each name, as described by
+     * RFC 8748.  The extension of each result is a
+     * {@link DomainCheckFeeResponseExtension}.
+     */
+    public void setFeeCheck(String currency, List<FeeCheckCommand> commands) {
+        setExtension(new DomainCheckFeeCommandExtension(currency, commands), DomainCheckFeeResponseExtension::new);
+    }
+
+    /**
+     * Request the prices of each name for the given period, or the default
+     * period if null, using version 1.2 of the Domain Name Check Price
+     * extension.  The extension of each result is a
+     * {@link DomainCheckPriceV1_2ResponseExtension}.
+     */
+    public void setPriceCheck(Period period) {
+        DomainCheckPriceV1_2CommandExtension extension = new DomainCheckPriceV1_2CommandExtension();
+        extension.setPeriod(period);
+        setExtension(extension, DomainCheckPriceV1_2ResponseExtension::new);
+    }
+
+    /**
+     * Check the given names, passing the result for each name to the given
+     * consumer as the response including it is received.  The consumer is
+     * invoked on the calling thread, which returns once every name has been
+     * checked.  Results are not in the order of the names.
+     */
+    public void check(Iterable<String> names, Consumer<? super BulkCheckResult> consumer) {
+        Iterator<BulkCheckResult> results = iterator(names);
+        while (results.hasNext()) {
+            consumer.accept(results.next());
+        }
+    }
+
+    /**
+     * Check the given names, returning an iterator over the result for each
+     * name.  Commands are sent as the iterator is advanced, and
+     * <code>hasNext</code> blocks until a response is received if none is
+     * ready.  Results are not in the order of the names.  The iterator is not
+     * thread-safe.
+     */
+    public Iterator<BulkCheckResult> iterator(Iterable<String> names) {
+        return new ResultIterator(names.iterator());
+    }
+
+    /**
+     * A check command in flight, and the outcome of its execution.
+     */
+    private static final class Batch {
+        final List<String> names;
+        final Transaction tx;
+        final ResponseExtension extension;
+        Throwable cause;
+
+        Batch(List<String> names, Transaction tx, ResponseExtension extension) {
+            this.names = names;
+            this.tx = tx;
+            this.extension = extension;
+        }
+    }
+
+    private final class ResultIterator implements Iterator<BulkCheckResult> {
+        private final Iterator<String> names;
+        private final BlockingQueue<Batch> completed = new LinkedBlockingQueue<Batch>();
+        private final Deque<BulkCheckResult> ready = new ArrayDeque<BulkCheckResult>();
+        private int inFlight;
+
+        ResultIterator(Iterator<String> names) {
+            this.names = names;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (ready.isEmpty()) {
+                submit();
+                if (inFlight == 0) {
+                    return false;
+                }
+
+                Batch batch;
+                try {
+                    batch = completed.take();
+                } catch (InterruptedException ie) {
+                    // Leave the remaining responses to complete unobserved.
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(ie);
+                }
+                inFlight--;
+                addResults(batch);
+            }
+            return true;
+        }
+
+        @Override
+        public BulkCheckResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return ready.poll();
+        }
+
+        private void submit() {
+            while (inFlight < maxCommandsInFlight && names.hasNext()) {
+                List<String> batchNames = new ArrayList<String>(maxNamesPerCommand);
+                while (batchNames.size() < maxNamesPerCommand && names.hasNext()) {
+                    batchNames.add(names.next());
+                }
+
+                DomainCheckCommand command = new DomainCheckCommand(batchNames.toArray(new String[0]));
+                if (commandExtension != null) {
+                    command.appendExtension(commandExtension);
+                }
+                DomainCheckResponse response = new DomainCheckResponse();
+                ResponseExtension extension = responseExtension == null ? null : responseExtension.get();
+                if (extension != null) {
+                    response.registerExtension(extension);
+                }
+                Batch batch = new Batch(batchNames, new Transaction(command, response), extension);
+
+                inFlight++;
+                // Completion only queues the batch, so may safely run on the session manager's threads.
+                manager.executeAsync(batch.tx, Runnable::run).whenComplete((tx, t) -> {
+                    batch.cause = t;
+                    completed.add(batch);
+                });
+            }
+        }
+
+        private void addResults(Batch batch) {
+            DomainCheckResponse response = (DomainCheckResponse) batch.tx.getResponse();
+            Throwable cause = batch.cause;
+            if (cause == null && batch.tx.getState() != TransactionState.PROCESSED) {
+                cause = batch.tx.getCause() != null ? batch.tx.getCause()
+                        : new IllegalStateException(String.valueOf(batch.tx.getState()));
+            }
+
+            int resultCode = 0;
+            Result[] results = cause == null ? response.getResults() : null;
+            if (results != null && results.length > 0) {
+                resultCode = results[0].getResultCode();
+            }
+            for (String name : batch.names) {
+                ready.add(new BulkCheckResult(name, response, batch.extension, resultCode, cause));
+            }
+        }
+    }
+}
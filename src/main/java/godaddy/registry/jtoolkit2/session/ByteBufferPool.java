@@ -0,0 +1,113 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of heap byte buffers grouped into power-of-two size classes. Buffers are handed out cleared and must be
+ * returned via {@link #release(ByteBuffer)} once the caller no longer references them. Requests larger than the
+ * largest size class are satisfied with an unpooled buffer, and each size class retains at most a fixed number of
+ * bytes, so the memory held by the pool is bounded regardless of the traffic pattern.
+ *
+ * <p>This class is thread-safe.</p>
+ */
+final class ByteBufferPool {
+    static final int MIN_CLASS_SIZE = 4096;
+    static final int MAX_CLASS_SIZE = 1 << 20;
+    private static final int MAX_BYTES_PER_CLASS = 4 * MAX_CLASS_SIZE;
+    private static final int MIN_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_CLASS_SIZE);
+
+    private static final ByteBufferPool DEFAULT = new ByteBufferPool();
+
+    private final List<Queue<ByteBuffer>> classes;
+    private final AtomicInteger[] pooledCounts;
+
+    ByteBufferPool() {
+        int classCount = Integer.numberOfTrailingZeros(MAX_CLASS_SIZE) - MIN_CLASS_SHIFT + 1;
+        classes = new ArrayList<Queue<ByteBuffer>>(classCount);
+        pooledCounts = new AtomicInteger[classCount];
+        for (int i = 0; i < classCount; i++) {
+            classes.add(new ConcurrentLinkedQueue<ByteBuffer>());
+            pooledCounts[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * @return the pool shared by the toolkit's transport and parsing code
+     */
+    static ByteBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Obtain a cleared buffer with capacity of at least <code>minCapacity</code> bytes.
+     */
+    ByteBuffer acquire(int minCapacity) {
+        if (minCapacity > MAX_CLASS_SIZE) {
+            return ByteBuffer.allocate(minCapacity);
+        }
+
+        int index = classIndex(minCapacity);
+        ByteBuffer buffer = classes.get(index).poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(classSize(index));
+        }
+
+        pooledCounts[index].decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer previously obtained from {@link #acquire(int)}. Buffers which do not belong to a size class, and
+     * buffers in excess of the per-class retention limit, are left to the garbage collector.
+     */
+    void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.isDirect() || buffer.isReadOnly()) {
+            return;
+        }
+
+        int capacity = buffer.capacity();
+        if (capacity < MIN_CLASS_SIZE || capacity > MAX_CLASS_SIZE || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+
+        int index = classIndex(capacity);
+        if (pooledCounts[index].incrementAndGet() > MAX_BYTES_PER_CLASS / capacity) {
+            pooledCounts[index].decrementAndGet();
+            return;
+        }
+        classes.get(index).offer(buffer);
+    }
+
+    /**
+     * Obtain a buffer at least <code>minCapacity</code> bytes in size holding the readable content of
+     * <code>buffer</code>, which is released to the pool if it had to be replaced. The returned buffer is in the same
+     * (write) mode as the one given.
+     */
+    ByteBuffer grow(ByteBuffer buffer, int minCapacity) {
+        if (buffer.capacity() >= minCapacity) {
+            return buffer;
+        }
+
+        ByteBuffer larger = acquire(minCapacity);
+        buffer.flip();
+        larger.put(buffer);
+        release(buffer);
+        return larger;
+    }
+
+    private static int classIndex(int capacity) {
+        int size = Math.max(capacity, MIN_CLASS_SIZE);
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return shift - MIN_CLASS_SHIFT;
+    }
+
+    private static int classSize(int index) {
+        return 1 << (index + MIN_CLASS_SHIFT);
+    }
+}
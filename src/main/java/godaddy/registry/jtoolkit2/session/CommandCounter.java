@@ -3,43 +3,56 @@ package godaddy.registry.jtoolkit2.session;
 import godaddy.registry.jtoolkit2.Timer;
 
 import godaddy.registry.jtoolkit2.se.CommandType;
+import godaddy.registry.jtoolkit2.se.StandardCommandType;
 
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Keep track of how many commands of each type have been processed recently.
- * Instances of this class provide no synchronization.  If multiple threads
- * access an instance concurrently, they must provide their own
- * synchronization.  Specifically, concurrent invocations of
- * <code>increment</code> may exhibit unexpected behaviour.
+ * Commands are counted by command name, so distinct CommandType instances
+ * with the same name share a count.
+ *
+ * <p>Recent commands are counted in a ring of time slots per command type,
+ * together spanning the reset interval, so a command ages out of the recent
+ * counts within one slot (a sixteenth of the reset interval) after the reset
+ * interval has elapsed; it is never aged out early.  Counting a command
+ * allocates nothing once its command type has been seen, and all methods may
+ * be invoked concurrently without external synchronization.</p>
  *
  * @author anthony (anthony@ausregistry.com.au)
  */
 public class CommandCounter {
-    /// exp number of command types in a normal session.
-    private static final int INITIAL_TYPE_MAP_SIZE = 8;
-    /// 95% CI value for number of commands per reset interval.
-    private static final int INITIAL_TIME_LIST_SIZE = 3;
     /// Default time interval for retaining records of command processing.
     private static final long DEFAULT_RESET_INTERVAL = 1000;
-
-    private Map<String, List<Long>> recentMap;
-    private long resetInterval; // milliseconds
-    private int recentTotal;
-    private Map<String, Long> totalMap;
-    private long total;
-
-    {
-        recentMap = new HashMap<String, List<Long>>(INITIAL_TYPE_MAP_SIZE);
-        totalMap = new HashMap<String, Long>(INITIAL_TYPE_MAP_SIZE);
-        recentTotal = 0;
-        total = 0L;
+    /// Number of time slots spanning the reset interval.
+    private static final int SLOTS = 16;
+    /// One more slot than spans the reset interval, so that no command is aged out early.
+    private static final int RING_SIZE = SLOTS + 1;
+    /// Each slot holds its slot number in the high bits and a count in the low bits.
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    /// Array index of each command name seen by any counter; standard command types are indexed by ordinal.
+    private static final ConcurrentMap<String, Integer> TYPE_INDICES = new ConcurrentHashMap<String, Integer>();
+    private static final AtomicInteger NEXT_TYPE_INDEX = new AtomicInteger();
+
+    static {
+        for (StandardCommandType type : StandardCommandType.values()) {
+            TYPE_INDICES.put(type.getCommandName(), NEXT_TYPE_INDEX.getAndIncrement());
+        }
     }
 
+    private final long slotWidth; // milliseconds
+    private final Window recentAll = new Window();
+    private final AtomicLong total = new AtomicLong();
+    // Replaced, never modified, when a command type is first seen.
+    private volatile Window[] typeWindows = new Window[StandardCommandType.values().length];
+
     /**
      * Construct a command counter using the default reset interval.
      */
@@ -54,7 +67,7 @@ public class CommandCounter {
      * @param resetInterval the interval of time over which counts are taken.
      */
     public CommandCounter(long resetInterval) {
-        this.resetInterval = resetInterval;
+        slotWidth = Math.max(1L, (resetInterval + SLOTS - 1) / SLOTS);
     }
 
     /**
@@ -63,29 +76,12 @@ public class CommandCounter {
      * @param type the type of command being processed.
      */
     public void increment(CommandType type) {
-        String name = type.getCommandName();
-
-        // list of times in milliseconds
-        List<Long> timeList;
-        if (totalMap.containsKey(name)) {
-            long val = totalMap.get(name) + 1;
-            totalMap.put(name, val);
-        } else {
-            totalMap.put(name, 1L);
-        }
-
-        if (recentMap.containsKey(name)) {
-            timeList = recentMap.get(name);
-
-            cleanAndCheckEmpty(timeList);
-        } else {
-            timeList = new ArrayList<Long>(INITIAL_TIME_LIST_SIZE);
-            recentMap.put(name, timeList);
-        }
-
-        timeList.add(Timer.now());
-        recentTotal++;
-        total++;
+        long slot = currentSlot();
+        Window window = getOrCreateWindow(indexOf(type));
+        window.increment(slot);
+        window.total.incrementAndGet();
+        recentAll.increment(slot);
+        total.incrementAndGet();
     }
 
     /**
@@ -93,21 +89,8 @@ public class CommandCounter {
      * the reset interval from now).
      */
     public int getRecentCount(CommandType type) {
-        String name = type.getCommandName();
-
-        if (!recentMap.containsKey(name)) {
-            return 0;
-        } else {
-            List<Long> timeList = recentMap.get(name);
-            boolean allRemoved = cleanAndCheckEmpty(timeList);
-
-            if (allRemoved) {
-                reset(name);
-                return 0;
-            } else {
-                return timeList.size();
-            }
-        }
+        Window window = getWindow(indexOf(type));
+        return window == null ? 0 : window.sum(currentSlot());
     }
 
     /**
@@ -115,83 +98,120 @@ public class CommandCounter {
      * counter.
      */
     public long getCount(CommandType type) {
-        String name = type.getCommandName();
-
-        if (!totalMap.containsKey(name)) {
-            return 0L;
-        } else {
-            return totalMap.get(name);
-        }
+        Window window = getWindow(indexOf(type));
+        return window == null ? 0L : window.total.get();
     }
 
     /**
      * Get the total number of commands of all types recorded by this counter.
      */
     public long getTotal() {
-        return total;
+        return total.get();
     }
 
     /**
-     * Get an approximation of the total number of commands processed
-     * recently.  This is actually an upper bound on the actual number of
-     * commands processed recently, as the underlying per-command type lists
-     * are not necessarily up-to-date.  For the exact number, but at
-     * significantly greater cost in execution time, use
-     * <code>getExactTotal</code>.
+     * Get the total number of commands processed recently.  This is
+     * equivalent to <code>getExactRecentTotal</code>, which is no longer more
+     * costly.
      */
     public int getRecentTotal() {
-        return recentTotal;
+        return getExactRecentTotal();
     }
 
     /**
-     * Get the total number of commands processed recently.  This first cleans
-     * up the underlying per-command type lists to guarantee that only recent
-     * commands are counted in the total.
+     * Get the total number of commands of all types processed recently.
      */
     public int getExactRecentTotal() {
-        for (Map.Entry<String, List<Long>> entry : recentMap.entrySet()) {
-            clean(entry.getValue(), entry.getKey());
+        return recentAll.sum(currentSlot());
+    }
+
+    private long currentSlot() {
+        return Timer.now() / slotWidth;
+    }
+
+    private static int indexOf(CommandType type) {
+        if (type instanceof StandardCommandType) {
+            return ((StandardCommandType) type).ordinal();
         }
 
-        return recentTotal;
+        String name = type.getCommandName();
+        Integer index = TYPE_INDICES.get(name);
+        if (index == null) {
+            Integer assigned = NEXT_TYPE_INDEX.getAndIncrement();
+            index = TYPE_INDICES.putIfAbsent(name, assigned);
+            if (index == null) {
+                index = assigned;
+            }
+        }
+        return index;
     }
 
-    private void reset(String type) {
-        recentMap.remove(type);
+    private Window getWindow(int index) {
+        Window[] windows = typeWindows;
+        return index < windows.length ? windows[index] : null;
     }
 
-    /**
-     * Iterate through the list, removing old items, until an item is found
-     * that is more recent than <code>resetInterval</code> milliseconds ago.
-     * Since the list is naturally ordered by time, no later items need be
-     * checked.  Also, it is expected that the list will be short enough that
-     * linear search will yield acceptable performance.
-     *
-     * @return Indicate whether the list is left empty upon return.  That is,
-     * whether <code>timeList.isEmpty()</code> would return true.
-     */
-    private synchronized boolean cleanAndCheckEmpty(List<Long> timeList) {
-        ListIterator<Long> listIter = timeList.listIterator();
-
-        while (listIter.hasNext()) {
-            if (Timer.msDiff(listIter.next()) > resetInterval) {
-                listIter.remove();
-                recentTotal--;
-            } else {
-                return false;
-            }
+    private Window getOrCreateWindow(int index) {
+        Window window = getWindow(index);
+        if (window != null) {
+            return window;
         }
 
-        return true;
+        synchronized (this) {
+            Window[] windows = typeWindows;
+            if (index < windows.length && windows[index] != null) {
+                return windows[index];
+            }
+
+            Window[] copy = Arrays.copyOf(windows, Math.max(windows.length, index + 1));
+            window = new Window();
+            copy[index] = window;
+            typeWindows = copy;
+            return window;
+        }
     }
 
     /**
-     * Perform cleanAndCheckEmpty, then <code>reset</code> the appropriate
-     * entry in <code>recentMap</code> if the cleanup removes all records from
-     * the list.
+     * A ring of per-slot counts covering the reset interval.  Each element
+     * records which slot it currently counts, so stale counts are discarded
+     * when the element is reused rather than by a separate clean-up pass.
      */
-    private void clean(List<Long> timeList, String type) {
-        cleanAndCheckEmpty(timeList);
+    private static final class Window {
+        private final AtomicLongArray slots = new AtomicLongArray(RING_SIZE);
+        private final AtomicLong total = new AtomicLong();
+
+        void increment(long slot) {
+            int i = (int) (slot % RING_SIZE);
+            while (true) {
+                long current = slots.get(i);
+                long next;
+                // A thread which read the time just before the slot turned over counts in the newer slot.
+                if (current >>> COUNT_BITS >= slot) {
+                    if ((current & COUNT_MASK) == COUNT_MASK) {
+                        // Saturated; the session is far beyond any plausible rate limit.
+                        return;
+                    }
+                    next = current + 1;
+                } else {
+                    next = (slot << COUNT_BITS) | 1L;
+                }
+
+                if (slots.compareAndSet(i, current, next)) {
+                    return;
+                }
+            }
+        }
+
+        int sum(long currentSlot) {
+            int sum = 0;
+            for (int i = 0; i < RING_SIZE; i++) {
+                long value = slots.get(i);
+                long age = currentSlot - (value >>> COUNT_BITS);
+                if (age >= 0 && age < RING_SIZE) {
+                    sum += (int) (value & COUNT_MASK);
+                }
+            }
+            return sum;
+        }
     }
 }
-
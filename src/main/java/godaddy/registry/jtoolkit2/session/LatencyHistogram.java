@@ -0,0 +1,264 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+
+/**
+ * A histogram of response times in milliseconds, from which percentiles of
+ * the recorded times may be queried.
+ *
+ * <p>Times are counted in log-linear buckets: each power of two is divided
+ * into equal sub-buckets, enough that any percentile is reported to within
+ * the configured number of significant decimal digits.  Times up to
+ * {@link #MAX_TRACKABLE_TIME} are tracked; longer times are counted as that
+ * time, but are still reported exactly by {@link #getMaxValue()}.</p>
+ *
+ * <p>Recording takes no lock and allocates nothing, so a histogram may be
+ * recorded to and queried concurrently.  A histogram is queried by taking a
+ * {@link #snapshot()}, which is a copy that is not recorded to.  Snapshots of
+ * different histograms may be merged with {@link #add(LatencyHistogram)}, and
+ * the times recorded between two snapshots of the same histogram are given by
+ * {@link #intervalSince(LatencyHistogram)}.</p>
+ *
+ * <pre>
+ * LatencyHistogram previous = statsViewer.getResponseTimeHistogram(StandardCommandType.CHECK);
+ * ...
+ * LatencyHistogram current = statsViewer.getResponseTimeHistogram(StandardCommandType.CHECK);
+ * long p99 = current.intervalSince(previous).getValueAtPercentile(99.0);
+ * </pre>
+ */
+public final class LatencyHistogram {
+    /// The longest time (in milliseconds) counted in its own bucket; about 24 days.
+    public static final long MAX_TRACKABLE_TIME = Integer.MAX_VALUE;
+    /// The default number of significant decimal digits, for a relative error of at most 1%.
+    public static final int DEFAULT_PRECISION = 2;
+    private static final int MAX_PRECISION = 3;
+
+    private final int precision;
+    /// log2 of the number of sub-buckets spanning each power of two, other than the first.
+    private final int subBucketBits;
+    private final long subBucketHalfCount;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Construct a histogram with the default precision.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Construct a histogram reporting times to the given number of
+     * significant decimal digits.
+     *
+     * @param precision the number of significant decimal digits, from 1 to 3.
+     * Each additional digit increases the histogram's size tenfold.
+     */
+    public LatencyHistogram(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("epp.stats.histogram.precision.invalid",
+                    "<<precision>>", String.valueOf(precision)));
+        }
+        this.precision = precision;
+
+        long halfCount = 1L;
+        int bits = 1;
+        for (int i = 0; i < precision; i++) {
+            halfCount *= 10L;
+        }
+        while ((1L << (bits - 1)) < halfCount) {
+            bits++;
+        }
+        subBucketBits = bits;
+        subBucketHalfCount = 1L << (bits - 1);
+        counts = new AtomicLongArray(indexOf(MAX_TRACKABLE_TIME) + 1);
+    }
+
+    private LatencyHistogram(LatencyHistogram other) {
+        precision = other.precision;
+        subBucketBits = other.subBucketBits;
+        subBucketHalfCount = other.subBucketHalfCount;
+        counts = new AtomicLongArray(other.counts.length());
+    }
+
+    /**
+     * Record one response time.
+     *
+     * @param time the response time in milliseconds; negative times, which may
+     * result from clock adjustments, are recorded as 0.
+     */
+    public void record(long time) {
+        long value = time < 0L ? 0L : time;
+        counts.incrementAndGet(indexOf(Math.min(value, MAX_TRACKABLE_TIME)));
+        totalTime.addAndGet(value);
+        totalCount.incrementAndGet();
+
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Get a copy of this histogram.  Times recorded concurrently with taking
+     * the snapshot may or may not be included in it.
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram copy = new LatencyHistogram(this);
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Add the times recorded by another histogram to this one.
+     *
+     * @throws IllegalArgumentException the histograms have different
+     * precisions.
+     */
+    public void add(LatencyHistogram other) {
+        checkCompatible(other);
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count != 0L) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalTime.addAndGet(other.totalTime.get());
+
+        long otherMax = other.maxValue.get();
+        long max = maxValue.get();
+        while (otherMax > max && !maxValue.compareAndSet(max, otherMax)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Get the times recorded since the given, earlier snapshot of the same
+     * histogram.  The maximum value of the interval is the upper bound of its
+     * highest non-empty bucket, limited by the maximum value of this
+     * histogram, since the exact maximum of the interval is not known.
+     *
+     * @throws IllegalArgumentException the histograms have different
+     * precisions.
+     */
+    public LatencyHistogram intervalSince(LatencyHistogram earlier) {
+        checkCompatible(earlier);
+        LatencyHistogram interval = new LatencyHistogram(this);
+        int highest = -1;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = Math.max(0L, counts.get(i) - earlier.counts.get(i));
+            if (count != 0L) {
+                interval.counts.set(i, count);
+                highest = i;
+            }
+        }
+        interval.totalCount.set(Math.max(0L, totalCount.get() - earlier.totalCount.get()));
+        interval.totalTime.set(Math.max(0L, totalTime.get() - earlier.totalTime.get()));
+        if (highest >= 0) {
+            interval.maxValue.set(Math.min(highestEquivalentValue(highest), maxValue.get()));
+        }
+        return interval;
+    }
+
+    /**
+     * Get the number of significant decimal digits to which times are
+     * reported.
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Get the number of times recorded.
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Get the sum of the times recorded.
+     */
+    public long getTotalTime() {
+        return totalTime.get();
+    }
+
+    /**
+     * Get the longest time recorded, or 0 if none has been.
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * Get the mean of the times recorded, or 0 if none has been.
+     */
+    public long getMean() {
+        long count = totalCount.get();
+        return count == 0L ? 0L : totalTime.get() / count;
+    }
+
+    /**
+     * Get the time within which the given percentage of recorded times fall,
+     * to the precision of the histogram, or 0 if no time has been recorded.
+     *
+     * @param percentile the percentage, from 0 to 100; for example 50.0 for
+     * the median, or 99.9 for the 999th permille.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("epp.stats.histogram.percentile.invalid",
+                    "<<percentile>>", String.valueOf(percentile)));
+        }
+
+        long total = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                // The last bucket also counts the times beyond the trackable range.
+                return i == counts.length() - 1 ? getMaxValue() : Math.min(highestEquivalentValue(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    private int indexOf(long value) {
+        long subBucketCount = subBucketHalfCount << 1;
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return (int) (shift * subBucketHalfCount + (value >>> shift));
+    }
+
+    private long highestEquivalentValue(int index) {
+        long subBucketCount = subBucketHalfCount << 1;
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = (int) (index / subBucketHalfCount) - 1;
+        long subBucket = index - shift * subBucketHalfCount;
+        return ((subBucket + 1L) << shift) - 1L;
+    }
+
+    private void checkCompatible(LatencyHistogram other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("epp.stats.histogram.precision.mismatch",
+                    new String[] {"<<precision>>", "<<other>>"}, new int[] {precision, other.precision}));
+        }
+    }
+}
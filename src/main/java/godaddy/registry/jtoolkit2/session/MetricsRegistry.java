@@ -0,0 +1,38 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A bridge from the toolkit's metrics to an application's metrics system.
+ * The toolkit registers each of its metrics once, with a supplier of its
+ * current value, when bound with {@link PoolMetrics#bindTo(MetricsRegistry)};
+ * the metrics system then reads the values whenever it reports them.  The
+ * suppliers are cheap and take no lock, so they may be read as often as
+ * required.
+ *
+ * <pre>
+ * sessionManager.getPoolMetrics().bindTo(new MetricsRegistry() {
+ *     public void gauge(String name, String description, LongSupplier value) {
+ *         Gauge.builder(name, value, LongSupplier::getAsLong).description(description).register(meters);
+ *     }
+ *
+ *     public void counter(String name, String description, LongSupplier count) {
+ *         FunctionCounter.builder(name, count, LongSupplier::getAsLong).description(description).register(meters);
+ *     }
+ * });
+ * </pre>
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Register a metric whose value may rise and fall, such as the number of
+     * sessions in use.
+     */
+    void gauge(String name, String description, LongSupplier value);
+
+    /**
+     * Register a metric whose value only rises, such as the number of
+     * sessions opened.
+     */
+    void counter(String name, String description, LongSupplier count);
+}
@@ -0,0 +1,554 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+
+/**
+ * An RFC5734 framed connection over a non-blocking socket channel secured by an SSL engine. All network I/O, TLS
+ * record processing and frame assembly take place on the selector loop to which the channel is bound; application
+ * threads only exchange complete frames with the loop through queues, so a slow peer never pins an application
+ * thread inside a socket read.
+ *
+ * <p>Received frames are delivered in buffers obtained from a {@link ByteBufferPool}, which the reader must release
+ * back to the same pool once it has consumed them. Frames received before the connection fails remain readable until
+ * the channel is closed.</p>
+ */
+final class NioSSLChannel implements NioSelectorPool.Handler {
+    private static final int HEADER_SIZE = 4;
+    // Far larger than any EPP response, but small enough that a corrupt header cannot exhaust the heap.
+    static final int MAX_FRAME_SIZE = 64 << 20;
+    private static final ByteBuffer CLOSED_MARKER = ByteBuffer.allocate(0);
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    private final NioSelectorPool.SelectorLoop loop;
+    private final ByteBufferPool bufferPool;
+
+    private final BlockingQueue<ByteBuffer> frames = new LinkedBlockingQueue<ByteBuffer>();
+    private final Queue<PendingWrite> writes = new ConcurrentLinkedQueue<PendingWrite>();
+    private final CountDownLatch handshakeDone = new CountDownLatch(1);
+    private volatile IOException failure;
+    private volatile boolean handshakeCompleted;
+
+    // The following are confined to the selector loop thread.
+    private SelectionKey key;
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+    private ByteBuffer appIn;
+    private PendingWrite currentWrite;
+    private final List<PendingWrite> awaitingFlush = new ArrayList<PendingWrite>();
+    private boolean handshaking = true;
+    private boolean closed;
+
+    private NioSSLChannel(SocketChannel channel, SSLEngine engine, NioSelectorPool.SelectorLoop loop,
+            ByteBufferPool bufferPool) {
+        this.channel = channel;
+        this.engine = engine;
+        this.loop = loop;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Connect to the peer and complete the TLS handshake, waiting at most <code>timeout</code> milliseconds for each.
+     *
+     * @throws javax.net.ssl.SSLHandshakeException the handshake failed
+     * @throws IOException the connection could not be established
+     */
+    static NioSSLChannel open(InetSocketAddress address, SSLEngine engine, int timeout, NioSelectorPool selectors,
+            ByteBufferPool bufferPool) throws IOException {
+        SocketChannel socketChannel = SocketChannel.open();
+        try {
+            socketChannel.socket().connect(address, timeout);
+            socketChannel.configureBlocking(false);
+        } catch (IOException ioe) {
+            socketChannel.close();
+            throw ioe;
+        }
+
+        NioSSLChannel sslChannel = new NioSSLChannel(socketChannel, engine, selectors.nextLoop(), bufferPool);
+        sslChannel.startHandshake(timeout);
+        return sslChannel;
+    }
+
+    private void startHandshake(int timeout) throws IOException {
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int packetSize = engine.getSession().getPacketBufferSize();
+                    netIn = bufferPool.acquire(packetSize);
+                    netOut = bufferPool.acquire(packetSize);
+                    appIn = bufferPool.acquire(engine.getSession().getApplicationBufferSize());
+                    key = loop.register(channel, SelectionKey.OP_READ, NioSSLChannel.this);
+                    engine.beginHandshake();
+                    progress();
+                } catch (IOException ioe) {
+                    fail(ioe);
+                }
+            }
+        });
+
+        try {
+            if (!await(handshakeDone, timeout)) {
+                fail(new SocketTimeoutException(ErrorPkg.getMessage("epp.session.read.timeout")));
+            }
+        } catch (InterruptedIOException iioe) {
+            fail(iioe);
+        }
+
+        // A peer may complete the handshake, send a frame and close at once; the frame remains readable.
+        if (!handshakeCompleted && failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Wait for the next complete frame from the peer.
+     *
+     * @param timeout the maximum time to wait in milliseconds, or zero to wait indefinitely
+     * @return a buffer from the channel's buffer pool whose remaining bytes are the frame payload
+     * @throws SocketTimeoutException no frame arrived within the timeout
+     * @throws IOException the connection failed or was closed
+     */
+    ByteBuffer readFrame(int timeout) throws IOException {
+        ByteBuffer frame;
+        try {
+            if (timeout > 0) {
+                frame = frames.poll(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                frame = frames.take();
+            }
+        } catch (InterruptedException ie) {
+            throw new InterruptedIOException(ie.getMessage());
+        }
+
+        if (frame == null) {
+            throw new SocketTimeoutException(ErrorPkg.getMessage("epp.session.read.timeout"));
+        }
+        if (frame == CLOSED_MARKER) {
+            // Leave the marker in place for any subsequent reader.
+            frames.offer(CLOSED_MARKER);
+            throw closedException();
+        }
+        return frame;
+    }
+
+    /**
+     * Send a complete frame to the peer, waiting until it has been written to the socket.
+     *
+     * @param payload the frame payload; the length header is added by this method
+     * @param timeout the maximum time to wait in milliseconds, or zero to wait indefinitely
+     * @throws SocketTimeoutException the frame could not be written within the timeout; the connection is closed
+     * @throws IOException the connection failed or was closed
+     */
+    void writeFrame(byte[] payload, int timeout) throws IOException {
+        if (failure != null) {
+            throw closedException();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, payload.length + HEADER_SIZE);
+        final PendingWrite write = new PendingWrite(new ByteBuffer[] {header, ByteBuffer.wrap(payload)});
+        writes.add(write);
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                progressSafely();
+            }
+        });
+
+        if (!await(write.done, timeout)) {
+            SocketTimeoutException timedOut = new SocketTimeoutException(
+                    ErrorPkg.getMessage("epp.session.write.timeout"));
+            fail(timedOut);
+            throw timedOut;
+        }
+        if (write.error != null) {
+            throw write.error;
+        }
+    }
+
+    /**
+     * Send the TLS close notification if possible and close the socket channel. Frames not yet read are returned to
+     * the pool, and pending and subsequent reads and writes fail with an {@link EOFException}.
+     */
+    void close(int timeout) {
+        final CountDownLatch closeDone = new CountDownLatch(1);
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!closed && key != null) {
+                        engine.closeOutbound();
+                        progress();
+                    }
+                } catch (IOException ioe) {
+                    // The peer may already have gone away; the channel is closed regardless.
+                } finally {
+                    fail(new EOFException(ErrorPkg.getMessage("net.event.socket_closed")));
+                    releaseFrames();
+                    closeDone.countDown();
+                }
+            }
+        });
+
+        try {
+            await(closeDone, timeout);
+        } catch (InterruptedIOException iioe) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void handleReady(int readyOps) {
+        try {
+            if ((readyOps & SelectionKey.OP_READ) != 0 && channel.read(netIn) < 0) {
+                throw new EOFException(ErrorPkg.getMessage("net.event.socket_closed"));
+            }
+            progress();
+        } catch (IOException ioe) {
+            fail(ioe);
+        }
+    }
+
+    private void progressSafely() {
+        try {
+            progress();
+        } catch (IOException ioe) {
+            fail(ioe);
+        }
+    }
+
+    /**
+     * Advance the SSL engine as far as the buffered network data and pending writes allow, then update the selection
+     * interest to reflect what the channel is waiting for.
+     */
+    private void progress() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        boolean progressed = true;
+        while (progressed) {
+            progressed = false;
+            boolean flushed = flush();
+
+            switch (engine.getHandshakeStatus()) {
+            case NEED_TASK:
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                progressed = true;
+                break;
+            case NEED_WRAP:
+                progressed = flushed && wrap(new ByteBuffer[] {EMPTY});
+                break;
+            case NEED_UNWRAP:
+                progressed = unwrap();
+                break;
+            default:
+                if (handshaking) {
+                    handshaking = false;
+                    handshakeCompleted = true;
+                    handshakeDone.countDown();
+                }
+                progressed = unwrap();
+                if (flushed && wrapPendingWrites()) {
+                    progressed = true;
+                }
+            }
+        }
+
+        if (engine.isOutboundDone() && netOut.position() == 0) {
+            fail(new EOFException(ErrorPkg.getMessage("net.event.socket_closed")));
+            return;
+        }
+
+        int ops = SelectionKey.OP_READ;
+        if (netOut.position() > 0) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * @return whether all encrypted output has been written to the socket
+     */
+    private boolean flush() throws IOException {
+        if (netOut.position() > 0) {
+            netOut.flip();
+            channel.write(netOut);
+            netOut.compact();
+        }
+
+        if (netOut.position() > 0) {
+            return false;
+        }
+
+        for (PendingWrite write : awaitingFlush) {
+            write.done.countDown();
+        }
+        awaitingFlush.clear();
+        return true;
+    }
+
+    /**
+     * @return whether the engine consumed any of the given data
+     */
+    private boolean wrap(ByteBuffer[] sources) throws IOException {
+        SSLEngineResult result = engine.wrap(sources, netOut);
+        switch (result.getStatus()) {
+        case BUFFER_OVERFLOW:
+            netOut = bufferPool.grow(netOut, netOut.position() + engine.getSession().getPacketBufferSize());
+            return true;
+        case CLOSED:
+            return result.bytesProduced() > 0;
+        default:
+            return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+        }
+    }
+
+    private boolean wrapPendingWrites() throws IOException {
+        boolean progressed = false;
+        while (true) {
+            if (currentWrite == null) {
+                currentWrite = writes.poll();
+                if (currentWrite == null) {
+                    return progressed;
+                }
+            }
+
+            if (!wrap(currentWrite.sources)) {
+                return progressed;
+            }
+            progressed = true;
+
+            if (!currentWrite.hasRemaining()) {
+                awaitingFlush.add(currentWrite);
+                currentWrite = null;
+            }
+            if (!flush()) {
+                return progressed;
+            }
+        }
+    }
+
+    /**
+     * @return whether the engine consumed or produced any data
+     */
+    private boolean unwrap() throws IOException {
+        netIn.flip();
+        SSLEngineResult result;
+        try {
+            result = engine.unwrap(netIn, appIn);
+        } finally {
+            netIn.compact();
+        }
+
+        switch (result.getStatus()) {
+        case BUFFER_UNDERFLOW:
+            int packetSize = engine.getSession().getPacketBufferSize();
+            if (netIn.remaining() < packetSize) {
+                netIn = bufferPool.grow(netIn, netIn.position() + packetSize);
+            }
+            return false;
+        case BUFFER_OVERFLOW:
+            appIn = bufferPool.grow(appIn, appIn.position() + engine.getSession().getApplicationBufferSize());
+            return true;
+        case CLOSED:
+            throw new EOFException(ErrorPkg.getMessage("net.event.socket_closed"));
+        default:
+            if (result.bytesProduced() > 0) {
+                extractFrames();
+            }
+            return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+        }
+    }
+
+    /**
+     * Move every complete frame out of the application input buffer into its own pooled buffer for the reader.
+     */
+    private void extractFrames() throws IOException {
+        appIn.flip();
+        try {
+            while (appIn.remaining() >= HEADER_SIZE) {
+                int frameSize = appIn.getInt(appIn.position());
+                if (frameSize < HEADER_SIZE || frameSize > MAX_FRAME_SIZE) {
+                    throw new SSLException(ErrorPkg.getMessage("epp.session.frame.invalid", "<<size>>",
+                            String.valueOf(frameSize)));
+                }
+                if (appIn.remaining() < frameSize) {
+                    break;
+                }
+
+                int payloadSize = frameSize - HEADER_SIZE;
+                ByteBuffer frame = bufferPool.acquire(payloadSize);
+                appIn.position(appIn.position() + HEADER_SIZE);
+                int limit = appIn.limit();
+                appIn.limit(appIn.position() + payloadSize);
+                frame.put(appIn);
+                appIn.limit(limit);
+                frame.flip();
+                frames.add(frame);
+            }
+        } finally {
+            appIn.compact();
+        }
+
+        if (appIn.position() >= HEADER_SIZE) {
+            int frameSize = appIn.getInt(0);
+            int required = frameSize + engine.getSession().getApplicationBufferSize();
+            if (appIn.capacity() < required) {
+                appIn = bufferPool.grow(appIn, required);
+            }
+        }
+    }
+
+    private IOException closedException() {
+        IOException cause = failure;
+        if (cause instanceof EOFException) {
+            return new EOFException(cause.getMessage());
+        }
+        IOException ioe = new IOException(cause == null ? null : cause.getMessage());
+        ioe.initCause(cause);
+        return ioe;
+    }
+
+    /**
+     * Record the failure, close the channel and wake every thread waiting on it. Idempotent, and safe to call from any
+     * thread; the network buffers are only returned to the pool from the loop thread.
+     */
+    private void fail(IOException cause) {
+        if (failure == null) {
+            failure = cause;
+        }
+
+        if (!loop.inLoop()) {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    fail(failure);
+                }
+            });
+            handshakeDone.countDown();
+            return;
+        }
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ioe) {
+            // Nothing further can be done with the channel.
+        }
+
+        // Frames already received, such as a response sent just before the peer closed, remain readable.
+        frames.offer(CLOSED_MARKER);
+        handshakeDone.countDown();
+        completeWrites(cause);
+
+        bufferPool.release(netIn);
+        bufferPool.release(netOut);
+        bufferPool.release(appIn);
+        netIn = null;
+        netOut = null;
+        appIn = null;
+    }
+
+    /**
+     * Return frames which no reader will now consume to the pool, leaving only the closed marker.
+     */
+    private void releaseFrames() {
+        ByteBuffer frame;
+        while ((frame = frames.poll()) != null) {
+            if (frame != CLOSED_MARKER) {
+                bufferPool.release(frame);
+            }
+        }
+        frames.offer(CLOSED_MARKER);
+    }
+
+    private void completeWrites(IOException cause) {
+        for (PendingWrite write : awaitingFlush) {
+            write.fail(cause);
+        }
+        awaitingFlush.clear();
+        if (currentWrite != null) {
+            currentWrite.fail(cause);
+            currentWrite = null;
+        }
+        PendingWrite write;
+        while ((write = writes.poll()) != null) {
+            write.fail(cause);
+        }
+    }
+
+    private static boolean await(CountDownLatch latch, int timeout) throws InterruptedIOException {
+        try {
+            if (timeout > 0) {
+                return latch.await(timeout, TimeUnit.MILLISECONDS);
+            }
+            latch.await();
+            return true;
+        } catch (InterruptedException ie) {
+            throw new InterruptedIOException(ie.getMessage());
+        }
+    }
+
+    /**
+     * A frame queued for writing by an application thread.
+     */
+    private static final class PendingWrite {
+        private final ByteBuffer[] sources;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile IOException error;
+
+        PendingWrite(ByteBuffer[] sources) {
+            this.sources = sources;
+        }
+
+        boolean hasRemaining() {
+            for (ByteBuffer source : sources) {
+                if (source.hasRemaining()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void fail(IOException cause) {
+            IOException ioe = new IOException(cause.getMessage());
+            ioe.initCause(cause);
+            error = ioe;
+            done.countDown();
+        }
+    }
+}
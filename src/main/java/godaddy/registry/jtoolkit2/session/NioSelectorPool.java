@@ -0,0 +1,140 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A fixed set of selector threads which multiplex the socket channels of all non-blocking sessions in the JVM. Each
+ * channel is bound to one selector loop for its lifetime; all of its I/O and SSL engine work then happens on that
+ * loop's thread, so the channel's network state needs no further synchronisation.
+ *
+ * <p>The number of selector threads defaults to half the available processors, with a minimum of one and a maximum
+ * of four, and may be overridden by the system property <code>godaddy.registry.jtoolkit2.session.nio.selectors</code>.
+ * </p>
+ *
+ * <p>Uses the user level logger.</p>
+ */
+final class NioSelectorPool {
+    private static final String SELECTOR_COUNT_PROPERTY = "godaddy.registry.jtoolkit2.session.nio.selectors";
+    private static final int MAX_DEFAULT_SELECTORS = 4;
+
+    private static NioSelectorPool defaultPool;
+
+    private final SelectorLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    NioSelectorPool(int selectorCount) throws IOException {
+        loops = new SelectorLoop[selectorCount];
+        for (int i = 0; i < selectorCount; i++) {
+            loops[i] = new SelectorLoop(i);
+        }
+    }
+
+    /**
+     * @return the selector pool shared by all non-blocking sessions, creating it on first use
+     */
+    static synchronized NioSelectorPool getDefault() throws IOException {
+        if (defaultPool == null) {
+            int fallback = Math.min(MAX_DEFAULT_SELECTORS, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            int count = Integer.getInteger(SELECTOR_COUNT_PROPERTY, fallback);
+            defaultPool = new NioSelectorPool(Math.max(1, count));
+        }
+        return defaultPool;
+    }
+
+    /**
+     * @return the selector loop to which the next channel should be bound; loops are assigned round-robin
+     */
+    SelectorLoop nextLoop() {
+        return loops[Math.abs(next.getAndIncrement() % loops.length)];
+    }
+
+    /**
+     * Receives readiness notifications for a channel registered with a selector loop. Invoked on the loop thread.
+     */
+    interface Handler {
+        void handleReady(int readyOps);
+    }
+
+    /**
+     * A single selector and the daemon thread which services it.
+     */
+    static final class SelectorLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        private final Thread thread;
+        private final Logger userLogger;
+
+        SelectorLoop(int id) throws IOException {
+            String pname = getClass().getPackage().getName();
+            userLogger = Logger.getLogger(pname + ".user");
+            selector = Selector.open();
+            thread = new Thread(this, "jtoolkit2-nio-selector-" + id);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Run the task on this loop's thread, after any tasks already submitted.
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        /**
+         * Register the channel for the given operations. Must be invoked on this loop's thread.
+         */
+        SelectionKey register(SelectableChannel channel, int ops, Handler handler) throws ClosedChannelException {
+            assert inLoop();
+            return channel.register(selector, ops, handler);
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    runTasks();
+                    dispatch();
+                } catch (IOException ioe) {
+                    userLogger.warning(ioe.getMessage());
+                } catch (RuntimeException re) {
+                    // A misbehaving channel must not take down the loop servicing every other channel.
+                    userLogger.severe(re.toString());
+                }
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private void dispatch() {
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                ((Handler) key.attachment()).handleReady(key.readyOps());
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import javax.net.ssl.SSLHandshakeException;
+
+/**
+ * <p>
+ * An implementation of the RFC5734 transport mapping over a non-blocking socket channel and an SSL engine, as an
+ * alternative to the blocking socket used by {@link TLSSession}. Socket reads, TLS record processing and framing are
+ * performed by a small pool of shared selector threads rather than by the thread using the session, and received
+ * frames are assembled in pooled buffers. Greeting, login, logout and statistics behave exactly as in TLSSession.
+ * </p>
+ *
+ * <p>
+ * To use this transport, set the system property <code>godaddy.registry.jtoolkit2.session.class</code> to
+ * <code>godaddy.registry.jtoolkit2.session.NioTLSSession</code> before the SessionManager is configured.
+ * </p>
+ *
+ * <p>
+ * Uses the debug, support and user level loggers.
+ * </p>
+ */
+public class NioTLSSession extends TLSSession {
+    private final ByteBufferPool bufferPool = ByteBufferPool.getDefault();
+    private NioSSLChannel channel;
+
+    /**
+     * Construct an unconfigured session, as required by {@link SessionFactory}. The session must be configured before
+     * it is opened.
+     */
+    public NioTLSSession() {
+    }
+
+    /**
+     * Construct a session configured with the given properties.
+     *
+     * @param props the session configuration
+     * @throws SessionConfigurationException the configuration is invalid; see {@link #configure(SessionProperties)}
+     */
+    public NioTLSSession(SessionProperties props) throws SessionConfigurationException {
+        super(props);
+    }
+
+    @Override
+    protected void openSocket() throws SSLHandshakeException, IOException {
+        String host = getServerAddress().getHostAddress();
+        int port = getServerPort();
+        channel = NioSSLChannel.open(new InetSocketAddress(host, port), getTLSContext().createSSLEngine(host, port),
+                getSocketTimeout(), NioSelectorPool.getDefault(), bufferPool);
+    }
+
+    @Override
+    protected void closeSocket() {
+        if (channel != null) {
+            channel.close(getSocketTimeout());
+        }
+    }
+
+    @Override
+    protected ByteBuffer readFrame() throws IOException {
+        if (channel == null) {
+            throw new UninitialisedSessionException();
+        }
+        return channel.readFrame(getSocketTimeout());
+    }
+
+    @Override
+    protected void releaseFrame(ByteBuffer frame) {
+        bufferPool.release(frame);
+    }
+
+    @Override
+    protected void writePdu(byte[] xml) throws IOException {
+        if (channel == null) {
+            throw new UninitialisedSessionException();
+        }
+        channel.writeFrame(xml, getSocketTimeout());
+    }
+}
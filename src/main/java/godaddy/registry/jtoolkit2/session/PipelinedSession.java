@@ -0,0 +1,349 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import javax.xml.xpath.XPathExpressionException;
+
+import org.xml.sax.SAXException;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+import godaddy.registry.jtoolkit2.se.Response;
+import godaddy.registry.jtoolkit2.se.Result;
+import godaddy.registry.jtoolkit2.xml.ParsingException;
+import godaddy.registry.jtoolkit2.xml.XMLDocument;
+
+/**
+ * Full-duplex use of a single Session by any number of threads. Commands are written by the submitting threads, one
+ * at a time, while responses are read concurrently by a reader thread dedicated to the session for as long as any
+ * command is outstanding. Each written command is registered in the session manager's {@link TransactionIndex}, through
+ * which each response is matched to the command awaiting a response with the same clTRID; a response without a
+ * recognised clTRID is matched to the oldest outstanding command, since EPP servers respond in the order in which
+ * commands were received. The number of commands awaiting a response is limited to the configured
+ * window, beyond which submitting threads wait.
+ *
+ * <p>
+ * A PipelinedSession holds the underlying Session for the duration of a burst of activity: once no command is
+ * outstanding or waiting to be written it retires, and its Session is handed to the retirement callback for release
+ * to the pool. A retired PipelinedSession accepts no further commands. An I/O or framing error on the session fails
+ * every outstanding command with the RETRY state and retires the PipelinedSession after closing the Session. Commands
+ * which may already have reached the server fail with an {@link UnansweredCommandException}, and must not be resent
+ * without first determining whether they were processed.
+ * </p>
+ *
+ * <p>
+ * Uses the debug and user level loggers.
+ * </p>
+ */
+final class PipelinedSession {
+    private static final String CLTRID_EXPR = "/e:epp/e:response/e:trID/e:clTRID/text()";
+    private static final int RETIRED = -1;
+
+    private final Session session;
+    private final StatsManager statsManager;
+    private final int windowSize;
+    private final TransactionIndex index;
+    private final Semaphore window;
+    private final Semaphore responsesExpected = new Semaphore(0);
+    private final ConcurrentLinkedDeque<Pending> inFlight = new ConcurrentLinkedDeque<Pending>();
+    // Number of commands submitted but not yet completed, or RETIRED.
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+    private final Object writeLock = new Object();
+    private final Consumer<PipelinedSession> onRetire;
+
+    private final Logger debugLogger;
+    private final Logger userLogger;
+
+    /**
+     * Take over an acquired, open Session and start its reader.
+     *
+     * @param session the Session, which must already have been acquired from the pool
+     * @param windowSize the maximum number of commands awaiting a response
+     * @param index the index of transactions in flight, by which responses are matched to them
+     * @param readers the executor on which the reader runs until the PipelinedSession retires
+     * @param onRetire invoked exactly once, from the reader thread, after the PipelinedSession retires
+     */
+    PipelinedSession(Session session, int windowSize, TransactionIndex index, Executor readers,
+            Consumer<PipelinedSession> onRetire) {
+        String pname = getClass().getPackage().getName();
+        debugLogger = Logger.getLogger(pname + ".debug");
+        userLogger = Logger.getLogger(pname + ".user");
+
+        this.session = session;
+        this.statsManager = session.getStatsManager();
+        this.windowSize = windowSize;
+        this.index = index;
+        this.window = new Semaphore(windowSize, true);
+        this.onRetire = onRetire;
+
+        readers.execute(new Runnable() {
+            @Override
+            public void run() {
+                readResponses();
+            }
+        });
+    }
+
+    Session getSession() {
+        return session;
+    }
+
+    /**
+     * @return the number of commands submitted to this pipeline which have not yet completed
+     */
+    int getOutstandingCount() {
+        return Math.max(0, outstanding.get());
+    }
+
+    boolean hasCapacity() {
+        return window.availablePermits() > 0 && !isRetired();
+    }
+
+    boolean isRetired() {
+        return outstanding.get() == RETIRED;
+    }
+
+    /**
+     * Write the transaction's command to the session, waiting first for space in the window if necessary. The
+     * returned future completes with the transaction once its response has been read, or exceptionally if the command
+     * could not be serialized (leaving the transaction in the FATAL_ERROR state) or the session failed before the
+     * response was read (leaving the transaction in the RETRY state). In the latter case, the cause is an
+     * UnansweredCommandException if the command may have been written to the session.
+     *
+     * @return the future result of the transaction, or null if this pipeline has retired and the command was not
+     *         submitted
+     */
+    CompletableFuture<Transaction> submit(Transaction tx) throws InterruptedException {
+        if (!enter()) {
+            return null;
+        }
+
+        try {
+            window.acquire();
+        } catch (InterruptedException ie) {
+            leave();
+            throw ie;
+        }
+
+        Pending pending = new Pending(tx);
+        IOException failed = failure.get();
+        if (failed != null) {
+            window.release();
+            failTransaction(pending, failed);
+            return pending.future;
+        }
+
+        try {
+            synchronized (writeLock) {
+                inFlight.add(pending);
+                tx.start();
+                pending.written = true;
+                tx.writeTo(session);
+                if (!index.register(tx)) {
+                    // The response will be matched by order instead.
+                    userLogger.warning(ErrorPkg.getMessage("epp.session.index.cltrid.duplicate", "<<cltrid>>",
+                            tx.getCLTRID()));
+                }
+            }
+            statsManager.incCommandCounter(tx.getCommandType());
+            responsesExpected.release();
+        } catch (ParsingException pe) {
+            // Nothing was written, so the session remains usable.
+            if (inFlight.remove(pending)) {
+                window.release();
+                Throwable cause = pe.getCause() instanceof SAXException ? pe.getCause() : pe;
+                userLogger.warning(cause.getMessage());
+                tx.setState(TransactionState.FATAL_ERROR);
+                tx.setCause(cause);
+                pending.future.completeExceptionally(pe);
+                leave();
+            }
+        } catch (IOException ioe) {
+            // As for an exclusive session, a command whose write failed is taken not to have reached the server.
+            pending.written = false;
+            fail(ioe);
+        }
+
+        // The session may have failed while the command was being written, after outstanding commands were failed.
+        failed = failure.get();
+        if (failed != null) {
+            failOutstanding(failed);
+        }
+
+        return pending.future;
+    }
+
+    private boolean enter() {
+        while (true) {
+            int count = outstanding.get();
+            if (count == RETIRED) {
+                return false;
+            }
+            if (outstanding.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void leave() {
+        while (true) {
+            int count = outstanding.get();
+            if (count <= 0) {
+                return;
+            }
+            int next = count == 1 ? RETIRED : count - 1;
+            if (outstanding.compareAndSet(count, next)) {
+                if (next == RETIRED) {
+                    // Wake the reader so that it can exit.
+                    responsesExpected.release();
+                }
+                return;
+            }
+        }
+    }
+
+    private void readResponses() {
+        try {
+            while (true) {
+                responsesExpected.acquire();
+                if (isRetired()) {
+                    break;
+                }
+                dispatch(session.readToDocument());
+            }
+        } catch (IOException ioe) {
+            fail(ioe);
+        } catch (ParsingException pe) {
+            // Message boundaries can't be trusted following a parsing error.
+            fail(new IOException(pe.getMessage(), pe));
+        } catch (InterruptedException ie) {
+            fail(new IOException(ie));
+        } catch (RuntimeException re) {
+            // The reader must not exit leaving outstanding commands unresolved.
+            fail(new IOException(re.getMessage(), re));
+        } finally {
+            if (failure.get() != null) {
+                session.close();
+            }
+            onRetire.accept(this);
+        }
+    }
+
+    private void dispatch(XMLDocument doc) {
+        String clTRID = null;
+        try {
+            clTRID = doc.getNodeValue(CLTRID_EXPR);
+        } catch (XPathExpressionException xpee) {
+            userLogger.warning(xpee.getMessage());
+        }
+
+        Pending pending = removeMatching(clTRID);
+        if (pending == null) {
+            userLogger.warning(ErrorPkg.getMessage("epp.session.pipeline.unexpected", "<<cltrid>>",
+                    String.valueOf(clTRID)));
+            return;
+        }
+
+        Transaction tx = pending.tx;
+        Response response = tx.getResponse();
+        try {
+            response.fromXML(doc);
+        } catch (RuntimeException re) {
+            tx.setState(TransactionState.FATAL_ERROR);
+            tx.setCause(re);
+            window.release();
+            pending.future.completeExceptionally(re);
+            leave();
+            throw re;
+        }
+        tx.setState(TransactionState.PROCESSED);
+        statsManager.recordResponseTime(tx.getCommandType(), tx.getResponseTime());
+
+        Result[] results = response.getResults();
+        if (results != null) {
+            for (Result result : results) {
+                statsManager.incResultCounter(result.getResultCode());
+            }
+        }
+
+        window.release();
+        pending.future.complete(tx);
+        leave();
+    }
+
+    private Pending removeMatching(String clTRID) {
+        Transaction indexed = index.match(clTRID);
+        if (indexed != null) {
+            for (Pending candidate : inFlight) {
+                if (candidate.tx == indexed) {
+                    // The session may have failed concurrently, in which case the transaction has been completed.
+                    return inFlight.remove(candidate) ? candidate : null;
+                }
+            }
+            // The transaction is awaiting a response on another session.
+            index.register(indexed);
+        }
+
+        while (true) {
+            Pending oldest = inFlight.peekFirst();
+            if (oldest == null) {
+                return null;
+            }
+            debugLogger.fine(ErrorPkg.getMessage("epp.session.pipeline.unmatched", "<<cltrid>>",
+                    String.valueOf(clTRID)));
+            if (inFlight.remove(oldest)) {
+                index.remove(oldest.tx);
+                return oldest;
+            }
+        }
+    }
+
+    private void fail(IOException cause) {
+        if (failure.compareAndSet(null, cause)) {
+            userLogger.warning(cause.getMessage());
+            outstanding.set(RETIRED);
+            failOutstanding(cause);
+            // Wake the reader, and any submitters waiting for space in the window; each of the latter fails its
+            // transaction and passes the permit on.
+            responsesExpected.release();
+            window.release(windowSize);
+        }
+    }
+
+    private void failOutstanding(IOException cause) {
+        Pending pending;
+        while ((pending = inFlight.pollFirst()) != null) {
+            failTransaction(pending, cause);
+        }
+    }
+
+    private void failTransaction(Pending pending, IOException cause) {
+        index.remove(pending.tx);
+        IOException failure = pending.written ? new UnansweredCommandException(cause) : cause;
+        pending.tx.setState(TransactionState.RETRY);
+        pending.tx.setCause(failure);
+        pending.future.completeExceptionally(failure);
+    }
+
+    /**
+     * A transaction whose command has been, or is being, written to the session.
+     */
+    private static final class Pending {
+        private final Transaction tx;
+        private final CompletableFuture<Transaction> future = new CompletableFuture<Transaction>();
+        // Whether the command may have reached the server.
+        private volatile boolean written;
+
+        Pending(Transaction tx) {
+            this.tx = tx;
+        }
+    }
+}
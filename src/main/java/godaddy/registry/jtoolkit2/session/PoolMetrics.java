@@ -0,0 +1,253 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import godaddy.registry.jtoolkit2.se.ResultCode;
+
+/**
+ * Counters and gauges describing the session pool of a session manager, for
+ * export through JMX, as a {@link SessionPoolMXBean}, or to an application's
+ * metrics system through a {@link MetricsRegistry}.
+ *
+ * <p>Counters are striped, so recording takes no lock and allocates nothing,
+ * and may be left enabled in production.  A session manager keeps the same
+ * metrics when reconfigured with a new pool, so counts are not reset.  Result
+ * codes counted by sessions which have since been closed are retained.</p>
+ */
+public final class PoolMetrics implements SessionPoolMXBean {
+    private static final String PREFIX = "jtoolkit2.pool.";
+    private static final int[] STANDARD_RESULT_CODES = standardResultCodes();
+
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder checkoutWaitNanos = new LongAdder();
+    private final LongAccumulator maxCheckoutWaitNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder rateLimitStalls = new LongAdder();
+    private final LongAdder sessionsOpened = new LongAdder();
+    private final LongAdder sessionsClosed = new LongAdder();
+    private final LongAdder sessionsInvalidated = new LongAdder();
+    private final LongAdder keepAlivePolls = new LongAdder();
+    /// Results counted by sessions no longer in the pool.
+    private final ResultCounter retiredResults = new ResultCounter();
+    private volatile SessionPoolImpl pool;
+    private volatile TransactionIndex transactions;
+
+    void setPool(SessionPoolImpl pool) {
+        this.pool = pool;
+    }
+
+    void setTransactionIndex(TransactionIndex transactions) {
+        this.transactions = transactions;
+    }
+
+    void recordCheckout(long waitNanos) {
+        checkouts.increment();
+        checkoutWaitNanos.add(waitNanos);
+        maxCheckoutWaitNanos.accumulate(waitNanos);
+    }
+
+    void incRateLimitStalls() {
+        rateLimitStalls.increment();
+    }
+
+    void incSessionsOpened() {
+        sessionsOpened.increment();
+    }
+
+    void incSessionsInvalidated() {
+        sessionsInvalidated.increment();
+    }
+
+    void incKeepAlivePolls() {
+        keepAlivePolls.increment();
+    }
+
+    /**
+     * Count a session leaving the pool, retaining the counts of the results it
+     * received.
+     */
+    void retire(Session session) {
+        sessionsClosed.increment();
+        StatsViewer stats = session.getStatsManager();
+        for (int code : stats.getResultCodes()) {
+            retiredResults.add(code, stats.getResultCodeCount(code));
+        }
+    }
+
+    /**
+     * Register each of these metrics with the given registry.  Metrics are
+     * named <code>jtoolkit2.pool.</code> followed by the attribute name of
+     * the {@link SessionPoolMXBean}, in lower case separated by dots, such as
+     * <code>jtoolkit2.pool.sessions.in.use</code>.  A counter of responses is
+     * registered for each result code defined by RFC 5730, as
+     * <code>jtoolkit2.pool.results.&lt;code&gt;</code>.
+     */
+    public void bindTo(MetricsRegistry registry) {
+        registry.gauge(PREFIX + "size", "Sessions open", this::getPoolSize);
+        registry.gauge(PREFIX + "maximum.size", "Maximum sessions open", this::getMaximumPoolSize);
+        registry.gauge(PREFIX + "sessions.in.use", "Sessions checked out", this::getSessionsInUse);
+        registry.gauge(PREFIX + "shaping.queue.depth", "Threads waiting to stay within command limits",
+                this::getShapingQueueDepth);
+        registry.gauge(PREFIX + "max.checkout.wait.time", "Longest wait to check out a session (ms)",
+                this::getMaxCheckoutWaitTime);
+        registry.counter(PREFIX + "checkout.count", "Sessions checked out", this::getCheckoutCount);
+        registry.counter(PREFIX + "checkout.wait.time", "Time waited to check out sessions (ms)",
+                this::getCheckoutWaitTime);
+        registry.counter(PREFIX + "rate.limit.stall.count", "Waits for a session under the command limits",
+                this::getRateLimitStallCount);
+        registry.counter(PREFIX + "shaping.delay.count", "Commands delayed to stay within command limits",
+                this::getShapingDelayCount);
+        registry.counter(PREFIX + "sessions.opened", "Sessions opened", this::getSessionsOpened);
+        registry.counter(PREFIX + "sessions.closed", "Sessions closed", this::getSessionsClosed);
+        registry.counter(PREFIX + "sessions.invalidated", "Sessions closed as invalid",
+                this::getSessionsInvalidated);
+        registry.counter(PREFIX + "keep.alive.poll.count", "Keep-alive polls sent", this::getKeepAlivePollCount);
+        registry.gauge(PREFIX + "transactions.in.flight", "Commands awaiting a response",
+                this::getTransactionsInFlight);
+        registry.counter(PREFIX + "orphan.response.count", "Responses matching no command awaiting a response",
+                this::getOrphanResponseCount);
+        registry.counter(PREFIX + "duplicate.cltrid.count", "Commands sent with the clTRID of one awaiting a response",
+                this::getDuplicateClTRIDCount);
+        for (int code : STANDARD_RESULT_CODES) {
+            registry.counter(PREFIX + "results." + code, "Responses with result code " + code,
+                    () -> getResultCodeCount(code));
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        SessionPoolImpl current = pool;
+        return current == null ? 0 : current.getPoolSize();
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        SessionPoolImpl current = pool;
+        return current == null ? 0 : current.getMaximumSize();
+    }
+
+    @Override
+    public int getSessionsInUse() {
+        SessionPoolImpl current = pool;
+        return current == null ? 0 : Math.max(0, current.getPoolSize() - current.getIdleCount());
+    }
+
+    @Override
+    public long getCheckoutCount() {
+        return checkouts.sum();
+    }
+
+    @Override
+    public long getCheckoutWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(checkoutWaitNanos.sum());
+    }
+
+    @Override
+    public long getMaxCheckoutWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxCheckoutWaitNanos.get());
+    }
+
+    @Override
+    public long getRateLimitStallCount() {
+        return rateLimitStalls.sum();
+    }
+
+    @Override
+    public int getShapingQueueDepth() {
+        SessionPoolImpl current = pool;
+        return current == null ? 0 : current.getShapingQueueDepth();
+    }
+
+    @Override
+    public long getShapingDelayCount() {
+        SessionPoolImpl current = pool;
+        return current == null ? 0L : current.getShapingDelayCount();
+    }
+
+    @Override
+    public long getSessionsOpened() {
+        return sessionsOpened.sum();
+    }
+
+    @Override
+    public long getSessionsClosed() {
+        return sessionsClosed.sum();
+    }
+
+    @Override
+    public long getSessionsInvalidated() {
+        return sessionsInvalidated.sum();
+    }
+
+    @Override
+    public long getKeepAlivePollCount() {
+        return keepAlivePolls.sum();
+    }
+
+    @Override
+    public int getTransactionsInFlight() {
+        TransactionIndex current = transactions;
+        return current == null ? 0 : current.size();
+    }
+
+    @Override
+    public long getOrphanResponseCount() {
+        TransactionIndex current = transactions;
+        return current == null ? 0L : current.getOrphanCount();
+    }
+
+    @Override
+    public long getDuplicateClTRIDCount() {
+        TransactionIndex current = transactions;
+        return current == null ? 0L : current.getDuplicateCount();
+    }
+
+    /**
+     * Get the number of responses received with the given result code, by
+     * sessions open now or in the past.
+     */
+    public long getResultCodeCount(int code) {
+        SessionPoolImpl current = pool;
+        return retiredResults.getValue(code) + (current == null ? 0L : current.getResultCodeCount(code));
+    }
+
+    @Override
+    public Map<Integer, Long> getResultCodeCounts() {
+        Map<Integer, Long> counts = new TreeMap<Integer, Long>();
+        for (int code : retiredResults.getCodes()) {
+            counts.put(code, retiredResults.getValue(code));
+        }
+        SessionPoolImpl current = pool;
+        if (current != null) {
+            for (int code : current.getResultCodes()) {
+                counts.put(code, getResultCodeCount(code));
+            }
+        }
+        return counts;
+    }
+
+    private static int[] standardResultCodes() {
+        List<Integer> codes = new ArrayList<Integer>();
+        for (Field field : ResultCode.class.getFields()) {
+            if (field.getType() == int.class && Modifier.isStatic(field.getModifiers())) {
+                try {
+                    codes.add(field.getInt(null));
+                } catch (IllegalAccessException iae) {
+                    // Public constants are always accessible.
+                }
+            }
+        }
+        int[] result = new int[codes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = codes.get(i);
+        }
+        return result;
+    }
+}
@@ -1,46 +1,83 @@
 package godaddy.registry.jtoolkit2.session;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import godaddy.registry.jtoolkit2.se.ResultCode;
 
 /**
  * Keep track of the number of each result code received in responses.
- * Instances of this class provide no synchronization.  If multiple threads
- * access an instance concurrently, they must provide their own
- * synchronization.  Specifically, concurrent executions of
- * <code>increment</code> may exhibit unexpected behaviour.
+ * Counting takes no lock and, once a result code has been seen, allocates
+ * nothing, so all methods may be invoked concurrently without external
+ * synchronization.
  */
 public class ResultCounter {
-    // exp # result codes in a normal session.
-    private static final int INITIAL_SIZE = 6;
+    // Result codes defined by RFC 5730 are counted by index, without boxing.
+    private static final int MIN_CODE = ResultCode.SUCCESS;
+    private static final int MAX_CODE = ResultCode.SESS_LIM_EXCEEDED_CLOSING;
 
-    private long total;
-    private HashMap<Integer, Long> map;
+    private final LongAdder total;
+    private final AtomicReferenceArray<LongAdder> counts;
+    // Any other codes a server might return.
+    private final ConcurrentMap<Integer, LongAdder> others;
 
     public ResultCounter() {
-        map = new HashMap<Integer, Long>(INITIAL_SIZE);
-        total = 0L;
+        counts = new AtomicReferenceArray<LongAdder>(MAX_CODE - MIN_CODE + 1);
+        others = new ConcurrentHashMap<Integer, LongAdder>();
+        total = new LongAdder();
     }
 
     public void increment(int code) {
-        if (map.containsKey(code)) {
-            long val = map.get(code);
-            map.put(code, val + 1);
+        add(code, 1L);
+    }
+
+    /**
+     * Add the given number of results to the count for the given code.
+     */
+    public void add(int code, long count) {
+        LongAdder adder;
+        if (isStandard(code)) {
+            int index = code - MIN_CODE;
+            adder = counts.get(index);
+            if (adder == null) {
+                counts.compareAndSet(index, null, new LongAdder());
+                adder = counts.get(index);
+            }
         } else {
-            map.put(code, 1L);
+            adder = others.computeIfAbsent(code, c -> new LongAdder());
         }
-        total++;
+        adder.add(count);
+        total.add(count);
     }
 
     public long getValue(int code) {
-        if (map.containsKey(code)) {
-            return map.get(code);
-        } else {
-            return 0L;
-        }
+        LongAdder adder = isStandard(code) ? counts.get(code - MIN_CODE) : others.get(code);
+        return adder == null ? 0L : adder.sum();
     }
 
     public long getTotal() {
-        return total;
+        return total.sum();
     }
-}
 
+    /**
+     * Get the result codes which have been counted.
+     */
+    public Set<Integer> getCodes() {
+        Set<Integer> codes = new TreeSet<Integer>(others.keySet());
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) != null) {
+                codes.add(MIN_CODE + i);
+            }
+        }
+        return Collections.unmodifiableSet(codes);
+    }
+
+    private static boolean isStandard(int code) {
+        return code >= MIN_CODE && code <= MAX_CODE;
+    }
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import godaddy.registry.jtoolkit2.se.Command;
 import godaddy.registry.jtoolkit2.se.Greeting;
 import godaddy.registry.jtoolkit2.se.Response;
+import godaddy.registry.jtoolkit2.se.StampedCommand;
 import godaddy.registry.jtoolkit2.xml.ParsingException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 
@@ -158,6 +159,20 @@ public interface Session {
     void write(Command command)
         throws IOException, ParsingException;
 
+    /**
+     * Write an EPP command stamped from a {@link
+     * godaddy.registry.jtoolkit2.se.CommandTemplate} to the transport layer
+     * service.  The command is written as encoded, without being serialized
+     * or validated again.
+     *
+     * @throws IOException The transport layer was unable to send the data to
+     * the server.  This condition is considered permanent and causes the
+     * session state to become invalid, as indicated by isInvalid.
+     */
+    default void write(StampedCommand command) throws IOException {
+        write(command.toXML());
+    }
+
     /**
      * Determine whether a call to open has previously succeeded.
      */
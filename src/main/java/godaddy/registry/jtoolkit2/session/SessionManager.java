@@ -95,4 +95,15 @@ public interface SessionManager extends Runnable {
      * @return the viewer
      */
     StatsViewer getStatsViewer();
+
+    /**
+     * Returns the metrics describing the session pool, for export through JMX
+     * or to an application's metrics system (default: metrics which are
+     * never updated).
+     *
+     * @return the metrics
+     */
+    default PoolMetrics getPoolMetrics() {
+        return new PoolMetrics();
+    }
 }
@@ -1,27 +1,49 @@
 package godaddy.registry.jtoolkit2.session;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import org.xml.sax.SAXException;
 
 import godaddy.registry.jtoolkit2.ErrorPkg;
 import godaddy.registry.jtoolkit2.Timer;
-import godaddy.registry.jtoolkit2.se.Command;
+import godaddy.registry.jtoolkit2.se.CommandType;
 import godaddy.registry.jtoolkit2.se.Greeting;
 import godaddy.registry.jtoolkit2.se.Response;
 import godaddy.registry.jtoolkit2.se.Result;
 import godaddy.registry.jtoolkit2.se.ResultCode;
 import godaddy.registry.jtoolkit2.xml.EPPSchemaProvider;
 import godaddy.registry.jtoolkit2.xml.ParsingException;
+import godaddy.registry.jtoolkit2.xml.XMLWriter;
 
 /**
  * <p>
  * DNRS&rsquo;s basic implementation of the SessionManager interface. Upon successful configuration, it
  * guarantees that a pool of {@link godaddy.registry.jtoolkit2.session.Session}s will be available for processing
  * {@link godaddy.registry.jtoolkit2.session.Transaction}s. A SessionManager is configured from a
- * {@link godaddy.registry.jtoolkit2.session.SessionManagerProperties} object. This implementation provides only a
- * blocking implementation of the <code>execute</code> method. It will create a
+ * {@link godaddy.registry.jtoolkit2.session.SessionManagerProperties} object. This implementation provides a
+ * blocking implementation of the <code>execute</code> method, and implements
+ * {@link godaddy.registry.jtoolkit2.session.AsyncSessionManager} by queueing transactions for a set of internal I/O
+ * threads no larger than the maximum pool size, so that the number of transactions in flight is not limited by the
+ * number of application threads. If a pipeline window greater than 1 is configured (see
+ * {@link godaddy.registry.jtoolkit2.session.SessionProperties#getPipelineWindow()}), each session is shared by
+ * concurrent transactions, with commands written as they are submitted and responses read by a dedicated reader
+ * thread per session. It will create a
  * {@link godaddy.registry.jtoolkit2.session.SessionPool}. By default, the
  * {@link godaddy.registry.jtoolkit2.session.SessionPool} will use the
  * {@link godaddy.registry.jtoolkit2.session.TLSSession} implementation of the
@@ -33,17 +55,29 @@ import godaddy.registry.jtoolkit2.xml.ParsingException;
  * Uses the debug and user level loggers.
  * </p>
  */
-public class SessionManagerImpl implements SessionManager {
+public class SessionManagerImpl implements AsyncSessionManager {
     private static final int MAX_SLEEP_INTERRUPTS_TO_FAIL = 3;
     private static final int MAX_ACCEPTABLE_FAIL_COUNT = 5;
+    private static final long ASYNC_THREAD_KEEP_ALIVE_SECONDS = 60L;
+    private static final long PIPELINE_LIMIT_EXCEEDED_WAIT = 50L;
 
     private enum SMState {
         STOPPED, STARTED, RUNNING;
     }
 
     private Thread runThread;
-    private SMState state;
+    private volatile SMState state;
     private SessionPoolImpl sessionPool;
+    private final PoolMetrics poolMetrics = new PoolMetrics();
+    private volatile boolean jmxEnabled;
+    private ObjectName mbeanName;
+    private ThreadPoolExecutor asyncExecutor;
+    private ExecutorService pipelineReaders;
+    private final TransactionIndex inFlight = new TransactionIndex();
+    private final List<PipelinedSession> pipelines = new CopyOnWriteArrayList<PipelinedSession>();
+    private volatile int pipelineWindow;
+    private volatile int maxPoolSize;
+    private volatile int warmUpPoolSize;
 
     private SessionManagerProperties properties;
 
@@ -59,9 +93,11 @@ public class SessionManagerImpl implements SessionManager {
 
     // / For use by factory methods.
     SessionManagerImpl() {
+        poolMetrics.setTransactionIndex(inFlight);
     }
 
     SessionManagerImpl(SessionManagerProperties props) throws ConfigurationException {
+        this();
         configure(props);
     }
 
@@ -127,12 +163,20 @@ public class SessionManagerImpl implements SessionManager {
 
         EPPSchemaProvider.init();
         EPPSchemaProvider.setValidating(properties.getSessionProperties().enforceStrictValidation());
+        XMLWriter.setValidationMode(properties.getSessionProperties().getValidationMode(),
+                properties.getSessionProperties().getValidationSamplePercent());
+        XMLWriter.setDirectEncoding(properties.getSessionProperties().isDirectEncodingEnabled());
         // Need to empty and re-initialise pool if already in use.
         if (sessionPool != null) {
             sessionPool.empty();
         }
 
-        sessionPool = new SessionPoolImpl(properties.getSessionPoolProperties(), properties.getSessionProperties());
+        sessionPool = new SessionPoolImpl(properties.getSessionPoolProperties(), properties.getSessionProperties(),
+                poolMetrics);
+        jmxEnabled = properties.getSessionPoolProperties().isJmxEnabled();
+        maxPoolSize = properties.getSessionPoolProperties().getMaximumPoolSize();
+        warmUpPoolSize = properties.getSessionPoolProperties().getWarmUpPoolSize();
+        pipelineWindow = properties.getSessionProperties().getPipelineWindow();
     }
 
     /**
@@ -160,7 +204,8 @@ public class SessionManagerImpl implements SessionManager {
     /**
      * Prepare the SessionManager for providing Transaction processing services. This initialises the
      * {@link godaddy.registry.jtoolkit2.session.SessionPool} managed by the SessionManager, guaranteeing that any
-     * requirements defined by SessionPool properties are met, providing the pool is initialised successfully.
+     * requirements defined by SessionPool properties are met, providing the pool is initialised successfully. Once
+     * the first session is open, the pool is warmed up to the configured warm-up size.
      *
      * @throws SessionConfigurationException
      *             The pool was unable configure a session due to a configuration issue. Such problems include invalid
@@ -181,8 +226,10 @@ public class SessionManagerImpl implements SessionManager {
         while (!initialised) {
             try {
                 sessionPool.getLastGreeting();
+                sessionPool.warmUp(warmUpPoolSize);
                 initialised = true;
                 state = SMState.STARTED;
+                registerMBean();
             } catch (InterruptedException ie) {
                 failCount++;
 
@@ -222,7 +269,10 @@ public class SessionManagerImpl implements SessionManager {
 
         if (state == SMState.STARTED) {
             debugLogger.info("state == STARTED");
+            shutdownAsyncExecutor();
+            shutdownPipelineReaders();
             sessionPool.empty();
+            unregisterMBean();
 
             state = SMState.STOPPED;
         }
@@ -233,6 +283,37 @@ public class SessionManagerImpl implements SessionManager {
         debugLogger.finest("exit");
     }
 
+    private synchronized void registerMBean() {
+        if (!jmxEnabled || mbeanName != null) {
+            return;
+        }
+
+        String name = "godaddy.registry.jtoolkit2:type=SessionPool,name="
+                + ObjectName.quote(String.valueOf(properties.getSessionProperties().getClientID()));
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(poolMetrics, objectName);
+            mbeanName = objectName;
+        } catch (JMException jme) {
+            userLogger.warning(ErrorPkg.getMessage("epp.session.pool.jmx.fail", new String[] {"<<name>>", "<<cause>>"},
+                    new String[] {name, jme.toString()}));
+        }
+    }
+
+    private synchronized void unregisterMBean() {
+        if (mbeanName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (JMException jme) {
+            userLogger.warning(ErrorPkg.getMessage("epp.session.pool.jmx.fail", new String[] {"<<name>>", "<<cause>>"},
+                    new String[] {mbeanName.toString(), jme.toString()}));
+        }
+        mbeanName = null;
+    }
+
     /**
      * Initiate the SessionPool's keep-alive system. This will run until <a href=#shutdown()>shutdown</a> is invoked on
      * the SessionManager.
@@ -290,6 +371,12 @@ public class SessionManagerImpl implements SessionManager {
     @Override
     public void changeMaxPoolSize(int size) {
         sessionPool.setMaxSize(size);
+        maxPoolSize = size;
+        synchronized (this) {
+            if (asyncExecutor != null) {
+                resizeAsyncExecutor(size);
+            }
+        }
     }
 
     /**
@@ -359,7 +446,13 @@ public class SessionManagerImpl implements SessionManager {
             throw new IllegalStateException();
         }
 
-        Command cmd = tx.getCommand();
+        if (isPipelining()) {
+            executePipelined(tx);
+            debugLogger.finest("exit");
+            return;
+        }
+
+        CommandType commandType = tx.getCommandType();
         Response response = tx.getResponse();
 
         int failCount = 0;
@@ -370,16 +463,21 @@ public class SessionManagerImpl implements SessionManager {
         // attempt in case the session fails mid-transaction.
         while (!isExecuted && state != SMState.STOPPED) {
             try {
-                session = sessionPool.getSession(cmd.getCommandType());
+                // The session used by a failed attempt has already been released.
+                session = null;
+                sessionPool.getTrafficShaper().acquire(commandType);
+                session = sessionPool.getSession(commandType);
                 StatsManager statsManager = session.getStatsManager();
-                statsManager.incCommandCounter(cmd.getCommandType());
+                statsManager.incCommandCounter(commandType);
 
                 tx.start();
-                session.write(cmd);
+                tx.writeTo(session);
+                register(tx);
                 isExecuted = true;
                 session.read(response);
+                matchResponse(tx);
                 tx.setState(TransactionState.PROCESSED);
-                statsManager.recordResponseTime(cmd.getCommandType(), tx.getResponseTime());
+                statsManager.recordResponseTime(commandType, tx.getResponseTime());
 
                 Result[] results = response.getResults();
                 assert results != null;
@@ -421,6 +519,7 @@ public class SessionManagerImpl implements SessionManager {
             } catch (SessionOpenException soe) {
                 throw new FatalSessionException(soe);
             } finally {
+                inFlight.remove(tx);
                 sessionPool.releaseSession(session);
             }
         }
@@ -432,6 +531,194 @@ public class SessionManagerImpl implements SessionManager {
         debugLogger.finest("exit");
     }
 
+    /**
+     * Queue a single transaction for execution by the SessionManager's I/O threads. Execution is otherwise identical
+     * to {@link #execute(Transaction)}, including the retry of transactions which fail due to I/O errors or
+     * non-protocol server errors.
+     */
+    @Override
+    public CompletableFuture<Transaction> executeAsync(final Transaction tx, final Executor completionExecutor) {
+        final CompletableFuture<Transaction> future = new CompletableFuture<Transaction>();
+        if (isPipelining()) {
+            dispatch(future, completionExecutor, () -> submitPipelined(tx, future, completionExecutor, 0));
+            return future;
+        }
+
+        dispatch(future, completionExecutor, () -> {
+            try {
+                execute(tx);
+                complete(future, tx, completionExecutor);
+            } catch (Exception e) {
+                recordFailure(tx, e);
+                completeExceptionally(future, e, completionExecutor);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Queue a sequence of transactions for pipelined execution by one of the SessionManager's I/O threads. Execution
+     * is otherwise identical to {@link #execute(Transaction[])}.
+     */
+    @Override
+    public CompletableFuture<Transaction[]> executeAsync(final Transaction[] txs, final Executor completionExecutor) {
+        final CompletableFuture<Transaction[]> future = new CompletableFuture<Transaction[]>();
+        dispatch(future, completionExecutor, () -> {
+            try {
+                execute(txs);
+                complete(future, txs, completionExecutor);
+            } catch (Exception e) {
+                completeExceptionally(future, e, completionExecutor);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Submit a transaction to a pipelined session without waiting for its response. On an I/O failure before the
+     * command was written, the transaction is resubmitted by an I/O thread, to a limit of MAX_ACCEPTABLE_FAIL_COUNT
+     * attempts.
+     */
+    private void submitPipelined(final Transaction tx, final CompletableFuture<Transaction> future,
+            final Executor completionExecutor, final int failCount) {
+
+        CompletableFuture<Transaction> result;
+        try {
+            result = submitToPipeline(tx);
+        } catch (Exception e) {
+            recordFailure(tx, toFatal(e));
+            completeExceptionally(future, toFatal(e), completionExecutor);
+            return;
+        }
+
+        result.whenComplete((t, cause) -> {
+            if (cause == null) {
+                complete(future, tx, completionExecutor);
+            } else if (isResendable(cause) && state != SMState.STOPPED && failCount < MAX_ACCEPTABLE_FAIL_COUNT) {
+                userLogger.warning(cause.getMessage());
+                dispatch(future, completionExecutor,
+                        () -> submitPipelined(tx, future, completionExecutor, failCount + 1));
+            } else {
+                completeExceptionally(future, cause, completionExecutor);
+            }
+        });
+    }
+
+    /**
+     * Whether a pipelined command which failed with the given cause may be resent: only those which failed due to an
+     * I/O error before they could reach the server.
+     */
+    private static boolean isResendable(Throwable cause) {
+        return cause instanceof IOException && !(cause instanceof UnansweredCommandException);
+    }
+
+    private static Exception toFatal(Exception e) {
+        if (e instanceof SessionConfigurationException || e instanceof SessionOpenException) {
+            return new FatalSessionException(e);
+        }
+        return e;
+    }
+
+    private void dispatch(CompletableFuture<?> future, Executor completionExecutor, Runnable task) {
+        if (state == SMState.STOPPED) {
+            completeExceptionally(future, new IllegalStateException(), completionExecutor);
+            return;
+        }
+
+        try {
+            getAsyncExecutor().execute(task);
+        } catch (RejectedExecutionException ree) {
+            // The SessionManager was shut down concurrently.
+            completeExceptionally(future, new IllegalStateException(ree), completionExecutor);
+        }
+    }
+
+    private synchronized Executor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = new ThreadPoolExecutor(1, 1, ASYNC_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("jtoolkit2-session-io"));
+            asyncExecutor.allowCoreThreadTimeOut(true);
+            resizeAsyncExecutor(properties.getSessionPoolProperties().getMaximumPoolSize());
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * There is no benefit in having more I/O threads than sessions, since each thread holds a session for the duration
+     * of a transaction.
+     */
+    private void resizeAsyncExecutor(int size) {
+        int threads = Math.max(1, size);
+        if (threads > asyncExecutor.getMaximumPoolSize()) {
+            asyncExecutor.setMaximumPoolSize(threads);
+            asyncExecutor.setCorePoolSize(threads);
+        } else {
+            asyncExecutor.setCorePoolSize(threads);
+            asyncExecutor.setMaximumPoolSize(threads);
+        }
+    }
+
+    private synchronized void shutdownAsyncExecutor() {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            asyncExecutor = null;
+        }
+    }
+
+    /**
+     * Readers of the pipelined sessions run until their pipelines retire, so the executor is only shut down to allow
+     * its threads to exit once they have.
+     */
+    private synchronized Executor getPipelineReaders() {
+        if (pipelineReaders == null) {
+            pipelineReaders = Executors.newCachedThreadPool(new DaemonThreadFactory("jtoolkit2-pipeline-reader"));
+        }
+        return pipelineReaders;
+    }
+
+    private synchronized void shutdownPipelineReaders() {
+        if (pipelineReaders != null) {
+            pipelineReaders.shutdown();
+            pipelineReaders = null;
+        }
+    }
+
+    /**
+     * Reflect the outcome of a failed single transaction in its state, as is done for each transaction of a pipelined
+     * sequence.
+     */
+    private static void recordFailure(Transaction tx, Exception e) {
+        if (e instanceof CommandFailedException) {
+            // The server responded; the response describes the failure.
+            tx.setCause(e);
+            return;
+        }
+
+        if (e instanceof IOException) {
+            tx.setState(TransactionState.RETRY);
+        } else {
+            tx.setState(TransactionState.FATAL_ERROR);
+        }
+        tx.setCause(e);
+    }
+
+    private static <T> void complete(final CompletableFuture<T> future, final T value, Executor completionExecutor) {
+        try {
+            completionExecutor.execute(() -> future.complete(value));
+        } catch (RejectedExecutionException ree) {
+            future.complete(value);
+        }
+    }
+
+    private static void completeExceptionally(final CompletableFuture<?> future, final Throwable cause,
+            Executor completionExecutor) {
+        try {
+            completionExecutor.execute(() -> future.completeExceptionally(cause));
+        } catch (RejectedExecutionException ree) {
+            future.completeExceptionally(cause);
+        }
+    }
+
     /**
      * Pipeline execute a sequence of commands over a single session. A single
      * {@link godaddy.registry.jtoolkit2.session.Session} is used in order to guarantee ordering of command effects.
@@ -471,6 +758,12 @@ public class SessionManagerImpl implements SessionManager {
             throw new IllegalStateException();
         }
 
+        if (isPipelining()) {
+            int successCount = executePipelined(txs);
+            debugLogger.finest("exit");
+            return successCount;
+        }
+
         Session session = null;
         StatsManager statsManager = null;
 
@@ -485,8 +778,14 @@ public class SessionManagerImpl implements SessionManager {
 
         int successCount;
 
-        int lastTxIdx = send(txs, session, statsManager);
-        successCount = receive(txs, session, statsManager, lastTxIdx);
+        try {
+            int lastTxIdx = send(txs, session, statsManager);
+            successCount = receive(txs, session, statsManager, lastTxIdx);
+        } finally {
+            for (Transaction tx : txs) {
+                inFlight.remove(tx);
+            }
+        }
 
         sessionPool.releaseSession(session);
 
@@ -507,12 +806,12 @@ public class SessionManagerImpl implements SessionManager {
             default:
             }
 
-            Command command = txs[i].getCommand();
             txs[i].start();
 
             try {
-                session.write(command);
-                statsManager.incCommandCounter(command.getCommandType());
+                txs[i].writeTo(session);
+                register(txs[i]);
+                statsManager.incCommandCounter(txs[i].getCommandType());
             } catch (ParsingException pe) {
                 txs[i].setState(TransactionState.FATAL_ERROR);
                 if (pe.getCause() instanceof SAXException) {
@@ -553,8 +852,9 @@ public class SessionManagerImpl implements SessionManager {
 
             try {
                 session.read(response);
+                matchResponse(txs[j]);
                 txs[j].setState(TransactionState.PROCESSED);
-                statsManager.recordResponseTime(txs[j].getCommand().getCommandType(), txs[j].getResponseTime());
+                statsManager.recordResponseTime(txs[j].getCommandType(), txs[j].getResponseTime());
             } catch (ParsingException pe) {
                 txs[j].setState(TransactionState.FATAL_ERROR);
                 if (pe.getCause() instanceof SAXException) {
@@ -585,18 +885,261 @@ public class SessionManagerImpl implements SessionManager {
         return Math.min(firstFailedIndex, txs.length);
     }
 
+    /**
+     * Match the response read for a transaction to the transaction in flight with the response's clTRID. A response
+     * which matches another transaction, or none, was sent for another command, such as one whose response was not
+     * read before a timeout.
+     */
+    private void matchResponse(Transaction tx) {
+        String clTRID = tx.getResponse().getCLTRID();
+        if (clTRID == null) {
+            // Servers may omit the clTRID from responses to commands they could not parse.
+            inFlight.remove(tx);
+            return;
+        }
+
+        Transaction matched = inFlight.match(clTRID);
+        if (matched != tx) {
+            if (matched != null) {
+                register(matched);
+            }
+            inFlight.remove(tx);
+            userLogger.warning(ErrorPkg.getMessage("epp.session.response.orphan",
+                    new String[] {"<<cltrid>>", "<<expected>>"},
+                    new String[] {clTRID, String.valueOf(tx.getCLTRID())}));
+        }
+    }
+
+    /**
+     * Index the transaction, whose command has been written, so that its response can be matched to it.
+     */
+    private void register(Transaction tx) {
+        if (!inFlight.register(tx)) {
+            userLogger.warning(ErrorPkg.getMessage("epp.session.index.cltrid.duplicate", "<<cltrid>>",
+                    tx.getCLTRID()));
+        }
+    }
+
+    private boolean isPipelining() {
+        return pipelineWindow > 1;
+    }
+
+    /**
+     * Execute a single transaction over a shared pipelined session, retrying on an I/O failure before its command was
+     * written, as for the exclusive session case.
+     */
+    private void executePipelined(Transaction tx) throws FatalSessionException, IOException, ParsingException {
+        int failCount = 0;
+
+        while (state != SMState.STOPPED) {
+            try {
+                submitToPipeline(tx).get();
+                return;
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof ParsingException) {
+                    throw (ParsingException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else if (!(cause instanceof IOException)) {
+                    throw new IOException(cause);
+                }
+
+                IOException ioe = (IOException) cause;
+                userLogger.warning(ioe.getMessage());
+                if (isResendable(ioe) && state != SMState.STOPPED && failCount < MAX_ACCEPTABLE_FAIL_COUNT) {
+                    failCount++;
+                } else {
+                    throw ioe;
+                }
+            } catch (InterruptedException ie) {
+                // if interrupted by shutdown, then state will be STOPPED
+                continue;
+            } catch (SessionConfigurationException sce) {
+                throw new FatalSessionException(sce);
+            } catch (SessionOpenException soe) {
+                throw new FatalSessionException(soe);
+            }
+        }
+
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Execute a sequence of transactions in order over a single pipelined session, which may be shared with other
+     * threads. Transactions which fail due to I/O errors are left in the RETRY state.
+     */
+    private int executePipelined(Transaction[] txs) throws FatalSessionException {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[txs.length];
+        PipelinedSession pipeline = null;
+
+        try {
+            for (int i = 0; i < txs.length; i++) {
+                switch (txs[i].getState()) {
+                case PROCESSED:
+                case FATAL_ERROR:
+                    continue;
+                default:
+                }
+
+                sessionPool.getTrafficShaper().acquire(txs[i].getCommandType());
+                CompletableFuture<Transaction> result = pipeline == null ? null : pipeline.submit(txs[i]);
+                if (result == null) {
+                    if (pipeline != null && anyFailed(results, i)) {
+                        // The session failed; later commands must not overtake those awaiting retry.
+                        break;
+                    }
+                    // Every earlier transaction has completed, so a new pipeline preserves the command order.
+                    pipeline = getPipeline(txs[i].getCommandType());
+                    result = submitTo(pipeline, txs[i]);
+                }
+                results[i] = result;
+            }
+
+            for (CompletableFuture<?> result : results) {
+                if (result != null) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException ee) {
+                        // The transaction's state and cause describe the failure.
+                        continue;
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            userLogger.warning(ie.getMessage());
+        } catch (SessionConfigurationException sce) {
+            throw new FatalSessionException(sce);
+        } catch (SessionOpenException soe) {
+            throw new FatalSessionException(soe);
+        }
+
+        for (int i = 0; i < txs.length; i++) {
+            if (txs[i].getState() != TransactionState.PROCESSED) {
+                return i;
+            }
+        }
+        return txs.length;
+    }
+
+    private static boolean anyFailed(CompletableFuture<?>[] results, int count) {
+        for (int i = 0; i < count; i++) {
+            if (results[i] != null && results[i].isCompletedExceptionally()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<Transaction> submitToPipeline(Transaction tx) throws SessionConfigurationException,
+            SessionOpenException, InterruptedException {
+
+        // Wait for the shaper before choosing a pipeline, so that a new pipeline is not left without a command.
+        sessionPool.getTrafficShaper().acquire(tx.getCommandType());
+        return submitTo(getPipeline(tx.getCommandType()), tx);
+    }
+
+    /**
+     * Submit the transaction to the given pipeline, or to another if that has retired. The caller must already have
+     * waited for the traffic shaper.
+     */
+    private CompletableFuture<Transaction> submitTo(PipelinedSession pipeline, Transaction tx)
+            throws SessionConfigurationException, SessionOpenException, InterruptedException {
+
+        PipelinedSession target = pipeline;
+        while (state != SMState.STOPPED) {
+            CompletableFuture<Transaction> result = target.submit(tx);
+            if (result != null) {
+                return result;
+            }
+            // The pipeline retired concurrently.
+            target = getPipeline(tx.getCommandType());
+        }
+
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Choose the least loaded pipelined session with space in its window and under the command rate limits, starting
+     * a new pipeline over a session from the pool if there is none and the pool has not reached its maximum size. If
+     * every pipeline's window is full, the least loaded pipeline under the rate limits is returned, on which the
+     * caller will wait for space.
+     */
+    private PipelinedSession getPipeline(CommandType type) throws SessionConfigurationException,
+            SessionOpenException, InterruptedException {
+
+        while (state != SMState.STOPPED) {
+            PipelinedSession best = leastLoadedPipeline(type, true);
+            if (best != null) {
+                return best;
+            }
+
+            synchronized (pipelines) {
+                if (pipelines.size() < maxPoolSize) {
+                    final SessionPoolImpl pool = sessionPool;
+                    Session session = pool.getSession(type);
+                    PipelinedSession pipeline = new PipelinedSession(session, pipelineWindow, inFlight,
+                            getPipelineReaders(), p -> {
+                                pipelines.remove(p);
+                                pool.releaseSession(p.getSession());
+                            });
+                    pipelines.add(pipeline);
+                    return pipeline;
+                }
+            }
+
+            best = leastLoadedPipeline(type, false);
+            if (best != null) {
+                return best;
+            }
+
+            // Every pipeline has reached the command rate limit.
+            Thread.sleep(PIPELINE_LIMIT_EXCEEDED_WAIT);
+        }
+
+        throw new IllegalStateException();
+    }
+
+    private PipelinedSession leastLoadedPipeline(CommandType type, boolean requireCapacity) {
+        SessionProperties sessionProperties = properties.getSessionProperties();
+        int typeLimit = sessionProperties.getCommandLimit(type);
+        int totalLimit = sessionProperties.getCommandLimit();
+
+        PipelinedSession best = null;
+        for (PipelinedSession pipeline : pipelines) {
+            if (pipeline.isRetired() || requireCapacity && !pipeline.hasCapacity()) {
+                continue;
+            }
+
+            StatsManager stats = pipeline.getSession().getStatsManager();
+            if (SessionPoolImpl.isCutoff(stats.getRecentCommandCount(type), stats.getRecentCommandCount(), typeLimit,
+                    totalLimit)) {
+                continue;
+            }
+
+            if (best == null || pipeline.getOutstandingCount() < best.getOutstandingCount()) {
+                best = pipeline;
+            }
+        }
+        return best;
+    }
+
     private Session sendCommandAndGetSession(Transaction[] txs) throws FatalSessionException {
 
         Session session = null;
-        Command command = txs[0].getCommand();
         int failCount = 0;
 
         while (state != SMState.STOPPED) {
             try {
+                session = null;
+                sessionPool.getTrafficShaper().acquire(txs);
                 session = sessionPool.getSession(txs);
                 txs[0].start();
-                session.write(command);
-                session.getStatsManager().incCommandCounter(command.getCommandType());
+                txs[0].writeTo(session);
+                register(txs[0]);
+                session.getStatsManager().incCommandCounter(txs[0].getCommandType());
                 return session;
             } catch (ParsingException pe) {
                 txs[0].setState(TransactionState.FATAL_ERROR);
@@ -642,4 +1185,13 @@ public class SessionManagerImpl implements SessionManager {
     public StatsViewer getStatsViewer() {
         return sessionPool.getStatsViewer();
     }
+
+    /**
+     * Get the metrics describing the SessionManager's session pool. The same metrics describe each pool the
+     * SessionManager is configured with, so a {@link MetricsRegistry} need be bound to them only once.
+     */
+    @Override
+    public PoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
 }
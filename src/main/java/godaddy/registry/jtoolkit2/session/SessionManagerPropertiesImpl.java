@@ -7,6 +7,7 @@ import java.util.Enumeration;
 import java.util.Vector;
 
 import godaddy.registry.jtoolkit2.se.CommandType;
+import godaddy.registry.jtoolkit2.xml.ValidationMode;
 
 /**
  * A SessionManager is configured based on a SessionManagerProperties instance. This class loads properties from a
@@ -138,6 +139,12 @@ public class SessionManagerPropertiesImpl implements SessionManagerProperties, S
         return getStringProperty("ssl.keymanager.algorithm");
     }
 
+    // Defaults to false, so every connection performs a full handshake.
+    @Override
+    public boolean isSSLSessionResumptionEnabled() {
+        return getBooleanProperty("ssl.session.resume", false);
+    }
+
     // Defaults to the maximum value of an Integer.
     @Override
     public int getCommandLimit() {
@@ -157,12 +164,30 @@ public class SessionManagerPropertiesImpl implements SessionManagerProperties, S
         return getLongProperty("epp.server.command.limit.interval", 1000L);
     }
 
+    // Defaults to false, so that the command limits apply to each session.
+    @Override
+    public boolean isCommandLimitShared() {
+        return getBooleanProperty("epp.server.command.limit.shared", false);
+    }
+
     // Defaults to 5 sessions.
     @Override
     public int getMaximumPoolSize() {
         return getIntProperty("epp.client.session.count.max", 5);
     }
 
+    // Defaults to 0, so sessions are opened as they are needed.
+    @Override
+    public int getWarmUpPoolSize() {
+        return getIntProperty("epp.client.session.count.warmup", 0);
+    }
+
+    // Defaults to false, so no MBean is registered.
+    @Override
+    public boolean isJmxEnabled() {
+        return getBooleanProperty("epp.client.jmx.enabled", false);
+    }
+
     // Defaults to 2 minutes
     @Override
     public long getWaitTimeout() {
@@ -199,12 +224,58 @@ public class SessionManagerPropertiesImpl implements SessionManagerProperties, S
         return getBooleanProperty("xml.validation.enable", true);
     }
 
+    // Defaults to ALWAYS if strict validation is enforced, otherwise OFF.
+    @Override
+    public ValidationMode getValidationMode() {
+        ValidationMode mode = ValidationMode.fromProperty(getStringProperty("xml.validation.mode"));
+        if (mode != null) {
+            return mode;
+        }
+        return enforceStrictValidation() ? ValidationMode.ALWAYS : ValidationMode.OFF;
+    }
+
+    // Defaults to 10 percent.
+    @Override
+    public int getValidationSamplePercent() {
+        return getIntProperty("xml.validation.sample.percent", 10);
+    }
+
+    // Defaults to false, so every response is parsed to a DOM and validated.
+    @Override
+    public boolean isStreamingParserEnabled() {
+        return getBooleanProperty("xml.parser.streaming", false);
+    }
+
+    // Defaults to false, so commands are written through an XMLStreamWriter.
+    @Override
+    public boolean isDirectEncodingEnabled() {
+        return getBooleanProperty("xml.writer.direct", false);
+    }
+
+    // Defaults to true, so Response.getSourceXMLString returns the received XML.
+    @Override
+    public boolean isResponseSourceRetained() {
+        return getBooleanProperty("xml.parser.source.retain", true);
+    }
+
+    // Defaults to 2 significant digits, for percentiles within 1% of the true value.
+    @Override
+    public int getResponseTimePrecision() {
+        return getIntProperty("epp.client.stats.precision", LatencyHistogram.DEFAULT_PRECISION);
+    }
+
     // Defaults to false, so XML output will not have namespace prefixes
     @Override
     public boolean needOutputNamespacePrefixInXml() {
         return getBooleanProperty("xml.output.namespace.prefixes", false);
     }
 
+    // Defaults to 1, so commands are not pipelined.
+    @Override
+    public int getPipelineWindow() {
+        return getIntProperty("epp.client.pipeline.window", 1);
+    }
+
     @Override
     public void setClientPW(String password) {
         properties.setProperty("epp.client.password", password);
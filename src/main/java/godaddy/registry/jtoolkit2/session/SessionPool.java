@@ -40,6 +40,27 @@ public interface SessionPool {
      */
     void setMaxSize(int size);
 
+    /**
+     * Open sessions concurrently until the pool holds the given number of
+     * sessions, or its maximum size if that is less, so that transactions
+     * need not wait for sessions to be opened one at a time.  Sessions which
+     * fail to open are left to be opened as they are needed.  By default, no
+     * sessions are opened in advance.
+     *
+     * @return the number of sessions in the pool, or 0 if the pool does not
+     * open sessions in advance.
+     *
+     * @throws SessionConfigurationException No session was open and new
+     * sessions could not be configured.
+     *
+     * @throws SessionOpenException No session was open and no new session
+     * could be opened.
+     */
+    default int warmUp(int count) throws SessionConfigurationException,
+            SessionOpenException, InterruptedException {
+        return 0;
+    }
+
     /**
      * Get the greeting data from the most recently opened session in the pool.
      */
@@ -93,4 +114,13 @@ public interface SessionPool {
      * about the sessions in the pool.
      */
     StatsViewer getStatsViewer();
+
+    /**
+     * Get the metrics describing the pool, for export through JMX or to an
+     * application's metrics system (default: metrics which are never
+     * updated).
+     */
+    default PoolMetrics getMetrics() {
+        return new PoolMetrics();
+    }
 }
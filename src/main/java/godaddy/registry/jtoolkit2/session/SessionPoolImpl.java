@@ -1,9 +1,23 @@
 package godaddy.registry.jtoolkit2.session;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,6 +29,14 @@ import godaddy.registry.jtoolkit2.se.Greeting;
 /**
  * This defines the operations or actions for managing a SessionPool and a StatsViewer.
  *
+ * <p>
+ * Checkout and release do not lock the pool. Idle sessions are held in a concurrent queue, from which a checkout
+ * takes the least recently released session that is under the command rate limits, so that load is spread across
+ * sessions. Threads waiting for a session are served in arrival order by a fair semaphore whose permits count the
+ * idle sessions plus the sessions which may yet be opened; each wait is bounded by the wait timeout, after which a
+ * warning is logged and the wait resumes.
+ * </p>
+ *
  * Uses the debug, support and user level loggers.
  */
 public class SessionPoolImpl implements SessionPool, StatsViewer {
@@ -30,13 +52,19 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
 
     private static final String[] SESSION_LIMIT_EXCEDED_ERROR_MSG_ARGS = new String[] {"<<total>>", "<<cutoff>>" };
 
-    private static final String[] CMD_COUNT_LIMIT = new String[] {"<<command>>", "<<count>>", "<<limit>>" };
-
     private String pname;
+    // / Every open session, whether idle or in use.
     private Set<Session> pool;
-    private Session lastSession;
-    private int sessionsInUse;
-    private int maximumSize;
+    // / Open sessions which are not in use, least recently released first.
+    private final Deque<Session> idle;
+    // / One permit per idle session plus one per session which may yet be opened.
+    private final AdjustableSemaphore available;
+    // / The number of sessions open or being opened.
+    private final AtomicInteger size;
+    // / Guards changes to the maximum size and the emptying of the pool.
+    private final Object sizeLock;
+    private volatile Session lastSession;
+    private volatile int maximumSize;
     private long pollInterval;
     private final long waitTimeout;
     private long limitExceededWaitTimeout;
@@ -44,6 +72,10 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
     // / Minimum duration to keep sessions alive.
     private final long clientTimeout;
     private final SessionProperties sessionProperties;
+    private final int totalCommandLimit;
+    private final ConcurrentMap<CommandType, Integer> commandLimits;
+    private final TrafficShaper trafficShaper;
+    private final PoolMetrics metrics;
 
     private Logger debugLogger;
     private Logger userLogger;
@@ -51,15 +83,27 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
     {
         pname = getClass().getPackage().getName();
         pool = new CopyOnWriteArraySet<Session>();
-        sessionsInUse = 0;
+        idle = new ConcurrentLinkedDeque<Session>();
+        size = new AtomicInteger();
+        sizeLock = new Object();
+        commandLimits = new ConcurrentHashMap<CommandType, Integer>();
         debugLogger = Logger.getLogger(pname + ".debug");
         userLogger = Logger.getLogger(pname + ".user");
     }
 
     SessionPoolImpl(SessionPoolProperties poolProps, SessionProperties sessionProps) {
+        this(poolProps, sessionProps, new PoolMetrics());
+    }
+
+    /**
+     * Construct a pool which records to the given metrics, which then report on this pool.
+     */
+    SessionPoolImpl(SessionPoolProperties poolProps, SessionProperties sessionProps, PoolMetrics metrics) {
 
         this.sessionProperties = sessionProps;
+        this.metrics = metrics;
         maximumSize = poolProps.getMaximumPoolSize();
+        available = new AdjustableSemaphore(maximumSize);
         pollInterval = (long) (poolProps.getServerTimeout() * PI_STO_FRACT);
         long minPollInterval = Long.valueOf(System.getProperty("client.pollinterval.min",
                 String.valueOf(MIN_ACCEPTABLE_POLL_INTERVAL)));
@@ -68,16 +112,29 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         }
         clientTimeout = poolProps.getClientTimeout();
         waitTimeout = poolProps.getWaitTimeout();
+        totalCommandLimit = sessionProps.getCommandLimit();
+        trafficShaper = new TrafficShaper(sessionProps, maximumSize);
 
         // wait for lesser of 200ms and 10% command limit interval,
         // but no less than 50ms if command limit exceeded
         limitExceededWaitTimeout = Math.min(sessionProps.getCommandLimitInterval() / 10, 200L);
         limitExceededWaitTimeout = Math.max(limitExceededWaitTimeout, 50L);
+        metrics.setPool(this);
     }
 
     @Override
     public void setMaxSize(int size) {
-        maximumSize = size;
+        synchronized (sizeLock) {
+            int delta = size - maximumSize;
+            maximumSize = size;
+            trafficShaper.setSessionCount(size);
+            if (delta > 0) {
+                available.release(delta);
+            } else if (delta < 0) {
+                // Sessions in use beyond the new maximum are closed as they are released.
+                available.reduce(-delta);
+            }
+        }
     }
 
     /**
@@ -98,6 +155,78 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         releaseSession(getSession());
     }
 
+    @Override
+    public int warmUp(int count) throws SessionConfigurationException, SessionOpenException, InterruptedException {
+        int toOpen = Math.min(count, maximumSize) - size.get();
+        if (toOpen <= 0) {
+            return pool.size();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(toOpen,
+                new DaemonThreadFactory("jtoolkit2-pool-warmup"));
+        try {
+            List<Future<Session>> opening = new ArrayList<Future<Session>>(toOpen);
+            for (int i = 0; i < toOpen && reserveSlot(); i++) {
+                opening.add(executor.submit(this::openIdleSession));
+            }
+
+            Throwable failure = null;
+            int failed = 0;
+            for (Future<Session> future : opening) {
+                try {
+                    future.get();
+                } catch (ExecutionException ee) {
+                    failed++;
+                    if (failure == null) {
+                        failure = ee.getCause();
+                    }
+                    userLogger.warning(ee.getCause().getMessage());
+                }
+            }
+
+            if (failed > 0) {
+                userLogger.warning(ErrorPkg.getMessage("epp.session.pool.warmup.fail",
+                        new String[] {"<<failed>>", "<<count>>"}, new int[] {failed, opening.size()}));
+                if (pool.isEmpty()) {
+                    throwWarmUpFailure(failure);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return pool.size();
+    }
+
+    /**
+     * Open a session in a slot reserved by the caller and add it to the idle sessions.
+     */
+    private Session openIdleSession() throws SessionConfigurationException, SessionOpenException {
+        try {
+            Session session = openSession();
+            // An idle session takes the permit of the capacity it was opened from.
+            idle.addLast(session);
+            return session;
+        } catch (SessionConfigurationException | SessionOpenException | RuntimeException e) {
+            size.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private static void throwWarmUpFailure(Throwable failure) throws SessionConfigurationException,
+            SessionOpenException {
+        if (failure instanceof SessionConfigurationException) {
+            throw (SessionConfigurationException) failure;
+        } else if (failure instanceof SessionOpenException) {
+            throw (SessionOpenException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        throw (Error) failure;
+    }
+
+    /**
+     * Poll each idle session which has not been used within the poll interval. Sessions in use are not polled.
+     */
     @Override
     public long keepAlive() throws IOException {
         debugLogger.finest("enter");
@@ -107,8 +236,13 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         for (Session s : pool) {
             long mruInterval = s.getStatsManager().getMruInterval();
 
-            if (pollInterval < mruInterval && mruInterval < clientTimeout) {
-                s.keepAlive();
+            if (pollInterval < mruInterval && mruInterval < clientTimeout && checkoutIdle(s)) {
+                try {
+                    metrics.incKeepAlivePolls();
+                    s.keepAlive();
+                } finally {
+                    releaseSession(s);
+                }
             }
         }
 
@@ -116,46 +250,72 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         return pollInterval;
     }
 
-    @Override
-    public synchronized void empty() {
-        if (pool == null || pool.isEmpty()) {
-            return;
+    private boolean checkoutIdle(Session session) {
+        if (!available.tryAcquire()) {
+            return false;
         }
 
-        for (Session session : pool) {
-            if (session != null) {
-                try {
+        if (idle.remove(session)) {
+            return true;
+        }
+
+        available.release();
+        return false;
+    }
+
+    @Override
+    public void empty() {
+        synchronized (sizeLock) {
+            if (pool.isEmpty()) {
+                return;
+            }
+
+            for (Session session : pool) {
+                if (session != null) {
                     try {
-                        session.acquire();
-                    } catch (TimeoutException te) {
-                        userLogger.warning(ErrorPkg.getMessage("epp.session.pool.empty.acquire.timeout"));
+                        try {
+                            session.acquire();
+                        } catch (TimeoutException te) {
+                            userLogger.warning(ErrorPkg.getMessage("epp.session.pool.empty.acquire.timeout"));
+                        }
+                        session.close();
+                    } catch (InterruptedException ie) {
+                        userLogger.info(ie.getMessage());
                     }
-                    session.close();
-                } catch (InterruptedException ie) {
-                    userLogger.info(ie.getMessage());
+                    metrics.retire(session);
                 }
             }
-        }
 
-        pool.clear();
+            pool.clear();
+            idle.clear();
+            size.set(0);
+            available.drainPermits();
+            available.release(maximumSize);
+        }
     }
 
     @Override
-    public synchronized void clean() throws SessionConfigurationException, SessionOpenException {
-
-        int count = pool.size();
-        empty();
-        for (int i = 0; i < count; i++) {
-            try {
-                openSession();
-            } catch (SessionOpenException e) {
-                Throwable cause = e.getCause();
-                if (cause instanceof SessionLimitExceededException) {
-                    // It is possible that another client application will
-                    // close some sessions while this is running, thereby
-                    // allowing further sessions to be opened.
-                    continue;
-                } else {
+    public void clean() throws SessionConfigurationException, SessionOpenException {
+        synchronized (sizeLock) {
+            int count = pool.size();
+            empty();
+            for (int i = 0; i < count && reserveSlot(); i++) {
+                try {
+                    // An idle session takes the permit of the capacity it was opened from.
+                    idle.addLast(openSession());
+                } catch (SessionOpenException e) {
+                    size.decrementAndGet();
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SessionLimitExceededException) {
+                        // It is possible that another client application will
+                        // close some sessions while this is running, thereby
+                        // allowing further sessions to be opened.
+                        continue;
+                    } else {
+                        throw e;
+                    }
+                } catch (SessionConfigurationException e) {
+                    size.decrementAndGet();
                     throw e;
                 }
             }
@@ -179,34 +339,181 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         return getSessionImpl(txs);
     }
 
+    /**
+     * The shaper which paces commands sent over this pool's sessions to the aggregate command limits. Callers should
+     * acquire from it before each send.
+     */
+    TrafficShaper getTrafficShaper() {
+        return trafficShaper;
+    }
+
     private Session getSessionImpl(Object obj) throws SessionConfigurationException, SessionOpenException,
             InterruptedException {
 
         debugLogger.finest("enter");
 
-        Session acquiredSession = null;
+        long waitStart = System.nanoTime();
         int failCount = 0;
 
-        do {
-            acquiredSession = getBestAvailableSession(obj);
+        while (true) {
+            if (!available.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS)) {
+                userLogger.warning(ErrorPkg.getMessage("epp.session.pool.wait.timeout", "<<timeout>>",
+                        String.valueOf(waitTimeout)));
+                continue;
+            }
 
-            if (acquiredSession == null) {
-                if (poolCanGrow()) {
-                    try {
-                        openSession();
-                    } catch (SessionOpenException soe) {
-                        waitOrMaybeFail(soe, failCount);
-                        failCount++;
+            // The permit is for either an idle session or a session which may be opened.
+            Session acquiredSession;
+            try {
+                acquiredSession = takeIdle(obj);
+            } catch (InterruptedException ie) {
+                available.release();
+                throw ie;
+            }
+
+            if (acquiredSession == null && reserveSlot()) {
+                try {
+                    acquiredSession = openSession();
+                    acquiredSession.acquire();
+                } catch (SessionOpenException soe) {
+                    size.decrementAndGet();
+                    available.release();
+                    waitOrMaybeFail(soe, failCount);
+                    failCount++;
+                    continue;
+                } catch (TimeoutException te) {
+                    // A newly opened session is not in use, so this is not expected.
+                    releaseSession(acquiredSession);
+                    continue;
+                } catch (SessionConfigurationException | InterruptedException | RuntimeException e) {
+                    if (acquiredSession != null) {
+                        releaseSession(acquiredSession);
+                    } else {
+                        size.decrementAndGet();
+                        available.release();
                     }
-                } else {
-                    waitForRelease();
+                    throw e;
                 }
             }
-        } while (acquiredSession == null);
 
-        debugLogger.finest("exit");
+            if (acquiredSession != null) {
+                metrics.recordCheckout(System.nanoTime() - waitStart);
+                debugLogger.finest("exit");
+                return acquiredSession;
+            }
+
+            // Every idle session has reached a command rate limit and the pool can't grow; wait for the limits to
+            // reset.
+            available.release();
+            metrics.incRateLimitStalls();
+            Thread.sleep(limitExceededWaitTimeout);
+        }
+    }
+
+    /**
+     * Take the least recently released idle session which is under the command rate limits for the given
+     * transactions or command type. The caller must hold a permit, which the returned session takes over.
+     *
+     * @return an acquired session, or null if no idle session is eligible
+     */
+    private Session takeIdle(Object obj) throws InterruptedException {
+        boolean skipped = false;
+        Session chosen = null;
+
+        // Candidates stay in the deque while they are examined, so other threads never find it empty while an
+        // eligible session is idle; each is claimed by removing it, which only one thread can do.
+        Iterator<Session> candidates = idle.iterator();
+        while (chosen == null && candidates.hasNext()) {
+            Session candidate = candidates.next();
+            if (!candidate.isOpen()) {
+                if (idle.remove(candidate)) {
+                    // Closed while idle; the permit now represents capacity to open a replacement.
+                    discard(candidate);
+                }
+            } else if (isEligible(candidate, obj)) {
+                if (idle.remove(candidate)) {
+                    chosen = candidate;
+                }
+            } else {
+                skipped = true;
+            }
+        }
+
+        if (chosen == null) {
+            if (skipped && obj instanceof CommandType) {
+                CommandType type = (CommandType) obj;
+                userLogger.info(ErrorPkg.getMessage("epp.session.rate.limit.exceeded", CMD_LIMIT_PAIR,
+                        new String[] {type.toString(), String.valueOf(getCommandLimit(type)) }));
+            }
+            return null;
+        }
+
+        try {
+            chosen.acquire();
+        } catch (TimeoutException te) {
+            userLogger.info(ErrorPkg.getMessage("epp.session.pool.acquire.timeout"));
+            idle.offerFirst(chosen);
+            return null;
+        } catch (InterruptedException ie) {
+            idle.offerFirst(chosen);
+            throw ie;
+        }
+        return chosen;
+    }
+
+    private boolean isEligible(Session session, Object obj) {
+        StatsManager m = session.getStatsManager();
+
+        if (obj instanceof Transaction[]) {
+            for (Transaction tx : (Transaction[]) obj) {
+                CommandType t = tx.getCommandType();
+                if (isCutoff(m.getRecentCommandCount(t), m.getRecentCommandCount(), getCommandLimit(t),
+                        totalCommandLimit)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        CommandType type = obj instanceof CommandType ? (CommandType) obj : null;
+        // total command count
+        int tc = m.getRecentCommandCount();
+        // command-specific command count
+        int cc = (type == null ? tc : m.getRecentCommandCount(type));
+        int cmdCutoff = (type == null ? totalCommandLimit : getCommandLimit(type));
+
+        return !isCutoff(cc, tc, cmdCutoff, totalCommandLimit);
+    }
+
+    /**
+     * Command limits are looked up once per command type, since they are consulted on every checkout.
+     */
+    private int getCommandLimit(CommandType type) {
+        Integer limit = commandLimits.get(type);
+        if (limit == null) {
+            limit = sessionProperties.getCommandLimit(type);
+            commandLimits.putIfAbsent(type, limit);
+        }
+        return limit;
+    }
 
-        return acquiredSession;
+    private boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= maximumSize) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void discard(Session session) {
+        if (pool.remove(session)) {
+            size.decrementAndGet();
+            metrics.retire(session);
+        }
     }
 
     private void waitOrMaybeFail(SessionOpenException soe, int failCount) throws SessionOpenException {
@@ -224,9 +531,8 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
                 // No sessions are open, but the server is rejecting connections
                 // from this client. Therefore, there is a configuration error.
                 throw new ConfigurationError(cause);
-            } else {
-                waitForRelease();
             }
+            // Otherwise wait for the release of an open session.
         } else {
             if (isRepeatableFailedLogin(cause, failCount)) {
                 userLogger.warning(soe.getMessage());
@@ -243,11 +549,7 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
      * server supports. The intention is to prevent an infinite loop in waiting for the release of a session.
      */
     private void constrainPoolToCurrentSize() {
-        maximumSize = pool.size();
-    }
-
-    private boolean poolCanGrow() {
-        return pool.size() < maximumSize;
+        setMaxSize(pool.size());
     }
 
     private boolean isRepeatableFailedLogin(Throwable throwable, int count) {
@@ -255,123 +557,14 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
                 && count < MAX_ACCEPTABLE_FAIL_COUNT);
     }
 
-    private synchronized Session getBestAvailableSession(Object obj) throws InterruptedException {
-
-        debugLogger.finest("enter");
-        Session bestSession = null;
-
-        Iterator<Session> iter = pool.iterator();
-        CommandType type;
-        if (obj instanceof Transaction[]) {
-            Transaction[] txs = (Transaction[]) obj;
-
-            sessionSearch: while (iter.hasNext()) {
-                Session session = iter.next();
-                if (session.isAvailable()) {
-                    for (Transaction tx : txs) {
-                        CommandType t = tx.getCommand().getCommandType();
-                        StatsManager m = session.getStatsManager();
-
-                        if (SessionPoolImpl.isCutoff(m.getRecentCommandCount(t), m.getRecentCommandCount(),
-                                sessionProperties.getCommandLimit(t), sessionProperties.getCommandLimit())) {
-                            continue sessionSearch;
-                        }
-                    }
-
-                    // Only set this if session command counts are all under
-                    // cutoff values
-                    bestSession = session;
-                }
-            }
-        } else {
-            if (obj instanceof CommandType) {
-                type = (CommandType) obj;
-            } else {
-                type = null;
-            }
-            bestSession = availableSessionWithMinimumCommandCount(type);
-        }
-
-        if (bestSession != null) {
-            try {
-                bestSession.acquire();
-                sessionsInUse++;
-            } catch (TimeoutException te) {
-                userLogger.info(ErrorPkg.getMessage("epp.session.pool.acquire.timeout"));
-                bestSession = null;
-            }
-        }
-
-        debugLogger.finest("exit");
-        return bestSession;
-    }
-
-    private Session availableSessionWithMinimumCommandCount(CommandType type) {
-        Session bestSession = null;
-
-        int min = Integer.MAX_VALUE;
-        final int totCutoff = sessionProperties.getCommandLimit();
-        final int cmdCutoff = (type == null ? totCutoff : sessionProperties.getCommandLimit(type));
-
-        boolean anySessionAvailable = false;
-        for (Session session : pool) {
-            if (session.isAvailable()) {
-                anySessionAvailable = true;
-                // total command count
-                int tc = session.getStatsManager().getRecentCommandCount();
-                // command-specific command count
-                int cc = (type == null ? tc : session.getStatsManager().getRecentCommandCount(type));
-
-                if (cc < cmdCutoff && cc < min && tc < totCutoff) {
-                    // bookmark the minimum count and use it to compare with the next candidate
-                    min = cc;
-                    bestSession = session;
-                    if (debugLogger.isLoggable(Level.FINE)) {
-                        debugLogger.fine(ErrorPkg.getMessage("epp.session.rate.limit.notexceeded",
-                                CMD_COUNT_LIMIT, new String[] {type == null ? "all commands" : type.toString(),
-                                        String.valueOf(cc), String.valueOf(cmdCutoff) }));
-                    }
-                }
-            }
-        }
-
-        // If there is any session available but still cannot find a best session,
-        // it implies all the available sessions exceeded the command rate limit already.
-        if (anySessionAvailable && bestSession == null) {
-            userLogger.info(ErrorPkg.getMessage("epp.session.rate.limit.exceeded", CMD_LIMIT_PAIR,
-                    new String[] {type.toString(), String.valueOf(cmdCutoff) }));
-        }
-        return bestSession;
-    }
-
-    private void openSession() throws SessionConfigurationException, SessionOpenException {
+    private Session openSession() throws SessionConfigurationException, SessionOpenException {
 
         Session newSession = SessionFactory.newInstance(sessionProperties);
         newSession.open();
-        synchronized (this) {
-            lastSession = newSession;
-            pool.add(newSession);
-            notify();
-        }
-    }
-
-    private synchronized void waitForRelease() {
-        if (sessionsInUse < pool.size()) {
-            // There are only inappropriate sessions available.
-            try {
-                wait(limitExceededWaitTimeout);
-            } catch (InterruptedException ie) {
-                userLogger.severe("Interrupt in wait: rate limit reset wait");
-            }
-        }
-
-        while (sessionsInUse >= pool.size() && pool.size() >= maximumSize) {
-            try {
-                wait(waitTimeout);
-            } catch (InterruptedException ie) {
-                userLogger.severe("Interrupted waiting for session release");
-            }
-        }
+        metrics.incSessionsOpened();
+        lastSession = newSession;
+        pool.add(newSession);
+        return newSession;
     }
 
     @Override
@@ -380,33 +573,39 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
             return;
         }
 
+        boolean pooled = pool.contains(session);
+        String reason;
+
         if (session.isInvalid()) {
+            if (pooled) {
+                metrics.incSessionsInvalidated();
+            }
             session.close();
             session.release();
-            synchronized (this) {
-                pool.remove(session);
-                sessionsInUse--;
-                debugLogger.fine(ErrorPkg.getMessage("epp.session.pool.release.notify.invalid", "<<thread>>",
-                        String.valueOf(Thread.currentThread().getId())));
-                notify();
-            }
-        } else if (!session.isOpen()) {
-            session.release();
-            synchronized (this) {
-                pool.remove(session);
-                sessionsInUse--;
-                debugLogger.fine(ErrorPkg.getMessage("epp.session.pool.release.notify.closed", "<<thread>>",
-                        String.valueOf(Thread.currentThread().getId())));
-                notify();
+            discard(session);
+            reason = "epp.session.pool.release.notify.invalid";
+        } else if (!session.isOpen() || size.get() > maximumSize) {
+            if (session.isOpen()) {
+                // The maximum size has been reduced.
+                session.close();
             }
+            session.release();
+            discard(session);
+            reason = "epp.session.pool.release.notify.closed";
         } else {
             session.release();
-            synchronized (this) {
-                sessionsInUse--;
-                debugLogger.fine(ErrorPkg.getMessage("epp.session.pool.release.notify.normal", "<<thread>>",
-                        String.valueOf(Thread.currentThread().getId())));
-                notify();
+            if (pooled) {
+                idle.addLast(session);
             }
+            reason = "epp.session.pool.release.notify.normal";
+        }
+
+        if (pooled) {
+            available.release();
+        }
+
+        if (debugLogger.isLoggable(Level.FINE)) {
+            debugLogger.fine(ErrorPkg.getMessage(reason, "<<thread>>", String.valueOf(Thread.currentThread().getId())));
         }
     }
 
@@ -415,6 +614,23 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         return this;
     }
 
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    int getPoolSize() {
+        return pool.size();
+    }
+
+    int getIdleCount() {
+        return idle.size();
+    }
+
+    int getMaximumSize() {
+        return maximumSize;
+    }
+
     @Override
     public int getRecentCommandCount() {
         return getRecentCommandCount(null);
@@ -483,7 +699,7 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
             }
         }
 
-        return t / c;
+        return c == 0L ? 0L : t / c;
     }
 
     @Override
@@ -491,6 +707,20 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         return getAverageResponseTime(null);
     }
 
+    @Override
+    public LatencyHistogram getResponseTimeHistogram(CommandType type) {
+        LatencyHistogram merged = new LatencyHistogram(sessionProperties.getResponseTimePrecision());
+
+        for (Session s : pool) {
+            if (s == null) {
+                continue;
+            }
+            merged.add(s.getStatsManager().getResponseTimeHistogram(type));
+        }
+
+        return merged;
+    }
+
     @Override
     public long getMruInterval() {
         long minInterval = Long.MAX_VALUE;
@@ -520,7 +750,51 @@ public class SessionPoolImpl implements SessionPool, StatsViewer {
         return retval;
     }
 
-    private static boolean isCutoff(int ccount, int tcount, int clim, int tlim) {
+    @Override
+    public Set<Integer> getResultCodes() {
+        Set<Integer> codes = new TreeSet<Integer>();
+
+        for (Session s : pool) {
+            if (s == null) {
+                continue;
+            }
+            codes.addAll(s.getStatsManager().getResultCodes());
+        }
+
+        return codes;
+    }
+
+    @Override
+    public int getShapingQueueDepth() {
+        return trafficShaper.getQueueDepth();
+    }
+
+    @Override
+    public long getShapingDelayCount() {
+        return trafficShaper.getDelayedCount();
+    }
+
+    @Override
+    public long getAverageShapingWaitTime() {
+        return trafficShaper.getAverageWaitTime();
+    }
+
+    static boolean isCutoff(int ccount, int tcount, int clim, int tlim) {
         return ccount >= clim || tcount >= tlim;
     }
+
+    /**
+     * A fair semaphore whose permits may be reduced when the maximum pool size is reduced.
+     */
+    private static final class AdjustableSemaphore extends Semaphore {
+        private static final long serialVersionUID = -3870584735217652634L;
+
+        AdjustableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
 }
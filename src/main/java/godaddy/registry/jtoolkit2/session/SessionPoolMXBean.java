@@ -0,0 +1,106 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.Map;
+
+/**
+ * The management interface of a session pool, registered with the platform
+ * MBean server as
+ * <code>godaddy.registry.jtoolkit2:type=SessionPool,name=&lt;clID&gt;</code>
+ * when <code>epp.client.jmx.enabled</code> is true.  Counts are since the
+ * session manager was created, and are not reset when it is reconfigured.
+ * Times are in milliseconds.
+ */
+public interface SessionPoolMXBean {
+
+    /**
+     * Get the number of sessions open, whether idle or in use.
+     */
+    int getPoolSize();
+
+    /**
+     * Get the maximum number of sessions the pool may open.
+     */
+    int getMaximumPoolSize();
+
+    /**
+     * Get the number of sessions checked out of the pool.
+     */
+    int getSessionsInUse();
+
+    /**
+     * Get the number of sessions checked out of the pool since creation.
+     */
+    long getCheckoutCount();
+
+    /**
+     * Get the total time threads have waited to check out a session,
+     * including the time taken to open new sessions.
+     */
+    long getCheckoutWaitTime();
+
+    /**
+     * Get the longest time a thread has waited to check out a session.
+     */
+    long getMaxCheckoutWaitTime();
+
+    /**
+     * Get the number of times a thread waited for a session because every
+     * idle session had reached a command rate limit and no more sessions
+     * could be opened.
+     */
+    long getRateLimitStallCount();
+
+    /**
+     * Get the number of threads currently waiting to send a command so as to
+     * stay within the aggregate command limits.
+     */
+    int getShapingQueueDepth();
+
+    /**
+     * Get the number of commands which have been delayed so as to stay
+     * within the aggregate command limits.
+     */
+    long getShapingDelayCount();
+
+    /**
+     * Get the number of sessions opened.
+     */
+    long getSessionsOpened();
+
+    /**
+     * Get the number of sessions closed, including invalidated sessions.
+     */
+    long getSessionsClosed();
+
+    /**
+     * Get the number of sessions closed because they had become invalid.
+     */
+    long getSessionsInvalidated();
+
+    /**
+     * Get the number of keep-alive polls sent on idle sessions.
+     */
+    long getKeepAlivePollCount();
+
+    /**
+     * Get the number of commands written which are awaiting a response.
+     */
+    int getTransactionsInFlight();
+
+    /**
+     * Get the number of responses whose clTRID matched no command awaiting a
+     * response, such as late responses to commands which timed out.
+     */
+    long getOrphanResponseCount();
+
+    /**
+     * Get the number of commands sent with the clTRID of another command
+     * awaiting a response, whose responses could not be told apart.
+     */
+    long getDuplicateClTRIDCount();
+
+    /**
+     * Get the number of responses received with each result code.
+     */
+    Map<Integer, Long> getResultCodeCounts();
+}
@@ -12,6 +12,24 @@ public interface SessionPoolProperties {
      */
     int getMaximumPoolSize();
 
+    /**
+     * Get the number of sessions to open concurrently when the pool is
+     * started, rather than one at a time as they are needed.  At most the
+     * maximum pool size are opened (default: 0).
+     */
+    default int getWarmUpPoolSize() {
+        return 0;
+    }
+
+    /**
+     * Whether the pool's metrics are registered with the platform MBean
+     * server as a {@link SessionPoolMXBean} while the session manager is
+     * started (default: false).
+     */
+    default boolean isJmxEnabled() {
+        return false;
+    }
+
     /**
      * Get the configured time interval (in milliseconds) after which the EPP
      * server will close idle connections.
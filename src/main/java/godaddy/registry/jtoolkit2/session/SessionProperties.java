@@ -1,6 +1,7 @@
 package godaddy.registry.jtoolkit2.session;
 
 import godaddy.registry.jtoolkit2.se.CommandType;
+import godaddy.registry.jtoolkit2.xml.ValidationMode;
 
 /**
  * Configure the behaviour and authentication sources of a Session.
@@ -107,6 +108,16 @@ public interface SessionProperties {
      */
     String getSSLAlgorithm();
 
+    /**
+     * Whether TLS sessions are cached for abbreviated handshakes when
+     * connections are reopened.  If so, sessions configured with the same key
+     * and trust stores share an SSL context and its session cache (default:
+     * false).
+     */
+    default boolean isSSLSessionResumptionEnabled() {
+        return false;
+    }
+
     /**
      * The maximum number of commands of the given type to process in a single
      * session over a short period of time (default: infinity).
@@ -126,6 +137,17 @@ public interface SessionProperties {
      */
     long getCommandLimitInterval();
 
+    /**
+     * Whether the command limits apply to the client as a whole, across all
+     * of its sessions, rather than to each session.  Either way, the session
+     * manager shapes outbound traffic so that commands are sent no faster
+     * than the aggregate limits allow (default: false, each session may
+     * send commands up to the limits).
+     */
+    default boolean isCommandLimitShared() {
+        return false;
+    }
+
     /**
      * The maximum duration of time (specified in milliseconds) to wait when
      * acquiring a session.
@@ -145,6 +167,62 @@ public interface SessionProperties {
      */
     boolean enforceStrictValidation();
 
+    /**
+     * Which outbound service elements are validated when strict validation
+     * is enforced: all of them, a random sample, the first of each shape of
+     * service element, or none (default: all if strict validation is
+     * enforced, otherwise none).
+     */
+    default ValidationMode getValidationMode() {
+        return enforceStrictValidation() ? ValidationMode.ALWAYS : ValidationMode.OFF;
+    }
+
+    /**
+     * The percentage of outbound service elements validated when the
+     * validation mode is {@link ValidationMode#SAMPLED} (default: 10).
+     */
+    default int getValidationSamplePercent() {
+        return 10;
+    }
+
+    /**
+     * Whether responses are decoded in a single pass over the XML, without
+     * building a DOM, where the response class and its extensions support
+     * that.  Such responses are not validated against the EPP schemas
+     * (default: false).
+     */
+    default boolean isStreamingParserEnabled() {
+        return false;
+    }
+
+    /**
+     * Whether the DOM tree of each command is serialized to text without an
+     * XMLStreamWriter.  Commands are still built as a DOM, and the XML is the
+     * same either way (default: false).
+     */
+    default boolean isDirectEncodingEnabled() {
+        return false;
+    }
+
+    /**
+     * Whether the text of each response is kept, to be returned by the
+     * response's getSourceXMLString method.  Otherwise responses are parsed
+     * directly from the received bytes, and are only decoded to text if they
+     * are to be logged (default: true).
+     */
+    default boolean isResponseSourceRetained() {
+        return true;
+    }
+
+    /**
+     * The number of significant decimal digits, from 1 to 3, to which
+     * response time percentiles are reported by a session's StatsViewer
+     * (default: 2).
+     */
+    default int getResponseTimePrecision() {
+        return LatencyHistogram.DEFAULT_PRECISION;
+    }
+
     /**
      * Enforce XML output to include namespace prefix.
      *
@@ -169,4 +247,17 @@ public interface SessionProperties {
      * @return a boolean flag where true means XML output will have namespace prefix
      */
     boolean needOutputNamespacePrefixInXml();
+
+    /**
+     * The maximum number of commands which may be awaiting a response on a
+     * single session when commands are pipelined.  A value greater than 1
+     * enables full-duplex pipelining, in which commands from any number of
+     * threads share each session's connection, with responses read
+     * concurrently by a dedicated reader and matched to commands by clTRID.
+     * The default value of 1 preserves exclusive use of a session by each
+     * transaction.
+     */
+    default int getPipelineWindow() {
+        return 1;
+    }
 }
@@ -1,5 +1,8 @@
 package godaddy.registry.jtoolkit2.session;
 
+import java.util.Collections;
+import java.util.Set;
+
 import godaddy.registry.jtoolkit2.se.CommandType;
 
 /**
@@ -12,6 +15,14 @@ public interface StatsViewer {
      */
     long getResultCodeCount(int resultCode);
 
+    /**
+     * Get the result codes of the responses received, as counted by
+     * {@link #getResultCodeCount(int)}.
+     */
+    default Set<Integer> getResultCodes() {
+        return Collections.emptySet();
+    }
+
     /**
      * Get the number of commands of the given type that the Session(s)
      * associated with this viewer has/have processed since creation.
@@ -48,10 +59,63 @@ public interface StatsViewer {
      */
     long getAverageResponseTime(CommandType type);
 
+    /**
+     * Get a snapshot of the histogram of response times (in milliseconds) of
+     * transactions of the given command type, or of all transactions if the
+     * type is null.  The times recorded over an interval are given by the
+     * {@link LatencyHistogram#intervalSince(LatencyHistogram)} of snapshots
+     * taken at its start and end.
+     */
+    default LatencyHistogram getResponseTimeHistogram(CommandType type) {
+        return new LatencyHistogram();
+    }
+
+    /**
+     * Get the response time (in milliseconds) within which the given
+     * percentage of transactions of the given command type, or of all
+     * transactions if the type is null, were completed; for example, the
+     * 99th percentile for a percentile of 99.0.
+     */
+    default long getResponseTimePercentile(CommandType type, double percentile) {
+        return getResponseTimeHistogram(type).getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Get the longest response time (in milliseconds) of transactions of the
+     * given command type, or of all transactions if the type is null.
+     */
+    default long getMaxResponseTime(CommandType type) {
+        return getResponseTimeHistogram(type).getMaxValue();
+    }
+
     /**
      * Get the time interval since the most recent use of a Session associated
      * with this StatsViewer.
      */
     long getMruInterval();
-}
 
+    /**
+     * Get the number of threads currently waiting to send a command so as to
+     * stay within the aggregate command limits.  Only a session pool shapes
+     * traffic, so this is 0 for an individual Session.
+     */
+    default int getShapingQueueDepth() {
+        return 0;
+    }
+
+    /**
+     * Get the number of commands which have been delayed so as to stay within
+     * the aggregate command limits.
+     */
+    default long getShapingDelayCount() {
+        return 0L;
+    }
+
+    /**
+     * Get the average time (in milliseconds) for which delayed commands
+     * waited to be sent.
+     */
+    default long getAverageShapingWaitTime() {
+        return 0L;
+    }
+}
@@ -32,6 +32,7 @@ public class TLSContext {
     private static final String TLSV1 = "TLSv1";
     private SSLContext ctx;
     private String commonName;
+    private volatile boolean sessionResumption;
 
     private final Logger userLogger;
     private final Logger supportLogger;
@@ -157,6 +158,15 @@ public class TLSContext {
         return commonName;
     }
 
+    /**
+     * Set whether TLS sessions negotiated by sockets from this context are kept in the context's session cache, so
+     * that later connections to the same peer may resume them with an abbreviated handshake. By default each session
+     * is invalidated once its handshake completes.
+     */
+    public void setSessionResumption(boolean sessionResumption) {
+        this.sessionResumption = sessionResumption;
+    }
+
     /**
      * Creates an SSL Socket to be used in a session.
      *
@@ -204,11 +214,29 @@ public class TLSContext {
             throw se;
         }
 
-        socket.getSession().invalidate();
+        if (!sessionResumption) {
+            socket.getSession().invalidate();
+        }
 
         return socket;
     }
 
+    /**
+     * Creates a client mode SSL engine for use with a non-blocking channel to the given peer. The handshake is not
+     * started; that is the responsibility of the channel driving the engine.
+     *
+     * @param host
+     *            the host
+     * @param port
+     *            the port
+     * @return the SSL engine
+     */
+    public SSLEngine createSSLEngine(String host, int port) {
+        SSLEngine engine = ctx.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+        return engine;
+    }
+
     /**
      * Creates a Https connection to the specified URL connection.
      *
@@ -365,6 +393,16 @@ public class TLSContext {
         return store;
     }
 
+    /**
+     * The SSLContext initialised with the configured keystore and truststore, for clients which create their own
+     * connections.
+     *
+     * @return the SSL context
+     */
+    public SSLContext getSSLContext() {
+        return ctx;
+    }
+
     /**
      * Used to set SSLContext when keystore/truststore are loaded externally in subclass of TLSContext
      * and doesn't rely on default TLSContext.
@@ -8,8 +8,20 @@ import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.net.ssl.SSLHandshakeException;
@@ -30,7 +42,9 @@ import godaddy.registry.jtoolkit2.se.PollRequestCommand;
 import godaddy.registry.jtoolkit2.se.Response;
 import godaddy.registry.jtoolkit2.se.Result;
 import godaddy.registry.jtoolkit2.se.ResultCode;
+import godaddy.registry.jtoolkit2.se.StampedCommand;
 import godaddy.registry.jtoolkit2.xml.ParsingException;
+import godaddy.registry.jtoolkit2.xml.StreamingParser;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 import godaddy.registry.jtoolkit2.xml.XMLParser;
 
@@ -51,6 +65,8 @@ public class TLSSession implements Session, StatsManager {
     private static final String[] TIME_COUNT_ARR = new String[] {"<<time>>", "<<count>>" };
 
     private static final int BUF_SIZE = 4096;
+    private static final Map<List<String>, SharedTLSContext> SHARED_TLS_CONTEXTS =
+            new HashMap<List<String>, SharedTLSContext>();
     private static String pollXML;
     private static CommandType pollCmdType;
 
@@ -67,6 +83,9 @@ public class TLSSession implements Session, StatsManager {
     private java.io.DataOutputStream out;
     private TLSContext ctx;
     private XMLParser parser;
+    private StreamingParser streamingParser;
+    private boolean retainSource = true;
+    private final ByteBufferPool bufferPool = ByteBufferPool.getDefault();
     private SSLSocket socket;
 
     private boolean inUse;
@@ -74,8 +93,10 @@ public class TLSSession implements Session, StatsManager {
     private boolean isInvalid;
     private CommandCounter commandCounter;
     private ResultCounter resultCounter;
-    private long totalTime;
-    private Map<CommandType, Long> commandTimeMap;
+    private int responseTimePrecision = LatencyHistogram.DEFAULT_PRECISION;
+    private LatencyHistogram responseTimes;
+    /// Response times by command name, as commands are counted by name.
+    private ConcurrentMap<String, LatencyHistogram> commandResponseTimes;
     private long mruTime;
     private long acquireTimeout;
 
@@ -104,8 +125,8 @@ public class TLSSession implements Session, StatsManager {
         userLogger = Logger.getLogger(pname + ".user");
         parser = new XMLParser();
         resultCounter = new ResultCounter();
-        commandTimeMap = new HashMap<CommandType, Long>();
-        totalTime = 0L;
+        responseTimes = new LatencyHistogram();
+        commandResponseTimes = new ConcurrentHashMap<String, LatencyHistogram>();
         isInvalid = true;
         greeting = null;
     }
@@ -149,20 +170,108 @@ public class TLSSession implements Session, StatsManager {
         this.acquireTimeout = properties.getAcquireTimeout();
         this.soTimeout = properties.getSocketTimeout();
         this.needOutputNamespacePrefixInXml = properties.needOutputNamespacePrefixInXml();
+        this.streamingParser = properties.isStreamingParserEnabled() ? new StreamingParser() : null;
+        this.retainSource = properties.isResponseSourceRetained();
+        if (properties.getResponseTimePrecision() != responseTimePrecision) {
+            responseTimePrecision = properties.getResponseTimePrecision();
+            responseTimes = new LatencyHistogram(responseTimePrecision);
+            commandResponseTimes.clear();
+        }
 
         try {
             inaddr = InetAddress.getByName(properties.getHostname());
 
             if (ctx == null) {
-                ctx = new TLSContext(properties.getKeyStoreFilename(), properties.getKeyStorePassphrase(),
-                        properties.getTrustStoreFilename(), properties.getTrustStorePassphrase(),
-                        properties.getKeyStoreType(), properties.getSSLAlgorithm(), properties.getSSLVersion());
+                ctx = properties.isSSLSessionResumptionEnabled()
+                        ? getSharedTLSContext(properties) : newTLSContext(properties);
             }
         } catch (Exception e) {
             throw new SessionConfigurationException(e);
         }
     }
 
+    private static TLSContext newTLSContext(SessionProperties properties) throws Exception {
+        return new TLSContext(properties.getKeyStoreFilename(), properties.getKeyStorePassphrase(),
+                properties.getTrustStoreFilename(), properties.getTrustStorePassphrase(),
+                properties.getKeyStoreType(), properties.getSSLAlgorithm(), properties.getSSLVersion());
+    }
+
+    /**
+     * Sessions may only resume TLS sessions cached by the same SSL context, so sessions configured alike share one.
+     * The shared context is replaced once either store has been modified, so that a replaced key or certificate is
+     * used by sessions opened afterwards, as it would be without resumption. Contexts are keyed by a digest of the
+     * store passphrases, so that the passphrases themselves are not retained for the life of the process.
+     */
+    private static synchronized TLSContext getSharedTLSContext(SessionProperties properties) throws Exception {
+        List<String> key = Arrays.asList(properties.getKeyStoreFilename(), properties.getKeyStoreType(),
+                properties.getTrustStoreFilename(), properties.getSSLAlgorithm(), properties.getSSLVersion(),
+                digest(properties.getKeyStorePassphrase(), properties.getTrustStorePassphrase()));
+        long keyStoreModified = lastModified(properties.getKeyStoreFilename());
+        long trustStoreModified = lastModified(properties.getTrustStoreFilename());
+
+        SharedTLSContext shared = SHARED_TLS_CONTEXTS.get(key);
+        if (shared == null || shared.keyStoreModified != keyStoreModified
+                || shared.trustStoreModified != trustStoreModified) {
+            TLSContext created = newTLSContext(properties);
+            created.setSessionResumption(true);
+            shared = new SharedTLSContext(created, keyStoreModified, trustStoreModified);
+            SHARED_TLS_CONTEXTS.put(key, shared);
+        }
+        return shared.context;
+    }
+
+    /**
+     * @return the Base64 encoded SHA-256 digest of the given values, each of which may be null
+     */
+    private static String digest(String... values) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (String value : values) {
+            if (value == null) {
+                digest.update((byte) 0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                // The length keeps adjacent values from being read as one.
+                digest.update((byte) 1);
+                digest.update(ByteBuffer.allocate(4).putInt(0, bytes.length));
+                digest.update(bytes);
+            }
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    /**
+     * @return the modification time of the store loaded by TLSContext from the named resource, or 0 if unknown
+     */
+    private static long lastModified(String resource) {
+        if (resource == null) {
+            return 0L;
+        }
+        URL url = TLSSession.class.getClassLoader().getResource(resource);
+        if (url == null) {
+            return 0L;
+        }
+        try {
+            return url.openConnection().getLastModified();
+        } catch (IOException ioe) {
+            return 0L;
+        }
+    }
+
+    /**
+     * An SSL context shared by sessions, and the modification times of the stores from which it was loaded.
+     */
+    private static final class SharedTLSContext {
+        private final TLSContext context;
+        private final long keyStoreModified;
+        private final long trustStoreModified;
+
+        SharedTLSContext(TLSContext context, long keyStoreModified, long trustStoreModified) {
+            this.context = context;
+            this.keyStoreModified = keyStoreModified;
+            this.trustStoreModified = trustStoreModified;
+        }
+    }
+
     @Override
     public boolean isInvalid() {
         return isInvalid;
@@ -240,7 +349,15 @@ public class TLSSession implements Session, StatsManager {
         close();
     }
 
-    private void openSocket() throws SSLHandshakeException, IOException {
+    /**
+     * Establish the transport connection to the EPP server, including the TLS handshake. Subclasses providing an
+     * alternative transport override this together with {@link #closeSocket()}, {@link #readFrame()},
+     * {@link #releaseFrame(ByteBuffer)} and {@link #writePdu(byte[])}.
+     *
+     * @throws SSLHandshakeException the TLS handshake failed
+     * @throws IOException the connection could not be established
+     */
+    protected void openSocket() throws SSLHandshakeException, IOException {
         socket = ctx.createSocket(inaddr.getHostAddress(), port, soTimeout);
         in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
         out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUF_SIZE));
@@ -269,7 +386,10 @@ public class TLSSession implements Session, StatsManager {
 
     private void login() throws LoginException, IOException {
         LoginCommand login = new LoginCommand(username, password, newPW, eppVersion, language, objURIs, extURIs);
-        CLTRID.setClID(username);
+        // Every session logs in; restarting the sequence for each would repeat clTRIDs.
+        if (!CLTRID.getClID().equals(username)) {
+            CLTRID.setClID(username);
+        }
         long startTime = Timer.now();
         try {
             write(login.toXML(), login.getCommandType());
@@ -381,7 +501,10 @@ public class TLSSession implements Session, StatsManager {
         }
     }
 
-    private void closeSocket() {
+    /**
+     * Close the transport connection established by {@link #openSocket()}.
+     */
+    protected void closeSocket() {
         try {
             in.close();
         } catch (IOException ioe) {
@@ -410,12 +533,49 @@ public class TLSSession implements Session, StatsManager {
      */
     @Override
     public String read() throws IOException {
+        ByteBuffer frame = receive();
         try {
-            int n = readSize();
-            debugLogger.finer("PDU size: " + n);
-            String data = readData(n);
+            String data = decode(frame);
             supportLogger.info(data);
             return data;
+        } finally {
+            releaseFrame(frame);
+        }
+    }
+
+    @Override
+    public void read(Response response) throws IOException, ParsingException {
+        ByteBuffer frame = receive();
+        try {
+            byte[] xml = frame.array();
+            int offset = frame.arrayOffset() + frame.position();
+            int length = frame.remaining();
+            String sourceXML = logFrame(frame);
+            if (streamingParser == null
+                    || !response.fromXML(xml, offset, length, sourceXML, streamingParser)) {
+                assert parser != null;
+                response.fromXML(parser.parse(xml, offset, length, sourceXML));
+            }
+        } finally {
+            releaseFrame(frame);
+        }
+    }
+
+    @Override
+    public XMLDocument readToDocument() throws IOException, ParsingException {
+        ByteBuffer frame = receive();
+        try {
+            assert parser != null;
+            return parser.parse(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining(),
+                    logFrame(frame));
+        } finally {
+            releaseFrame(frame);
+        }
+    }
+
+    private ByteBuffer receive() throws IOException {
+        try {
+            return readFrame();
         } catch (SocketTimeoutException ste) {
             userLogger.warning(ste.getMessage());
             userLogger.warning(ErrorPkg.getMessage("epp.session.read.timeout"));
@@ -426,16 +586,23 @@ public class TLSSession implements Session, StatsManager {
         }
     }
 
-    @Override
-    public void read(Response response) throws IOException, ParsingException {
-        response.fromXML(readToDocument());
+    /**
+     * Decode a received frame if its text is to be retained or logged, and log it.
+     *
+     * @return the text of the frame if it is to be retained, else null
+     */
+    private String logFrame(ByteBuffer frame) {
+        if (!retainSource && !supportLogger.isLoggable(Level.INFO)) {
+            return null;
+        }
+        String xml = decode(frame);
+        supportLogger.info(xml);
+        return retainSource ? xml : null;
     }
 
-    @Override
-    public XMLDocument readToDocument() throws IOException, ParsingException {
-        String xml = read();
-        assert parser != null;
-        return parser.parse(xml);
+    private static String decode(ByteBuffer frame) {
+        return new String(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining(),
+                StandardCharsets.UTF_8);
     }
 
     /**
@@ -466,15 +633,23 @@ public class TLSSession implements Session, StatsManager {
         }
     }
 
+    /**
+     * Send a stamped command to peer. This method is unsynchronised; the caller MUST provide synchronisation against
+     * other calls to <code>write(String)</code>.
+     */
+    @Override
+    public void write(StampedCommand command) throws IOException {
+        doWrite(command.getEncoded());
+        mruTime = Timer.now();
+    }
+
     private void doWrite(String xml) throws IOException {
-        if (out == null) {
-            throw new UninitialisedSessionException();
-        }
+        doWrite(xml.getBytes(StandardCharsets.UTF_8));
+    }
 
+    private void doWrite(byte[] xml) throws IOException {
         try {
-            final byte[] xmlBytes = xml.getBytes();
-            writeSize(xmlBytes.length);
-            writeData(xmlBytes);
+            writePdu(xml);
         } catch (IOException ioe) {
             isInvalid = true;
             throw ioe;
@@ -505,19 +680,68 @@ public class TLSSession implements Session, StatsManager {
         }
     }
 
-    private int readSize() throws IOException {
-        return in.readInt() - 4;
+    /**
+     * Read one complete EPP data unit from the transport into a pooled buffer, blocking for at most the configured
+     * socket timeout. The buffer must be returned with {@link #releaseFrame(ByteBuffer)} once it is no longer needed.
+     *
+     * @return a buffer whose remaining bytes are the UTF-8 encoded payload of the data unit, without the RFC5734
+     *         length header
+     * @throws IOException the data unit could not be read
+     */
+    protected ByteBuffer readFrame() throws IOException {
+        int n = readSize();
+        debugLogger.finer("PDU size: " + n);
+        ByteBuffer frame = bufferPool.acquire(n);
+        try {
+            in.readFully(frame.array(), 0, n);
+        } catch (IOException ioe) {
+            bufferPool.release(frame);
+            throw ioe;
+        }
+        frame.limit(n);
+        return frame;
     }
 
-    private void writeSize(int size) throws IOException {
-        out.writeInt(size + 4);
+    /**
+     * Return a buffer obtained from {@link #readFrame()} to its pool.
+     */
+    protected void releaseFrame(ByteBuffer frame) {
+        bufferPool.release(frame);
     }
 
-    private String readData(int length) throws IOException {
-        byte[] inputBuffer = new byte[length];
-        in.readFully(inputBuffer, 0, length);
+    /**
+     * Write one complete EPP data unit to the transport, prefixed by the RFC5734 length header.
+     *
+     * @param xml the encoded XML payload of the data unit
+     * @throws IOException the data unit could not be written
+     */
+    protected void writePdu(byte[] xml) throws IOException {
+        if (out == null) {
+            throw new UninitialisedSessionException();
+        }
+        writeSize(xml.length);
+        writeData(xml);
+    }
 
-        return new String(inputBuffer);
+    /**
+     * Read the RFC5734 length header, failing the session if it could not describe a data unit, since the framing of
+     * the stream can no longer be trusted and the length would otherwise be allocated unchecked.
+     *
+     * @return the length of the payload which follows the header
+     */
+    private int readSize() throws IOException {
+        int frameSize = in.readInt();
+        if (frameSize < 4 || frameSize > NioSSLChannel.MAX_FRAME_SIZE) {
+            isInvalid = true;
+            closeSocket();
+            throw new IOException(ErrorPkg.getMessage("epp.session.frame.invalid", "<<size>>",
+                    String.valueOf(frameSize)));
+        }
+        return frameSize - 4;
+    }
+
+    private void writeSize(int size) throws IOException {
+        out.writeInt(size + 4);
     }
 
     private void writeData(final byte[] xml) throws IOException {
@@ -537,16 +761,21 @@ public class TLSSession implements Session, StatsManager {
 
     @Override
     public void recordResponseTime(CommandType type, long responseTime) {
-        totalTime += responseTime;
-        if (!commandTimeMap.containsKey(type)) {
-            commandTimeMap.put(type, responseTime);
-            debugLogger.info(ErrorPkg.getMessage("epp.server.response_time.new_cmd", TYPE_INTERVAL_ARR, new String[] {
-                    type.getCommandName(), String.valueOf(responseTime) }));
-        } else {
-            commandTimeMap.put(type, commandTimeMap.get(type) + responseTime);
-            debugLogger.info(ErrorPkg.getMessage("epp.server.response_time.previous_cmd", TYPE_INTERVAL_ARR,
-                    new String[] {type.getCommandName(), String.valueOf(responseTime) }));
+        responseTimes.record(responseTime);
+        String key = type.getCommandName();
+        LatencyHistogram histogram = commandResponseTimes.get(key);
+        String message = "epp.server.response_time.previous_cmd";
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram(responseTimePrecision);
+            histogram = commandResponseTimes.putIfAbsent(key, created);
+            if (histogram == null) {
+                histogram = created;
+                message = "epp.server.response_time.new_cmd";
+            }
         }
+        histogram.record(responseTime);
+        debugLogger.info(ErrorPkg.getMessage(message, TYPE_INTERVAL_ARR,
+                new String[] {key, String.valueOf(responseTime) }));
     }
 
     @Override
@@ -555,6 +784,7 @@ public class TLSSession implements Session, StatsManager {
         if (totalCount == 0L) {
             return 0L;
         }
+        long totalTime = responseTimes.getTotalTime();
         debugLogger.info(ErrorPkg.getMessage("epp.server.response_time.avg", TIME_COUNT_ARR,
                 new String[] {String.valueOf(totalTime), String.valueOf(totalCount) }));
 
@@ -563,7 +793,8 @@ public class TLSSession implements Session, StatsManager {
 
     @Override
     public long getAverageResponseTime(CommandType type) {
-        if (!commandTimeMap.containsKey(type)) {
+        LatencyHistogram histogram = commandResponseTimes.get(type.getCommandName());
+        if (histogram == null) {
             return 0L;
         }
 
@@ -573,7 +804,16 @@ public class TLSSession implements Session, StatsManager {
             return 0L;
         }
 
-        return commandTimeMap.get(type) / cmdCount;
+        return histogram.getTotalTime() / cmdCount;
+    }
+
+    @Override
+    public LatencyHistogram getResponseTimeHistogram(CommandType type) {
+        if (type == null) {
+            return responseTimes.snapshot();
+        }
+        LatencyHistogram histogram = commandResponseTimes.get(type.getCommandName());
+        return histogram == null ? new LatencyHistogram(responseTimePrecision) : histogram.snapshot();
     }
 
     @Override
@@ -601,6 +841,11 @@ public class TLSSession implements Session, StatsManager {
         return resultCounter.getValue(resultCode);
     }
 
+    @Override
+    public Set<Integer> getResultCodes() {
+        return resultCounter.getCodes();
+    }
+
     /**
      * Get the length of time (in milliseconds) since the most recent use (mru) of the session. The session is
      * considered to be used when the write method is invoked.
@@ -650,4 +895,32 @@ public class TLSSession implements Session, StatsManager {
     protected void setTLSContext(TLSContext ctx) {
         this.ctx = ctx;
     }
+
+    /**
+     * @return the TLS context used to secure the transport connection
+     */
+    protected TLSContext getTLSContext() {
+        return ctx;
+    }
+
+    /**
+     * @return the resolved address of the EPP server
+     */
+    protected InetAddress getServerAddress() {
+        return inaddr;
+    }
+
+    /**
+     * @return the port of the EPP server
+     */
+    protected int getServerPort() {
+        return port;
+    }
+
+    /**
+     * @return the socket timeout, in milliseconds, applied to connection establishment and reads
+     */
+    protected int getSocketTimeout() {
+        return soTimeout;
+    }
 }
@@ -0,0 +1,230 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import godaddy.registry.jtoolkit2.se.CommandType;
+
+/**
+ * Paces outbound commands across every session in a pool so that the aggregate rate of commands, in total and of
+ * each type, stays within the configured command limits. Where the limits apply to each session, the aggregate limit
+ * is the per-session limit multiplied by the maximum number of sessions; where they apply to the client as a whole,
+ * it is the configured limit.
+ *
+ * <p>
+ * Each limit is enforced with the generic cell rate algorithm: a limit of <i>n</i> commands per interval admits a
+ * burst of up to <i>n</i> commands, after which commands are admitted at evenly spaced instants, one every
+ * <i>interval / n</i>. A caller over the limit reserves the next such instant and is parked until then, so callers are
+ * released in the order in which they reserved, precisely as budget frees up. Reservations are made with a single
+ * compare-and-set per limit, without locking. A caller interrupted while waiting gives its reservations back.
+ * </p>
+ */
+final class TrafficShaper {
+    /**
+     * The source of time by which commands are paced, and the means of waiting for it to pass.
+     */
+    interface Ticker {
+        Ticker SYSTEM = new Ticker() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void parkNanos(Object blocker, long nanos) {
+                LockSupport.parkNanos(blocker, nanos);
+            }
+        };
+
+        long nanoTime();
+
+        /**
+         * Wait for at most the given time, or until the current thread is interrupted, as LockSupport.parkNanos.
+         */
+        void parkNanos(Object blocker, long nanos);
+    }
+
+    private final Ticker ticker;
+    private final long intervalNanos;
+    private final boolean shared;
+    private final SessionProperties properties;
+    private final Budget total;
+    private final ConcurrentMap<String, Budget> typeBudgets = new ConcurrentHashMap<String, Budget>();
+    private volatile int sessionCount;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong delayedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    TrafficShaper(SessionProperties properties, int sessionCount) {
+        this(properties, sessionCount, Ticker.SYSTEM);
+    }
+
+    TrafficShaper(SessionProperties properties, int sessionCount, Ticker ticker) {
+        this.ticker = ticker;
+        this.properties = properties;
+        this.sessionCount = Math.max(1, sessionCount);
+        intervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getCommandLimitInterval());
+        shared = properties.isCommandLimitShared();
+        total = new Budget(properties.getCommandLimit());
+    }
+
+    /**
+     * Rescale the aggregate limits for a new maximum number of sessions. This has no effect if the limits are shared.
+     */
+    void setSessionCount(int count) {
+        sessionCount = Math.max(1, count);
+    }
+
+    /**
+     * Wait until a command of the given type may be sent.
+     */
+    void acquire(CommandType type) throws InterruptedException {
+        long now = ticker.nanoTime();
+        Budget budget = getBudget(type);
+        long sendAt = Math.max(total.reserve(now), budget.reserve(now));
+        try {
+            awaitUntil(sendAt, now);
+        } catch (InterruptedException ie) {
+            total.release();
+            budget.release();
+            throw ie;
+        }
+    }
+
+    /**
+     * Wait until each of the given transactions' commands may be sent.
+     */
+    void acquire(Transaction[] txs) throws InterruptedException {
+        long now = ticker.nanoTime();
+        long sendAt = now;
+        Budget[] budgets = new Budget[txs.length];
+        for (int i = 0; i < txs.length; i++) {
+            budgets[i] = getBudget(txs[i].getCommandType());
+            sendAt = Math.max(sendAt, Math.max(total.reserve(now), budgets[i].reserve(now)));
+        }
+        try {
+            awaitUntil(sendAt, now);
+        } catch (InterruptedException ie) {
+            for (Budget budget : budgets) {
+                total.release();
+                budget.release();
+            }
+            throw ie;
+        }
+    }
+
+    /**
+     * @return the number of threads currently waiting to send a command
+     */
+    int getQueueDepth() {
+        return waiting.get();
+    }
+
+    /**
+     * @return the number of commands which have been delayed in order to stay within the command limits
+     */
+    long getDelayedCount() {
+        return delayedCount.get();
+    }
+
+    /**
+     * @return the average time, in milliseconds, for which delayed commands waited
+     */
+    long getAverageWaitTime() {
+        long delayed = delayedCount.get();
+        return delayed == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / delayed);
+    }
+
+    private Budget getBudget(CommandType type) {
+        String name = type.getCommandName();
+        Budget budget = typeBudgets.get(name);
+        if (budget == null) {
+            Budget created = new Budget(properties.getCommandLimit(type));
+            budget = typeBudgets.putIfAbsent(name, created);
+            if (budget == null) {
+                budget = created;
+            }
+        }
+        return budget;
+    }
+
+    private void awaitUntil(long sendAt, long now) throws InterruptedException {
+        if (sendAt - now <= 0) {
+            return;
+        }
+
+        waiting.incrementAndGet();
+        try {
+            long remaining;
+            while ((remaining = sendAt - ticker.nanoTime()) > 0) {
+                ticker.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiting.decrementAndGet();
+            delayedCount.incrementAndGet();
+            totalWaitNanos.addAndGet(ticker.nanoTime() - now);
+        }
+    }
+
+    /**
+     * The state of the generic cell rate algorithm for one limit: the theoretical arrival time of the next command.
+     */
+    private final class Budget {
+        private final int limit;
+        private final AtomicLong theoreticalArrival = new AtomicLong(ticker.nanoTime());
+
+        Budget(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Reserve the earliest instant, no earlier than now, at which a command may be sent within this limit.
+         */
+        long reserve(long now) {
+            if (isUnlimited()) {
+                return now;
+            }
+
+            long emission = emissionInterval();
+            long tolerance = intervalNanos - emission;
+
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long base = tat - now > 0 ? tat : now;
+                if (theoreticalArrival.compareAndSet(tat, base + emission)) {
+                    long sendAt = base - tolerance;
+                    return sendAt - now > 0 ? sendAt : now;
+                }
+            }
+        }
+
+        /**
+         * Give back a reservation which will not be used, so that the next command may be sent that much sooner.
+         */
+        void release() {
+            if (!isUnlimited()) {
+                theoreticalArrival.addAndGet(-emissionInterval());
+            }
+        }
+
+        private boolean isUnlimited() {
+            return limit == Integer.MAX_VALUE || limit <= 0;
+        }
+
+        /**
+         * @return the interval between commands admitted at the aggregate limit
+         */
+        private long emissionInterval() {
+            long aggregate = shared ? limit : (long) limit * sessionCount;
+            return Math.max(1L, intervalNanos / aggregate);
+        }
+    }
+}
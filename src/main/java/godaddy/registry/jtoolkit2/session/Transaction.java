@@ -1,8 +1,13 @@
 package godaddy.registry.jtoolkit2.session;
 
+import java.io.IOException;
+
 import godaddy.registry.jtoolkit2.Timer;
 import godaddy.registry.jtoolkit2.se.Command;
+import godaddy.registry.jtoolkit2.se.CommandType;
 import godaddy.registry.jtoolkit2.se.Response;
+import godaddy.registry.jtoolkit2.se.StampedCommand;
+import godaddy.registry.jtoolkit2.xml.ParsingException;
 
 /**
  * Each EPP command/response pair is modelled as a Transaction.  A Transaction
@@ -10,10 +15,14 @@ import godaddy.registry.jtoolkit2.se.Response;
  * effect of each command.  The {@link
  * godaddy.registry.jtoolkit2.session.SessionManager} takes either a single
  * Transaction or an array of Transactions as an argument to {@link
- * godaddy.registry.jtoolkit2.session.SessionManager#execute}.
+ * godaddy.registry.jtoolkit2.session.SessionManager#execute}.  The command
+ * may instead be one stamped from a {@link
+ * godaddy.registry.jtoolkit2.se.CommandTemplate}, which is executed in the
+ * same way.
  */
 public class Transaction {
     private Command command;
+    private StampedCommand stampedCommand;
     private Response response;
     private Throwable cause;
     private TransactionState state;
@@ -29,10 +38,56 @@ public class Transaction {
         this.state = TransactionState.UNPROCESSED;
     }
 
+    /**
+     * Create a Transaction from the given stamped command and the response to
+     * be populated from the server's reply.
+     */
+    public Transaction(StampedCommand command, Response response) {
+        this.stampedCommand = command;
+        this.response = response;
+        this.state = TransactionState.UNPROCESSED;
+    }
+
+    /**
+     * Get the command.  If the command was stamped from a template, this is a
+     * view of the stamped command, created on first use; see {@link
+     * StampedCommand#toCommand()}.  Code which handles stamped commands should
+     * use {@link #getStampedCommand()}, {@link #getCommandType()} and {@link
+     * #getCLTRID()} instead.
+     */
     public Command getCommand() {
+        if (command == null) {
+            command = stampedCommand.toCommand();
+        }
         return command;
     }
 
+    /**
+     * @return the stamped command, or null if the command was not stamped
+     * from a template.
+     */
+    public StampedCommand getStampedCommand() {
+        return stampedCommand;
+    }
+
+    /**
+     * Get the type of the command, whether or not it was stamped from a
+     * template.
+     */
+    public CommandType getCommandType() {
+        return stampedCommand != null ? stampedCommand.getCommandType() : command.getCommandType();
+    }
+
+    /**
+     * Get the client transaction identifier of the command, whether or not it
+     * was stamped from a template.
+     *
+     * @return the clTRID, or null if the command has not yet been serialized
+     */
+    public String getCLTRID() {
+        return stampedCommand != null ? stampedCommand.getCLTRID() : command.getCLTRID();
+    }
+
     public Response getResponse() {
         return response;
     }
@@ -81,6 +136,17 @@ public class Transaction {
         this.cause = cause;
     }
 
+    /**
+     * Write the command to the given session, in whichever form it takes.
+     */
+    void writeTo(Session session) throws IOException, ParsingException {
+        if (stampedCommand != null) {
+            session.write(stampedCommand);
+        } else {
+            session.write(command);
+        }
+    }
+
     /**
      * Indicate that the transaction is now in progress.
      */
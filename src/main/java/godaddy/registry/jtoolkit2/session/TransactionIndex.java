@@ -0,0 +1,93 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+
+/**
+ * An index of in-flight transactions by the clTRID of their commands, so that
+ * each response received can be matched to the transaction it completes, and
+ * responses which match no transaction in flight can be detected.
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class TransactionIndex {
+    private final ConcurrentMap<String, Transaction> transactions = new ConcurrentHashMap<String, Transaction>();
+    private final AtomicLong orphanCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+
+    /**
+     * Index a transaction whose command has been serialized, and so has been
+     * assigned a clTRID.
+     *
+     * @return true if the transaction was indexed, or false if another
+     * transaction with the same clTRID is already in flight, in which case
+     * the response to this one cannot be matched by its clTRID.
+     *
+     * @throws IllegalArgumentException the command has not been serialized.
+     */
+    public boolean register(Transaction tx) {
+        String clTRID = tx.getCLTRID();
+        if (clTRID == null) {
+            throw new IllegalArgumentException(ErrorPkg.getMessage("epp.session.index.cltrid.missing"));
+        }
+        Transaction existing = transactions.putIfAbsent(clTRID, tx);
+        if (existing == null || existing == tx) {
+            return true;
+        }
+        duplicateCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Remove and return the in-flight transaction with the given clTRID.  A
+     * clTRID matching no transaction in flight is counted as an orphaned
+     * response.
+     *
+     * @return the transaction, or null if there is none.
+     */
+    public Transaction match(String clTRID) {
+        Transaction tx = clTRID == null ? null : transactions.remove(clTRID);
+        if (tx == null) {
+            orphanCount.incrementAndGet();
+        }
+        return tx;
+    }
+
+    /**
+     * Remove the given transaction from the index, if present, without
+     * matching a response to it.
+     */
+    public void remove(Transaction tx) {
+        String clTRID = tx.getCLTRID();
+        if (clTRID != null) {
+            transactions.remove(clTRID, tx);
+        }
+    }
+
+    /**
+     * @return the number of transactions in flight.
+     */
+    public int size() {
+        return transactions.size();
+    }
+
+    /**
+     * @return the number of responses which matched no transaction in flight.
+     */
+    public long getOrphanCount() {
+        return orphanCount.get();
+    }
+
+    /**
+     * @return the number of transactions which could not be indexed because
+     * another with the same clTRID was in flight.
+     */
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+}
@@ -0,0 +1,21 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.io.IOException;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+
+/**
+ * Thrown to indicate that a session failed after a command was written to it
+ * but before the command's response was read.  The server may or may not have
+ * processed the command, so it is not resent automatically; the application
+ * should determine the command's outcome, such as by an info command, before
+ * deciding whether to execute it again.
+ */
+public class UnansweredCommandException extends IOException {
+    private static final long serialVersionUID = -4283307158410271935L;
+
+    public UnansweredCommandException(Throwable cause) {
+        super(ErrorPkg.getMessage("epp.session.command.unanswered", "<<cause>>", String.valueOf(cause.getMessage())),
+                cause);
+    }
+}
@@ -0,0 +1,276 @@
+package godaddy.registry.jtoolkit2.tmdb;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.CertificateException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+import godaddy.registry.jtoolkit2.tmdb.model.TmNotice;
+import godaddy.registry.jtoolkit2.tmdb.xml.TmNoticeXmlParseException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * A {@link TmdbClient} which keeps connections to the TMDB server open for reuse, and caches each notice until its
+ * <code>notAfter</code> date, after which the TMDB may publish a new notice for the lookup key.  The number of
+ * notices cached and connections kept open are given by the optional <code>tmdb.cache.size</code> and
+ * <code>tmdb.connections.max</code> properties.
+ *
+ * <p>A CachingTmdbClient is thread-safe.  Concurrent requests for a notice which is not cached are coalesced into a
+ * single request to the TMDB, whose outcome is shared by every requester.  Notices returned may be shared, so
+ * must not be modified.  The client should be closed when no longer required, to close its connections and stop
+ * its request threads.</p>
+ */
+public class CachingTmdbClient extends TmdbClient implements Closeable {
+
+    /**
+     * A cached notice and the time after which it may no longer be used.
+     */
+    private static final class CachedNotice {
+        final TmNotice notice;
+        final long expiryTime;
+
+        CachedNotice(TmNotice notice, long expiryTime) {
+            this.notice = notice;
+            this.expiryTime = expiryTime;
+        }
+    }
+
+    private final CloseableHttpClient httpClient;
+    private final Map<String, CachedNotice> cache;
+    private final ConcurrentMap<String, CompletableFuture<TmNotice>> inFlight =
+            new ConcurrentHashMap<String, CompletableFuture<TmNotice>>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public CachingTmdbClient() throws IOException,
+                                      UnrecoverableKeyException,
+                                      CertificateException,
+                                      NoSuchAlgorithmException,
+                                      KeyStoreException,
+                                      KeyManagementException {
+        TmdbClientProperties properties = getTmdbClientProperties();
+
+        final int cacheSize = properties.getTmdbCacheSize();
+        cache = new LinkedHashMap<String, CachedNotice>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedNotice> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        // As for TLSContext.createHttpsUrlConnection, a TMDB on the local host is accepted whatever its certificate's
+        // name.
+        final HostnameVerifier defaultVerifier = new DefaultHostnameVerifier();
+        HostnameVerifier hostnameVerifier = (hostname, session) ->
+                "localhost".equals(hostname) || defaultVerifier.verify(hostname, session);
+
+        // The context enables only TLSv1 and its cipher suites by default, although it supports later protocols, so
+        // enable the protocols and cipher suites which the JVM enables by default.
+        SSLParameters defaultParameters = SSLContext.getDefault().getDefaultSSLParameters();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("https", new SSLConnectionSocketFactory(getTlsContext().getSSLContext(),
+                                defaultParameters.getProtocols(), defaultParameters.getCipherSuites(),
+                                hostnameVerifier))
+                        .build());
+        connectionManager.setMaxTotal(properties.getTmdbMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getTmdbMaxConnections());
+
+        int timeout = properties.getTmdbSocketTimeOut();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+    }
+
+    /**
+     * Request for a TradeMark notice using a lookup key, returning the cached notice if it has not expired.
+     *
+     * @param lookupKey the lookup key to be used in the request for TradeMark notice.
+     * @return the TradeMark notice
+     * @throws IOException if IOException happens while connecting to the TMDB
+     * @throws TmNoticeXmlParseException in case, the trade mark notice response XML could not be parsed.
+     */
+    @Override
+    public TmNotice requestNotice(String lookupKey) throws IOException, TmNoticeXmlParseException {
+        TmNotice notice = getCachedNotice(lookupKey);
+        if (notice != null) {
+            hitCount.incrementAndGet();
+            return notice;
+        }
+
+        CompletableFuture<TmNotice> request = new CompletableFuture<TmNotice>();
+        CompletableFuture<TmNotice> existing = inFlight.putIfAbsent(lookupKey, request);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            return await(existing);
+        }
+
+        try {
+            // The notice may have been cached by a request which completed since the cache was checked.
+            notice = getCachedNotice(lookupKey);
+            if (notice != null) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+                notice = fetchNotice(lookupKey);
+                cacheNotice(lookupKey, notice);
+            }
+            request.complete(notice);
+            return notice;
+        } catch (IOException | TmNoticeXmlParseException | RuntimeException e) {
+            request.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(lookupKey, request);
+        }
+    }
+
+    /**
+     * The number of requests answered from the cache.
+     */
+    public long getCacheHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * The number of requests sent to the TMDB.
+     */
+    public long getCacheMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * The number of requests answered by another request for the same lookup key which was in progress.
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * The number of notices cached, including any which have expired but not yet been evicted.
+     */
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Remove every notice from the cache.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            httpClient.close();
+        }
+    }
+
+    protected TmNotice fetchNotice(String lookupKey) throws IOException, TmNoticeXmlParseException {
+        HttpGet request = new HttpGet(getTmdbClientProperties().getTmdbServerUrl() + "/" + lookupKey + ".xml");
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            // Consume the entity in full, so the connection may be reused.
+            String body = entity == null ? "" : EntityUtils.toString(entity, StandardCharsets.UTF_8);
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new IOException(ErrorPkg.getMessage("tmdb.request.failed",
+                        new String[] {"<<key>>", "<<status>>"},
+                        new String[] {lookupKey, String.valueOf(response.getStatusLine())}));
+            }
+            return getTmNoticeXmlParser().parse(body);
+        }
+    }
+
+    private TmNotice getCachedNotice(String lookupKey) {
+        synchronized (cache) {
+            CachedNotice cached = cache.get(lookupKey);
+            if (cached == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= cached.expiryTime) {
+                cache.remove(lookupKey);
+                return null;
+            }
+            return cached.notice;
+        }
+    }
+
+    private void cacheNotice(String lookupKey, TmNotice notice) {
+        // A notice without a notAfter date cannot be known to be current, so is not cached.
+        if (notice.getNotAfterDateTime() == null) {
+            return;
+        }
+        long expiryTime = notice.getNotAfterDateTime().getTimeInMillis();
+        if (expiryTime > System.currentTimeMillis()) {
+            synchronized (cache) {
+                cache.put(lookupKey, new CachedNotice(notice, expiryTime));
+            }
+        }
+    }
+
+    private static TmNotice await(CompletableFuture<TmNotice> request)
+            throws IOException, TmNoticeXmlParseException {
+        try {
+            return request.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ie.getMessage());
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof TmNoticeXmlParseException) {
+                throw (TmNoticeXmlParseException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
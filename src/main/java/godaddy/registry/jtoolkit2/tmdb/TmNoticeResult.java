@@ -0,0 +1,38 @@
+package godaddy.registry.jtoolkit2.tmdb;
+
+import godaddy.registry.jtoolkit2.tmdb.model.TmNotice;
+
+/**
+ * The outcome of requesting one of the notices passed to {@link TmdbClient#requestNotices(java.util.Collection)}:
+ * either the TradeMark notice, or the reason that it could not be retrieved.
+ */
+public final class TmNoticeResult {
+    private final TmNotice notice;
+    private final Exception failure;
+
+    TmNoticeResult(TmNotice notice, Exception failure) {
+        this.notice = notice;
+        this.failure = failure;
+    }
+
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+
+    /**
+     * The TradeMark notice, or null if it could not be retrieved.
+     */
+    public TmNotice getNotice() {
+        return notice;
+    }
+
+    /**
+     * The exception which requesting the notice threw, such as an {@link java.io.IOException} or {@link
+     * godaddy.registry.jtoolkit2.tmdb.xml.TmNoticeXmlParseException}, or a {@link
+     * java.util.concurrent.TimeoutException} if the request did not complete in time; null if the notice was
+     * retrieved.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+}
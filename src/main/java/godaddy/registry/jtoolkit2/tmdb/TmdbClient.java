@@ -1,14 +1,34 @@
 package godaddy.registry.jtoolkit2.tmdb;
 
 import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import godaddy.registry.jtoolkit2.ErrorPkg;
+import godaddy.registry.jtoolkit2.se.tmch.TmchDomainCheckResponseExtension;
 
 import godaddy.registry.jtoolkit2.session.TLSContext;
 import godaddy.registry.jtoolkit2.tmdb.model.TmNotice;
@@ -18,15 +38,22 @@ import godaddy.registry.jtoolkit2.tmdb.xml.TmNoticeXmlParser;
 /**
  * Trade Mark notice for a lookup key from the configured TMDB server can be requested using this class.
  * The properties specified in 'tmdb.properties' file are used to establish a connection with the TMDB server.
- * The connection is opened for each request and is closed after the request is processed.
+ * The connection is opened for each request and is closed after the request is processed; see
+ * {@link CachingTmdbClient} for a client which reuses connections and caches notices.
  *
  * TradeMark notice response is encapsulated in a {@link TmNotice} object.
+ *
+ * The client should be closed when no longer required, to stop the threads which send requests for
+ * {@link #requestNotices(Collection)}.
  */
-public class TmdbClient {
+public class TmdbClient implements Closeable {
+    private static final int BUFFER_SIZE = 4096;
+    private static final long REQUEST_THREAD_KEEP_ALIVE_SECONDS = 60L;
 
     private final TmdbClientProperties tmdbClientProperties;
     private final TmNoticeXmlParser tmNoticeXmlParser = new TmNoticeXmlParser();
     private TLSContext tlsContext;
+    private ThreadPoolExecutor requestExecutor;
 
     public TmdbClient() throws IOException,
                                UnrecoverableKeyException,
@@ -49,19 +76,159 @@ public class TmdbClient {
      */
     public TmNotice requestNotice(String lookupKey) throws IOException, TmNoticeXmlParseException {
         String url = tmdbClientProperties.getTmdbServerUrl() + "/" + lookupKey + ".xml";
-        HttpsURLConnection connection = tlsContext.createHttpsUrlConnection(url,
-                tmdbClientProperties.getTmdbSocketTimeOut());
+        int timeout = tmdbClientProperties.getTmdbSocketTimeOut();
+        HttpsURLConnection connection = tlsContext.createHttpsUrlConnection(url, timeout);
+        // The connect timeout is set by the context; a blocked read is not interrupted when a request is cancelled,
+        // so it must time out instead.
+        connection.setReadTimeout(timeout);
 
         try {
-            BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            String line;
-            StringBuffer sb = new StringBuffer();
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
+            Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
+            char[] buffer = new char[BUFFER_SIZE];
+            StringBuilder sb = new StringBuilder();
+            int count;
+            while ((count = reader.read(buffer)) > 0) {
+                sb.append(buffer, 0, count);
             }
             return tmNoticeXmlParser.parse(sb.toString());
         } finally {
             connection.getInputStream().close();
         }
     }
+
+    /**
+     * Request the TradeMark notice for each claims key in an EPP Domain Check response, as described for
+     * {@link #requestNotices(Collection)}.
+     *
+     * @param checkResponse the Domain Check response extension giving the claims keys of the domains checked
+     * @return the result of the request for each distinct claims key, in the order of the domains in the response
+     */
+    public Map<String, TmNoticeResult> requestNotices(TmchDomainCheckResponseExtension checkResponse) {
+        return requestNotices(checkResponse.getClaimsKeys());
+    }
+
+    /**
+     * Request the TradeMark notices for the given lookup keys concurrently, each as by {@link #requestNotice(String)}.
+     * At most <code>tmdb.connections.max</code> requests are sent at once by the client, however many callers request
+     * notices, and a request which has not completed within <code>tmdb.request.timeout</code> milliseconds of being
+     * sent is abandoned.
+     *
+     * @param lookupKeys the lookup keys to be used in the requests for TradeMark notices
+     * @return the result of the request for each distinct lookup key, in the order given, which holds either the
+     * TradeMark notice or the exception which prevented its retrieval
+     */
+    public Map<String, TmNoticeResult> requestNotices(Collection<String> lookupKeys) {
+        Set<String> distinctKeys = new LinkedHashSet<String>(lookupKeys);
+        Map<String, TmNoticeResult> results = new LinkedHashMap<String, TmNoticeResult>();
+        if (distinctKeys.isEmpty()) {
+            return results;
+        }
+
+        ThreadPoolExecutor executor = getRequestExecutor();
+        List<NoticeRequest> requests = new ArrayList<NoticeRequest>(distinctKeys.size());
+        for (String lookupKey : distinctKeys) {
+            NoticeRequest request = new NoticeRequest(lookupKey);
+            request.future = executor.submit(request);
+            requests.add(request);
+        }
+
+        long timeout = tmdbClientProperties.getTmdbRequestTimeOut();
+        for (NoticeRequest request : requests) {
+            results.put(request.lookupKey, request.await(timeout));
+        }
+        return results;
+    }
+
+    /**
+     * Stop the threads which send requests for {@link #requestNotices(Collection)}.  Requests already sent are
+     * allowed to complete.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+            requestExecutor = null;
+        }
+    }
+
+    /**
+     * The requests of every caller share one pool of <code>tmdb.connections.max</code> threads, whose threads exit
+     * when idle.
+     */
+    private synchronized ThreadPoolExecutor getRequestExecutor() {
+        if (requestExecutor == null) {
+            int threads = Math.max(1, tmdbClientProperties.getTmdbMaxConnections());
+            final AtomicInteger threadCount = new AtomicInteger();
+            requestExecutor = new ThreadPoolExecutor(threads, threads, REQUEST_THREAD_KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+                        Thread thread = new Thread(runnable, "jtoolkit2-tmdb-request-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            requestExecutor.allowCoreThreadTimeOut(true);
+        }
+        return requestExecutor;
+    }
+
+    protected TmdbClientProperties getTmdbClientProperties() {
+        return tmdbClientProperties;
+    }
+
+    protected TLSContext getTlsContext() {
+        return tlsContext;
+    }
+
+    protected TmNoticeXmlParser getTmNoticeXmlParser() {
+        return tmNoticeXmlParser;
+    }
+
+    /**
+     * A request for a notice sent by {@link #requestNotices(Collection)}, whose timeout runs from when it is sent
+     * rather than from when it is queued.
+     */
+    private final class NoticeRequest implements Callable<TmNotice> {
+        private final String lookupKey;
+        private volatile long sentTime;
+        private Future<TmNotice> future;
+
+        NoticeRequest(String lookupKey) {
+            this.lookupKey = lookupKey;
+        }
+
+        @Override
+        public TmNotice call() throws Exception {
+            sentTime = System.currentTimeMillis();
+            return requestNotice(lookupKey);
+        }
+
+        TmNoticeResult await(long timeout) {
+            try {
+                while (true) {
+                    long sent = sentTime;
+                    long wait = sent == 0L ? timeout : sent + timeout - System.currentTimeMillis();
+                    try {
+                        return new TmNoticeResult(future.get(Math.max(wait, 0L), TimeUnit.MILLISECONDS), null);
+                    } catch (TimeoutException te) {
+                        // A request which had not been sent when the wait began is waited for again from when it was.
+                        if (sent != 0L) {
+                            future.cancel(true);
+                            return new TmNoticeResult(null, new TimeoutException(ErrorPkg.getMessage(
+                                    "tmdb.request.timeout", new String[] {"<<key>>", "<<timeout>>"},
+                                    new String[] {lookupKey, String.valueOf(timeout)})));
+                        }
+                    }
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                return new TmNoticeResult(null, ie);
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                return new TmNoticeResult(null, (Exception) cause);
+            }
+        }
+    }
 }
@@ -40,4 +40,29 @@ public class TmdbClientProperties {
     public Integer getTmdbSocketTimeOut() {
         return Integer.parseInt(properties.getProperty("tmdb.socket.timeout"));
     }
+
+    /**
+     * The maximum number of notices held by a {@link CachingTmdbClient}.  Optional; defaults to 1000.
+     */
+    public int getTmdbCacheSize() {
+        return Integer.parseInt(properties.getProperty("tmdb.cache.size", "1000"));
+    }
+
+    /**
+     * The maximum number of connections to the TMDB server held open by a {@link CachingTmdbClient}, and the maximum
+     * number of requests sent concurrently by {@link TmdbClient#requestNotices(java.util.Collection)}.  Optional;
+     * defaults to 8.
+     */
+    public int getTmdbMaxConnections() {
+        return Integer.parseInt(properties.getProperty("tmdb.connections.max", "8"));
+    }
+
+    /**
+     * The time in milliseconds after which a request sent by {@link TmdbClient#requestNotices(java.util.Collection)}
+     * is abandoned.  Optional; defaults to the socket timeout.
+     */
+    public int getTmdbRequestTimeOut() {
+        String timeout = properties.getProperty("tmdb.request.timeout");
+        return timeout == null ? getTmdbSocketTimeOut() : Integer.parseInt(timeout);
+    }
 }
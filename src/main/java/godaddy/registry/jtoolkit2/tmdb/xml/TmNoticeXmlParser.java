@@ -5,27 +5,34 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathExpressionException;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 
 import godaddy.registry.jtoolkit2.EPPDateFormatter;
 import godaddy.registry.jtoolkit2.tmdb.model.TmNotice;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 public class TmNoticeXmlParser {
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY;
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS = new ThreadLocal<DocumentBuilder>();
 
-    public TmNotice parse(String noticeXml) throws IOException, TmNoticeXmlParseException {
+    static {
+        DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+        try {
+            DOCUMENT_BUILDER_FACTORY.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (ParserConfigurationException pce) {
+            throw new ExceptionInInitializerError(pce);
+        }
+    }
 
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    public TmNotice parse(String noticeXml) throws IOException, TmNoticeXmlParseException {
 
         try {
-            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            Document document = documentBuilder.parse(new ByteArrayInputStream(noticeXml.getBytes()));
+            Document document = parseDocument(noticeXml);
 
             XMLDocument xmlDocument = new XMLDocument(document.getDocumentElement());
 
@@ -59,4 +66,24 @@ public class TmNoticeXmlParser {
             throw new TmNoticeXmlParseException(e);
         }
     }
+
+    private static Document parseDocument(String noticeXml)
+            throws ParserConfigurationException, IOException, SAXException {
+        DocumentBuilder documentBuilder = DOCUMENT_BUILDERS.get();
+        if (documentBuilder == null) {
+            // DocumentBuilderFactory is not thread-safe.
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                documentBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            DOCUMENT_BUILDERS.set(documentBuilder);
+        }
+
+        try {
+            // Parse the characters rather than their bytes in the platform's encoding, which may differ from the
+            // encoding declared by the document.
+            return documentBuilder.parse(new InputSource(new StringReader(noticeXml)));
+        } finally {
+            documentBuilder.reset();
+        }
+    }
 }
@@ -21,7 +21,10 @@ import godaddy.registry.jtoolkit2.se.StandardObjectType;
  * Uses the debug level logger.
  */
 public class EPPResolver implements URIResolver {
-    private static Map<String, String> uriLocMap;
+    /*
+     * Replaced in full by addMoreURIs rather than modified, so that it may be read without locking.
+     */
+    private static volatile Map<String, String> uriLocMap;
 
     static {
         List<String> uriList = new ArrayList<String>();
@@ -51,10 +54,11 @@ public class EPPResolver implements URIResolver {
             uriList.add(extendedObjectType.getURI());
             localResources.add(extendedObjectType.getSchemaDefinition());
         }
-        uriLocMap = new LinkedHashMap<String, String>();
+        Map<String, String> map = new LinkedHashMap<String, String>();
         for (int i = 0; i < uriList.size(); i++) {
-            uriLocMap.put(uriList.get(i), localResources.get(i));
+            map.put(uriList.get(i), localResources.get(i));
         }
+        uriLocMap = map;
     }
 
     private final String pname = getClass().getPackage().getName();
@@ -114,9 +118,11 @@ public class EPPResolver implements URIResolver {
      * @param schemaDefinition XSD file name for extension.
      * @throws ConfigurationError when the given extUri is already configured
      */
-    public static void addMoreURIs(final String extUri, final String schemaDefinition) {
+    public static synchronized void addMoreURIs(final String extUri, final String schemaDefinition) {
         if (!uriLocMap.containsKey(extUri)) {
-            uriLocMap.put(extUri, schemaDefinition);
+            Map<String, String> map = new LinkedHashMap<String, String>(uriLocMap);
+            map.put(extUri, schemaDefinition);
+            uriLocMap = map;
         } else {
             throw new ConfigurationError("URL already exists in the configuration");
         }
@@ -22,6 +22,10 @@ import org.xml.sax.SAXException;
 public class EPPWriter extends XMLWriter {
     private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY;
     private static final SAXParserFactory SAX_PARSER_FACTORY;
+    private static final ThreadLocal<SAXParser> SAX_PARSERS = new ThreadLocal<SAXParser>();
+    private static final ThreadLocal<XMLBuilderSJSXP> XML_BUILDERS = new ThreadLocal<XMLBuilderSJSXP>();
+    private static final ThreadLocal<XMLBuilderDirect> DIRECT_BUILDERS = new ThreadLocal<XMLBuilderDirect>();
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS = new ThreadLocal<DocumentBuilder>();
 
     static {
         DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
@@ -64,9 +68,7 @@ public class EPPWriter extends XMLWriter {
 
         xml = null;
         try {
-            DocumentBuilder docBuilder;
-            docBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
-            doc = docBuilder.newDocument();
+            doc = getDocumentBuilder().newDocument();
             eppElement = doc.createElementNS(eppNamespace, "epp");
             eppElement.setAttribute("xmlns:xsi", xsi);
             eppElement.setAttribute("xsi:schemaLocation", eppSchemaLocation);
@@ -77,6 +79,21 @@ public class EPPWriter extends XMLWriter {
         }
     }
 
+    /**
+     * Every command creates a document, so each thread reuses one DocumentBuilder with which to create them.
+     */
+    private static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder docBuilder = DOCUMENT_BUILDERS.get();
+        if (docBuilder == null) {
+            // DocumentBuilderFactory is not thread-safe.
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                docBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            DOCUMENT_BUILDERS.set(docBuilder);
+        }
+        return docBuilder;
+    }
+
     /**
      * Get the <code>epp</code> element, which is the root of the XML tree upon which the lexical representation will be
      * based.
@@ -91,9 +108,28 @@ public class EPPWriter extends XMLWriter {
         eppElement = newRoot;
     }
 
+    /**
+     * With direct encoding enabled, the DOM of a UTF-8 document is serialized without an XMLStreamWriter. Each thread
+     * reuses one builder, so that serialization neither allocates a builder per command nor shares one between
+     * threads.
+     */
     @Override
     protected final XMLBuilder getXMLBuilder() {
-        return new XMLBuilderSJSXP(version, encoding, standalone);
+        if (isDirectEncoding() && "UTF-8".equalsIgnoreCase(encoding)) {
+            XMLBuilderDirect builder = DIRECT_BUILDERS.get();
+            if (builder == null || !builder.hasDeclaration(version, encoding)) {
+                builder = new XMLBuilderDirect(version, encoding);
+                DIRECT_BUILDERS.set(builder);
+            }
+            return builder;
+        }
+
+        XMLBuilderSJSXP builder = XML_BUILDERS.get();
+        if (builder == null || !builder.hasDeclaration(version, encoding)) {
+            builder = new XMLBuilderSJSXP(version, encoding, standalone);
+            XML_BUILDERS.set(builder);
+        }
+        return builder;
     }
 
     @Override
@@ -101,6 +137,21 @@ public class EPPWriter extends XMLWriter {
         return SAX_PARSER_FACTORY.newSAXParser();
     }
 
+    /**
+     * Creating a schema-validating parser is costly, so each thread reuses one.
+     */
+    @Override
+    protected final SAXParser getSAXParser() throws SAXException, ParserConfigurationException {
+        SAXParser parser = SAX_PARSERS.get();
+        if (parser == null) {
+            parser = newSAXParser();
+            SAX_PARSERS.set(parser);
+        } else {
+            parser.reset();
+        }
+        return parser;
+    }
+
     @Override
     protected final boolean isParserValidating() {
         return (SAX_PARSER_FACTORY.getSchema() != null);
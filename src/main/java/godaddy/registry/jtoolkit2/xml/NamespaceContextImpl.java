@@ -1,10 +1,11 @@
 package godaddy.registry.jtoolkit2.xml;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,18 +24,21 @@ import godaddy.registry.jtoolkit2.se.StandardObjectType;
  * </p>
  *
  * <p>
+ * Lookups are made on every step of every XPath expression evaluated, so the mappings are held in an immutable
+ * snapshot which is replaced in full by each call to put. Lookups therefore take no lock and cost a single hash map
+ * lookup, while put is comparatively expensive and should only be used while configuring the toolkit.
+ * </p>
+ *
+ * <p>
  * Uses the debug level loggers.
  * </p>
  */
 public final class NamespaceContextImpl implements NamespaceContext {
-    private static final int DEFAULT_SIZE = 8;
-    private static Map<List<String>, String> prefixUriMap;
-    private static Map<String, List<String>> uriPrefixMap;
+    private static final int DEFAULT_SIZE = 128;
+    private static volatile Mappings mappings = new Mappings(new HashMap<String, String>(DEFAULT_SIZE),
+            new HashMap<String, List<String>>(DEFAULT_SIZE));
 
     static {
-        prefixUriMap = new HashMap<List<String>, String>(DEFAULT_SIZE);
-        uriPrefixMap = new HashMap<String, List<String>>(DEFAULT_SIZE);
-
         /*
          * No definite answer on why EPP has 2 prefixes, but it has been suggested that this may have to do with
          * compatibility with the old toolkits.
@@ -63,33 +67,22 @@ public final class NamespaceContextImpl implements NamespaceContext {
     }
 
     /**
-     * Add a prefix to URI mapping and a URI to prefix mapping between the given prefix and URI.
+     * Add a prefix to URI mapping and a URI to prefix mapping between the given prefix and URI. If the prefix is
+     * already mapped to another URI, it is resolved to the given URI from then on.
      */
     public static synchronized void put(String prefix, String uri) {
-        boolean isPut = false;
-
-        for (Map.Entry<List<String>, String> mapping : prefixUriMap.entrySet()) {
-            if (mapping.getValue().equals(uri)) {
-                mapping.getKey().add(prefix);
-                isPut = true;
-                break;
-            }
-        }
+        final Mappings current = mappings;
 
-        if (!isPut) {
-            final Vector<String> newList = new Vector<String>(3);
-            newList.add(prefix);
-            prefixUriMap.put(newList, uri);
-        }
+        final Map<String, String> prefixUriMap = new HashMap<String, String>(current.prefixUriMap);
+        prefixUriMap.put(prefix, uri);
 
-        if (uriPrefixMap.keySet().contains(uri)) {
-            final List<String> prefixList = uriPrefixMap.get(uri);
-            prefixList.add(prefix);
-        } else {
-            final List<String> newList = new Vector<String>(3);
-            newList.add(prefix);
-            uriPrefixMap.put(uri, newList);
-        }
+        final Map<String, List<String>> uriPrefixMap = new HashMap<String, List<String>>(current.uriPrefixMap);
+        final List<String> prefixes = uriPrefixMap.get(uri);
+        final List<String> newList = prefixes == null ? new ArrayList<String>(3) : new ArrayList<String>(prefixes);
+        newList.add(prefix);
+        uriPrefixMap.put(uri, Collections.unmodifiableList(newList));
+
+        mappings = new Mappings(prefixUriMap, uriPrefixMap);
     }
 
     /**
@@ -97,16 +90,12 @@ public final class NamespaceContextImpl implements NamespaceContext {
      */
     @Override
     public String getNamespaceURI(String prefix) {
-        for (Map.Entry<List<String>, String> mapping : prefixUriMap.entrySet()) {
-            if (mapping.getKey().contains(prefix)) {
-                if (debugLogger.isLoggable(Level.FINE)) {
-                    debugLogger.fine("resolved prefix " + prefix + " to URI " + mapping.getValue());
-                }
-                return mapping.getValue();
-            }
+        final String uri = mappings.prefixUriMap.get(prefix);
+        if (uri != null && debugLogger.isLoggable(Level.FINE)) {
+            debugLogger.fine("resolved prefix " + prefix + " to URI " + uri);
         }
 
-        return null;
+        return uri;
     }
 
     /**
@@ -114,8 +103,8 @@ public final class NamespaceContextImpl implements NamespaceContext {
      */
     @Override
     public String getPrefix(String namespaceURI) {
-        if (uriPrefixMap.keySet().contains(namespaceURI)) {
-            List<String> prefixes = uriPrefixMap.get(namespaceURI);
+        final List<String> prefixes = mappings.uriPrefixMap.get(namespaceURI);
+        if (prefixes != null) {
             return prefixes.get(prefixes.size() - 1);
         }
 
@@ -128,11 +117,24 @@ public final class NamespaceContextImpl implements NamespaceContext {
      */
     @Override
     public Iterator<String> getPrefixes(String namespaceURI) {
-        if (!uriPrefixMap.keySet().contains(namespaceURI)) {
+        final List<String> prefixes = mappings.uriPrefixMap.get(namespaceURI);
+        if (prefixes == null) {
             return null;
         }
 
-        return uriPrefixMap.get(namespaceURI).iterator();
+        return prefixes.iterator();
     }
 
+    /**
+     * The prefix and URI mappings at some point in time. Neither map is modified once published.
+     */
+    private static final class Mappings {
+        private final Map<String, String> prefixUriMap;
+        private final Map<String, List<String>> uriPrefixMap;
+
+        Mappings(Map<String, String> prefixUriMap, Map<String, List<String>> uriPrefixMap) {
+            this.prefixUriMap = prefixUriMap;
+            this.uriPrefixMap = uriPrefixMap;
+        }
+    }
 }
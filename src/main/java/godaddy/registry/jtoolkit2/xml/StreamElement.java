@@ -0,0 +1,120 @@
+package godaddy.registry.jtoolkit2.xml;
+
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The element at the current position of a {@link StreamingParser}, as presented to a {@link StreamHandler}. A single
+ * instance is reused for every element of a document, so it must not be retained beyond the handler method to which
+ * it is passed. Attributes are available only from <code>startElement</code> and text content only from
+ * <code>endElement</code>.
+ */
+public final class StreamElement {
+    private static final int INITIAL_DEPTH = 16;
+
+    private String[] uris = new String[INITIAL_DEPTH];
+    private String[] names = new String[INITIAL_DEPTH];
+    private int depth;
+    private XMLStreamReader reader;
+    private final StringBuilder text = new StringBuilder();
+
+    StreamElement() {
+    }
+
+    /**
+     * @return the name space URI of this element, or null if it has none
+     */
+    public String getNamespaceURI() {
+        return uris[depth];
+    }
+
+    /**
+     * @return the local name of this element
+     */
+    public String getLocalName() {
+        return names[depth];
+    }
+
+    /**
+     * @return the depth of this element in the document, the document element having depth 1
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the local name of this element or of the ancestor of this element at the given depth.
+     *
+     * @param ancestorDepth the depth of the element, from 1 to the depth of this element
+     * @return the local name of the element at the given depth
+     */
+    public String getLocalName(int ancestorDepth) {
+        return names[ancestorDepth];
+    }
+
+    /**
+     * Get the name space URI of this element or of the ancestor of this element at the given depth.
+     *
+     * @param ancestorDepth the depth of the element, from 1 to the depth of this element
+     * @return the name space URI of the element at the given depth, or null if it has none
+     */
+    public String getNamespaceURI(int ancestorDepth) {
+        return uris[ancestorDepth];
+    }
+
+    /**
+     * @return true if this element has the given name space URI and local name
+     */
+    public boolean is(String namespaceURI, String localName) {
+        return localName.equals(names[depth]) && namespaceURI.equals(uris[depth]);
+    }
+
+    /**
+     * Get the value of the named attribute of this element, regardless of the attribute's name space.
+     *
+     * @param localName the local name of the attribute
+     * @return the attribute value, or null if this element has no such attribute
+     */
+    public String getAttribute(String localName) {
+        return reader.getAttributeValue(null, localName);
+    }
+
+    /**
+     * @return the character content of this element following its last child element; for a leaf element, its text
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    void push(XMLStreamReader streamReader) {
+        depth++;
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+            uris = Arrays.copyOf(uris, depth * 2);
+        }
+        reader = streamReader;
+        names[depth] = streamReader.getLocalName();
+        uris[depth] = streamReader.getNamespaceURI();
+        text.setLength(0);
+    }
+
+    void pop() {
+        names[depth] = null;
+        uris[depth] = null;
+        depth--;
+        text.setLength(0);
+    }
+
+    void appendText(char[] chars, int start, int length) {
+        text.append(chars, start, length);
+    }
+
+    void reset() {
+        Arrays.fill(names, null);
+        Arrays.fill(uris, null);
+        depth = 0;
+        reader = null;
+        text.setLength(0);
+    }
+}
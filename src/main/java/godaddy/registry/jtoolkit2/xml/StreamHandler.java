@@ -0,0 +1,20 @@
+package godaddy.registry.jtoolkit2.xml;
+
+/**
+ * Receives the elements of an XML document, in document order, from a {@link StreamingParser}.
+ */
+public interface StreamHandler {
+    /**
+     * Receive notification of the start of an element, whose attributes may be read from the given element.
+     *
+     * @throws UnsupportedContentException if the handler cannot interpret the element
+     */
+    void startElement(StreamElement element) throws UnsupportedContentException;
+
+    /**
+     * Receive notification of the end of an element, whose text may be read from the given element.
+     *
+     * @throws UnsupportedContentException if the handler cannot interpret the element
+     */
+    void endElement(StreamElement element) throws UnsupportedContentException;
+}
@@ -0,0 +1,101 @@
+package godaddy.registry.jtoolkit2.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Parses an XML document in a single pass, presenting each element in turn to a {@link StreamHandler} instead of
+ * building a DOM representation of the document. Unlike {@link XMLParser}, a StreamingParser does not validate
+ * documents against the EPP schemas. Document type declarations and external entities are not supported.
+ *
+ * <p>
+ * Instances are not thread-safe; like XMLParser, each should be used by only one thread at a time.
+ * </p>
+ */
+public class StreamingParser {
+    private static final XMLInputFactory INPUT_FACTORY;
+
+    static {
+        INPUT_FACTORY = XMLInputFactory.newInstance();
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    private final StreamElement element = new StreamElement();
+
+    /**
+     * Present each element of the given XML source document to the given handler, in document order.
+     *
+     * @throws ParsingException if the document is not well-formed
+     * @throws UnsupportedContentException if the handler abandoned the document
+     */
+    public void parse(String xml, StreamHandler handler) throws ParsingException, UnsupportedContentException {
+        XMLStreamReader reader;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+        } catch (XMLStreamException xse) {
+            throw new ParsingException(xse);
+        }
+        parse(reader, handler);
+    }
+
+    /**
+     * Present each element of the XML source document encoded in the given range of bytes to the given handler, in
+     * document order, without first decoding the document to a String. The encoding is that declared by the
+     * document, or UTF-8 by default.
+     *
+     * @throws ParsingException if the document is not well-formed
+     * @throws UnsupportedContentException if the handler abandoned the document
+     */
+    public void parse(byte[] xml, int offset, int length, StreamHandler handler)
+            throws ParsingException, UnsupportedContentException {
+        XMLStreamReader reader;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xml, offset, length));
+        } catch (XMLStreamException xse) {
+            throw new ParsingException(xse);
+        }
+        parse(reader, handler);
+    }
+
+    private void parse(XMLStreamReader reader, StreamHandler handler)
+            throws ParsingException, UnsupportedContentException {
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    element.push(reader);
+                    handler.startElement(element);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    handler.endElement(element);
+                    element.pop();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    element.appendText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                default:
+                    break;
+                }
+            }
+        } catch (XMLStreamException xse) {
+            throw new ParsingException(xse);
+        } finally {
+            element.reset();
+            try {
+                reader.close();
+            } catch (XMLStreamException xse) {
+                // Nothing is held open by a reader over a string or an array.
+            }
+        }
+    }
+}
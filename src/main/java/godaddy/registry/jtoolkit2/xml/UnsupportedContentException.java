@@ -0,0 +1,14 @@
+package godaddy.registry.jtoolkit2.xml;
+
+/**
+ * Thrown by a {@link StreamHandler} to abandon a document containing content which it cannot interpret without a DOM
+ * representation of the document. This does not indicate that the document is invalid; the caller is expected to fall
+ * back to parsing the document with an {@link XMLParser}.
+ */
+public class UnsupportedContentException extends Exception {
+    private static final long serialVersionUID = 4632310957719064286L;
+
+    public UnsupportedContentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,49 @@
+package godaddy.registry.jtoolkit2.xml;
+
+/**
+ * Determines which outbound service elements are validated against the EPP schemas before they are sent, when schema
+ * validation is enabled. Validation re-parses the serialized XML, which roughly doubles the cost of preparing a
+ * command, so high volume applications may prefer to validate a subset.
+ *
+ * @see XMLWriter#setValidationMode(ValidationMode, int)
+ */
+public enum ValidationMode {
+    /**
+     * Validate every service element.
+     */
+    ALWAYS,
+
+    /**
+     * Validate a random sample of service elements, at the configured percentage.
+     */
+    SAMPLED,
+
+    /**
+     * Validate the first service element of each shape, being its structure of elements and attribute names without
+     * regard to their values. Once a service element of a given shape has passed validation, others of the same shape,
+     * such as the same type of command for different objects, are not validated.
+     */
+    FIRST,
+
+    /**
+     * Validate no service elements.
+     */
+    OFF;
+
+    /**
+     * Get the mode named by the given case-insensitive property value.
+     *
+     * @return the mode named, or null if the value does not name a mode
+     */
+    public static ValidationMode fromProperty(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (ValidationMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,129 @@
+package godaddy.registry.jtoolkit2.xml;
+
+import javax.xml.namespace.NamespaceContext;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * An XMLBuilder which writes a DOM tree straight to a reusable character
+ * buffer, rather than through an XMLStreamWriter.  The output is that of
+ * {@link XMLBuilderSJSXP} for the same tree: the same declaration, name space
+ * declarations, prefixes and escaping.  Unlike XMLBuilderSJSXP, elements with
+ * no name space are written unqualified rather than abandoning the document.
+ *
+ * <p>
+ * An instance may build any number of documents, one at a time, but is not
+ * thread-safe.
+ * </p>
+ */
+final class XMLBuilderDirect implements XMLBuilder {
+    private static final int BUFFER_SIZE = 4096;
+    /// Buffers grown beyond this by an unusually large document are not retained.
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private final String version;
+    private final String encoding;
+    private final String toolkitVersion;
+    private final NamespaceContext namespaceContext;
+    private StringBuilder buffer;
+
+    XMLBuilderDirect(String version, String encoding) {
+        this.version = version;
+        this.encoding = encoding;
+
+        Package classPackage = getClass().getPackage();
+        String specificationTitle = classPackage.getSpecificationTitle();
+        toolkitVersion = specificationTitle == null
+                ? "" : specificationTitle + " v" + classPackage.getSpecificationVersion();
+        namespaceContext = new NamespaceContextImpl();
+        buffer = new StringBuilder(BUFFER_SIZE);
+    }
+
+    /**
+     * @return true if documents built by this builder are declared with the given XML version and encoding
+     */
+    boolean hasDeclaration(String xmlVersion, String xmlEncoding) {
+        return version.equals(xmlVersion) && encoding.equals(xmlEncoding);
+    }
+
+    @Override
+    public String toXML(Element root, XmlOutputConfig xmlOutputConfig) {
+        if (buffer.capacity() > MAX_RETAINED_SIZE) {
+            buffer = new StringBuilder(BUFFER_SIZE);
+        } else {
+            buffer.setLength(0);
+        }
+
+        buffer.append("<?xml version=\"").append(version).append("\" encoding=\"").append(encoding).append("\"?>");
+        if (!toolkitVersion.isEmpty()) {
+            buffer.append("<!--").append(toolkitVersion).append("-->");
+        }
+        writeElement(root, null, xmlOutputConfig.needsPrefixNamespace());
+
+        return buffer.toString();
+    }
+
+    private void writeElement(Element e, Element parent, boolean prefixNamespace) {
+        String uri = e.getNamespaceURI();
+        String prefix = prefixNamespace ? namespaceContext.getPrefix(uri) : e.lookupPrefix(uri);
+
+        String localName = e.getLocalName();
+        if (localName == null) {
+            localName = e.getNodeName();
+        }
+
+        buffer.append('<');
+        writeName(prefix, localName);
+
+        if (parent == null || (uri != null && !uri.equals(parent.getNamespaceURI()))) {
+            if (prefix == null) {
+                if (uri != null) {
+                    buffer.append(" xmlns=\"");
+                    XMLEscaper.appendEscaped(buffer, uri, true);
+                    buffer.append('"');
+                }
+            } else if (!e.hasAttribute("xmlns:" + prefix)) {
+                buffer.append(" xmlns:").append(prefix).append("=\"");
+                XMLEscaper.appendEscaped(buffer, uri, true);
+                buffer.append('"');
+            }
+        }
+
+        if (e.hasAttributes()) {
+            NamedNodeMap attributes = e.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Node attr = attributes.item(i);
+                buffer.append(' ').append(attr.getNodeName()).append("=\"");
+                XMLEscaper.appendEscaped(buffer, attr.getNodeValue(), true);
+                buffer.append('"');
+            }
+        }
+
+        if (!e.hasChildNodes()) {
+            buffer.append("/>");
+            return;
+        }
+
+        buffer.append('>');
+        for (Node child = e.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Text) {
+                XMLEscaper.appendEscaped(buffer, child.getNodeValue(), false);
+            } else if (child instanceof Element) {
+                writeElement((Element) child, e, prefixNamespace);
+            }
+        }
+        buffer.append("</");
+        writeName(prefix, localName);
+        buffer.append('>');
+    }
+
+    private void writeName(String prefix, String localName) {
+        if (prefix != null && !prefix.isEmpty()) {
+            buffer.append(prefix).append(':');
+        }
+        buffer.append(localName);
+    }
+}
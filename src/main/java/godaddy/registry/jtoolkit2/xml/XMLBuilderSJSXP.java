@@ -1,6 +1,7 @@
 package godaddy.registry.jtoolkit2.xml;
 
 import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.logging.Logger;
 
 import javax.xml.namespace.NamespaceContext;
@@ -23,17 +24,30 @@ import godaddy.registry.jtoolkit2.ErrorPkg;
  * changes.  This is only published outside the scope of the package to support
  * representation of {@link org.w3c.dom.Node}s as an XML String.
  *
+ * <p>
+ * An instance may build any number of documents, one at a time, but is not
+ * thread-safe.  Each thread creates its stream writers from its own
+ * XMLOutputFactory, so builders used by different threads share no state.
+ * </p>
  *
  * Uses the debug, maintenance and user level loggers.
  */
 public final class XMLBuilderSJSXP implements XMLBuilder {
     private static final int BUFFER_SIZE = 4096;
-    private static XMLOutputFactory xmlOutputFactory;
-    /// XML encoding.
-    private static String enc;
-    /// XML version.
-    private static String vers;
-
+    private static final ThreadLocal<XMLOutputFactory> OUTPUT_FACTORIES =
+            new ThreadLocal<XMLOutputFactory>() {
+                @Override
+                protected XMLOutputFactory initialValue() {
+                    return XMLOutputFactory.newInstance();
+                }
+            };
+    /// Default XML encoding.
+    private static volatile String enc;
+    /// Default XML version.
+    private static volatile String vers;
+
+    private final String encoding;
+    private final String version;
     private ByteArrayOutputStream bufferStream;
     private XMLStreamWriter writer;
     private String pname;
@@ -41,7 +55,6 @@ public final class XMLBuilderSJSXP implements XMLBuilder {
     private final Package classPackage;
 
     static {
-        xmlOutputFactory = XMLOutputFactory.newInstance();
         enc = "UTF-8";
         vers = "1.0";
     }
@@ -51,17 +64,8 @@ public final class XMLBuilderSJSXP implements XMLBuilder {
     }
 
     XMLBuilderSJSXP(String version, String encoding, boolean standalone) {
-        vers = version;
-        enc = encoding;
-
-        try {
-            writer = xmlOutputFactory.createXMLStreamWriter(bufferStream,
-                    encoding);
-        } catch (XMLStreamException xse) {
-            Logger.getLogger(pname + ".maint").severe(xse.getMessage());
-            Logger.getLogger(pname + ".user").severe(
-                    ErrorPkg.getMessage("xml.writer.config.fail.msg"));
-        }
+        this.version = version;
+        this.encoding = encoding;
     }
 
     static void setVersion(String version) {
@@ -79,14 +83,22 @@ public final class XMLBuilderSJSXP implements XMLBuilder {
         bufferStream = new ByteArrayOutputStream(BUFFER_SIZE);
     }
 
+    /**
+     * @return true if documents built by this builder are declared with the given XML version and encoding
+     */
+    boolean hasDeclaration(String xmlVersion, String xmlEncoding) {
+        return version.equals(xmlVersion) && encoding.equals(xmlEncoding);
+    }
+
     @Override
     public String toXML(Element root, XmlOutputConfig xmlOutputConfig) {
-        return toXML(root, enc, vers, xmlOutputConfig);
+        return toXML(root, encoding, version, xmlOutputConfig);
     }
 
-    public String toXML(Element root, String encoding, String version, XmlOutputConfig xmlOutputConfig) {
+    public String toXML(Element root, String xmlEncoding, String xmlVersion, XmlOutputConfig xmlOutputConfig) {
         try {
-            writer.writeStartDocument(encoding, version);
+            newWriter(xmlEncoding);
+            writer.writeStartDocument(xmlEncoding, xmlVersion);
             String toolkitVersion = getToolkitVersion();
             if (!toolkitVersion.isEmpty()) {
                 writer.writeComment(toolkitVersion);
@@ -99,11 +111,12 @@ public final class XMLBuilderSJSXP implements XMLBuilder {
             Logger.getLogger(pname + ".user").severe(
                     ErrorPkg.getMessage("xml.writer.process.fail.msg"));
         }
-        return bufferStream.toString();
+        return decode(xmlEncoding);
     }
 
     public String partialToXML(Node topNode, XmlOutputConfig xmlOutputConfig) {
         try {
+            newWriter(encoding);
             writer.setNamespaceContext(namespaceContext);
             dfs((Element) topNode, (Element) topNode, xmlOutputConfig);
             writer.flush();
@@ -114,7 +127,33 @@ public final class XMLBuilderSJSXP implements XMLBuilder {
                     ErrorPkg.getMessage("xml.writer.process.fail.msg"));
         }
 
-        return bufferStream.toString();
+        return decode(encoding);
+    }
+
+    /**
+     * Decode the buffer in the encoding it was written in, rather than the platform default.
+     */
+    private String decode(String xmlEncoding) {
+        try {
+            return bufferStream.toString(xmlEncoding);
+        } catch (UnsupportedEncodingException uee) {
+            // The writer was created with this encoding, so this is not expected.
+            return bufferStream.toString();
+        }
+    }
+
+    /**
+     * Start a new document in the buffer, discarding any previous one.
+     */
+    private void newWriter(String xmlEncoding) throws XMLStreamException {
+        bufferStream.reset();
+        try {
+            writer = OUTPUT_FACTORIES.get().createXMLStreamWriter(bufferStream, xmlEncoding);
+        } catch (XMLStreamException xse) {
+            Logger.getLogger(pname + ".user").severe(
+                    ErrorPkg.getMessage("xml.writer.config.fail.msg"));
+            throw xse;
+        }
     }
 
     private void dfs(Element e, XmlOutputConfig xmlOutputConfig) throws XMLStreamException {
@@ -1,8 +1,14 @@
 package godaddy.registry.jtoolkit2.xml;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
@@ -16,12 +22,46 @@ import org.xml.sax.SAXException;
  * interface for extracting node values from an XML document.  Where the names
  * of elements are known in advance, non DOM-specific methods should be used in
  * order to reduce the dependency of client classes on the DOM interface.
+ *
+ * <p>
+ * Expressions are compiled once per thread and cached by their text, so that
+ * the fixed expressions used to read responses are not recompiled for each
+ * response or each repeated element.  Repeated elements are best read by
+ * fetching them once, then querying each with relative expressions through an
+ * XMLDocument rooted at that element, rather than by formatting an index
+ * predicate into an absolute expression for each one.
+ * </p>
  */
 public class XMLDocument {
+    private static final int EXPRESSION_CACHE_SIZE = 512;
+
     private static XPathFactory xpathFactory;
     private static NamespaceContext nsCtx;
 
-    private XPath xpath;
+    private static final ThreadLocal<XPath> XPATH = new ThreadLocal<XPath>() {
+        @Override
+        protected XPath initialValue() {
+            XPath xpath = XMLDocument.newXPath();
+            xpath.setNamespaceContext(nsCtx);
+            return xpath;
+        }
+    };
+
+    private static final ThreadLocal<Map<String, XPathExpression>> EXPRESSIONS =
+            new ThreadLocal<Map<String, XPathExpression>>() {
+                @Override
+                protected Map<String, XPathExpression> initialValue() {
+                    return new LinkedHashMap<String, XPathExpression>(64, 0.75f, true) {
+                        private static final long serialVersionUID = -2208467735012387146L;
+
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+                            return size() > EXPRESSION_CACHE_SIZE;
+                        }
+                    };
+                }
+            };
+
     private final Element root;
     private String sourceXMLString;
 
@@ -37,19 +77,28 @@ public class XMLDocument {
      */
     public XMLDocument(Element root) {
         this.root = root;
-        xpath = XMLDocument.newXPath();
-        xpath.setNamespaceContext(nsCtx);
     }
 
     XMLDocument(Element root, final String sourceXMLStringArg) {
         this.root = root;
         this.sourceXMLString = sourceXMLStringArg;
-        xpath = XMLDocument.newXPath();
-        xpath.setNamespaceContext(nsCtx);
     }
 
     private static XPath newXPath() {
-        return xpathFactory.newXPath();
+        // XPathFactory is not thread-safe.
+        synchronized (xpathFactory) {
+            return xpathFactory.newXPath();
+        }
+    }
+
+    private static XPathExpression compile(String query) throws XPathExpressionException {
+        Map<String, XPathExpression> expressions = EXPRESSIONS.get();
+        XPathExpression expr = expressions.get(query);
+        if (expr == null) {
+            expr = XPATH.get().compile(query);
+            expressions.put(query, expr);
+        }
+        return expr;
     }
 
     /**
@@ -86,7 +135,7 @@ public class XMLDocument {
      * @throws XPathExpressionException the XPath expression exception
      */
     public int getNodeCount(String query) throws XPathExpressionException {
-        String result = xpath.evaluate(query, root);
+        String result = compile(query).evaluate(root);
 
         return Integer.parseInt(result);
     }
@@ -105,12 +154,35 @@ public class XMLDocument {
 
     private String getNodeValue(String query, Node qRoot) throws XPathExpressionException {
 
-        String countStr = xpath.evaluate("count(" + query + ")", qRoot);
-        if (countStr.length() == 0 || Integer.valueOf(countStr) == 0) {
+        NodeList nodes = (NodeList) compile(query).evaluate(qRoot, XPathConstants.NODESET);
+        if (nodes == null || nodes.getLength() == 0) {
             return null;
         }
 
-        return xpath.evaluate(query, qRoot);
+        // The string value of a node-set is that of its first node in document order.
+        return stringValue(nodes.item(0));
+    }
+
+    private static boolean isText(Node node) {
+        return node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE;
+    }
+
+    /*
+     * In the XPath data model, adjacent text and CDATA sections in the DOM form a single text node.
+     */
+    private static String stringValue(Node node) {
+        if (!isText(node)) {
+            return node.getTextContent();
+        }
+        Node next = node.getNextSibling();
+        if (next == null || !isText(next)) {
+            return node.getNodeValue();
+        }
+        StringBuilder value = new StringBuilder(node.getNodeValue());
+        for (; next != null && isText(next); next = next.getNextSibling()) {
+            value.append(next.getNodeValue());
+        }
+        return value.toString();
     }
 
     /**
@@ -127,7 +199,7 @@ public class XMLDocument {
 
     private String getNodeName(String query, Node qRoot) throws XPathExpressionException {
 
-        Node node = (Node) xpath.evaluate(query, qRoot, XPathConstants.NODE);
+        Node node = (Node) compile(query).evaluate(qRoot, XPathConstants.NODE);
         if (node != null) {
             return node.getLocalName();
         }
@@ -206,7 +278,7 @@ public class XMLDocument {
 
     private NodeList getElements(String query, Node qRoot) throws XPathExpressionException {
 
-        NodeList nodes = (NodeList) xpath.evaluate(query, qRoot, XPathConstants.NODESET);
+        NodeList nodes = (NodeList) compile(query).evaluate(qRoot, XPathConstants.NODESET);
 
         if (nodes != null && nodes.getLength() > 0) {
             return nodes;
@@ -223,6 +295,31 @@ public class XMLDocument {
      * @throws XPathExpressionException the XPath expression exception
      */
     public Node getElement(String query) throws XPathExpressionException {
-        return (Node) xpath.evaluate(query, root, XPathConstants.NODE);
+        return (Node) compile(query).evaluate(root, XPathConstants.NODE);
+    }
+
+    /**
+     * Get the child elements of the node identified by the given XPath
+     * expression, in document order.  Each may be wrapped in an XMLDocument
+     * to query it by relative expressions.
+     *
+     * @param query The XPath expression to evaluate.
+     * @return The child elements of the identified node, which is empty if
+     * the node has no child elements or no node was identified.
+     * @throws XPathExpressionException the XPath expression exception
+     */
+    public List<Element> getChildElements(String query) throws XPathExpressionException {
+        List<Element> children = new ArrayList<Element>();
+        Node parent = getElement(query);
+        if (parent == null) {
+            return children;
+        }
+
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                children.add((Element) child);
+            }
+        }
+        return children;
     }
 }
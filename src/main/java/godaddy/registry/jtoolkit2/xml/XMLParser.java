@@ -2,6 +2,7 @@ package godaddy.registry.jtoolkit2.xml;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.parsers.DocumentBuilder;
@@ -9,6 +10,7 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import godaddy.registry.jtoolkit2.ErrorPkg;
@@ -92,12 +94,25 @@ public class XMLParser {
      * configured during <a href="#init(SessionManagerProperties)">init</a>.
      */
     public XMLDocument parse(String xml) throws ParsingException {
-        ByteArrayInputStream xmlInputStream
-            = new ByteArrayInputStream(xml.getBytes());
+        return parse(new InputSource(new StringReader(xml)), xml);
+    }
+
+    /**
+     * Generate a DOM representation of the XML source document encoded in the
+     * given range of bytes, without first decoding it to a String.  The
+     * encoding is that declared by the document, or UTF-8 by default.
+     *
+     * @param sourceXML the decoded document, to be returned by {@link
+     * XMLDocument#getSourceXMLString()}, or null if it is not needed.
+     */
+    public XMLDocument parse(byte[] xml, int offset, int length, String sourceXML) throws ParsingException {
+        return parse(new InputSource(new ByteArrayInputStream(xml, offset, length)), sourceXML);
+    }
 
+    private XMLDocument parse(InputSource source, String sourceXML) throws ParsingException {
         try {
-            Document doc = builder.parse(xmlInputStream);
-            return new XMLDocument(doc.getDocumentElement(), xml);
+            Document doc = builder.parse(source);
+            return new XMLDocument(doc.getDocumentElement(), sourceXML);
         } catch (SAXException saxe) {
             throw new ParsingException(saxe);
         } catch (IOException ioe) {
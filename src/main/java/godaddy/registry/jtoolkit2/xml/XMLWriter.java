@@ -3,12 +3,18 @@ package godaddy.registry.jtoolkit2.xml;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Logger;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -23,12 +29,16 @@ import godaddy.registry.jtoolkit2.ErrorPkg;
 public abstract class XMLWriter {
     private static final String PACKAGE_NAME = XMLWriter.class.getPackage().getName();
 
-    /*
-     * This lock is a workaround to an implementation flaw in com.sun.xml.internal.stream.XMLOutputFactoryImpl which
-     * results in the output stream assigned to a XMLStreamWriter being over-written by another thread. This is resolved
-     * in Java 7.
-     */
-    private static final Object WORKAROUND_LOCK = new Object();
+    /// Bound on the number of validated shapes remembered; the set is cleared when it is reached.
+    private static final int MAX_VALIDATED_SHAPES = 4096;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int PERCENT = 100;
+
+    private static final Set<Long> VALIDATED_SHAPES = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    private static volatile ValidationMode validationMode = ValidationMode.ALWAYS;
+    private static volatile int validationSamplePercent = PERCENT;
+    private static volatile boolean directEncoding;
 
     protected String xml;
     protected String version;
@@ -44,6 +54,44 @@ public abstract class XMLWriter {
     public static XMLWriter newInstance() {
         return new EPPWriter();
     }
+    /**
+     * Set which service elements are validated when schema validation is enabled. Shapes already validated in
+     * {@link ValidationMode#FIRST} mode are forgotten.
+     *
+     * @param mode the validation mode; null selects {@link ValidationMode#ALWAYS}
+     * @param samplePercent the percentage of service elements validated in {@link ValidationMode#SAMPLED} mode
+     */
+    public static void setValidationMode(ValidationMode mode, int samplePercent) {
+        validationMode = mode == null ? ValidationMode.ALWAYS : mode;
+        validationSamplePercent = Math.max(0, Math.min(PERCENT, samplePercent));
+        VALIDATED_SHAPES.clear();
+    }
+
+    /**
+     * Get the current validation mode.
+     */
+    public static ValidationMode getValidationMode() {
+        return validationMode;
+    }
+
+    /**
+     * Set whether service elements are serialized from their DOM trees to text by the toolkit, rather than through an
+     * XMLStreamWriter. This replaces only the serialization step: each service element is still built as a DOM. The
+     * output is the same either way. Applies to UTF-8 documents written by {@link EPPWriter}.
+     *
+     * @param enabled true to enable direct encoding
+     */
+    public static void setDirectEncoding(boolean enabled) {
+        directEncoding = enabled;
+    }
+
+    /**
+     * Whether service elements are serialized from their DOM trees to text without an XMLStreamWriter.
+     */
+    public static boolean isDirectEncoding() {
+        return directEncoding;
+    }
+
     /**
      * Get the root element of the DOM tree associated with this writer.
      *
@@ -53,6 +101,14 @@ public abstract class XMLWriter {
 
     protected abstract SAXParser newSAXParser() throws SAXException, ParserConfigurationException;
 
+    /**
+     * Get a SAX parser with which to validate the generated XML. Implementations may return a parser reused by the
+     * current thread, reset to its initial state; the default implementation returns a new parser.
+     */
+    protected SAXParser getSAXParser() throws SAXException, ParserConfigurationException {
+        return newSAXParser();
+    }
+
     protected abstract boolean isParserValidating();
 
     protected abstract XMLBuilder getXMLBuilder();
@@ -210,57 +266,104 @@ public abstract class XMLWriter {
             return xml;
         }
 
-        if (!isParserValidating()) {
-            generateXmlLocked(xmlOutputConfig);
-
-            supportLogger.info(xml);
-            return xml;
+        long shape = 0L;
+        boolean validating = isParserValidating();
+        if (validating) {
+            switch (validationMode) {
+            case OFF:
+                validating = false;
+                break;
+            case SAMPLED:
+                validating = ThreadLocalRandom.current().nextInt(PERCENT) < validationSamplePercent;
+                break;
+            case FIRST:
+                shape = shapeOf(getRoot());
+                validating = !VALIDATED_SHAPES.contains(shape);
+                break;
+            default:
+                break;
+            }
         }
 
+        // Builders are confined to the calling thread, so serialization needs no lock.
         xml = getXMLBuilder().toXML(getRoot(), xmlOutputConfig);
 
-        try {
-            validate();
-        } catch (SAXException saxe) {
-            generateXmlLocked(xmlOutputConfig);
-
+        if (validating) {
             try {
                 validate();
-            } catch (SAXException se) {
+                if (validationMode == ValidationMode.FIRST) {
+                    rememberValidShape(shape);
+                }
+            } catch (SAXException saxe) {
                 userLogger.warning(xml);
-                throw se;
-            } catch (Exception e) {
+                throw saxe;
+            } catch (ParserConfigurationException pce) {
+                userLogger.warning(pce.getMessage());
+                userLogger.warning(ErrorPkg.getMessage("xml.parser.operation.unsupported"));
+            } catch (IOException ioe) {
+                userLogger.warning(ioe.getMessage());
+                maintLogger.warning(ioe.getMessage());
             }
-        } catch (ParserConfigurationException pce) {
-            userLogger.warning(pce.getMessage());
-            userLogger.warning(ErrorPkg.getMessage("xml.parser.operation.unsupported"));
-
-            generateXmlLocked(xmlOutputConfig);
-        } catch (IOException ioe) {
-            userLogger.warning(ioe.getMessage());
-            maintLogger.warning(ioe.getMessage());
-
-            generateXmlLocked(xmlOutputConfig);
         }
 
         supportLogger.info(xml);
         return xml;
     }
 
-    /**
-     * See the description of the WORKAROUND_LOCK class member for the rationale behind this method.
-     */
-    private void generateXmlLocked(XmlOutputConfig xmlOutputConfig) {
-        synchronized (XMLWriter.WORKAROUND_LOCK) {
-            xml = getXMLBuilder().toXML(getRoot(), xmlOutputConfig);
-        }
-    }
-
     private void validate() throws IOException, ParserConfigurationException, SAXException {
 
         InputStream in = new ByteArrayInputStream(xml.getBytes());
         DefaultHandler handler = HandlerFactory.newInstance();
-        SAXParser saxParser = newSAXParser();
+        SAXParser saxParser = getSAXParser();
         saxParser.parse(in, handler);
     }
+
+    private static void rememberValidShape(long shape) {
+        if (VALIDATED_SHAPES.size() >= MAX_VALIDATED_SHAPES) {
+            VALIDATED_SHAPES.clear();
+        }
+        VALIDATED_SHAPES.add(shape);
+    }
+
+    /**
+     * Compute a 64-bit FNV-1a hash of the structure of the tree rooted at the given element: the namespace and name of
+     * each element and the names of its attributes, in document order, without their values.
+     */
+    private static long shapeOf(Element root) {
+        long hash = FNV_OFFSET_BASIS;
+        Node node = root;
+        while (node != null) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                hash = hash(hash, node.getNamespaceURI());
+                hash = hash(hash, node.getNodeName());
+                NamedNodeMap attributes = node.getAttributes();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    hash = hash(hash, attributes.item(i).getNodeName());
+                }
+            }
+
+            // Depth-first traversal, marking the end of each element's children.
+            if (node.getFirstChild() != null) {
+                node = node.getFirstChild();
+                continue;
+            }
+            while (node != root && node.getNextSibling() == null) {
+                node = node.getParentNode();
+                hash = hash(hash, "/");
+            }
+            node = node == root ? null : node.getNextSibling();
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        long result = hash;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                result = (result ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // Separate consecutive values.
+        return (result ^ 0xff) * FNV_PRIME;
+    }
 }
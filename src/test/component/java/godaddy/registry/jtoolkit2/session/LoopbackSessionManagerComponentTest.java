@@ -0,0 +1,188 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import godaddy.registry.jtoolkit2.se.DomainCheckCommand;
+import godaddy.registry.jtoolkit2.se.DomainCheckResponse;
+import godaddy.registry.jtoolkit2.se.DomainInfoCommand;
+import godaddy.registry.jtoolkit2.se.DomainInfoResponse;
+import godaddy.registry.jtoolkit2.se.PollRequestCommand;
+import godaddy.registry.jtoolkit2.se.PollResponse;
+import godaddy.registry.jtoolkit2.se.ResultCode;
+import godaddy.registry.jtoolkit2.test.infrastructure.LoopbackEppServer;
+import godaddy.registry.jtoolkit2.test.infrastructure.LoopbackLoadDriver;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs each test against both the blocking and the non-blocking session transports.
+ */
+@RunWith(Parameterized.class)
+public class LoopbackSessionManagerComponentTest {
+    private static final String SESSION_CLASS_PROPERTY = "godaddy.registry.jtoolkit2.session.class";
+
+    private final String sessionClass;
+    private LoopbackEppServer server;
+    private SessionManager manager;
+
+    public LoopbackSessionManagerComponentTest(String sessionClass) {
+        this.sessionClass = sessionClass;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> sessionClasses() {
+        return Arrays.asList(new Object[][] {
+            {TLSSession.class.getName()},
+            {NioTLSSession.class.getName()},
+        });
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty(SESSION_CLASS_PROPERTY, sessionClass);
+        server = new LoopbackEppServer("keystore.jks", "password");
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (manager != null) {
+            manager.shutdown();
+        }
+        server.stop();
+        System.clearProperty(SESSION_CLASS_PROPERTY);
+    }
+
+    @Test
+    public void shouldAnswerCheckInfoAndPollCommands() throws Exception {
+        startManager(2);
+
+        DomainCheckResponse check = new DomainCheckResponse();
+        manager.execute(new Transaction(new DomainCheckCommand(new String[] {"a.com.au", "b.com.au"}), check));
+        assertEquals(ResultCode.SUCCESS, check.getResults()[0].getResultCode());
+        assertTrue(check.isAvailable("a.com.au"));
+        assertFalse(check.isAvailable("b.com.au"));
+
+        DomainInfoResponse info = new DomainInfoResponse();
+        manager.execute(new Transaction(new DomainInfoCommand("c.com.au"), info));
+        assertEquals("c.com.au", info.getName());
+
+        PollResponse poll = new PollResponse();
+        manager.execute(new Transaction(new PollRequestCommand(), poll));
+        assertEquals(ResultCode.SUCCESS_ACK, poll.getResults()[0].getResultCode());
+        assertEquals(5, poll.getMsgCount());
+    }
+
+    @Test
+    public void shouldAnswerCommandsWithNamespacePrefixes() throws Exception {
+        manager = SessionManagerFactory.newInstance(new SessionManagerPropertiesImpl("loopback.properties") {
+            @Override
+            public int getPort() {
+                return server.getPort();
+            }
+
+            @Override
+            public boolean needOutputNamespacePrefixInXml() {
+                return true;
+            }
+        });
+        manager.startup();
+
+        DomainInfoResponse info = new DomainInfoResponse();
+        manager.execute(new Transaction(new DomainInfoCommand("c.com.au"), info));
+        assertEquals("c.com.au", info.getName());
+        assertEquals(0L, server.getErrorCount());
+    }
+
+    @Test
+    public void shouldDelayResponsesByTheConfiguredLatency() throws Exception {
+        server.setLatency("info", 100L);
+        startManager(1);
+
+        Transaction tx = new Transaction(new DomainInfoCommand("c.com.au"), new DomainInfoResponse());
+        manager.execute(tx);
+        assertThat(tx.getResponseTime(), greaterThanOrEqualTo(100L));
+    }
+
+    @Test
+    public void shouldRefuseLoginBeyondTheSessionLimit() throws Exception {
+        server.setMaxSessions(1);
+        SessionManagerProperties properties = LoopbackLoadDriver.newSessionManager(server, 2).getProperties();
+
+        Session first = SessionFactory.newInstance(properties.getSessionProperties());
+        first.open();
+        Session second = SessionFactory.newInstance(properties.getSessionProperties());
+        try {
+            second.open();
+            fail("The second session should have exceeded the server's limit");
+        } catch (SessionOpenException soe) {
+            assertThat(soe.getCause(), instanceOf(SessionLimitExceededException.class));
+        } finally {
+            first.close();
+        }
+        assertEquals(1, server.getPeakSessionCount());
+        assertEquals(1L, server.getRejectedCount());
+    }
+
+    @Test
+    public void shouldReportPolicyErrorBeyondTheRateLimit() throws Exception {
+        server.setRateLimit(2, 60000L, ResultCode.PARAM_VAL_POL_ERR);
+        startManager(1);
+
+        int[] codes = new int[3];
+        for (int i = 0; i < codes.length; i++) {
+            DomainCheckResponse check = new DomainCheckResponse();
+            manager.execute(new Transaction(new DomainCheckCommand("a.com.au"), check));
+            codes[i] = check.getResults()[0].getResultCode();
+        }
+        assertEquals(ResultCode.SUCCESS, codes[0]);
+        assertEquals(ResultCode.SUCCESS, codes[1]);
+        assertEquals(ResultCode.PARAM_VAL_POL_ERR, codes[2]);
+    }
+
+    @Test
+    public void shouldRecoverWhenTheServerClosesTheSessionBeyondTheRateLimit() throws Exception {
+        server.setRateLimit(1, 60000L, ResultCode.SESS_LIM_EXCEEDED_CLOSING);
+        startManager(1);
+
+        DomainCheckResponse first = new DomainCheckResponse();
+        manager.execute(new Transaction(new DomainCheckCommand("a.com.au"), first));
+        DomainCheckResponse limited = new DomainCheckResponse();
+        manager.execute(new Transaction(new DomainCheckCommand("a.com.au"), limited));
+        assertEquals(ResultCode.SESS_LIM_EXCEEDED_CLOSING, limited.getResults()[0].getResultCode());
+
+        // A command written to the closed session is not retried, as it may have been processed. The non-blocking
+        // transport may already have seen the close, in which case the command is never written and goes to a new
+        // session instead.
+        DomainCheckResponse next = new DomainCheckResponse();
+        Transaction unanswered = new Transaction(new DomainCheckCommand("a.com.au"), next);
+        manager.execute(unanswered);
+        if (unanswered.getState() == TransactionState.PROCESSED) {
+            assertEquals(NioTLSSession.class.getName(), sessionClass);
+        } else {
+            // The closed session is replaced by a new one, whose limit is not yet reached.
+            next = new DomainCheckResponse();
+            manager.execute(new Transaction(new DomainCheckCommand("a.com.au"), next));
+        }
+        assertEquals(ResultCode.SUCCESS, next.getResults()[0].getResultCode());
+        assertThat(manager.getPoolMetrics().getSessionsOpened(), greaterThanOrEqualTo(2L));
+    }
+
+    private void startManager(int sessions) throws Exception {
+        manager = LoopbackLoadDriver.newSessionManager(server, sessions);
+        manager.startup();
+    }
+}
@@ -0,0 +1,178 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NioSSLChannelComponentTest {
+    private static final int TIMEOUT = 10000;
+
+    private SSLServerSocket serverSocket;
+    private NioSelectorPool selectors;
+    private ByteBufferPool bufferPool;
+    private NioSSLChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(loadKeyStore("keystore.jks"), "password".toCharArray());
+        serverContext.init(kmf.getKeyManagers(), null, null);
+        serverSocket = (SSLServerSocket) serverContext.getServerSocketFactory().createServerSocket(0, 1,
+                InetAddress.getLoopbackAddress());
+
+        selectors = new NioSelectorPool(1);
+        bufferPool = new ByteBufferPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (channel != null) {
+            channel.close(TIMEOUT);
+        }
+        serverSocket.close();
+    }
+
+    @Test
+    public void shouldDeliverFramesReceivedBeforeThePeerClosed() throws Exception {
+        CountDownLatch peerClosed = answerAndClose("<epp>2502</epp>", "<epp>1500</epp>");
+        channel = openChannel();
+        assertTrue(peerClosed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        awaitFailure();
+
+        assertEquals("<epp>2502</epp>", readString());
+        assertEquals("<epp>1500</epp>", readString());
+        try {
+            channel.readFrame(TIMEOUT);
+            fail("The peer closed the connection after its last frame");
+        } catch (IOException expected) {
+            // The connection is closed once its frames have been read.
+        }
+    }
+
+    @Test
+    public void shouldReleaseUnreadFramesOnClose() throws Exception {
+        CountDownLatch peerClosed = answerAndClose("<epp>unread</epp>");
+        channel = openChannel();
+        assertTrue(peerClosed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        awaitFailure();
+
+        channel.close(TIMEOUT);
+        ByteBuffer released = bufferPool.acquire(1);
+        assertEquals("<epp>unread</epp>", new String(released.array(), 0, 17, StandardCharsets.UTF_8));
+        try {
+            channel.readFrame(TIMEOUT);
+            fail("The channel was closed");
+        } catch (EOFException expected) {
+            // Closing discards the frames not yet read.
+        }
+    }
+
+    private NioSSLChannel openChannel() throws Exception {
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(loadKeyStore("truststore.jks"));
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, tmf.getTrustManagers(), null);
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                serverSocket.getLocalPort());
+        SSLEngine engine = clientContext.createSSLEngine();
+        engine.setUseClientMode(true);
+        return NioSSLChannel.open(address, engine, TIMEOUT, selectors, bufferPool);
+    }
+
+    /**
+     * Accept one connection, send the given frames and close it without waiting for the client.
+     */
+    private CountDownLatch answerAndClose(final String... payloads) {
+        final CountDownLatch closed = new CountDownLatch(1);
+        Thread peer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Socket socket = serverSocket.accept();
+                    try {
+                        ((SSLSocket) socket).startHandshake();
+                        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                        for (String payload : payloads) {
+                            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+                            out.writeInt(bytes.length + 4);
+                            out.write(bytes);
+                        }
+                        out.flush();
+                    } finally {
+                        socket.close();
+                        closed.countDown();
+                    }
+                } catch (IOException ioe) {
+                    // The test fails on the latch.
+                }
+            }
+        });
+        peer.setDaemon(true);
+        peer.start();
+        return closed;
+    }
+
+    /**
+     * Wait until the channel has seen the peer close, which is when it would previously have discarded its frames.
+     */
+    private void awaitFailure() throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                channel.writeFrame(new byte[0], TIMEOUT);
+            } catch (IOException expected) {
+                return;
+            }
+            Thread.sleep(10L);
+        }
+        fail("The channel did not see the peer close");
+    }
+
+    private String readString() throws IOException {
+        ByteBuffer frame = channel.readFrame(TIMEOUT);
+        try {
+            byte[] bytes = new byte[frame.remaining()];
+            frame.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } finally {
+            bufferPool.release(frame);
+        }
+    }
+
+    private static KeyStore loadKeyStore(String name) throws Exception {
+        KeyStore store = KeyStore.getInstance("JKS");
+        InputStream in = NioSSLChannelComponentTest.class.getClassLoader().getResourceAsStream(name);
+        try {
+            store.load(in, "password".toCharArray());
+        } finally {
+            in.close();
+        }
+        return store;
+    }
+}
@@ -0,0 +1,103 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TLSSessionComponentTest {
+    private SSLServerSocket serverSocket;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore store = KeyStore.getInstance("JKS");
+        InputStream in = getClass().getClassLoader().getResourceAsStream("keystore.jks");
+        try {
+            store.load(in, "password".toCharArray());
+        } finally {
+            in.close();
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(store, "password".toCharArray());
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(kmf.getKeyManagers(), null, null);
+        serverSocket = (SSLServerSocket) ctx.getServerSocketFactory().createServerSocket(0, 1,
+                InetAddress.getLoopbackAddress());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        serverSocket.close();
+    }
+
+    @Test
+    public void shouldFailTheSessionOnAnOversizedLengthHeader() throws Exception {
+        CountDownLatch clientClosed = sendLengthHeader(Integer.MAX_VALUE);
+        TLSSession session = new TLSSession(new SessionManagerPropertiesImpl("loopback.properties") {
+            @Override
+            public int getPort() {
+                return serverSocket.getLocalPort();
+            }
+        }.getSessionProperties());
+
+        try {
+            session.open();
+            fail("The greeting's length header exceeds the frame size limit");
+        } catch (SessionOpenException expected) {
+            // The session cannot read a greeting.
+        }
+        // Rather than trying to read the oversized data unit, the session closes the connection.
+        assertTrue(clientClosed.await(10L, TimeUnit.SECONDS));
+        assertTrue(session.isInvalid());
+    }
+
+    /**
+     * Accept one connection and send it the given RFC5734 length header in place of a greeting.
+     *
+     * @return a latch released once the client closes the connection
+     */
+    private CountDownLatch sendLengthHeader(final int frameSize) {
+        final CountDownLatch clientClosed = new CountDownLatch(1);
+        Thread peer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Socket socket = serverSocket.accept();
+                    try {
+                        ((SSLSocket) socket).startHandshake();
+                        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                        out.writeInt(frameSize);
+                        out.flush();
+                        if (socket.getInputStream().read() < 0) {
+                            clientClosed.countDown();
+                        }
+                    } finally {
+                        socket.close();
+                    }
+                } catch (IOException ioe) {
+                    // The client closed the connection without a TLS close notification.
+                    clientClosed.countDown();
+                }
+            }
+        });
+        peer.setDaemon(true);
+        peer.start();
+        return clientClosed;
+    }
+}
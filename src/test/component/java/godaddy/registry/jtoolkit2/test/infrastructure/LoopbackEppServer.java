@@ -0,0 +1,389 @@
+package godaddy.registry.jtoolkit2.test.infrastructure;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+
+import godaddy.registry.jtoolkit2.se.ResultCode;
+
+/**
+ * An EPP server stand-in for measuring and testing the toolkit's sessions without a registry. It accepts
+ * connections on the loopback interface over TLS, frames data as described by RFC 5734, sends a greeting, and
+ * answers login, logout, check, info and poll commands from canned templates.
+ *
+ * <p>Commands may be delayed to simulate the registry's processing time, the number of logged in sessions may be
+ * limited, and the rate of commands per session may be limited, answering commands beyond the limit with either
+ * 2306 (parameter value policy error) or 2502 (session limit exceeded; server closing connection).</p>
+ *
+ * <p>Templates are loaded from the <code>loopback</code> directory of the classpath and may be replaced using
+ * {@link #setTemplate(String, String)}. The placeholders <code>${clTRID}</code>, <code>${svTRID}</code>,
+ * <code>${code}</code>, <code>${msg}</code>, <code>${name}</code> and, for check responses,
+ * <code>${results}</code> are substituted in each response.</p>
+ */
+public final class LoopbackEppServer {
+    private static final Logger LOGGER = Logger.getLogger(LoopbackEppServer.class.getName());
+    private static final Pattern COMMAND = Pattern.compile("<(?:[\\w-]+:)?command>\\s*<(?:[\\w-]+:)?(\\w+)");
+    private static final Pattern CL_TRID = Pattern.compile("<(?:[\\w-]+:)?clTRID>([^<]*)</");
+    private static final Pattern NAME = Pattern.compile("<(?:[\\w-]+:)?name(?:\\s[^>]*)?>([^<]*)</");
+    private static final int HEADER_SIZE = 4;
+    private static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private final String keyStore;
+    private final String keyStorePass;
+    private final Map<String, String> templates = new ConcurrentHashMap<String, String>();
+    private final Map<String, Long> latencies = new ConcurrentHashMap<String, Long>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger peakSessions = new AtomicInteger();
+    private final AtomicLong svTRID = new AtomicLong();
+    private final AtomicLong commandCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private volatile long defaultLatency;
+    private volatile int maxSessions = Integer.MAX_VALUE;
+    private volatile int rateLimit = Integer.MAX_VALUE;
+    private volatile long rateLimitInterval = 1000L;
+    private volatile int rateLimitCode = ResultCode.PARAM_VAL_POL_ERR;
+
+    private SSLServerSocket serverSocket;
+    private ExecutorService executor;
+
+    /**
+     * Create a server presenting the first key in the given key store, which is loaded from the classpath.
+     */
+    public LoopbackEppServer(String keyStore, String keyStorePass) {
+        this.keyStore = keyStore;
+        this.keyStorePass = keyStorePass;
+        for (String name : new String[] {"greeting", "result", "check", "info", "poll"}) {
+            templates.put(name, loadTemplate("loopback/" + name + ".xml"));
+        }
+    }
+
+    /**
+     * Replace the template of the response to the named command, such as <code>check</code>, or of the
+     * <code>greeting</code>. Commands without a template of their own are answered with the <code>result</code>
+     * template.
+     */
+    public void setTemplate(String command, String xml) {
+        templates.put(command, xml);
+    }
+
+    /**
+     * Delay responses to every command not given a latency of its own by the given time.
+     */
+    public void setDefaultLatency(long millis) {
+        defaultLatency = millis;
+    }
+
+    /**
+     * Delay responses to the named command, such as <code>info</code>, by the given time.
+     */
+    public void setLatency(String command, long millis) {
+        latencies.put(command, millis);
+    }
+
+    /**
+     * Answer logins beyond the given number of concurrently logged in sessions with 2502 and close the connection.
+     */
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Answer commands beyond the given number per interval in one session with the given result code, either 2306
+     * or 2502; in the latter case the connection is then closed. Login and logout are not limited.
+     */
+    public void setRateLimit(int commands, long intervalMillis, int resultCode) {
+        rateLimit = commands;
+        rateLimitInterval = intervalMillis;
+        rateLimitCode = resultCode;
+    }
+
+    /**
+     * Listen on an ephemeral port of the loopback interface, given by {@link #getPort()}.
+     */
+    public void start() throws Exception {
+        KeyStore store = KeyStore.getInstance("JKS");
+        InputStream in = getClass().getClassLoader().getResourceAsStream(keyStore);
+        if (in == null) {
+            throw new IOException(keyStore);
+        }
+        try {
+            store.load(in, keyStorePass.toCharArray());
+        } finally {
+            in.close();
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(store, keyStorePass.toCharArray());
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(kmf.getKeyManagers(), null, null);
+
+        serverSocket = (SSLServerSocket) ctx.getServerSocketFactory().createServerSocket(0, 50,
+                InetAddress.getLoopbackAddress());
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "loopback-epp-server");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.execute(this::accept);
+    }
+
+    /**
+     * Close the listening socket and every connection.
+     */
+    public void stop() throws IOException, InterruptedException {
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Get the number of commands answered, including login and logout.
+     */
+    public long getCommandCount() {
+        return commandCount.get();
+    }
+
+    /**
+     * Get the number of logins and commands refused by the session or rate limits.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Get the number of connections dropped because of an I/O error other than the client closing the connection.
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public int getSessionCount() {
+        return sessions.get();
+    }
+
+    public int getPeakSessionCount() {
+        return peakSessions.get();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                executor.execute(() -> serve(socket));
+            } catch (IOException ioe) {
+                // Closed by stop.
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        boolean loggedIn = false;
+        long windowStart = System.currentTimeMillis();
+        int windowCount = 0;
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            write(out, fill(templates.get("greeting"), null, ResultCode.SUCCESS, null));
+
+            while (true) {
+                String xml = read(in);
+                Matcher command = COMMAND.matcher(xml);
+                String name = command.find() ? command.group(1) : "unknown";
+                Matcher clTRID = CL_TRID.matcher(xml);
+                String id = clTRID.find() ? clTRID.group(1) : null;
+                commandCount.incrementAndGet();
+                delay(name);
+
+                if ("login".equals(name)) {
+                    if (!loggedIn && sessions.incrementAndGet() > maxSessions) {
+                        sessions.decrementAndGet();
+                        rejectedCount.incrementAndGet();
+                        write(out, result(id, ResultCode.SESS_LIM_EXCEEDED_CLOSING));
+                        return;
+                    }
+                    if (!loggedIn) {
+                        peakSessions.accumulateAndGet(sessions.get(), Math::max);
+                    }
+                    loggedIn = true;
+                    write(out, result(id, ResultCode.SUCCESS));
+                    continue;
+                } else if ("logout".equals(name)) {
+                    write(out, result(id, ResultCode.SUCCESS_LOGOUT));
+                    return;
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - windowStart >= rateLimitInterval) {
+                    windowStart = now;
+                    windowCount = 0;
+                }
+                if (++windowCount > rateLimit) {
+                    rejectedCount.incrementAndGet();
+                    write(out, result(id, rateLimitCode));
+                    if (rateLimitCode == ResultCode.SESS_LIM_EXCEEDED_CLOSING) {
+                        return;
+                    }
+                } else if (!loggedIn) {
+                    write(out, result(id, ResultCode.CMD_USE_ERR));
+                } else {
+                    write(out, respond(name, id, xml));
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // The client closed the connection.
+        } catch (IOException ioe) {
+            errorCount.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Connection from " + socket.getRemoteSocketAddress() + " failed", ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (loggedIn) {
+                sessions.decrementAndGet();
+            }
+            connections.remove(socket);
+            try {
+                socket.close();
+            } catch (IOException ioe) {
+                // Nothing further to release.
+            }
+        }
+    }
+
+    private String respond(String command, String clTRID, String xml) {
+        String template = templates.get(command);
+        if (template == null) {
+            return result(clTRID, ResultCode.UNIMPL_CMD);
+        }
+
+        Matcher names = NAME.matcher(xml);
+        String name = null;
+        StringBuilder results = new StringBuilder();
+        boolean available = true;
+        while (names.find()) {
+            if (name == null) {
+                name = names.group(1);
+            }
+            results.append("<domain:cd><domain:name avail=\"").append(available ? 1 : 0).append("\">")
+                    .append(names.group(1)).append("</domain:name></domain:cd>");
+            available = !available;
+        }
+        return fill(template, clTRID, ResultCode.SUCCESS, name).replace("${results}", results);
+    }
+
+    private String result(String clTRID, int code) {
+        return fill(templates.get("result"), clTRID, code, null);
+    }
+
+    private String fill(String template, String clTRID, int code, String name) {
+        return template.replace("${clTRID}", clTRID == null ? "" : clTRID)
+                .replace("${svTRID}", "LOOPBACK-" + svTRID.incrementAndGet())
+                .replace("${code}", String.valueOf(code))
+                .replace("${msg}", message(code))
+                .replace("${name}", name == null ? "" : name);
+    }
+
+    private static String message(int code) {
+        switch (code) {
+        case ResultCode.SUCCESS:
+            return "Command completed successfully";
+        case ResultCode.SUCCESS_LOGOUT:
+            return "Command completed successfully; ending session";
+        case ResultCode.CMD_USE_ERR:
+            return "Command use error";
+        case ResultCode.UNIMPL_CMD:
+            return "Unimplemented command";
+        case ResultCode.PARAM_VAL_POL_ERR:
+            return "Parameter value policy error";
+        case ResultCode.SESS_LIM_EXCEEDED_CLOSING:
+            return "Session limit exceeded; server closing connection";
+        default:
+            return "Command failed";
+        }
+    }
+
+    private void delay(String command) throws InterruptedException {
+        Long latency = latencies.get(command);
+        long millis = latency == null ? defaultLatency : latency;
+        if (millis > 0L) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static String read(DataInputStream in) throws IOException {
+        int length = in.readInt() - HEADER_SIZE;
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static void write(DataOutputStream out, String xml) throws IOException {
+        byte[] data = xml.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(data.length + HEADER_SIZE);
+        out.write(data);
+        out.flush();
+    }
+
+    private static String loadTemplate(String resource) {
+        InputStream in = LoopbackEppServer.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalStateException(resource);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException ioe) {
+            throw new IllegalStateException(resource, ioe);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ioe) {
+                // Already read.
+            }
+        }
+    }
+}
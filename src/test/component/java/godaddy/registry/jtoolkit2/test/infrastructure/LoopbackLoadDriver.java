@@ -0,0 +1,253 @@
+package godaddy.registry.jtoolkit2.test.infrastructure;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import godaddy.registry.jtoolkit2.se.Command;
+import godaddy.registry.jtoolkit2.se.DomainCheckCommand;
+import godaddy.registry.jtoolkit2.se.DomainCheckResponse;
+import godaddy.registry.jtoolkit2.se.DomainInfoCommand;
+import godaddy.registry.jtoolkit2.se.DomainInfoResponse;
+import godaddy.registry.jtoolkit2.se.PollRequestCommand;
+import godaddy.registry.jtoolkit2.se.PollResponse;
+import godaddy.registry.jtoolkit2.se.Response;
+import godaddy.registry.jtoolkit2.session.LatencyHistogram;
+import godaddy.registry.jtoolkit2.session.PoolMetrics;
+import godaddy.registry.jtoolkit2.session.SessionManager;
+import godaddy.registry.jtoolkit2.session.SessionManagerFactory;
+import godaddy.registry.jtoolkit2.session.SessionManagerPropertiesImpl;
+import godaddy.registry.jtoolkit2.session.Transaction;
+
+/**
+ * Drives a session manager connected to a {@link LoopbackEppServer} with a mix of check, info and poll commands
+ * from many threads, then reports the throughput achieved and percentiles of the response time of each command.
+ * Arguments are given as <code>name=value</code> pairs:
+ *
+ * <dl>
+ * <dt>sessions</dt><dd>the maximum size of the session pool (default 4)</dd>
+ * <dt>threads</dt><dd>the number of threads executing commands (default 16)</dd>
+ * <dt>warmup</dt><dd>seconds to run before measuring (default 5)</dd>
+ * <dt>duration</dt><dd>seconds to measure (default 20)</dd>
+ * <dt>mix</dt><dd>the relative frequency of each command (default check:70,info:20,poll:10)</dd>
+ * <dt>latency</dt><dd>the server's processing time of each command in milliseconds, for example
+ * check:2,info:5 (default none)</dd>
+ * <dt>limit</dt><dd>the server's limit of commands per second in each session (default none)</dd>
+ * <dt>limitCode</dt><dd>the result code of commands beyond the limit, 2306 or 2502 (default 2306)</dd>
+ * <dt>maxSessions</dt><dd>the server's limit of concurrent sessions (default none)</dd>
+ * </dl>
+ */
+public final class LoopbackLoadDriver {
+    private static final String PROPERTIES = "loopback.properties";
+    private static final String[] CHECK_NAMES = {
+        "example1.com.au", "example2.com.au", "example3.com.au", "example4.com.au", "example5.com.au"
+    };
+
+    private final Map<String, Integer> mix = new LinkedHashMap<String, Integer>();
+    private final Map<String, LatencyHistogram> responseTimes = new LinkedHashMap<String, LatencyHistogram>();
+    private final AtomicLong failures = new AtomicLong();
+    private int mixTotal;
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    private LoopbackLoadDriver(String mixSpec) {
+        for (Map.Entry<String, Long> entry : parsePairs(mixSpec).entrySet()) {
+            mix.put(entry.getKey(), entry.getValue().intValue());
+            mixTotal += entry.getValue().intValue();
+            // Times are recorded in microseconds, as loopback responses often take less than a millisecond.
+            responseTimes.put(entry.getKey(), new LatencyHistogram(3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        options.put("sessions", "4");
+        options.put("threads", "16");
+        options.put("warmup", "5");
+        options.put("duration", "20");
+        options.put("mix", "check:70,info:20,poll:10");
+        options.put("latency", "");
+        options.put("limit", "");
+        options.put("limitCode", "2306");
+        options.put("maxSessions", "");
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2 || !options.containsKey(pair[0])) {
+                System.err.println("Unrecognised argument " + arg + "; expected one of " + options.keySet());
+                System.exit(1);
+            }
+            options.put(pair[0], pair[1]);
+        }
+
+        LoopbackEppServer server = new LoopbackEppServer("keystore.jks", "password");
+        for (Map.Entry<String, Long> latency : parsePairs(options.get("latency")).entrySet()) {
+            server.setLatency(latency.getKey(), latency.getValue());
+        }
+        if (!options.get("limit").isEmpty()) {
+            server.setRateLimit(Integer.parseInt(options.get("limit")), 1000L,
+                    Integer.parseInt(options.get("limitCode")));
+        }
+        if (!options.get("maxSessions").isEmpty()) {
+            server.setMaxSessions(Integer.parseInt(options.get("maxSessions")));
+        }
+        server.start();
+
+        try {
+            new LoopbackLoadDriver(options.get("mix")).run(server, Integer.parseInt(options.get("sessions")),
+                    Integer.parseInt(options.get("threads")), Integer.parseInt(options.get("warmup")),
+                    Integer.parseInt(options.get("duration")));
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Create a session manager configured by <code>loopback.properties</code> to connect to the given server.
+     */
+    public static SessionManager newSessionManager(final LoopbackEppServer server, final int sessions)
+            throws Exception {
+        SessionManagerPropertiesImpl properties = new SessionManagerPropertiesImpl(PROPERTIES) {
+            @Override
+            public int getPort() {
+                return server.getPort();
+            }
+
+            @Override
+            public int getMaximumPoolSize() {
+                return sessions;
+            }
+        };
+        return SessionManagerFactory.newInstance(properties);
+    }
+
+    private void run(LoopbackEppServer server, int sessions, int threads, int warmup, int duration)
+            throws Exception {
+        SessionManager manager = newSessionManager(server, sessions);
+        manager.startup();
+
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> drive(manager), "load-driver-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        TimeUnit.SECONDS.sleep(warmup);
+        long serverCommandsBefore = server.getCommandCount();
+        long rejectedBefore = server.getRejectedCount();
+        recording = true;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(duration);
+        recording = false;
+        long elapsed = System.nanoTime() - start;
+        long serverCommands = server.getCommandCount() - serverCommandsBefore;
+        long rejected = server.getRejectedCount() - rejectedBefore;
+
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        PoolMetrics metrics = manager.getPoolMetrics();
+        manager.shutdown();
+
+        report(sessions, threads, elapsed, serverCommands, rejected, metrics);
+    }
+
+    private void drive(SessionManager manager) {
+        while (running) {
+            String command = nextCommand();
+            Transaction tx = newTransaction(command);
+            long start = System.nanoTime();
+            try {
+                manager.execute(tx);
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                continue;
+            }
+            if (recording) {
+                responseTimes.get(command).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            }
+        }
+    }
+
+    private String nextCommand() {
+        int pick = ThreadLocalRandom.current().nextInt(mixTotal);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static Transaction newTransaction(String command) {
+        Command cmd;
+        Response response;
+        if ("check".equals(command)) {
+            cmd = new DomainCheckCommand(CHECK_NAMES);
+            response = new DomainCheckResponse();
+        } else if ("info".equals(command)) {
+            cmd = new DomainInfoCommand(CHECK_NAMES[ThreadLocalRandom.current().nextInt(CHECK_NAMES.length)]);
+            response = new DomainInfoResponse();
+        } else if ("poll".equals(command)) {
+            cmd = new PollRequestCommand();
+            response = new PollResponse();
+        } else {
+            throw new IllegalArgumentException("Unsupported command " + command);
+        }
+        return new Transaction(cmd, response);
+    }
+
+    private void report(int sessions, int threads, long elapsedNanos, long serverCommands, long rejected,
+            PoolMetrics metrics) {
+        double seconds = elapsedNanos / 1e9;
+        LatencyHistogram all = new LatencyHistogram(3);
+        for (LatencyHistogram histogram : responseTimes.values()) {
+            all.add(histogram);
+        }
+
+        System.out.printf("sessions=%d threads=%d measured=%.1fs%n", sessions, threads, seconds);
+        System.out.printf("throughput: %.1f commands/s (server answered %.1f/s, rejected %d)%n",
+                all.getTotalCount() / seconds, serverCommands / seconds, rejected);
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s%n", "command", "count", "mean", "p50", "p99",
+                "p99.9", "max");
+        for (Map.Entry<String, LatencyHistogram> entry : responseTimes.entrySet()) {
+            print(entry.getKey(), entry.getValue());
+        }
+        print("all", all);
+        System.out.printf("failures=%d checkouts=%d checkout wait=%dms (max %dms) sessions opened=%d%n",
+                failures.get(), metrics.getCheckoutCount(), metrics.getCheckoutWaitTime(),
+                metrics.getMaxCheckoutWaitTime(), metrics.getSessionsOpened());
+    }
+
+    private static void print(String name, LatencyHistogram histogram) {
+        System.out.printf("%-8s %10d %10s %10s %10s %10s %10s%n", name, histogram.getTotalCount(),
+                millis(histogram.getMean()), millis(histogram.getValueAtPercentile(50.0)),
+                millis(histogram.getValueAtPercentile(99.0)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.3fms", micros / 1000.0);
+    }
+
+    private static Map<String, Long> parsePairs(String spec) {
+        Map<String, Long> pairs = new LinkedHashMap<String, Long>();
+        if (spec == null || spec.isEmpty()) {
+            return pairs;
+        }
+        for (String item : spec.split(",")) {
+            String[] pair = item.split(":", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected name:value, not " + item);
+            }
+            pairs.put(pair[0].trim(), Long.parseLong(pair[1].trim()));
+        }
+        return pairs;
+    }
+}
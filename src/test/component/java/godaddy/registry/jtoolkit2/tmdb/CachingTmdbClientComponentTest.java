@@ -0,0 +1,205 @@
+package godaddy.registry.jtoolkit2.tmdb;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import godaddy.registry.jtoolkit2.tmdb.model.TmNotice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingTmdbClientComponentTest {
+    private static final String CURRENT = "2099-01-01T00:00:00.0Z";
+    private static final String EXPIRED = "2010-08-16T09:00:00.0Z";
+
+    private HttpsServer server;
+    private CachingTmdbClient client;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile String notAfter = CURRENT;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("keystore.jks")) {
+            keyStore.load(in, "password".toCharArray());
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance("SunX509");
+        keyManagerFactory.init(keyStore, "password".toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+        // The port of the TMDB server given in tmdb.properties.
+        server = HttpsServer.create(new InetSocketAddress("localhost", 11678), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::respond);
+        server.start();
+
+        client = new CachingTmdbClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldAnswerRepeatedRequestsFromTheCache() throws Exception {
+        TmNotice first = client.requestNotice("key1");
+        TmNotice second = client.requestNotice("key1");
+
+        assertThat(first.getId(), is("key1-notice"));
+        assertSame(first, second);
+        assertEquals(1, requestCount.get());
+        assertEquals(1L, client.getCacheMissCount());
+        assertEquals(1L, client.getCacheHitCount());
+        assertEquals(1, client.getCacheSize());
+    }
+
+    @Test
+    public void shouldNotCacheExpiredNotices() throws Exception {
+        notAfter = EXPIRED;
+        client.requestNotice("key1");
+        client.requestNotice("key1");
+
+        assertEquals(2, requestCount.get());
+        assertEquals(0L, client.getCacheHitCount());
+        assertEquals(0, client.getCacheSize());
+    }
+
+    @Test
+    public void shouldReuseConnectionsForSequentialRequests() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            client.requestNotice("key" + i);
+        }
+
+        assertEquals(5, requestCount.get());
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentRequestsForTheSameKey() throws Exception {
+        release = new CountDownLatch(1);
+        ExecutorService requesters = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TmNotice>> notices = new ArrayList<Future<TmNotice>>();
+            for (int i = 0; i < 4; i++) {
+                notices.add(requesters.submit(() -> client.requestNotice("key1")));
+            }
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (client.getCoalescedRequestCount() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            release.countDown();
+
+            for (Future<TmNotice> notice : notices) {
+                assertThat(notice.get(5, TimeUnit.SECONDS).getId(), is("key1-notice"));
+            }
+        } finally {
+            requesters.shutdownNow();
+        }
+        assertEquals(1, requestCount.get());
+        assertEquals(3L, client.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void shouldReportFailedRequests() throws Exception {
+        try {
+            client.requestNotice("missing");
+            fail("A missing notice should not be returned");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("The TMDB request for lookup key missing failed: HTTP/1.1 404 Not Found"));
+        }
+        assertEquals(0, client.getCacheSize());
+    }
+
+    @Test
+    public void shouldRequestNoticesConcurrently() throws Exception {
+        client.requestNotice("key1");
+        // Each outstanding request is held until all four have been received.
+        release = new CountDownLatch(1);
+        AtomicBoolean allOutstanding = new AtomicBoolean();
+        new Thread(() -> {
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (requestCount.get() < 5 && System.currentTimeMillis() < deadline) {
+                Thread.yield();
+            }
+            allOutstanding.set(requestCount.get() == 5);
+            release.countDown();
+        }).start();
+
+        Map<String, TmNoticeResult> results =
+                client.requestNotices(Arrays.asList("key1", "key2", "key3", "key2", "key4", "key5"));
+
+        assertEquals(5, results.size());
+        for (Map.Entry<String, TmNoticeResult> result : results.entrySet()) {
+            assertThat(result.getValue().getNotice().getId(), is(result.getKey() + "-notice"));
+        }
+        assertTrue(allOutstanding.get());
+        assertEquals(5, requestCount.get());
+        assertEquals(1L, client.getCacheHitCount());
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String key = path.substring(1, path.length() - ".xml".length());
+        if ("missing".equals(key)) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<tmNotice:notice xmlns:tmNotice=\"urn:ietf:params:xml:ns:tmNotice-1.0\">\n"
+                + "<tmNotice:id>" + key + "-notice</tmNotice:id>\n"
+                + "<tmNotice:notBefore>2010-08-14T09:00:00.0Z</tmNotice:notBefore>\n"
+                + "<tmNotice:notAfter>" + notAfter + "</tmNotice:notAfter>\n"
+                + "<tmNotice:label>" + key + "</tmNotice:label>\n"
+                + "</tmNotice:notice>\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/xml");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package godaddy.registry.jtoolkit2.se.tmch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+import godaddy.registry.jtoolkit2.se.tmch.exception.TmchSmdRevokedException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class TmchRevocationStoreIntegrationTest {
+    private static final String HEADER = "1,2012-08-16T00:00:00.0Z\nsmd-id,insertion-datetime\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private File crl;
+    private File smdrl;
+    private TmchRevocationStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        crl = folder.newFile("tmch.crl");
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("tmch.crl")) {
+            Files.copy(in, crl.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        smdrl = folder.newFile("tmch-smdrl.csv");
+        write(HEADER + "1-2,2012-08-15T00:00:00.0Z\n3-2,2012-08-15T00:00:00.0Z\n", 1000L);
+
+        store = new TmchRevocationStore(crl, smdrl);
+    }
+
+    @Test
+    public void shouldFindRevokedSmds() {
+        assertEquals(2, store.getSmdRevocationListSize());
+        assertTrue(store.isSmdRevoked("1-2"));
+        assertTrue(store.isSmdRevoked("3-2"));
+        assertFalse(store.isSmdRevoked("11-2"));
+    }
+
+    @Test
+    public void shouldNotReloadUnmodifiedFiles() throws Exception {
+        assertFalse(store.reload());
+    }
+
+    @Test
+    public void shouldAddEntriesAppendedToTheSmdRevocationList() throws Exception {
+        append("5-2,2012-08-17T00:00:00.0Z\n6-2,2012-08-17T00:00:00.0Z\n", 2000L);
+
+        assertTrue(store.reload());
+        assertEquals(4, store.getSmdRevocationListSize());
+        assertTrue(store.isSmdRevoked("1-2"));
+        assertTrue(store.isSmdRevoked("6-2"));
+    }
+
+    @Test
+    public void shouldSkipBlankLinesWhenExtendingTheSmdRevocationList() throws Exception {
+        append("\n5-2,2012-08-17T00:00:00.0Z\n\n", 2000L);
+        assertTrue(store.reload());
+        append("6-2,2012-08-17T00:00:00.0Z\n", 3000L);
+
+        assertTrue(store.reload());
+        assertEquals(4, store.getSmdRevocationListSize());
+        assertTrue(store.isSmdRevoked("5-2"));
+        assertTrue(store.isSmdRevoked("6-2"));
+    }
+
+    @Test
+    public void shouldRereadALastEntryWhichWasPartlyWritten() throws Exception {
+        append("5", 2000L);
+        assertTrue(store.reload());
+        append("5-2,2012-08-17T00:00:00.0Z\n", 3000L);
+
+        assertTrue(store.reload());
+        assertEquals(3, store.getSmdRevocationListSize());
+        assertFalse(store.isSmdRevoked("5"));
+        assertTrue(store.isSmdRevoked("55-2"));
+    }
+
+    @Test
+    public void shouldReplaceAnSmdRevocationListWhichIsNotExtended() throws Exception {
+        write(HEADER + "7-2,2012-08-17T00:00:00.0Z\n8-2,2012-08-17T00:00:00.0Z\n9-2,2012-08-17T00:00:00.0Z\n",
+                2000L);
+
+        assertTrue(store.reload());
+        assertEquals(3, store.getSmdRevocationListSize());
+        assertFalse(store.isSmdRevoked("1-2"));
+        assertTrue(store.isSmdRevoked("9-2"));
+    }
+
+    @Test
+    public void shouldRejectAnSmdRevokedAfterTheParserWasCreated() throws Exception {
+        TmchValidatingParser parser;
+        try (InputStream cert = getClass().getClassLoader().getResourceAsStream("tmch.crt")) {
+            parser = new TmchValidatingParser(store, cert);
+        }
+        Date dateForValidation = DatatypeConverter.parseDate("2013-08-16T09:00:00.0Z").getTime();
+        try (InputStream smd = getClass().getClassLoader().getResourceAsStream("ValidSMDData.txt")) {
+            parser.validateAndParseEncodedSignedMarkData(smd, dateForValidation);
+        }
+
+        append("11-2,2013-08-16T10:00:00.0Z\n", 2000L);
+        store.reload();
+
+        thrown.expect(TmchSmdRevokedException.class);
+        try (InputStream smd = getClass().getClassLoader().getResourceAsStream("ValidSMDData.txt")) {
+            parser.validateAndParseEncodedSignedMarkData(smd, dateForValidation);
+        }
+    }
+
+    private void write(String content, long lastModified) throws IOException {
+        Files.write(smdrl.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        assertTrue(smdrl.setLastModified(lastModified));
+    }
+
+    private void append(String content, long lastModified) throws IOException {
+        Files.write(smdrl.toPath(), content.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+        assertTrue(smdrl.setLastModified(lastModified));
+    }
+}
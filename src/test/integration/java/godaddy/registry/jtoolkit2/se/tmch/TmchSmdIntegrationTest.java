@@ -1,7 +1,11 @@
 package godaddy.registry.jtoolkit2.se.tmch;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThat;
 
 import javax.xml.bind.DatatypeConverter;
@@ -9,8 +13,12 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import godaddy.registry.jtoolkit2.se.tmch.exception.ExpiredSignedMarkDataException;
 import godaddy.registry.jtoolkit2.se.tmch.exception.InvalidSignedMarkDataException;
@@ -187,4 +195,43 @@ public class TmchSmdIntegrationTest {
                 dateForValidation);
         assertThat(signedMarkData.getId(), is("11-2"));
     }
+
+    @Test
+    public void shouldValidateEachSmdOfABatch() throws Exception {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Date dateForValidation = DatatypeConverter.parseDate("2013-08-16T09:00:00.0Z").getTime();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<SmdValidationResult> results = tmchValidatingParser.validateAndParseEncodedSignedMarkData(
+                    Arrays.asList(contextClassLoader.getResourceAsStream("ValidSMDData.txt"),
+                            contextClassLoader.getResourceAsStream("NoSignatureSmd.txt"),
+                            contextClassLoader.getResourceAsStream("ValidSMDData.txt"),
+                            new ByteArrayInputStream("".getBytes())),
+                    dateForValidation, executor);
+
+            assertEquals(4, results.size());
+            assertTrue(results.get(0).isValid());
+            assertThat(results.get(0).getSignedMarkData().getId(), is("11-2"));
+            assertFalse(results.get(1).isValid());
+            assertNull(results.get(1).getSignedMarkData());
+            assertThat(results.get(1).getFailure(), instanceOf(SmdSignatureMissingException.class));
+            assertThat(results.get(2).getSignedMarkData().getId(), is("11-2"));
+            assertThat(results.get(3).getFailure(), instanceOf(InvalidSignedMarkDataException.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRevalidateACertificateOutsideItsValidityPeriod() throws Exception {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Date dateForValidation = DatatypeConverter.parseDate("2013-08-16T09:00:00.0Z").getTime();
+        tmchValidatingParser.validateAndParseEncodedSignedMarkData(
+                contextClassLoader.getResourceAsStream("ValidSMDData.txt"), dateForValidation);
+
+        Date afterCertificateExpiry = DatatypeConverter.parseDate("2015-08-16T09:00:00.0Z").getTime();
+        thrown.expect(TmchInvalidCertificateException.class);
+        tmchValidatingParser.validateAndParseEncodedSignedMarkData(
+                contextClassLoader.getResourceAsStream("ValidSMDData.txt"), afterCertificateExpiry);
+    }
 }
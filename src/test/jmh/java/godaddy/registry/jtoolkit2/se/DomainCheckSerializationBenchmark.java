@@ -0,0 +1,58 @@
+package godaddy.registry.jtoolkit2.se;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import godaddy.registry.jtoolkit2.Timer;
+import godaddy.registry.jtoolkit2.xml.ValidationMode;
+import godaddy.registry.jtoolkit2.xml.XMLWriter;
+
+/**
+ * The cost of serializing a domain check command of 5 names with and without schema validation, which re-parses
+ * the serialized command against the EPP schemas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainCheckSerializationBenchmark {
+    private static final String[] NAMES = {
+        "example1.com.au", "example2.com.au", "example3.com.au", "example4.net.au", "example5.net.au",
+    };
+
+    @Param({"OFF", "ALWAYS" })
+    private ValidationMode validation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Timer.setTime("20070101.010101");
+        CLTRID.setClID("JTKBENCH");
+        XMLWriter.setValidationMode(validation, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        XMLWriter.setValidationMode(ValidationMode.ALWAYS, 100);
+    }
+
+    @Benchmark
+    public String toXML() throws SAXException {
+        return new DomainCheckCommand(NAMES).toXML();
+    }
+}
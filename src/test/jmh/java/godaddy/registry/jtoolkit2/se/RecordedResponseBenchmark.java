@@ -0,0 +1,100 @@
+package godaddy.registry.jtoolkit2.se;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeResponseExtension;
+import godaddy.registry.jtoolkit2.xml.ParsingException;
+import godaddy.registry.jtoolkit2.xml.StreamingParser;
+import godaddy.registry.jtoolkit2.xml.XMLParser;
+
+/**
+ * The cost of decoding recorded responses from their UTF-8 bytes, as a session does when reading a response: either
+ * parsing to a validated DOM and populating the response by XPath queries, or decoding in a single pass where the
+ * response supports that, falling back to the DOM otherwise. The responses are in <code>responses/</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordedResponseBenchmark {
+    @Param({"domain-check", "domain-check-fee10", "domain-info", "poll-empty", "poll-transfer" })
+    private String recording;
+
+    private byte[] xml;
+    private XMLParser parser;
+    private StreamingParser streamingParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        xml = load("responses/" + recording + ".xml");
+        parser = new XMLParser();
+        streamingParser = new StreamingParser();
+        // Fail early if the recording is not a valid response.
+        newResponse().fromXML(parser.parse(new String(xml, StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public Response domAndXPath() throws ParsingException {
+        Response response = newResponse();
+        response.fromXML(parser.parse(xml, 0, xml.length, null));
+        return response;
+    }
+
+    @Benchmark
+    public Response streaming() throws ParsingException {
+        Response response = newResponse();
+        if (!response.fromXML(xml, 0, xml.length, null, streamingParser)) {
+            response.fromXML(parser.parse(xml, 0, xml.length, null));
+        }
+        return response;
+    }
+
+    private Response newResponse() {
+        switch (recording) {
+        case "domain-check":
+            return new DomainCheckResponse();
+        case "domain-check-fee10":
+            DomainCheckResponse response = new DomainCheckResponse();
+            response.registerExtension(new DomainCheckFeeResponseExtension());
+            return response;
+        case "domain-info":
+            return new DomainInfoResponse();
+        default:
+            return new PollResponse();
+        }
+    }
+
+    private static byte[] load(String name) throws IOException {
+        try (InputStream in = RecordedResponseBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Missing recorded response " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package godaddy.registry.jtoolkit2.se;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeResponseExtension;
+import godaddy.registry.jtoolkit2.xml.ParsingException;
+import godaddy.registry.jtoolkit2.xml.StreamingParser;
+import godaddy.registry.jtoolkit2.xml.XMLParser;
+
+/**
+ * The cost of decoding a domain check response of 1, 20 or 100 names, as a session does when reading a response:
+ * either parsing it to a validated DOM and populating the response by XPath queries, or decoding it in a single pass.
+ * The responses follow those returned by the registry, with the fee extension.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseDecodeBenchmark {
+    @Param({"1", "20", "100" })
+    private int names;
+
+    private String xml;
+    private XMLParser parser;
+    private StreamingParser streamingParser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        xml = checkResponse(names);
+        parser = new XMLParser();
+        streamingParser = new StreamingParser();
+        if (!newResponse().fromXML(xml, streamingParser)) {
+            throw new IllegalStateException("Streaming decoding is not supported for the benchmark response");
+        }
+    }
+
+    @Benchmark
+    public DomainCheckResponse domAndXPath() throws ParsingException {
+        DomainCheckResponse response = newResponse();
+        response.fromXML(parser.parse(xml));
+        return response;
+    }
+
+    @Benchmark
+    public DomainCheckResponse streaming() throws ParsingException {
+        DomainCheckResponse response = newResponse();
+        response.fromXML(xml, streamingParser);
+        return response;
+    }
+
+    private static DomainCheckResponse newResponse() {
+        DomainCheckResponse response = new DomainCheckResponse();
+        response.registerExtension(new DomainCheckFeeResponseExtension());
+        return response;
+    }
+
+    private static String checkResponse(int count) {
+        StringBuilder chkData = new StringBuilder();
+        StringBuilder feeData = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String name = "example-" + i + ".com.au";
+            boolean avail = i % 3 != 0;
+            chkData.append("<domain:cd><domain:name avail=\"").append(avail ? 1 : 0).append("\">").append(name)
+                    .append("</domain:name>");
+            if (!avail) {
+                chkData.append("<domain:reason>In use</domain:reason>");
+            }
+            chkData.append("</domain:cd>");
+
+            feeData.append("<fee:cd avail=\"1\"><fee:objID>").append(name).append("</fee:objID>")
+                    .append("<fee:class>standard</fee:class><fee:command name=\"create\">")
+                    .append("<fee:period unit=\"y\">1</fee:period>")
+                    .append("<fee:fee description=\"Registration Fee\" refundable=\"1\">10.00</fee:fee>")
+                    .append("</fee:command></fee:cd>");
+        }
+
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+                + "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><response>"
+                + "<result code=\"1000\"><msg>Command completed successfully</msg></result>"
+                + "<resData><domain:chkData xmlns:domain=\"urn:ietf:params:xml:ns:domain-1.0\">" + chkData
+                + "</domain:chkData></resData>"
+                + "<extension><fee:chkData xmlns:fee=\"urn:ietf:params:xml:ns:epp:fee-1.0\">"
+                + "<fee:currency>AUD</fee:currency>" + feeData + "</fee:chkData></extension>"
+                + "<trID><clTRID>JTKUTEST.20261017.000000.0</clTRID><svTRID>1234567890</svTRID></trID>"
+                + "</response></epp>";
+    }
+}
@@ -0,0 +1,75 @@
+package godaddy.registry.jtoolkit2.se.tmch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of validating and parsing a signed mark data file: decoding it, checking its signature and certificate
+ * against the TMCH certificate and revocation lists, and parsing the mark. Uses the SMD and lists of the integration
+ * tests, validated at a date within the validity of their certificates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmdValidationBenchmark {
+    private TmchValidatingParser parser;
+    private byte[] encodedSmd;
+    private Date validationDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        parser = new TmchValidatingParser(open("tmch.crl"), open("tmch-smdrl.csv"), open("tmch.crt"));
+        encodedSmd = read(open("ValidSMDData.txt"));
+        validationDate = DatatypeConverter.parseDate("2013-08-16T09:00:00.0Z").getTime();
+        // Fail early if the SMD does not validate.
+        validate();
+    }
+
+    @Benchmark
+    public SignedMarkData validate() throws Exception {
+        return parser.validateAndParseEncodedSignedMarkData(new ByteArrayInputStream(encodedSmd), validationDate);
+    }
+
+    private static InputStream open(String name) throws IOException {
+        InputStream in = SmdValidationBenchmark.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Missing resource " + name);
+        }
+        return in;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import godaddy.registry.jtoolkit2.se.StandardCommandType;
+
+/**
+ * Command counting throughput, as performed for every command sent, and recent count queries, as performed for every
+ * session checkout. The <code>mixed</code> group counts and queries concurrently, as a busy pool does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandCounterBenchmark {
+    private final CommandCounter counter = new CommandCounter(1000L);
+
+    @Benchmark
+    @Threads(1)
+    public void increment() {
+        counter.increment(StandardCommandType.CHECK);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void incrementAllThreads() {
+        counter.increment(StandardCommandType.CHECK);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int recentCount() {
+        return counter.getRecentCount(StandardCommandType.CHECK) + counter.getExactRecentTotal();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void mixedIncrement() {
+        counter.increment(StandardCommandType.CHECK);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public int mixedRecentCount() {
+        return counter.getRecentCount(StandardCommandType.CHECK) + counter.getExactRecentTotal();
+    }
+}
@@ -0,0 +1,67 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import godaddy.registry.jtoolkit2.se.StandardCommandType;
+
+/**
+ * Session checkout and release throughput with more threads than sessions, so that threads contend for sessions as
+ * they would in a busy application. Sessions are {@link StubSession}s, so only the cost of the pool is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class SessionPoolBenchmark {
+    private static final int SESSIONS = 32;
+
+    private SessionPoolImpl pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("godaddy.registry.jtoolkit2.session.class", StubSession.class.getName());
+        SessionManagerProperties properties = new SessionManagerPropertiesImpl("benchmark.properties");
+        pool = new SessionPoolImpl(properties.getSessionPoolProperties(), properties.getSessionProperties());
+
+        // Open every session up front, so that only checkout and release are measured.
+        List<Session> sessions = new ArrayList<Session>();
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions.add(pool.getSession());
+        }
+        for (Session session : sessions) {
+            pool.releaseSession(session);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.empty();
+        System.clearProperty("godaddy.registry.jtoolkit2.session.class");
+    }
+
+    @Benchmark
+    public Session checkoutAndRelease() throws Exception {
+        Session session = pool.getSession(StandardCommandType.CHECK);
+        pool.releaseSession(session);
+        return session;
+    }
+}
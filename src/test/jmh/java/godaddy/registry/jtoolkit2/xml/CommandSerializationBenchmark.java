@@ -0,0 +1,83 @@
+package godaddy.registry.jtoolkit2.xml;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import godaddy.registry.jtoolkit2.Timer;
+import godaddy.registry.jtoolkit2.se.CLTRID;
+import godaddy.registry.jtoolkit2.se.CommandTemplate;
+import godaddy.registry.jtoolkit2.se.DomainCreateCommand;
+import godaddy.registry.jtoolkit2.se.StampedCommand;
+
+/**
+ * Command serialization throughput from one thread and from as many threads as there are processors, without schema
+ * validation, so that only building and serializing the DOM tree is measured. On a machine with several processors,
+ * throughput from all threads should be close to a multiple of that from one, as serialization takes no shared lock.
+ * The DOM of each command is serialized either through an XMLStreamWriter or by XMLBuilderDirect, and compared with
+ * stamping the same command from a precompiled template, which builds no DOM per command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandSerializationBenchmark {
+    @Param({"false", "true" })
+    private boolean direct;
+
+    private CommandTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Timer.setTime("20070101.010101");
+        CLTRID.setClID("JTKBENCH");
+        XMLWriter.setValidationMode(ValidationMode.OFF, 0);
+        XMLWriter.setDirectEncoding(direct);
+        template = CommandTemplate.compile(
+                new DomainCreateCommand("name.com.au", "jtkUT3st", "JTKCON", new String[] {"JTKCON2"}), "name.com.au");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        XMLWriter.setValidationMode(ValidationMode.ALWAYS, 100);
+        XMLWriter.setDirectEncoding(false);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String oneThread() throws SAXException {
+        return serialize();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String allThreads() throws SAXException {
+        return serialize();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public StampedCommand stamped() {
+        return template.stamp("example.com.au");
+    }
+
+    private static String serialize() throws SAXException {
+        return new DomainCreateCommand("example.com.au", "jtkUT3st", "JTKCON", new String[] {"JTKCON2"}).toXML();
+    }
+}
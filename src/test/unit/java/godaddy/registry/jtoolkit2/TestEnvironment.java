@@ -10,6 +10,7 @@ import godaddy.registry.jtoolkit2.se.StandardCommandType;
 import godaddy.registry.jtoolkit2.session.SessionManagerProperties;
 import godaddy.registry.jtoolkit2.session.SessionPoolProperties;
 import godaddy.registry.jtoolkit2.session.SessionProperties;
+import godaddy.registry.jtoolkit2.xml.ValidationMode;
 import org.junit.Ignore;
 
 @Ignore
@@ -59,6 +60,14 @@ public final class TestEnvironment implements SessionManagerProperties,
         return 1;
     }
 
+    public int getWarmUpPoolSize() {
+        return 0;
+    }
+
+    public boolean isJmxEnabled() {
+        return false;
+    }
+
     public long getServerTimeout() {
         return 600000L;
     }
@@ -127,6 +136,10 @@ public final class TestEnvironment implements SessionManagerProperties,
         return "SunX509";
     }
 
+    public boolean isSSLSessionResumptionEnabled() {
+        return false;
+    }
+
     public long getWaitTimeout() {
         return 120000L;
     }
@@ -143,6 +156,14 @@ public final class TestEnvironment implements SessionManagerProperties,
         return false;
     }
 
+    public int getPipelineWindow() {
+        return 1;
+    }
+
+    public boolean isCommandLimitShared() {
+        return false;
+    }
+
     public int getCommandLimit(CommandType type) {
         if (!(type instanceof StandardCommandType)) {
             return 10;
@@ -236,4 +257,28 @@ public final class TestEnvironment implements SessionManagerProperties,
     public boolean enforceStrictValidation() {
         return true;
     }
+
+    public ValidationMode getValidationMode() {
+        return ValidationMode.ALWAYS;
+    }
+
+    public int getValidationSamplePercent() {
+        return 100;
+    }
+
+    public boolean isStreamingParserEnabled() {
+        return false;
+    }
+
+    public boolean isDirectEncodingEnabled() {
+        return false;
+    }
+
+    public boolean isResponseSourceRetained() {
+        return true;
+    }
+
+    public int getResponseTimePrecision() {
+        return 2;
+    }
 }
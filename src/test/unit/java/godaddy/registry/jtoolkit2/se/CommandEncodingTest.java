@@ -0,0 +1,164 @@
+package godaddy.registry.jtoolkit2.se;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.EPPDateFormatter;
+import godaddy.registry.jtoolkit2.Timer;
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeCommandExtension;
+import godaddy.registry.jtoolkit2.se.fee10.DomainCreateFeeCommandExtension;
+import godaddy.registry.jtoolkit2.se.fee10.DomainRenewFeeCommandExtension;
+import godaddy.registry.jtoolkit2.se.fee10.FeeCheckCommand;
+import godaddy.registry.jtoolkit2.se.secdns.DSData;
+import godaddy.registry.jtoolkit2.se.secdns.DSOrKeyType;
+import godaddy.registry.jtoolkit2.se.secdns.SecDnsDomainCreateCommandExtension;
+import godaddy.registry.jtoolkit2.xml.Attribute;
+import godaddy.registry.jtoolkit2.xml.ValidationMode;
+import godaddy.registry.jtoolkit2.xml.XMLWriter;
+import godaddy.registry.jtoolkit2.xml.XmlOutputConfig;
+
+/**
+ * Commands serialized through an XMLStreamWriter and serialized directly must both match the golden files in
+ * src/test/unit/resources/golden.
+ */
+public class CommandEncodingTest {
+
+    @Before
+    public void setUp() throws Exception {
+        Timer.setTime("20070101.010101");
+        // Some goldens are deliberately outside the schemas, to exercise escaping.
+        XMLWriter.setValidationMode(ValidationMode.OFF, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        XMLWriter.setDirectEncoding(false);
+        XMLWriter.setValidationMode(ValidationMode.ALWAYS, 100);
+    }
+
+    @Test
+    public void testDomainCheck() throws Exception {
+        assertMatchesGolden("domain-check.xml", () -> {
+            FeeCheckCommand feeCommand = new FeeCheckCommand("create", "claims", "landrush");
+            feeCommand.setPeriod(new Period(1));
+            Command cmd = new DomainCheckCommand(new String[] {"jtkutest.com.au", "jtkutest2.com.au"});
+            cmd.appendExtension(new DomainCheckFeeCommandExtension("AUD", Collections.singletonList(feeCommand)));
+            return cmd;
+        });
+    }
+
+    @Test
+    public void testDomainInfo() throws Exception {
+        assertMatchesGolden("domain-info.xml",
+                () -> new DomainInfoCommand("jtkutest.com.au", "jtkUT3st", new Attribute("hosts", "del")));
+    }
+
+    @Test
+    public void testDomainInfoEscaping() throws Exception {
+        assertMatchesGolden("domain-info-escaping.xml",
+                () -> new DomainInfoCommand("jtkutest.com.au", "a&b<c>\"d'\te", new Attribute("hosts", "<&\">")));
+    }
+
+    @Test
+    public void testDomainRenew() throws Exception {
+        assertMatchesGolden("domain-renew.xml", () -> {
+            Command cmd = new DomainRenewCommand("jtkutest.com.au",
+                    EPPDateFormatter.fromXSDateTime("2006-12-25T00:00:00.0Z"), new Period(2));
+            cmd.appendExtension(new DomainRenewFeeCommandExtension(BigDecimal.valueOf(20.00), "AUD"));
+            return cmd;
+        });
+    }
+
+    @Test
+    public void testDomainUpdate() throws Exception {
+        assertMatchesGolden("domain-update.xml", () -> {
+            DomainAdd add = new DomainAdd(new String[] {"ns1.jtkutest.com.au"}, new String[] {"JTKCON"}, null,
+                    null, new Status[] {new Status("clientHold", "non-payment")});
+            DomainRem rem = new DomainRem(new String[] {"ns2.jtkutest.com.au"}, null, new String[] {"JTKCON2"},
+                    null, null);
+            return new DomainUpdateCommand("jtkutest.com.au", "jtkUT3st", add, rem, "JTKCON3");
+        });
+    }
+
+    @Test
+    public void testDomainCreate() throws Exception {
+        assertMatchesGolden("domain-create.xml", CommandEncodingTest::domainCreate);
+    }
+
+    @Test
+    public void testDomainCreatePrefixed() throws Exception {
+        assertMatchesGolden("domain-create-prefixed.xml", XmlOutputConfig.prefixAllNamespaceConfig(),
+                CommandEncodingTest::domainCreate);
+    }
+
+    @Test
+    public void testDomainCreateNonAscii() throws Exception {
+        assertMatchesGolden("domain-create-non-ascii.xml",
+                () -> new DomainCreateCommand("例え.テスト", "päss€😀"));
+    }
+
+    @Test
+    public void testPollRequest() throws Exception {
+        assertMatchesGolden("poll-request.xml", PollRequestCommand::new);
+    }
+
+    @Test
+    public void testPollAck() throws Exception {
+        assertMatchesGolden("poll-ack.xml", () -> new PollAckCommand("123"));
+    }
+
+    private static Command domainCreate() {
+        Command cmd = new DomainCreateCommand("jtkutest.com.au", "jtkUT3st", "JTKCON", new String[] {"JTKCON2"},
+                new String[] {"JTKCON"}, new String[] {"JTKCON2"},
+                new String[] {"ns1.jtkutest.com.au", "ns2.jtkutest.com.au"}, new Period(PeriodUnit.YEARS, 2));
+        cmd.appendExtension(new DomainCreateFeeCommandExtension(BigDecimal.valueOf(30.00), "AUD", "Fee"));
+        SecDnsDomainCreateCommandExtension secDns = new SecDnsDomainCreateCommandExtension();
+        DSOrKeyType createData = new DSOrKeyType();
+        createData.addToDsData(new DSData(12345, 3, 1, "49FD46E6C4B45C55D4AC"));
+        secDns.setCreateData(createData);
+        cmd.appendExtension(secDns);
+        return cmd;
+    }
+
+    private static void assertMatchesGolden(String golden, Callable<Command> command) throws Exception {
+        assertMatchesGolden(golden, XmlOutputConfig.defaultConfig(), command);
+    }
+
+    private static void assertMatchesGolden(String golden, XmlOutputConfig config, Callable<Command> command)
+            throws Exception {
+        String expected = readGolden(golden);
+
+        XMLWriter.setDirectEncoding(false);
+        CLTRID.setClID("JTKUTEST");
+        assertEquals("stream writer", expected, command.call().toXML(config));
+
+        XMLWriter.setDirectEncoding(true);
+        CLTRID.setClID("JTKUTEST");
+        assertEquals("direct", expected, command.call().toXML(config));
+    }
+
+    private static String readGolden(String name) throws Exception {
+        InputStream in = CommandEncodingTest.class.getClassLoader().getResourceAsStream("golden/" + name);
+        assertNotNull(name, in);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8").trim();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package godaddy.registry.jtoolkit2.se;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import godaddy.registry.jtoolkit2.Timer;
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeCommandExtension;
+import godaddy.registry.jtoolkit2.se.fee10.FeeCheckCommand;
+import godaddy.registry.jtoolkit2.xml.Attribute;
+import godaddy.registry.jtoolkit2.xml.ValidationMode;
+import godaddy.registry.jtoolkit2.xml.XMLWriter;
+import godaddy.registry.jtoolkit2.xml.XmlOutputConfig;
+
+public class CommandTemplateTest {
+
+    @Before
+    public void setUp() throws Exception {
+        Timer.setTime("20070101.010101");
+        CLTRID.setClID("JTKUTEST");
+        // Some slot values are deliberately outside the schemas, to exercise escaping.
+        XMLWriter.setValidationMode(ValidationMode.OFF, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        XMLWriter.setValidationMode(ValidationMode.ALWAYS, 100);
+    }
+
+    @Test
+    public void testStampedCheckMatchesSerializedCommand() throws Exception {
+        CommandTemplate template = CommandTemplate.compile(domainCheck("name1.com.au", "name2.com.au"),
+                "name1.com.au", "name2.com.au");
+        assertEquals(StandardCommandType.CHECK, template.getCommandType());
+        assertEquals(2, template.getSlotCount());
+
+        CLTRID.setClID("JTKUTEST");
+        StampedCommand stamped = template.stamp("jtkutest.com.au", "jtkutest2.com.au");
+        assertEquals("JTKUTEST.20070101.010101.0", stamped.getCLTRID());
+        assertEquals(StandardCommandType.CHECK, stamped.getCommandType());
+
+        CLTRID.setClID("JTKUTEST");
+        assertEquals(domainCheck("jtkutest.com.au", "jtkutest2.com.au").toXML(), stamped.toXML());
+    }
+
+    @Test
+    public void testEachStampHasANewCLTRID() throws Exception {
+        CommandTemplate template = CommandTemplate.compile(new DomainInfoCommand("name.com.au"), "name.com.au");
+        CLTRID.setClID("JTKUTEST");
+        assertEquals("JTKUTEST.20070101.010101.0", template.stamp("jtkutest.com.au").getCLTRID());
+        assertEquals("JTKUTEST.20070101.010101.1", template.stamp("jtkutest.com.au").getCLTRID());
+    }
+
+    @Test
+    public void testSlotValuesEscapedForTextAndAttributes() throws Exception {
+        CommandTemplate template = CommandTemplate.compile(
+                new DomainInfoCommand("name.com.au", "samplePw", new Attribute("hosts", "all")),
+                XmlOutputConfig.prefixAllNamespaceConfig(), "samplePw", "all");
+
+        CLTRID.setClID("JTKUTEST");
+        StampedCommand stamped = template.stamp("a&b<c>\"d'é", "<&\">");
+
+        CLTRID.setClID("JTKUTEST");
+        String expected = new DomainInfoCommand("name.com.au", "a&b<c>\"d'é", new Attribute("hosts", "<&\">"))
+                .toXML(XmlOutputConfig.prefixAllNamespaceConfig());
+        assertEquals(expected, stamped.toXML());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampleMissing() throws Exception {
+        CommandTemplate.compile(new DomainInfoCommand("name.com.au"), "other.com.au");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampleAmbiguous() throws Exception {
+        CommandTemplate.compile(new DomainCheckCommand(new String[] {"a.com.au", "b.com.au"}), "com.au");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSamplesOverlap() throws Exception {
+        CommandTemplate.compile(new DomainInfoCommand("name.com.au"), "name.com.au", "name.com");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfValues() throws Exception {
+        CommandTemplate.compile(new DomainInfoCommand("name.com.au"), "name.com.au").stamp("a.com.au", "b.com.au");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrototypeWithoutCLTRID() throws Exception {
+        Command prototype = new Command(StandardCommandType.INFO) {
+            @Override
+            protected String toXMLImpl(XmlOutputConfig xmlOutputConfig) throws SAXException {
+                return xmlWriter.toXML(xmlOutputConfig);
+            }
+        };
+        CommandTemplate.compile(prototype);
+    }
+
+    @Test
+    public void testStampedCommandAsCommand() throws Exception {
+        StampedCommand stamped = CommandTemplate.compile(new DomainInfoCommand("name.com.au"), "name.com.au")
+                .stamp("jtkutest.com.au");
+        Command command = stamped.toCommand();
+        assertEquals(StandardCommandType.INFO, command.getCommandType());
+        assertEquals(stamped.getCLTRID(), command.getCLTRID());
+        assertEquals(stamped.toXML(), command.toXML());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testStampedCommandCannotBeExtended() throws Exception {
+        StampedCommand stamped = CommandTemplate.compile(new DomainInfoCommand("name.com.au"), "name.com.au")
+                .stamp("jtkutest.com.au");
+        stamped.toCommand().appendExtension(new DomainCheckFeeCommandExtension("AUD",
+                Collections.<FeeCheckCommand>emptyList()));
+    }
+
+    private static Command domainCheck(String... names) {
+        FeeCheckCommand feeCommand = new FeeCheckCommand("create", "claims", "landrush");
+        feeCommand.setPeriod(new Period(1));
+        Command cmd = new DomainCheckCommand(names);
+        cmd.appendExtension(new DomainCheckFeeCommandExtension("AUD", Collections.singletonList(feeCommand)));
+        return cmd;
+    }
+}
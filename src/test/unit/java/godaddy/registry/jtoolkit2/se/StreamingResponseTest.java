@@ -0,0 +1,270 @@
+package godaddy.registry.jtoolkit2.se;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeResponseExtension;
+import godaddy.registry.jtoolkit2.se.fee10.FeeCD;
+import godaddy.registry.jtoolkit2.se.fee10.FeeCheckCommand;
+import godaddy.registry.jtoolkit2.se.fee10.FeeType;
+import godaddy.registry.jtoolkit2.se.price.DomainCheckPriceV1_1ResponseExtension;
+import godaddy.registry.jtoolkit2.se.price.DomainCheckPriceV1_2ResponseExtension;
+import godaddy.registry.jtoolkit2.xml.StreamingParser;
+import godaddy.registry.jtoolkit2.xml.XMLParser;
+
+/**
+ * Verifies that responses initialised in a single pass report the same values as those initialised from a DOM.
+ */
+public class StreamingResponseTest {
+    private static final XMLParser PARSER = new XMLParser();
+    private static final StreamingParser STREAMING_PARSER = new StreamingParser();
+
+    private static final String EPP_START = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+            + "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><response>";
+    private static final String RESULT = "<result code=\"1000\"><msg>Command completed successfully</msg></result>";
+    private static final String EPP_END = "<trID><clTRID>ABC-12345</clTRID><svTRID>54322-XYZ</svTRID></trID>"
+            + "</response></epp>";
+
+    private static final String CHECK_XML = EPP_START + RESULT
+            + "<resData><domain:chkData xmlns:domain=\"urn:ietf:params:xml:ns:domain-1.0\">"
+            + "<domain:cd><domain:name avail=\"1\">example.com</domain:name></domain:cd>"
+            + "<domain:cd><domain:name avail=\"0\">example.net</domain:name><domain:reason>In use</domain:reason>"
+            + "</domain:cd>"
+            + "<domain:cd><domain:name avail=\"1\">example.org</domain:name></domain:cd>"
+            + "</domain:chkData></resData>"
+            + "<extension><chkData xmlns=\"urn:ietf:params:xml:ns:epp:fee-1.0\"><currency>USD</currency>"
+            + "<cd avail=\"1\"><objID>example.com</objID><class>premium-tier1</class>"
+            + "<command name=\"create\" phase=\"sunrise\"><period unit=\"y\">1</period>"
+            + "<fee description=\"Application Fee\" refundable=\"0\">5.00</fee>"
+            + "<fee description=\"Registration Fee\" refundable=\"1\" grace-period=\"P5D\">10.00</fee>"
+            + "<credit description=\"Rebate\">-3.00</credit></command></cd>"
+            + "<cd avail=\"0\"><objID>example.net</objID><reason lang=\"en\">In use</reason></cd>"
+            + "</chkData>"
+            + "<chkData xmlns=\"urn:ar:params:xml:ns:price-1.2\">"
+            + "<cd><name>example.com</name><category>CAT1</category><period unit=\"y\">1</period>"
+            + "<createPrice>100.00</createPrice><renewPrice>150.00</renewPrice></cd>"
+            + "<cd><name>example.org</name><reason>Invalid domain name</reason></cd>"
+            + "</chkData></extension>"
+            + EPP_END;
+
+    private static final String INFO_XML = EPP_START + RESULT
+            + "<resData><infData xmlns=\"urn:ietf:params:xml:ns:domain-1.0\">"
+            + "<name>example.com.au</name><roid>D0000003-AR</roid>"
+            + "<status s=\"ok\" lang=\"en\"/><status s=\"clientHold\">Payment overdue</status>"
+            + "<registrant>EXAMPLE</registrant>"
+            + "<contact type=\"tech\">TECH1</contact><contact type=\"tech\">TECH2</contact>"
+            + "<contact type=\"admin\">ADMIN</contact>"
+            + "<ns><hostAttr><hostName>ns1.example.com.au</hostName>"
+            + "<hostAddr ip=\"v4\">192.0.2.1</hostAddr><hostAddr ip=\"v6\">2001:db8::1</hostAddr></hostAttr>"
+            + "<hostAttr><hostName>ns2.example.net</hostName></hostAttr></ns>"
+            + "<host>ns1.example.com.au</host>"
+            + "<clID>Registrar</clID><crID>Registrar</crID><crDate>2006-02-09T15:44:58.0Z</crDate>"
+            + "<upID>Other</upID><upDate>2007-02-09T15:44:58.0Z</upDate>"
+            + "<exDate>2008-02-10T00:00:00.0Z</exDate>"
+            + "<authInfo><pw>0192pqow</pw></authInfo>"
+            + "</infData></resData>"
+            + EPP_END;
+
+    private static final String POLL_ACK_XML = EPP_START
+            + "<result code=\"1000\"><msg>Command completed successfully</msg></result>"
+            + "<msgQ count=\"4\" id=\"12345\"><qDate>2000-06-08T22:00:00.0Z</qDate>"
+            + "<msg lang=\"en\">Pending action completed.</msg></msgQ>"
+            + EPP_END;
+
+    private static final String ERROR_VALUE_XML = EPP_START
+            + "<result code=\"2004\"><msg>Parameter value range error</msg>"
+            + "<value><domain:period xmlns:domain=\"urn:ietf:params:xml:ns:domain-1.0\" unit=\"y\">99</domain:period>"
+            + "</value></result>"
+            + EPP_END;
+
+    @Test
+    public void testDomainCheckResponseWithExtensions() throws Exception {
+        DomainCheckResponse dom = new DomainCheckResponse();
+        DomainCheckFeeResponseExtension domFee = new DomainCheckFeeResponseExtension();
+        DomainCheckPriceV1_2ResponseExtension domPrice = new DomainCheckPriceV1_2ResponseExtension();
+        dom.registerExtension(domFee);
+        dom.registerExtension(domPrice);
+        dom.fromXML(PARSER.parse(CHECK_XML));
+
+        DomainCheckResponse streamed = new DomainCheckResponse();
+        DomainCheckFeeResponseExtension streamedFee = new DomainCheckFeeResponseExtension();
+        DomainCheckPriceV1_2ResponseExtension streamedPrice = new DomainCheckPriceV1_2ResponseExtension();
+        streamed.registerExtension(streamedFee);
+        streamed.registerExtension(streamedPrice);
+        assertTrue(streamed.fromXML(CHECK_XML, STREAMING_PARSER));
+
+        assertResponseEquals(dom, streamed);
+        assertEquals(dom.getNameIDs(), streamed.getNameIDs());
+        assertTrue(Arrays.equals(dom.getAvailableList(), streamed.getAvailableList()));
+        assertArrayEquals(dom.getReasonList(), streamed.getReasonList());
+        for (String name : dom.getNameIDs()) {
+            assertEquals(dom.isAvailable(name), streamed.isAvailable(name));
+            assertEquals(dom.getReason(name), streamed.getReason(name));
+        }
+        assertEquals(CHECK_XML, streamed.getSourceXMLString());
+
+        assertEquals(domFee.isInitialised(), streamedFee.isInitialised());
+        assertEquals(domFee.getFeeCheckData().getCurrency(), streamedFee.getFeeCheckData().getCurrency());
+        Map<String, FeeCD> domCDs = domFee.getFeeCheckData().getCDs();
+        Map<String, FeeCD> streamedCDs = streamedFee.getFeeCheckData().getCDs();
+        assertEquals(domCDs.keySet(), streamedCDs.keySet());
+        for (String name : domCDs.keySet()) {
+            assertFeeCDEquals(domCDs.get(name), streamedCDs.get(name));
+        }
+
+        assertEquals(domPrice.isInitialised(), streamedPrice.isInitialised());
+        for (String name : new String[] {"example.com", "example.org", "example.net"}) {
+            assertEquals(domPrice.getCategory(name), streamedPrice.getCategory(name));
+            assertPeriodEquals(domPrice.getPeriod(name), streamedPrice.getPeriod(name));
+            assertEquals(domPrice.getCreatePrice(name), streamedPrice.getCreatePrice(name));
+            assertEquals(domPrice.getRenewPrice(name), streamedPrice.getRenewPrice(name));
+            assertEquals(domPrice.getRestorePrice(name), streamedPrice.getRestorePrice(name));
+            assertEquals(domPrice.getReason(name), streamedPrice.getReason(name));
+        }
+        assertEquals(domPrice.getCreatePrice(1L), streamedPrice.getCreatePrice(1L));
+        assertEquals(domPrice.getReason(2L), streamedPrice.getReason(2L));
+    }
+
+    @Test
+    public void testDomainInfoResponse() throws Exception {
+        DomainInfoResponse dom = new DomainInfoResponse();
+        dom.fromXML(PARSER.parse(INFO_XML));
+
+        DomainInfoResponse streamed = new DomainInfoResponse();
+        assertTrue(streamed.fromXML(INFO_XML, STREAMING_PARSER));
+
+        assertResponseEquals(dom, streamed);
+        assertEquals(dom.getName(), streamed.getName());
+        assertEquals(dom.getROID(), streamed.getROID());
+        assertEquals(dom.getPW(), streamed.getPW());
+        assertEquals(dom.getRegistrantID(), streamed.getRegistrantID());
+        assertEquals(dom.getSponsorClient(), streamed.getSponsorClient());
+        assertEquals(dom.getCreateClient(), streamed.getCreateClient());
+        assertEquals(dom.getUpdateClient(), streamed.getUpdateClient());
+        assertEquals(dom.getCreateDate(), streamed.getCreateDate());
+        assertEquals(dom.getUpdateDate(), streamed.getUpdateDate());
+        assertEquals(dom.getTransferDate(), streamed.getTransferDate());
+        assertEquals(dom.getExpireDate(), streamed.getExpireDate());
+        assertArrayEquals(dom.getTechContacts(), streamed.getTechContacts());
+        assertArrayEquals(dom.getAdminContacts(), streamed.getAdminContacts());
+        assertNull(streamed.getBillingContacts());
+        assertNull(streamed.getNameservers());
+        assertArrayEquals(dom.getSubordinateHosts(), streamed.getSubordinateHosts());
+        assertEquals(dom.getStatuses().length, streamed.getStatuses().length);
+        for (int i = 0; i < dom.getStatuses().length; i++) {
+            assertEquals(dom.getStatuses()[i].toString(), streamed.getStatuses()[i].toString());
+        }
+        assertEquals(2, streamed.getNameserverHosts().length);
+        for (int i = 0; i < dom.getNameserverHosts().length; i++) {
+            assertEquals(dom.getNameserverHosts()[i].toString(), streamed.getNameserverHosts()[i].toString());
+        }
+        assertEquals(dom.toString(), streamed.toString());
+    }
+
+    @Test
+    public void testDomainInfoResponseFromBytes() throws Exception {
+        String xml = INFO_XML.replace("<name>example.com.au</name>", "<name>例え.com.au</name>");
+        byte[] encoded = xml.getBytes(StandardCharsets.UTF_8);
+        // Received frames generally lie within a larger buffer.
+        byte[] frame = new byte[encoded.length + 8];
+        System.arraycopy(encoded, 0, frame, 4, encoded.length);
+
+        DomainInfoResponse dom = new DomainInfoResponse();
+        dom.fromXML(PARSER.parse(frame, 4, encoded.length, null));
+        assertEquals("例え.com.au", dom.getName());
+        assertNull(dom.getSourceXMLString());
+
+        DomainInfoResponse streamed = new DomainInfoResponse();
+        assertTrue(streamed.fromXML(frame, 4, encoded.length, xml, STREAMING_PARSER));
+        assertResponseEquals(dom, streamed);
+        assertEquals("例え.com.au", streamed.getName());
+        assertEquals(xml, streamed.getSourceXMLString());
+    }
+
+    @Test
+    public void testPollAckResponse() throws Exception {
+        PollResponse dom = new PollResponse();
+        dom.fromXML(PARSER.parse(POLL_ACK_XML));
+
+        PollResponse streamed = new PollResponse();
+        assertTrue(streamed.fromXML(POLL_ACK_XML, STREAMING_PARSER));
+
+        assertResponseEquals(dom, streamed);
+        assertEquals(4, streamed.getMsgCount());
+        assertNull(streamed.getResData());
+    }
+
+    @Test
+    public void testUnsupportedContentIsLeftForTheDOM() throws Exception {
+        assertFalse(new Response().fromXML(ERROR_VALUE_XML, STREAMING_PARSER));
+        assertFalse(new AuDomainInfoResponse().fromXML(INFO_XML, STREAMING_PARSER));
+
+        DomainCheckResponse response = new DomainCheckResponse();
+        response.registerExtension(new DomainCheckPriceV1_1ResponseExtension());
+        assertFalse(response.fromXML(CHECK_XML, STREAMING_PARSER));
+    }
+
+    private static void assertResponseEquals(Response expected, Response actual) {
+        assertEquals(expected.getResults().length, actual.getResults().length);
+        for (int i = 0; i < expected.getResults().length; i++) {
+            assertEquals(expected.getResults()[i].toString(), actual.getResults()[i].toString());
+        }
+        assertEquals(expected.getCLTRID(), actual.getCLTRID());
+        assertEquals(expected.getSVTRID(), actual.getSVTRID());
+        assertEquals(expected.getMsgCount(), actual.getMsgCount());
+        assertEquals(expected.getMsgID(), actual.getMsgID());
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getMessageLanguage(), actual.getMessageLanguage());
+        assertEquals(expected.getMessageEnqueueDate(), actual.getMessageEnqueueDate());
+    }
+
+    private static void assertPeriodEquals(Period expected, Period actual) {
+        assertEquals(expected == null, actual == null);
+        if (expected != null) {
+            assertEquals(expected.getUnit(), actual.getUnit());
+            assertEquals(expected.getPeriod(), actual.getPeriod());
+        }
+    }
+
+    private static void assertFeeCDEquals(FeeCD expected, FeeCD actual) {
+        assertEquals(expected.getObjId(), actual.getObjId());
+        assertEquals(expected.getFeeClass(), actual.getFeeClass());
+        assertEquals(expected.isAvailable(), actual.isAvailable());
+        assertEquals(expected.getReason() == null, actual.getReason() == null);
+        if (expected.getReason() != null) {
+            assertEquals(expected.getReason().getReason(), actual.getReason().getReason());
+            assertEquals(expected.getReason().getLang(), actual.getReason().getLang());
+        }
+        assertEquals(expected.getCommands().keySet(), actual.getCommands().keySet());
+        for (String name : expected.getCommands().keySet()) {
+            FeeCheckCommand expectedCommand = expected.getCommands().get(name);
+            FeeCheckCommand actualCommand = actual.getCommands().get(name);
+            assertEquals(expectedCommand.getPhase(), actualCommand.getPhase());
+            assertEquals(expectedCommand.getSubphase(), actualCommand.getSubphase());
+            assertPeriodEquals(expectedCommand.getPeriod(), actualCommand.getPeriod());
+            assertEquals(expectedCommand.getFees().keySet(), actualCommand.getFees().keySet());
+            for (String description : expectedCommand.getFees().keySet()) {
+                FeeType expectedFee = expectedCommand.getFees().get(description);
+                FeeType actualFee = actualCommand.getFees().get(description);
+                assertEquals(expectedFee.getFee(), actualFee.getFee());
+                assertEquals(expectedFee.isRefundable(), actualFee.isRefundable());
+                assertEquals(expectedFee.getGracePeriod(), actualFee.getGracePeriod());
+                assertEquals(expectedFee.getLanguage(), actualFee.getLanguage());
+            }
+            assertEquals(expectedCommand.getCredits().keySet(), actualCommand.getCredits().keySet());
+            for (String description : expectedCommand.getCredits().keySet()) {
+                assertEquals(expectedCommand.getCredits().get(description).getFee(),
+                        actualCommand.getCredits().get(description).getFee());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package godaddy.registry.jtoolkit2.se;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.Timer;
+
+public class StripedClTRIDGeneratorTest {
+    private static final int THREADS = 8;
+    private static final int VALUES_PER_THREAD = 5000;
+
+    private StripedClTRIDGenerator generator;
+
+    @Before
+    public void setUp() throws Exception {
+        Timer.setTime("20070101.010101");
+        generator = new StripedClTRIDGenerator();
+        generator.setClID("JTKUTEST");
+    }
+
+    @Test
+    public void testValuesConsecutiveWithinThread() {
+        assertEquals("JTKUTEST.20070101.010101.0", generator.nextVal());
+        assertEquals("JTKUTEST.20070101.010101.1", generator.nextVal());
+    }
+
+    @Test
+    public void testSetClIDRestartsSequence() {
+        generator.nextVal();
+        generator.setClID("JTKUTEST2");
+        assertEquals("JTKUTEST2.20070101.010101.0", generator.nextVal());
+    }
+
+    @Test
+    public void testSwitchingBackResumesSequence() {
+        generator.nextVal();
+        generator.nextVal();
+        generator.setClID("JTKUTEST2");
+        generator.nextVal();
+        generator.setClID("JTKUTEST");
+        String resumed = generator.nextVal();
+        assertTrue(resumed.startsWith("JTKUTEST.20070101.010101."));
+        assertTrue(Long.parseLong(resumed.substring(resumed.lastIndexOf('.') + 1)) >= 2);
+    }
+
+    @Test
+    public void testSettingSameClIDRestartsSequence() {
+        generator.nextVal();
+        generator.setClID("JTKUTEST");
+        assertEquals("JTKUTEST.20070101.010101.0", generator.nextVal());
+    }
+
+    @Test
+    public void testValuesUniqueAcrossThreadsBeyondOldWrap() throws Exception {
+        Set<String> values = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < VALUES_PER_THREAD; i++) {
+                        assertTrue(values.add(generator.nextVal()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * VALUES_PER_THREAD, values.size());
+    }
+}
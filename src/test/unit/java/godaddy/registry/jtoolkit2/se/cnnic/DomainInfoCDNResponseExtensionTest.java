@@ -5,12 +5,14 @@ import static org.junit.Assert.fail;
 
 import java.util.Vector;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import godaddy.registry.jtoolkit2.Timer;
 import godaddy.registry.jtoolkit2.se.CLTRID;
 import godaddy.registry.jtoolkit2.se.DomainInfoResponse;
+import godaddy.registry.jtoolkit2.se.StripedClTRIDGenerator;
 import godaddy.registry.jtoolkit2.xml.ParsingException;
 import godaddy.registry.jtoolkit2.xml.XMLDocument;
 import godaddy.registry.jtoolkit2.xml.XMLParser;
@@ -111,6 +113,12 @@ public class DomainInfoCDNResponseExtensionTest {
         response.fromXML(doc);
     }
 
+    @After
+    public void tearDown() {
+        // Other tests expect their client identifier's sequence to start afresh.
+        CLTRID.setGenerator(new StripedClTRIDGenerator());
+    }
+
     @Test
     public void testGetCdn() {
         assertEquals(cdn, cdnExtension.getCDN());
@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -63,6 +65,11 @@ public class TmchDomainCheckResponseExtensionTest {
         assertNull(response.getClaimsKey("example.tld"));
     }
 
+    @Test
+    public void shouldReturnClaimsKeysFromResponseInOrder() {
+        assertEquals(Arrays.asList("claimsKey1", "claimsKey2"), response.getClaimsKeys());
+    }
+
     @Test
     public void shouldReturnClaimsKeyFromResponseUsingPosition() {
         assertEquals("claimsKey1", response.getClaimsKey(1L));
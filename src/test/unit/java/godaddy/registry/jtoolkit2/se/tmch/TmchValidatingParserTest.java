@@ -26,7 +26,6 @@ import java.util.Arrays;
 import java.util.Date;
 
 import godaddy.registry.jtoolkit2.se.tmch.exception.*;
-import godaddy.registry.jtoolkit2.test.infrastructure.ReflectionUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -40,7 +39,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({TmchValidatingParser.class, XMLSignatureFactory.class})
+@PrepareForTest({TmchValidatingParser.class, XMLSignatureFactory.class, XPathFactory.class})
 public class TmchValidatingParserTest {
 
     @Rule
@@ -53,6 +52,7 @@ public class TmchValidatingParserTest {
     @Mock private CertPath mockCertPath;
     @Mock private CertPathValidator mockCertPathValidator;
     @Mock private X509Certificate mockSmdCertificate;
+    @Mock private XPathFactory mockXPathFactory;
     @Mock private XPath mockXpath;
     @Mock private XMLSignatureFactory mockXmlSignatureFactory;
     @Mock private XMLSignature mockXmlSignature;
@@ -79,13 +79,14 @@ public class TmchValidatingParserTest {
         when(CertPathValidator.getInstance("PKIX")).thenReturn(mockCertPathValidator);
         when(mockCertificateFactory.generateCertPath(Arrays.asList(mockSmdCertificate))).thenReturn(mockCertPath);
         when(XMLSignatureFactory.getInstance()).thenReturn(mockXmlSignatureFactory);
+        when(XPathFactory.newInstance()).thenReturn(mockXPathFactory);
+        when(mockXPathFactory.newXPath()).thenReturn(mockXpath);
 
         whenNew(BufferedReader.class).withArguments(any(InputStreamReader.class))
                 .thenReturn(mockReader);
 
         tmchXMLUtil = new TmchValidatingParser(mockInputStream, mockInputStream, mockInputStreamTwo);
 
-        ReflectionUtils.setPropertyOnInstance(tmchXMLUtil, "xPath", mockXpath);
 
         when(mockXpath.evaluate(eq("/smd:signedMark/ds:Signature"), any(Document.class), eq(XPathConstants.NODE)))
                 .thenReturn(mockNode);
@@ -0,0 +1,224 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.CLTRID;
+import godaddy.registry.jtoolkit2.se.CommandType;
+import godaddy.registry.jtoolkit2.se.DomainCheckCommand;
+import godaddy.registry.jtoolkit2.se.Response;
+
+public class AsyncSessionManagerTest {
+    private static final String SESSION_CLASS_PROPERTY = "godaddy.registry.jtoolkit2.session.class";
+    private static final int POOL_SIZE = 4;
+    private static final long TIMEOUT = 10;
+
+    private AsyncSessionManager manager;
+    private ExecutorService callbackExecutor;
+    private volatile Thread callbackThread;
+
+    @Before
+    public void setUp() throws Exception {
+        CLTRID.setClID("JTKUTEST");
+        StubSession.reset();
+        System.setProperty(SESSION_CLASS_PROPERTY, StubSession.class.getName());
+        callbackExecutor = Executors.newSingleThreadExecutor(r -> {
+            callbackThread = new Thread(r);
+            return callbackThread;
+        });
+
+        manager = new SessionManagerImpl(newProperties());
+        manager.startup();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        manager.shutdown();
+        callbackExecutor.shutdownNow();
+        System.clearProperty(SESSION_CLASS_PROPERTY);
+        StubSession.reset();
+    }
+
+    @Test
+    public void testFutureCompletesOnCallerExecutor() throws Exception {
+        Transaction tx = newTransaction("example.com.au");
+        CompletableFuture<Transaction> future = manager.executeAsync(tx, callbackExecutor);
+
+        final List<Thread> completingThreads = new ArrayList<Thread>();
+        Transaction result = future.thenApply(t -> {
+            completingThreads.add(Thread.currentThread());
+            return t;
+        }).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertSame(tx, result);
+        assertEquals(TransactionState.PROCESSED, tx.getState());
+        assertEquals(1000, tx.getResponse().getResults()[0].getResultCode());
+        assertSame(callbackThread, completingThreads.get(0));
+    }
+
+    @Test
+    public void testManyTransactionsInFlightShareBoundedPool() throws Exception {
+        StubSession.latency = 2;
+        List<CompletableFuture<Transaction>> futures = new ArrayList<CompletableFuture<Transaction>>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(manager.executeAsync(newTransaction("name" + i + ".com.au"), callbackExecutor));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get(TIMEOUT, TimeUnit.SECONDS);
+        for (CompletableFuture<Transaction> future : futures) {
+            assertEquals(TransactionState.PROCESSED, future.get().getState());
+        }
+        assertTrue(StubSession.OPEN_COUNT.get() <= POOL_SIZE);
+    }
+
+    @Test
+    public void testTransientIOFailureIsRetried() throws Exception {
+        StubSession.WRITE_FAILURES.set(2);
+        Transaction tx = newTransaction("example.com.au");
+
+        manager.executeAsync(tx, callbackExecutor).get(TIMEOUT, TimeUnit.SECONDS);
+        assertEquals(TransactionState.PROCESSED, tx.getState());
+    }
+
+    @Test
+    public void testExhaustedIOFailureCompletesWithRetryState() throws Exception {
+        StubSession.WRITE_FAILURES.set(Integer.MAX_VALUE);
+        Transaction tx = newTransaction("example.com.au");
+
+        try {
+            manager.executeAsync(tx, callbackExecutor).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected failure after retries were exhausted");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof IOException);
+            assertSame(ee.getCause(), tx.getCause());
+            assertEquals(TransactionState.RETRY, tx.getState());
+        }
+    }
+
+    @Test
+    public void testCommandFailureLeavesResponseAvailable() throws Exception {
+        StubSession.resultCode = 2400;
+        Transaction tx = newTransaction("example.com.au");
+
+        manager.executeAsync(tx, callbackExecutor).get(TIMEOUT, TimeUnit.SECONDS);
+        assertEquals(TransactionState.PROCESSED, tx.getState());
+        assertEquals(2400, tx.getResponse().getResults()[0].getResultCode());
+    }
+
+    @Test
+    public void testPipelinedSequence() throws Exception {
+        Transaction[] txs = {newTransaction("a.com.au"), newTransaction("b.com.au"), newTransaction("c.com.au") };
+
+        assertSame(txs, manager.executeAsync(txs, callbackExecutor).get(TIMEOUT, TimeUnit.SECONDS));
+        for (Transaction tx : txs) {
+            assertEquals(TransactionState.PROCESSED, tx.getState());
+        }
+    }
+
+    @Test
+    public void testExecuteAfterShutdownFails() throws Exception {
+        manager.shutdown();
+        Executor inline = Runnable::run;
+
+        try {
+            manager.executeAsync(newTransaction("example.com.au"), inline).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected IllegalStateException");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testPipelinedTransactionsShareSessions() throws Exception {
+        manager.shutdown();
+        manager = new SessionManagerImpl(newProperties(8));
+        manager.startup();
+        StubSession.OPEN_COUNT.set(0);
+
+        List<CompletableFuture<Transaction>> futures = new ArrayList<CompletableFuture<Transaction>>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(manager.executeAsync(newTransaction("name" + i + ".com.au"), callbackExecutor));
+        }
+        Transaction blocking = newTransaction("blocking.com.au");
+        manager.execute(blocking);
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get(TIMEOUT, TimeUnit.SECONDS);
+        for (CompletableFuture<Transaction> future : futures) {
+            Transaction tx = future.get();
+            assertEquals(TransactionState.PROCESSED, tx.getState());
+            assertEquals(tx.getCommand().getCLTRID(), tx.getResponse().getCLTRID());
+        }
+        assertEquals(TransactionState.PROCESSED, blocking.getState());
+        assertTrue(StubSession.OPEN_COUNT.get() <= POOL_SIZE);
+    }
+
+    @Test
+    public void testPipelinedCommandUnansweredBySessionIsNotResent() throws Exception {
+        manager.shutdown();
+        manager = new SessionManagerImpl(newProperties(8));
+        manager.startup();
+        StubSession.READ_FAILURES.set(1);
+        Transaction tx = newTransaction("example.com.au");
+
+        try {
+            manager.executeAsync(tx, callbackExecutor).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected the unanswered command to fail");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof UnansweredCommandException);
+        }
+
+        StubSession.READ_FAILURES.set(1);
+        Transaction next = newTransaction("example.com.au");
+        try {
+            manager.execute(next);
+            fail("Expected the unanswered command to fail");
+        } catch (UnansweredCommandException uce) {
+            assertEquals(TransactionState.RETRY, next.getState());
+        }
+    }
+
+    private static Transaction newTransaction(String name) {
+        return new Transaction(new DomainCheckCommand(name), new Response());
+    }
+
+    private static SessionManagerProperties newProperties() {
+        return newProperties(1);
+    }
+
+    private static SessionManagerProperties newProperties(int pipelineWindow) {
+        SessionManagerProperties props = mock(SessionManagerProperties.class);
+        SessionPoolProperties poolProps = mock(SessionPoolProperties.class);
+        SessionProperties sessionProps = mock(SessionProperties.class);
+
+        when(props.getSessionPoolProperties()).thenReturn(poolProps);
+        when(props.getSessionProperties()).thenReturn(sessionProps);
+        when(poolProps.getMaximumPoolSize()).thenReturn(POOL_SIZE);
+        when(poolProps.getServerTimeout()).thenReturn(600000L);
+        when(poolProps.getClientTimeout()).thenReturn(1200000L);
+        when(poolProps.getWaitTimeout()).thenReturn(10000L);
+        when(sessionProps.getCommandLimit()).thenReturn(1000);
+        when(sessionProps.getCommandLimit(any(CommandType.class))).thenReturn(1000);
+        when(sessionProps.getCommandLimitInterval()).thenReturn(1000L);
+        when(sessionProps.getPipelineWindow()).thenReturn(pipelineWindow);
+        return props;
+    }
+}
@@ -0,0 +1,205 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.CLTRID;
+import godaddy.registry.jtoolkit2.se.DomainCheckResponse;
+import godaddy.registry.jtoolkit2.se.fee10.DomainCheckFeeResponseExtension;
+import godaddy.registry.jtoolkit2.se.fee10.FeeCheckCommand;
+import godaddy.registry.jtoolkit2.xml.XMLParser;
+
+public class BulkDomainCheckerTest {
+    private static final Pattern NAME = Pattern.compile("<(?:domain:)?name>([^<]+)</(?:domain:)?name>");
+    private static final String RESPONSE_START = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+            + "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><response><result code=\"<<code>>\"><msg>msg</msg>"
+            + "</result><resData><domain:chkData xmlns:domain=\"urn:ietf:params:xml:ns:domain-1.0\">";
+    private static final String RESPONSE_END = "</domain:chkData></resData><trID><clTRID>ABC-12345</clTRID>"
+            + "<svTRID>54322-XYZ</svTRID></trID></response></epp>";
+
+    private AsyncSessionManager manager;
+    private final List<String> commandXml = new ArrayList<String>();
+    private final List<BulkCheckResult> results = new ArrayList<BulkCheckResult>();
+    private final Map<Integer, Throwable> failures = new HashMap<Integer, Throwable>();
+    private final Map<Integer, Integer> resultCodes = new HashMap<Integer, Integer>();
+    private int maxInFlight;
+
+    @Before
+    public void setUp() throws Exception {
+        CLTRID.setClID("JTKUTEST");
+        SessionManagerProperties properties = mock(SessionManagerProperties.class);
+        SessionPoolProperties poolProperties = mock(SessionPoolProperties.class);
+        when(properties.getSessionPoolProperties()).thenReturn(poolProperties);
+        when(poolProperties.getMaximumPoolSize()).thenReturn(2);
+
+        manager = mock(AsyncSessionManager.class);
+        when(manager.getProperties()).thenReturn(properties);
+        when(manager.executeAsync(any(Transaction.class), any(Executor.class))).thenAnswer(invocation -> {
+            Transaction tx = (Transaction) invocation.getArguments()[0];
+            int index = commandXml.size();
+            String xml = tx.getCommand().toXML();
+            commandXml.add(xml);
+
+            CompletableFuture<Transaction> future = new CompletableFuture<Transaction>();
+            if (failures.containsKey(index)) {
+                tx.setState(TransactionState.RETRY);
+                future.completeExceptionally(failures.get(index));
+            } else {
+                Integer code = resultCodes.get(index);
+                respond(tx, xml, code == null ? 1000 : code);
+                future.complete(tx);
+            }
+            return future;
+        });
+    }
+
+    @Test
+    public void testChecksNamesInCommandsOfTheMaximumSize() {
+        BulkDomainChecker checker = new BulkDomainChecker(manager);
+        List<String> names = names(45);
+        checker.check(names, results::add);
+
+        assertEquals(3, commandXml.size());
+        assertEquals(20, countNames(commandXml.get(0)));
+        assertEquals(20, countNames(commandXml.get(1)));
+        assertEquals(5, countNames(commandXml.get(2)));
+
+        assertEquals(45, results.size());
+        Set<String> checked = new HashSet<String>();
+        for (BulkCheckResult result : results) {
+            assertTrue(result.isChecked());
+            assertEquals(result.getName().startsWith("even"), result.isAvailable());
+            checked.add(result.getName());
+        }
+        assertEquals(new HashSet<String>(names), checked);
+    }
+
+    @Test
+    public void testLimitsCommandsInFlightToThePoolSize() {
+        BulkDomainChecker checker = new BulkDomainChecker(manager);
+        checker.setMaxNamesPerCommand(1);
+        assertEquals(2, checker.getMaxCommandsInFlight());
+
+        // Each command checks one name, so the commands in flight are those sent less the results consumed.
+        checker.check(names(7), result -> {
+            maxInFlight = Math.max(maxInFlight, commandXml.size() - results.size());
+            results.add(result);
+        });
+
+        assertEquals(7, commandXml.size());
+        assertEquals(7, results.size());
+        assertEquals(2, maxInFlight);
+    }
+
+    @Test
+    public void testReportsErrorResponsesAndFailures() {
+        IOException cause = new IOException("Connection reset");
+        failures.put(0, cause);
+        resultCodes.put(1, 2306);
+        BulkDomainChecker checker = new BulkDomainChecker(manager);
+        checker.setMaxNamesPerCommand(2);
+        checker.check(names(6), results::add);
+
+        assertEquals(6, results.size());
+        int failed = 0;
+        int rejected = 0;
+        for (BulkCheckResult result : results) {
+            if (result.getCause() != null) {
+                failed++;
+                assertSame(cause, result.getCause());
+                assertEquals(0, result.getResultCode());
+                assertNull(result.getResponse());
+                assertFalse(result.isChecked());
+            } else if (result.getResultCode() == 2306) {
+                rejected++;
+                assertFalse(result.isChecked());
+                assertFalse(result.isAvailable());
+            } else {
+                assertTrue(result.isChecked());
+            }
+        }
+        assertEquals(2, failed);
+        assertEquals(2, rejected);
+    }
+
+    @Test
+    public void testAddsFeeCheckExtensionToEachCommand() {
+        BulkDomainChecker checker = new BulkDomainChecker(manager);
+        checker.setMaxNamesPerCommand(3);
+        checker.setFeeCheck("USD", Collections.singletonList(new FeeCheckCommand("create")));
+        checker.check(names(4), results::add);
+
+        assertEquals(2, commandXml.size());
+        for (String xml : commandXml) {
+            assertThat(xml, containsString("urn:ietf:params:xml:ns:epp:fee-1.0"));
+            assertThat(xml, containsString("USD"));
+        }
+        assertThat(results.get(0).getExtension(), instanceOf(DomainCheckFeeResponseExtension.class));
+        assertNotSame(results.get(0).getExtension(), results.get(3).getExtension());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyCommands() {
+        new BulkDomainChecker(manager).setMaxNamesPerCommand(0);
+    }
+
+    private static void respond(Transaction tx, String xml, int resultCode) {
+        StringBuilder response = new StringBuilder(RESPONSE_START.replace("<<code>>", String.valueOf(resultCode)));
+        Matcher matcher = NAME.matcher(xml);
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            response.append("<domain:cd><domain:name avail=\"").append(name.startsWith("even") ? 1 : 0)
+                    .append("\">").append(name).append("</domain:name></domain:cd>");
+        }
+        response.append(RESPONSE_END);
+        try {
+            ((DomainCheckResponse) tx.getResponse()).fromXML(new XMLParser().parse(response.toString()));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        tx.setState(TransactionState.PROCESSED);
+    }
+
+    private static int countNames(String xml) {
+        int count = 0;
+        Matcher matcher = NAME.matcher(xml);
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static List<String> names(int count) {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            names.add((i % 2 == 0 ? "even" : "odd") + i + ".com.au");
+        }
+        return names;
+    }
+}
@@ -0,0 +1,68 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ByteBufferPoolTest {
+    private ByteBufferPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ByteBufferPool();
+    }
+
+    @Test
+    public void testAcquireRoundsUpToSizeClass() {
+        assertEquals(ByteBufferPool.MIN_CLASS_SIZE, pool.acquire(1).capacity());
+        assertEquals(ByteBufferPool.MIN_CLASS_SIZE, pool.acquire(ByteBufferPool.MIN_CLASS_SIZE).capacity());
+        assertEquals(2 * ByteBufferPool.MIN_CLASS_SIZE, pool.acquire(ByteBufferPool.MIN_CLASS_SIZE + 1).capacity());
+        assertEquals(ByteBufferPool.MAX_CLASS_SIZE, pool.acquire(ByteBufferPool.MAX_CLASS_SIZE).capacity());
+    }
+
+    @Test
+    public void testReleasedBufferIsReusedCleared() {
+        ByteBuffer buffer = pool.acquire(5000);
+        buffer.put((byte) 1);
+        buffer.flip();
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire(6000);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(reused.capacity(), reused.limit());
+    }
+
+    @Test
+    public void testOversizedBuffersAreNotPooled() {
+        int size = ByteBufferPool.MAX_CLASS_SIZE + 1;
+        ByteBuffer buffer = pool.acquire(size);
+        assertEquals(size, buffer.capacity());
+        pool.release(buffer);
+        assertNotSame(buffer, pool.acquire(size));
+    }
+
+    @Test
+    public void testForeignBuffersAreNotPooled() {
+        ByteBuffer foreign = ByteBuffer.allocate(ByteBufferPool.MIN_CLASS_SIZE + 10);
+        pool.release(foreign);
+        assertNotSame(foreign, pool.acquire(ByteBufferPool.MIN_CLASS_SIZE + 10));
+    }
+
+    @Test
+    public void testGrowPreservesContent() {
+        ByteBuffer buffer = pool.acquire(10);
+        buffer.put(new byte[] {1, 2, 3});
+
+        ByteBuffer grown = pool.grow(buffer, ByteBufferPool.MIN_CLASS_SIZE * 3);
+        assertEquals(4 * ByteBufferPool.MIN_CLASS_SIZE, grown.capacity());
+        assertEquals(3, grown.position());
+        assertEquals(3, grown.get(2));
+        assertSame(grown, pool.grow(grown, 100));
+    }
+}
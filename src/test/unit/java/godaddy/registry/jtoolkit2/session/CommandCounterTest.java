@@ -2,9 +2,14 @@ package godaddy.registry.jtoolkit2.session;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import godaddy.registry.jtoolkit2.se.CommandType;
 import godaddy.registry.jtoolkit2.se.StandardCommandType;
 import godaddy.registry.jtoolkit2.Timer;
 
@@ -25,6 +30,11 @@ public class CommandCounterTest {
         counter.increment(StandardCommandType.LOGOUT);
     }
 
+    @After
+    public void tearDown() {
+        Timer.useRealTime();
+    }
+
     /**
      * Test method for {@link godaddy.registry.jtoolkit2.session.CommandCounter#increment(godaddy.registry.jtoolkit2.se.CommandType)}.
      */
@@ -69,9 +79,9 @@ public class CommandCounterTest {
     @Test
     public void testGetRecentTotal() {
         assertEquals(Long.valueOf(3L), Long.valueOf(counter.getRecentTotal()));
-        // 1 minute later, recent total should be the same.
+        // 1 minute later, the recent total is as exact as getExactRecentTotal.
         Timer.setTime("20070101.010201");
-        assertEquals(Long.valueOf(3L), Long.valueOf(counter.getRecentTotal()));
+        assertEquals(Long.valueOf(0L), Long.valueOf(counter.getRecentTotal()));
     }
 
     /**
@@ -91,5 +101,66 @@ public class CommandCounterTest {
         Timer.setTime("20070101.010109");
         assertEquals(Long.valueOf(1L), Long.valueOf(counter.getExactRecentTotal()));
     }
-}
 
+    @Test
+    public void testCommandsAgeOutIndividually() {
+        Timer.setTime("20070101.010103");
+        counter.increment(StandardCommandType.CHECK);
+        assertEquals(2, counter.getRecentCount(StandardCommandType.CHECK));
+        // The first check is more than 5s old, the second is not.
+        Timer.setTime("20070101.010107");
+        assertEquals(1, counter.getRecentCount(StandardCommandType.CHECK));
+        assertEquals(1, counter.getExactRecentTotal());
+        assertEquals(2L, counter.getCount(StandardCommandType.CHECK));
+    }
+
+    @Test
+    public void testCommandTypesWithTheSameNameShareCounts() {
+        CommandType extensionCheck = new CommandType() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getCommandName() {
+                return "check";
+            }
+        };
+        counter.increment(extensionCheck);
+        assertEquals(2, counter.getRecentCount(StandardCommandType.CHECK));
+        assertEquals(2L, counter.getCount(extensionCheck));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreAllCounted() throws Exception {
+        final CommandType undelete = new CommandType() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getCommandName() {
+                return "undelete";
+            }
+        };
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        counter.increment(StandardCommandType.INFO);
+                        counter.increment(undelete);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8000, counter.getRecentCount(StandardCommandType.INFO));
+        assertEquals(8000, counter.getRecentCount(undelete));
+        assertEquals(16003, counter.getExactRecentTotal());
+        assertEquals(16003L, counter.getTotal());
+    }
+}
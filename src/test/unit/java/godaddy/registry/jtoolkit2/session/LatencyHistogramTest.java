@@ -0,0 +1,132 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getTotalCount());
+        assertEquals(0L, histogram.getValueAtPercentile(99.0));
+        assertEquals(0L, histogram.getMaxValue());
+        assertEquals(0L, histogram.getMean());
+    }
+
+    @Test
+    public void testPercentilesOfSmallTimesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(50L, histogram.getValueAtPercentile(50.0));
+        assertEquals(99L, histogram.getValueAtPercentile(99.0));
+        assertEquals(100L, histogram.getValueAtPercentile(99.9));
+        assertEquals(100L, histogram.getMaxValue());
+        assertEquals(1L, histogram.getValueAtPercentile(0.0));
+        assertEquals(50L, histogram.getMean());
+    }
+
+    @Test
+    public void testPercentilesOfLargeTimesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(2);
+        long[] times = {1234L, 56789L, 987654L, 31000000L};
+        for (long time : times) {
+            LatencyHistogram single = new LatencyHistogram(2);
+            single.record(time);
+            single.record(time + 1);
+            long reported = single.getValueAtPercentile(50.0);
+            assertTrue(time + ": " + reported, reported >= time && reported <= time + time / 100);
+            histogram.record(time);
+        }
+        assertEquals(31000000L, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testTimesBeyondTrackableRangeAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+        histogram.record(-5L);
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMaxValue());
+        assertEquals(Long.MAX_VALUE / 2, histogram.getValueAtPercentile(100.0));
+        assertEquals(0L, histogram.getValueAtPercentile(50.0));
+    }
+
+    @Test
+    public void testAddMergesHistograms() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10L);
+        second.record(20L);
+        second.record(30L);
+
+        LatencyHistogram merged = first.snapshot();
+        merged.add(second);
+        assertEquals(3L, merged.getTotalCount());
+        assertEquals(30L, merged.getMaxValue());
+        assertEquals(20L, merged.getValueAtPercentile(50.0));
+        assertEquals(1L, first.getTotalCount());
+    }
+
+    @Test
+    public void testIntervalSinceEarlierSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500L);
+        LatencyHistogram previous = histogram.snapshot();
+        histogram.record(10L);
+        histogram.record(20L);
+
+        LatencyHistogram interval = histogram.snapshot().intervalSince(previous);
+        assertEquals(2L, interval.getTotalCount());
+        assertEquals(20L, interval.getValueAtPercentile(100.0));
+        assertEquals(20L, interval.getMaxValue());
+        assertEquals(15L, interval.getMean());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrecisionOutOfRange() {
+        new LatencyHistogram(4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentPrecisionsNotMerged() {
+        new LatencyHistogram(1).add(new LatencyHistogram(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new LatencyHistogram().getValueAtPercentile(100.1);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i % 1000);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(40000L, histogram.getTotalCount());
+        assertEquals(999L, histogram.getMaxValue());
+    }
+}
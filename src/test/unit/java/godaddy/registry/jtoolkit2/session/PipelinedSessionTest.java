@@ -0,0 +1,229 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.CLTRID;
+import godaddy.registry.jtoolkit2.se.CommandTemplate;
+import godaddy.registry.jtoolkit2.se.DomainCheckCommand;
+import godaddy.registry.jtoolkit2.se.Response;
+import godaddy.registry.jtoolkit2.se.StampedCommand;
+import godaddy.registry.jtoolkit2.se.StandardCommandType;
+import godaddy.registry.jtoolkit2.xml.XMLParser;
+import godaddy.registry.jtoolkit2.xml.XmlOutputConfig;
+
+public class PipelinedSessionTest {
+    private static final long TIMEOUT = 10;
+
+    private final ExecutorService readers = Executors.newCachedThreadPool();
+    private final TransactionIndex index = new TransactionIndex();
+    private StubSession session;
+    private CountDownLatch retired;
+    private PipelinedSession pipeline;
+
+    @Before
+    public void setUp() throws Exception {
+        CLTRID.setClID("JTKUTEST");
+        StubSession.reset();
+        session = new StubSession();
+        session.open();
+        retired = new CountDownLatch(1);
+        pipeline = new PipelinedSession(session, 4, index, readers, p -> retired.countDown());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        readers.shutdown();
+        StubSession.reset();
+    }
+
+    @Test
+    public void testResponsesMatchedByClTRID() throws Exception {
+        StubSession.reorderResponses = true;
+        Transaction first = newTransaction("a.com.au");
+        Transaction second = newTransaction("b.com.au");
+
+        CompletableFuture<Transaction> firstResult = pipeline.submit(first);
+        CompletableFuture<Transaction> secondResult = pipeline.submit(second);
+
+        assertSame(first, firstResult.get(TIMEOUT, TimeUnit.SECONDS));
+        assertSame(second, secondResult.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(TransactionState.PROCESSED, first.getState());
+        assertEquals(first.getCommand().getCLTRID(), first.getResponse().getCLTRID());
+        assertEquals(second.getCommand().getCLTRID(), second.getResponse().getCLTRID());
+        assertEquals(0, index.size());
+        assertEquals(0L, index.getOrphanCount());
+    }
+
+    @Test
+    public void testStampedCommandsMatchedByClTRID() throws Exception {
+        StubSession.reorderResponses = true;
+        CommandTemplate template = CommandTemplate.compile(new DomainCheckCommand("name.com.au"),
+                XmlOutputConfig.defaultConfig(), "name.com.au");
+        Transaction first = new Transaction(template.stamp("a.com.au"), new Response());
+        Transaction second = new Transaction(template.stamp("b.com.au"), new Response());
+
+        CompletableFuture<Transaction> firstResult = pipeline.submit(first);
+        CompletableFuture<Transaction> secondResult = pipeline.submit(second);
+
+        assertSame(first, firstResult.get(TIMEOUT, TimeUnit.SECONDS));
+        assertSame(second, secondResult.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(TransactionState.PROCESSED, second.getState());
+        assertEquals(StandardCommandType.CHECK, first.getCommandType());
+        assertEquals(first.getCLTRID(), first.getResponse().getCLTRID());
+        assertEquals(second.getCLTRID(), second.getResponse().getCLTRID());
+        assertEquals(2, session.getCommandCount());
+    }
+
+    @Test
+    public void testDuplicateClTRIDsMatchedInOrder() throws Exception {
+        StampedCommand stamped = CommandTemplate.compile(new DomainCheckCommand("name.com.au"),
+                XmlOutputConfig.defaultConfig(), "name.com.au").stamp("a.com.au");
+        Transaction first = new Transaction(stamped, new Response());
+        Transaction second = new Transaction(stamped, new Response());
+
+        StubSession.readGate = new CountDownLatch(1);
+        CompletableFuture<Transaction> firstResult = pipeline.submit(first);
+        CompletableFuture<Transaction> secondResult = pipeline.submit(second);
+        assertEquals(1L, index.getDuplicateCount());
+        StubSession.readGate.countDown();
+
+        assertSame(first, firstResult.get(TIMEOUT, TimeUnit.SECONDS));
+        assertSame(second, secondResult.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(TransactionState.PROCESSED, second.getState());
+        assertEquals(1L, index.getOrphanCount());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testRetiresOnceIdle() throws Exception {
+        pipeline.submit(newTransaction("a.com.au")).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertTrue(retired.await(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(pipeline.isRetired());
+        assertNull(pipeline.submit(newTransaction("b.com.au")));
+        assertTrue(session.isOpen());
+    }
+
+    @Test
+    public void testConcurrentSubmittersShareSession() throws Exception {
+        final int count = 50;
+        final CompletableFuture<?>[] results = new CompletableFuture<?>[count];
+        final PipelinedSession shared = new PipelinedSession(session, count, index, readers, p -> { });
+        Thread[] threads = new Thread[5];
+
+        // Hold back responses until every command has been written, so the pipeline can't retire in between.
+        StubSession.readGate = new CountDownLatch(1);
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            final int stride = threads.length;
+            threads[t] = new Thread(() -> {
+                for (int i = offset; i < count; i += stride) {
+                    try {
+                        results[i] = shared.submit(newTransaction("name" + i + ".com.au"));
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        }
+        assertEquals(count, shared.getOutstandingCount());
+        StubSession.readGate.countDown();
+
+        for (CompletableFuture<?> result : results) {
+            Transaction tx = (Transaction) result.get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(TransactionState.PROCESSED, tx.getState());
+            assertEquals(tx.getCommand().getCLTRID(), tx.getResponse().getCLTRID());
+        }
+        assertEquals(count, session.getCommandCount());
+    }
+
+    @Test
+    public void testWriteFailureFailsTransactionAndClosesSession() throws Exception {
+        StubSession.WRITE_FAILURES.set(1);
+        Transaction tx = newTransaction("a.com.au");
+
+        try {
+            pipeline.submit(tx).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected write failure");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof IOException);
+        }
+
+        assertEquals(TransactionState.RETRY, tx.getState());
+        assertTrue(retired.await(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(session.isOpen());
+    }
+
+    @Test
+    public void testReadFailureFailsWrittenCommandAsUnanswered() throws Exception {
+        StubSession.READ_FAILURES.set(1);
+        Transaction tx = newTransaction("a.com.au");
+
+        try {
+            pipeline.submit(tx).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected read failure");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof UnansweredCommandException);
+        }
+
+        assertEquals(TransactionState.RETRY, tx.getState());
+        assertTrue(tx.getCause() instanceof UnansweredCommandException);
+        assertEquals(0, index.size());
+        assertTrue(retired.await(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(session.isOpen());
+    }
+
+    @Test
+    public void testUninterpretableResponseFailsOutstandingCommands() throws Exception {
+        XMLParser.init();
+        // Valid, but the count exceeds the range of the response's message count.
+        StubSession.msgQ = "<msgQ count=\"99999999999\" id=\"1\"/>";
+        StubSession.readGate = new CountDownLatch(1);
+        Transaction first = newTransaction("a.com.au");
+        Transaction second = newTransaction("b.com.au");
+        CompletableFuture<Transaction> firstResult = pipeline.submit(first);
+        CompletableFuture<Transaction> secondResult = pipeline.submit(second);
+        StubSession.readGate.countDown();
+
+        try {
+            firstResult.get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected the response to be rejected");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof NumberFormatException);
+        }
+        assertEquals(TransactionState.FATAL_ERROR, first.getState());
+        try {
+            secondResult.get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Expected the session to fail");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof UnansweredCommandException);
+        }
+        assertTrue(retired.await(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(session.isOpen());
+    }
+
+    private static Transaction newTransaction(String name) {
+        return new Transaction(new DomainCheckCommand(name), new Response());
+    }
+}
@@ -0,0 +1,84 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.ResultCode;
+
+public class PoolMetricsTest {
+
+    @Test
+    public void testRegisteredAsMXBean() throws Exception {
+        PoolMetrics metrics = new PoolMetrics();
+        metrics.incSessionsOpened();
+        metrics.recordCheckout(2000000L);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("godaddy.registry.jtoolkit2:type=SessionPool,name=PoolMetricsTest");
+        server.registerMBean(metrics, name);
+        try {
+            assertEquals(1L, server.getAttribute(name, "SessionsOpened"));
+            assertEquals(2L, server.getAttribute(name, "CheckoutWaitTime"));
+            assertEquals(0, server.getAttribute(name, "PoolSize"));
+            assertTrue(server.getAttribute(name, "ResultCodeCounts") instanceof TabularData);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testBindToRegistersGaugesAndCounters() {
+        final Map<String, LongSupplier> gauges = new HashMap<String, LongSupplier>();
+        final Map<String, LongSupplier> counters = new HashMap<String, LongSupplier>();
+        PoolMetrics metrics = new PoolMetrics();
+        metrics.bindTo(new MetricsRegistry() {
+            @Override
+            public void gauge(String name, String description, LongSupplier value) {
+                gauges.put(name, value);
+            }
+
+            @Override
+            public void counter(String name, String description, LongSupplier count) {
+                counters.put(name, count);
+            }
+        });
+
+        metrics.incRateLimitStalls();
+        metrics.incKeepAlivePolls();
+        metrics.incKeepAlivePolls();
+        assertEquals(0L, gauges.get("jtoolkit2.pool.sessions.in.use").getAsLong());
+        assertEquals(1L, counters.get("jtoolkit2.pool.rate.limit.stall.count").getAsLong());
+        assertEquals(2L, counters.get("jtoolkit2.pool.keep.alive.poll.count").getAsLong());
+        assertEquals(0L, counters.get("jtoolkit2.pool.results." + ResultCode.NX_OBJ).getAsLong());
+    }
+
+    @Test
+    public void testTransactionIndexCountsPublished() throws Exception {
+        TransactionIndex index = new TransactionIndex();
+        PoolMetrics metrics = new PoolMetrics();
+        metrics.setTransactionIndex(index);
+        index.match("JTKUTEST.20070101.010101.0");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("godaddy.registry.jtoolkit2:type=SessionPool,name=PoolMetricsTest");
+        server.registerMBean(metrics, name);
+        try {
+            assertEquals(1L, server.getAttribute(name, "OrphanResponseCount"));
+            assertEquals(0L, server.getAttribute(name, "DuplicateClTRIDCount"));
+            assertEquals(0, server.getAttribute(name, "TransactionsInFlight"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.ResultCode;
+
+public class ResultCounterTest {
+    private ResultCounter counter;
+
+    @Before
+    public void setUp() throws Exception {
+        counter = new ResultCounter();
+    }
+
+    @Test
+    public void testCountsStandardCodes() {
+        counter.increment(ResultCode.SUCCESS);
+        counter.increment(ResultCode.SUCCESS);
+        counter.add(ResultCode.SESS_LIM_EXCEEDED_CLOSING, 3L);
+
+        assertEquals(2L, counter.getValue(ResultCode.SUCCESS));
+        assertEquals(3L, counter.getValue(ResultCode.SESS_LIM_EXCEEDED_CLOSING));
+        assertEquals(0L, counter.getValue(ResultCode.YX_OBJ));
+        assertEquals(5L, counter.getTotal());
+    }
+
+    @Test
+    public void testCountsCodesOutsideStandardRange() {
+        counter.increment(999);
+        counter.increment(2503);
+
+        assertEquals(1L, counter.getValue(999));
+        assertEquals(1L, counter.getValue(2503));
+        assertEquals(2L, counter.getTotal());
+    }
+
+    @Test
+    public void testGetCodesReturnsCountedCodes() {
+        counter.increment(2503);
+        counter.increment(ResultCode.YX_OBJ);
+        counter.increment(ResultCode.SUCCESS);
+
+        assertEquals(new TreeSet<Integer>(Arrays.asList(ResultCode.SUCCESS, ResultCode.YX_OBJ, 2503)),
+                counter.getCodes());
+    }
+}
@@ -0,0 +1,235 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.CommandType;
+import godaddy.registry.jtoolkit2.se.ResultCode;
+import godaddy.registry.jtoolkit2.se.StandardCommandType;
+
+public class SessionPoolImplTest {
+    private static final String SESSION_CLASS_PROPERTY = "godaddy.registry.jtoolkit2.session.class";
+    private static final int COMMAND_LIMIT = 10;
+    private static final long TIMEOUT = 10;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        StubSession.reset();
+        System.setProperty(SESSION_CLASS_PROPERTY, StubSession.class.getName());
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        System.clearProperty(SESSION_CLASS_PROPERTY);
+        StubSession.reset();
+    }
+
+    @Test
+    public void testLeastRecentlyReleasedSessionIsCheckedOutFirst() throws Exception {
+        SessionPoolImpl pool = newPool(2);
+        Session first = pool.getSession();
+        Session second = pool.getSession();
+        pool.releaseSession(first);
+        pool.releaseSession(second);
+
+        assertSame(first, pool.getSession());
+        assertSame(second, pool.getSession());
+        assertEquals(2, StubSession.OPEN_COUNT.get());
+    }
+
+    @Test
+    public void testResponseTimesMergedAcrossSessions() throws Exception {
+        SessionPoolImpl pool = newPool(2);
+        StatsViewer stats = pool.getStatsViewer();
+        assertEquals(0L, stats.getAverageResponseTime());
+        assertEquals(0L, stats.getResponseTimePercentile(null, 99.0));
+
+        Session first = pool.getSession();
+        Session second = pool.getSession();
+        for (int i = 1; i <= 50; i++) {
+            first.getStatsManager().recordResponseTime(StandardCommandType.CHECK, i);
+            second.getStatsManager().recordResponseTime(StandardCommandType.CHECK, 50 + i);
+        }
+
+        assertEquals(100L, stats.getResponseTimeHistogram(StandardCommandType.CHECK).getTotalCount());
+        assertEquals(50L, stats.getResponseTimePercentile(StandardCommandType.CHECK, 50.0));
+        assertEquals(99L, stats.getResponseTimePercentile(StandardCommandType.CHECK, 99.0));
+        assertEquals(100L, stats.getMaxResponseTime(StandardCommandType.CHECK));
+    }
+
+    @Test
+    public void testWaitingThreadReceivesReleasedSession() throws Exception {
+        final SessionPoolImpl pool = newPool(1);
+        Session session = pool.getSession();
+
+        Future<Session> waiter = executor.submit(new Callable<Session>() {
+            @Override
+            public Session call() throws Exception {
+                return pool.getSession();
+            }
+        });
+        Thread.sleep(50);
+        assertTrue(!waiter.isDone());
+
+        pool.releaseSession(session);
+        assertSame(session, waiter.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(1, StubSession.OPEN_COUNT.get());
+    }
+
+    @Test
+    public void testConcurrentCheckoutNeverExceedsMaximumSize() throws Exception {
+        final SessionPoolImpl pool = newPool(4);
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger maxInUse = new AtomicInteger();
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < 200; i++) {
+                        Session session = pool.getSession(StandardCommandType.CHECK);
+                        int count = inUse.incrementAndGet();
+                        maxInUse.accumulateAndGet(count, Math::max);
+                        inUse.decrementAndGet();
+                        pool.releaseSession(session);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get(TIMEOUT, TimeUnit.SECONDS);
+        }
+
+        assertTrue(maxInUse.get() <= 4);
+        assertTrue(StubSession.OPEN_COUNT.get() <= 4);
+    }
+
+    @Test
+    public void testClosedSessionIsReplaced() throws Exception {
+        SessionPoolImpl pool = newPool(1);
+        Session session = pool.getSession();
+        session.close();
+        pool.releaseSession(session);
+
+        Session replacement = pool.getSession();
+        assertNotSame(session, replacement);
+        assertTrue(replacement.isOpen());
+        assertEquals(2, StubSession.OPEN_COUNT.get());
+    }
+
+    @Test
+    public void testRateLimitedSessionIsSkipped() throws Exception {
+        SessionPoolImpl pool = newPool(2);
+        StubSession limited = (StubSession) pool.getSession();
+        limited.setRecentCommandCount(COMMAND_LIMIT);
+        pool.releaseSession(limited);
+
+        Session other = pool.getSession(StandardCommandType.CHECK);
+        assertNotSame(limited, other);
+        pool.releaseSession(other);
+
+        // The skipped session keeps its place at the head of the queue.
+        limited.setRecentCommandCount(0);
+        assertSame(limited, pool.getSession(StandardCommandType.CHECK));
+    }
+
+    @Test
+    public void testReducedMaximumSizeClosesReleasedSessions() throws Exception {
+        SessionPoolImpl pool = newPool(2);
+        Session first = pool.getSession();
+        Session second = pool.getSession();
+        pool.setMaxSize(1);
+
+        pool.releaseSession(first);
+        assertTrue(!first.isOpen());
+        pool.releaseSession(second);
+        assertTrue(second.isOpen());
+        assertSame(second, pool.getSession());
+    }
+
+    @Test
+    public void testWarmUpOpensSessionsUpToMaximumSize() throws Exception {
+        SessionPoolImpl pool = newPool(3);
+        Session first = pool.getSession();
+        pool.releaseSession(first);
+
+        assertEquals(3, pool.warmUp(5));
+        assertEquals(3, StubSession.OPEN_COUNT.get());
+        assertEquals(3, pool.warmUp(3));
+        assertEquals(3, StubSession.OPEN_COUNT.get());
+
+        assertSame(first, pool.getSession());
+        assertNotSame(first, pool.getSession());
+        pool.getSession();
+        assertEquals(3, StubSession.OPEN_COUNT.get());
+    }
+
+    @Test
+    public void testMetricsCountSessionLifecycle() throws Exception {
+        SessionPoolImpl pool = newPool(2);
+        PoolMetrics metrics = pool.getMetrics();
+        Session first = pool.getSession();
+        Session second = pool.getSession();
+        assertEquals(2, metrics.getPoolSize());
+        assertEquals(2, metrics.getSessionsInUse());
+        assertEquals(2L, metrics.getSessionsOpened());
+        assertEquals(2L, metrics.getCheckoutCount());
+
+        first.getStatsManager().incResultCounter(ResultCode.SUCCESS);
+        first.getStatsManager().incResultCounter(ResultCode.SUCCESS);
+        second.getStatsManager().incResultCounter(ResultCode.SUCCESS);
+        ((StubSession) first).invalidate();
+        pool.releaseSession(first);
+        pool.releaseSession(second);
+
+        assertEquals(1, metrics.getPoolSize());
+        assertEquals(0, metrics.getSessionsInUse());
+        assertEquals(1L, metrics.getSessionsClosed());
+        assertEquals(1L, metrics.getSessionsInvalidated());
+        assertEquals(3L, metrics.getResultCodeCount(ResultCode.SUCCESS));
+        assertEquals(Long.valueOf(3L), metrics.getResultCodeCounts().get(ResultCode.SUCCESS));
+
+        pool.empty();
+        assertEquals(2L, metrics.getSessionsClosed());
+        assertEquals(3L, metrics.getResultCodeCount(ResultCode.SUCCESS));
+    }
+
+    private static SessionPoolImpl newPool(int maximumSize) {
+        SessionPoolProperties poolProps = mock(SessionPoolProperties.class);
+        SessionProperties sessionProps = mock(SessionProperties.class);
+
+        when(poolProps.getMaximumPoolSize()).thenReturn(maximumSize);
+        when(poolProps.getServerTimeout()).thenReturn(600000L);
+        when(poolProps.getClientTimeout()).thenReturn(1200000L);
+        when(poolProps.getWaitTimeout()).thenReturn(10000L);
+        when(sessionProps.getCommandLimit()).thenReturn(COMMAND_LIMIT * 10);
+        when(sessionProps.getCommandLimit(any(CommandType.class))).thenReturn(COMMAND_LIMIT);
+        when(sessionProps.getCommandLimitInterval()).thenReturn(1000L);
+        when(sessionProps.getResponseTimePrecision()).thenReturn(LatencyHistogram.DEFAULT_PRECISION);
+        return new SessionPoolImpl(poolProps, sessionProps);
+    }
+}
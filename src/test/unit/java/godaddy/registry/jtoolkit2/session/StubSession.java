@@ -0,0 +1,269 @@
+package godaddy.registry.jtoolkit2.session;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.xml.sax.SAXException;
+
+import godaddy.registry.jtoolkit2.se.Command;
+import godaddy.registry.jtoolkit2.se.CommandType;
+import godaddy.registry.jtoolkit2.se.Greeting;
+import godaddy.registry.jtoolkit2.se.Response;
+import godaddy.registry.jtoolkit2.xml.ParsingException;
+import godaddy.registry.jtoolkit2.xml.XMLDocument;
+import godaddy.registry.jtoolkit2.xml.XMLParser;
+
+/**
+ * A Session which answers every command locally with a canned response echoing the command's clTRID, for testing
+ * the SessionManager and SessionPool without an EPP server. Responses are queued as commands are written, so reads
+ * and writes may be performed concurrently, as when pipelining. Selected by setting the system property
+ * <code>godaddy.registry.jtoolkit2.session.class</code> to this class's name. Behaviour is controlled through static
+ * fields, since instances are created by {@link SessionFactory}.
+ */
+class StubSession implements Session, StatsManager {
+    static final AtomicInteger WRITE_FAILURES = new AtomicInteger();
+    static final AtomicInteger READ_FAILURES = new AtomicInteger();
+    static final AtomicInteger OPEN_COUNT = new AtomicInteger();
+    static volatile int resultCode = 1000;
+    static volatile String msgQ = "";
+    static volatile long latency;
+    static volatile boolean reorderResponses;
+    static volatile CountDownLatch readGate;
+
+    private static final String RESPONSE_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+            + "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><response><result code=\"%d\"><msg>stub</msg></result>%s"
+            + "<trID><clTRID>%s</clTRID><svTRID>STUB-%d</svTRID></trID></response></epp>";
+    private static final Pattern CLTRID_PATTERN = Pattern.compile("<clTRID>([^<]*)</clTRID>");
+    private static final long READ_TIMEOUT = 5000L;
+
+    private final AtomicInteger commandCount = new AtomicInteger();
+    private final LatencyHistogram responseTimes = new LatencyHistogram();
+    private final ResultCounter resultCounter = new ResultCounter();
+    private volatile boolean invalid;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<String>();
+    private String heldResponse;
+    private final XMLParser parser = new XMLParser();
+    private volatile boolean open;
+    private volatile int recentCommandCount;
+    private boolean inUse;
+
+    static void reset() {
+        WRITE_FAILURES.set(0);
+        READ_FAILURES.set(0);
+        OPEN_COUNT.set(0);
+        resultCode = 1000;
+        msgQ = "";
+        latency = 0;
+        reorderResponses = false;
+        readGate = null;
+    }
+
+    void invalidate() {
+        invalid = true;
+    }
+
+    void setRecentCommandCount(int count) {
+        recentCommandCount = count;
+    }
+
+    @Override
+    public void configure(SessionProperties properties) {
+    }
+
+    @Override
+    public void open() {
+        OPEN_COUNT.incrementAndGet();
+        open = true;
+    }
+
+    @Override
+    public void changePassword(String newPassword) {
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public Greeting getGreeting() {
+        return new Greeting();
+    }
+
+    @Override
+    public String read() throws IOException {
+        try {
+            CountDownLatch gate = readGate;
+            if (gate != null) {
+                gate.await();
+            }
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+        } catch (InterruptedException ie) {
+            throw new IOException(ie);
+        }
+        if (READ_FAILURES.getAndDecrement() > 0) {
+            throw new IOException("stub read failure");
+        }
+        if (heldResponse != null) {
+            String response = heldResponse;
+            heldResponse = null;
+            return response;
+        }
+
+        String response = nextResponse();
+        if (reorderResponses) {
+            heldResponse = response;
+            return nextResponse();
+        }
+        return response;
+    }
+
+    private String nextResponse() throws IOException {
+        try {
+            String response = responses.poll(READ_TIMEOUT, TimeUnit.MILLISECONDS);
+            if (response == null) {
+                throw new SocketTimeoutException();
+            }
+            return response;
+        } catch (InterruptedException ie) {
+            throw new IOException(ie);
+        }
+    }
+
+    @Override
+    public void read(Response response) throws IOException, ParsingException {
+        response.fromXML(readToDocument());
+    }
+
+    @Override
+    public XMLDocument readToDocument() throws IOException, ParsingException {
+        return parser.parse(read());
+    }
+
+    @Override
+    public void write(String xml) throws IOException {
+        if (WRITE_FAILURES.getAndDecrement() > 0) {
+            throw new IOException("stub write failure");
+        }
+        Matcher matcher = CLTRID_PATTERN.matcher(xml);
+        String clTRID = matcher.find() ? matcher.group(1) : "";
+        responses.add(String.format(RESPONSE_XML, resultCode, msgQ, clTRID, commandCount.incrementAndGet()));
+    }
+
+    @Override
+    public void write(Command command) throws IOException, ParsingException {
+        try {
+            write(command.toXML());
+        } catch (SAXException saxe) {
+            throw new ParsingException(saxe);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    @Override
+    public synchronized boolean isAvailable() {
+        return !inUse;
+    }
+
+    @Override
+    public synchronized void acquire() {
+        inUse = true;
+    }
+
+    @Override
+    public synchronized void release() {
+        inUse = false;
+    }
+
+    @Override
+    public void keepAlive() {
+    }
+
+    @Override
+    public StatsManager getStatsManager() {
+        return this;
+    }
+
+    @Override
+    public long getResultCodeCount(int code) {
+        return resultCounter.getValue(code);
+    }
+
+    @Override
+    public Set<Integer> getResultCodes() {
+        return resultCounter.getCodes();
+    }
+
+    @Override
+    public long getCommandCount() {
+        return commandCount.get();
+    }
+
+    @Override
+    public int getRecentCommandCount() {
+        return recentCommandCount;
+    }
+
+    @Override
+    public long getCommandCount(CommandType type) {
+        return 0;
+    }
+
+    @Override
+    public int getRecentCommandCount(CommandType type) {
+        return recentCommandCount;
+    }
+
+    @Override
+    public long getAverageResponseTime() {
+        return 0;
+    }
+
+    @Override
+    public long getAverageResponseTime(CommandType type) {
+        return 0;
+    }
+
+    @Override
+    public LatencyHistogram getResponseTimeHistogram(CommandType type) {
+        return responseTimes.snapshot();
+    }
+
+    @Override
+    public long getMruInterval() {
+        return 0;
+    }
+
+    @Override
+    public void incResultCounter(int code) {
+        resultCounter.increment(code);
+    }
+
+    @Override
+    public void incCommandCounter(CommandType type) {
+    }
+
+    @Override
+    public void recordResponseTime(CommandType type, long responseTime) {
+        responseTimes.record(responseTime);
+    }
+}
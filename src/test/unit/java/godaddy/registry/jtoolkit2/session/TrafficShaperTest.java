@@ -0,0 +1,132 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.CommandType;
+import godaddy.registry.jtoolkit2.se.StandardCommandType;
+
+public class TrafficShaperTest {
+    private static final long INTERVAL = 1000L;
+
+    private final SimulatedTicker ticker = new SimulatedTicker();
+
+    @Test
+    public void testBurstWithinLimitIsNotDelayed() throws Exception {
+        TrafficShaper shaper = new TrafficShaper(newProperties(20, 20, true), 4, ticker);
+        for (int i = 0; i < 20; i++) {
+            shaper.acquire(StandardCommandType.CHECK);
+        }
+
+        assertEquals(0L, ticker.elapsedMillis());
+        assertEquals(0L, shaper.getDelayedCount());
+    }
+
+    @Test
+    public void testCommandsBeyondLimitArePaced() throws Exception {
+        TrafficShaper shaper = new TrafficShaper(newProperties(10, 1000, true), 4, ticker);
+        for (int i = 0; i < 13; i++) {
+            shaper.acquire(StandardCommandType.CHECK);
+        }
+
+        // After the burst of 10, one check is admitted every 100ms.
+        assertEquals(300L, ticker.elapsedMillis());
+        assertEquals(3L, shaper.getDelayedCount());
+        assertEquals(0, shaper.getQueueDepth());
+        assertEquals(100L, shaper.getAverageWaitTime());
+    }
+
+    @Test
+    public void testInterruptedWaitGivesBackReservation() throws Exception {
+        TrafficShaper shaper = new TrafficShaper(newProperties(10, 1000, true), 1, ticker);
+        for (int i = 0; i < 10; i++) {
+            shaper.acquire(StandardCommandType.CHECK);
+        }
+
+        ticker.interruptNextPark = true;
+        try {
+            shaper.acquire(StandardCommandType.CHECK);
+            fail("Expected the wait to be interrupted");
+        } catch (InterruptedException expected) {
+            assertEquals(0L, ticker.elapsedMillis());
+        }
+
+        // The next check takes the interrupted one's place, rather than the one after it.
+        shaper.acquire(StandardCommandType.CHECK);
+        assertEquals(100L, ticker.elapsedMillis());
+    }
+
+    @Test
+    public void testTotalLimitAppliesAcrossTypes() throws Exception {
+        TrafficShaper shaper = new TrafficShaper(newProperties(1000, 5, true), 1, ticker);
+        for (int i = 0; i < 5; i++) {
+            shaper.acquire(i % 2 == 0 ? StandardCommandType.CHECK : StandardCommandType.INFO);
+        }
+        assertEquals(0L, shaper.getDelayedCount());
+
+        shaper.acquire(StandardCommandType.POLL);
+        assertEquals(1L, shaper.getDelayedCount());
+    }
+
+    @Test
+    public void testPerSessionLimitsScaleWithSessionCount() throws Exception {
+        TrafficShaper shaper = new TrafficShaper(newProperties(5, 1000, false), 4, ticker);
+        for (int i = 0; i < 20; i++) {
+            shaper.acquire(StandardCommandType.CHECK);
+        }
+        assertEquals(0L, shaper.getDelayedCount());
+    }
+
+    @Test
+    public void testUnlimitedCommandsAreNeverDelayed() throws Exception {
+        TrafficShaper shaper = new TrafficShaper(newProperties(Integer.MAX_VALUE, Integer.MAX_VALUE, false), 1,
+                ticker);
+        for (int i = 0; i < 10000; i++) {
+            shaper.acquire(StandardCommandType.CHECK);
+        }
+        assertEquals(0L, shaper.getDelayedCount());
+    }
+
+    private static SessionProperties newProperties(int typeLimit, int totalLimit, boolean shared) {
+        SessionProperties props = mock(SessionProperties.class);
+        when(props.getCommandLimit()).thenReturn(totalLimit);
+        when(props.getCommandLimit(any(CommandType.class))).thenReturn(typeLimit);
+        when(props.getCommandLimitInterval()).thenReturn(INTERVAL);
+        when(props.isCommandLimitShared()).thenReturn(shared);
+        return props;
+    }
+
+    /**
+     * Time which passes only while the shaper waits, so that pacing can be asserted exactly.
+     */
+    private static final class SimulatedTicker implements TrafficShaper.Ticker {
+        private long now;
+        private boolean interruptNextPark;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void parkNanos(Object blocker, long nanos) {
+            if (interruptNextPark) {
+                interruptNextPark = false;
+                Thread.currentThread().interrupt();
+            } else {
+                now += nanos;
+            }
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(now);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package godaddy.registry.jtoolkit2.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.Timer;
+import godaddy.registry.jtoolkit2.se.CLTRID;
+import godaddy.registry.jtoolkit2.se.Command;
+import godaddy.registry.jtoolkit2.se.DomainInfoCommand;
+import godaddy.registry.jtoolkit2.se.DomainInfoResponse;
+
+public class TransactionIndexTest {
+    private TransactionIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        Timer.setTime("20070101.010101");
+        CLTRID.setClID("JTKUTEST");
+        index = new TransactionIndex();
+    }
+
+    @Test
+    public void testMatchRemovesTransaction() throws Exception {
+        Transaction tx = serializedTransaction();
+        assertTrue(index.register(tx));
+        assertEquals(1, index.size());
+
+        assertSame(tx, index.match("JTKUTEST.20070101.010101.0"));
+        assertEquals(0, index.size());
+        assertEquals(0, index.getOrphanCount());
+    }
+
+    @Test
+    public void testUnmatchedClTRIDCountsAsOrphan() throws Exception {
+        index.register(serializedTransaction());
+        assertNull(index.match("JTKUTEST.20070101.010101.9"));
+        assertNull(index.match(null));
+        assertEquals(2, index.getOrphanCount());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testDuplicateClTRIDNotIndexed() throws Exception {
+        Transaction tx = serializedTransaction();
+        CLTRID.setClID("JTKUTEST");
+        Transaction duplicate = serializedTransaction();
+
+        assertTrue(index.register(tx));
+        assertTrue(index.register(tx));
+        assertFalse(index.register(duplicate));
+        assertEquals(1L, index.getDuplicateCount());
+
+        index.remove(duplicate);
+        assertEquals(1, index.size());
+        index.remove(tx);
+        assertEquals(0, index.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnserializedCommandRejected() {
+        index.register(new Transaction(new DomainInfoCommand("jtkutest.com.au"), new DomainInfoResponse()));
+    }
+
+    private static Transaction serializedTransaction() throws Exception {
+        Command cmd = new DomainInfoCommand("jtkutest.com.au");
+        cmd.toXML();
+        return new Transaction(cmd, new DomainInfoResponse());
+    }
+}
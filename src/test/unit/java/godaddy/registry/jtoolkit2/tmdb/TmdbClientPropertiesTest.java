@@ -90,5 +90,20 @@ public class TmdbClientPropertiesTest {
         TmdbClientProperties tmdbClientProperties = new TmdbClientProperties(fileName);
         assertThat(tmdbClientProperties.getTmdbSocketTimeOut(), is(200));
     }
-}
 
+    @Test
+    public void shouldDefaultRequestTimeoutToSocketTimeout() throws Exception {
+        when(mockProperties.getProperty("tmdb.socket.timeout")).thenReturn("200");
+
+        TmdbClientProperties tmdbClientProperties = new TmdbClientProperties(fileName);
+        assertThat(tmdbClientProperties.getTmdbRequestTimeOut(), is(200));
+    }
+
+    @Test
+    public void shouldLoadCorrectRequestTimeoutFromPropertiesFile() throws Exception {
+        when(mockProperties.getProperty("tmdb.request.timeout")).thenReturn("500");
+
+        TmdbClientProperties tmdbClientProperties = new TmdbClientProperties(fileName);
+        assertThat(tmdbClientProperties.getTmdbRequestTimeOut(), is(500));
+    }
+}
@@ -1,7 +1,13 @@
 package godaddy.registry.jtoolkit2.tmdb;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,11 +16,17 @@ import static org.powermock.api.mockito.PowerMockito.whenNew;
 
 import javax.net.ssl.HttpsURLConnection;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
+import godaddy.registry.jtoolkit2.se.tmch.TmchDomainCheckResponseExtension;
 import godaddy.registry.jtoolkit2.session.TLSContext;
 import godaddy.registry.jtoolkit2.tmdb.model.TmNotice;
 import godaddy.registry.jtoolkit2.tmdb.xml.TmNoticeXmlParser;
+import godaddy.registry.jtoolkit2.xml.XMLParser;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -41,6 +53,8 @@ public class TmdbClientTest {
         when(mockTmdbClientProperties.getTrustStoreFilename()).thenReturn("trustStoreFilename");
         when(mockTmdbClientProperties.getTrustStorePassphrase()).thenReturn("trustStorePassphrase");
         when(mockTmdbClientProperties.getTmdbSocketTimeOut()).thenReturn(1000);
+        when(mockTmdbClientProperties.getTmdbMaxConnections()).thenReturn(2);
+        when(mockTmdbClientProperties.getTmdbRequestTimeOut()).thenReturn(1000);
 
         whenNew(TLSContext.class).withArguments("trustStoreFilename", "trustStorePassphrase")
                 .thenReturn(mockTlsContext);
@@ -73,4 +87,66 @@ public class TmdbClientTest {
 
         verify(inputStream, atLeastOnce()).close();
     }
+
+    @Test
+    public void shouldRequestNoticeForEachDistinctClaimsKey() throws Exception {
+        TmNotice notice1 = stubNotice("key1");
+        TmNotice notice2 = stubNotice("key2");
+        TmNotice notice3 = stubNotice("key3");
+        TmchDomainCheckResponseExtension checkResponse = new TmchDomainCheckResponseExtension();
+        checkResponse.fromXML(new XMLParser().parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><response>"
+                + "<result code=\"1000\"><msg>Command completed successfully</msg></result><extension>"
+                + "<tmch:chkData xmlns:tmch=\"urn:ar:params:xml:ns:tmch-1.0\">"
+                + "<tmch:cd><tmch:name claim=\"1\">one.tld</tmch:name><tmch:key>key1</tmch:key></tmch:cd>"
+                + "<tmch:cd><tmch:name claim=\"0\">unclaimed.tld</tmch:name></tmch:cd>"
+                + "<tmch:cd><tmch:name claim=\"1\">two.tld</tmch:name><tmch:key>key2</tmch:key></tmch:cd>"
+                + "<tmch:cd><tmch:name claim=\"1\">one</tmch:name><tmch:key>key1</tmch:key></tmch:cd>"
+                + "<tmch:cd><tmch:name claim=\"1\">three.tld</tmch:name><tmch:key>key3</tmch:key></tmch:cd>"
+                + "</tmch:chkData></extension>"
+                + "<trID><clTRID>ABC-12345</clTRID><svTRID>54322-XYZ</svTRID></trID></response></epp>"));
+
+        Map<String, TmNoticeResult> results = tmdbClient.requestNotices(checkResponse);
+
+        assertThat(results.keySet().toString(), is("[key1, key2, key3]"));
+        assertSame(notice1, results.get("key1").getNotice());
+        assertSame(notice2, results.get("key2").getNotice());
+        assertSame(notice3, results.get("key3").getNotice());
+        assertTrue(results.get("key3").isSuccessful());
+        assertNull(results.get("key3").getFailure());
+    }
+
+    @Test
+    public void shouldReportFailedAndTimedOutRequests() throws Exception {
+        when(mockTmdbClientProperties.getTmdbRequestTimeOut()).thenReturn(200);
+        TmNotice notice = stubNotice("key1");
+        IOException failure = new IOException("Connection refused");
+        when(mockTlsContext.createHttpsUrlConnection("TMDB server URL/broken.xml", 1000)).thenThrow(failure);
+        HttpsURLConnection slowConnection = mock(HttpsURLConnection.class);
+        when(mockTlsContext.createHttpsUrlConnection("TMDB server URL/slow.xml", 1000)).thenReturn(slowConnection);
+        when(slowConnection.getInputStream()).thenAnswer(invocation -> {
+            Thread.sleep(5000L);
+            return stringInputStream;
+        });
+
+        Map<String, TmNoticeResult> results = tmdbClient.requestNotices(Arrays.asList("slow", "broken", "key1"));
+
+        assertSame(notice, results.get("key1").getNotice());
+        assertFalse(results.get("broken").isSuccessful());
+        assertSame(failure, results.get("broken").getFailure());
+        assertFalse(results.get("slow").isSuccessful());
+        assertThat(results.get("slow").getFailure(), instanceOf(TimeoutException.class));
+        assertThat(results.get("slow").getFailure().getMessage(),
+                is("The TMDB request for lookup key slow did not complete within 200 ms"));
+    }
+
+    private TmNotice stubNotice(String lookupKey) throws Exception {
+        HttpsURLConnection connection = mock(HttpsURLConnection.class);
+        when(mockTlsContext.createHttpsUrlConnection("TMDB server URL/" + lookupKey + ".xml", 1000))
+                .thenReturn(connection);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream((lookupKey + "Xml").getBytes()));
+        TmNotice notice = mock(TmNotice.class);
+        when(mockTmNoticeXmlParser.parse(lookupKey + "Xml")).thenReturn(notice);
+        return notice;
+    }
 }
@@ -0,0 +1,43 @@
+package godaddy.registry.jtoolkit2.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import godaddy.registry.jtoolkit2.se.StandardObjectType;
+
+public class NamespaceContextImplTest {
+    private static final String EPP_URI = "urn:ietf:params:xml:ns:epp-1.0";
+
+    @Test
+    public void testResolvesInitialPrefixes() {
+        NamespaceContextImpl ctx = new NamespaceContextImpl();
+        assertEquals(EPP_URI, ctx.getNamespaceURI("e"));
+        assertEquals(EPP_URI, ctx.getNamespaceURI("epp"));
+        assertEquals(StandardObjectType.DOMAIN.getURI(), ctx.getNamespaceURI(StandardObjectType.DOMAIN.getName()));
+        assertNull(ctx.getNamespaceURI("unregistered"));
+    }
+
+    @Test
+    public void testPrefixesOfUri() {
+        NamespaceContextImpl ctx = new NamespaceContextImpl();
+        assertEquals("e", ctx.getPrefix(EPP_URI));
+        Iterator<String> prefixes = ctx.getPrefixes(EPP_URI);
+        assertEquals("epp", prefixes.next());
+        assertEquals("e", prefixes.next());
+        assertFalse(prefixes.hasNext());
+        assertNull(ctx.getPrefixes("urn:example:unregistered"));
+    }
+
+    @Test
+    public void testPutIsVisibleToExistingInstances() {
+        NamespaceContextImpl ctx = new NamespaceContextImpl();
+        NamespaceContextImpl.put("nsctxtest", "urn:example:nsctxtest-1.0");
+        assertEquals("urn:example:nsctxtest-1.0", ctx.getNamespaceURI("nsctxtest"));
+        assertEquals("nsctxtest", ctx.getPrefix("urn:example:nsctxtest-1.0"));
+    }
+}
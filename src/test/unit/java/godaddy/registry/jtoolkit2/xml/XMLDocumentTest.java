@@ -0,0 +1,74 @@
+package godaddy.registry.jtoolkit2.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+public class XMLDocumentTest {
+    private static final String XML = "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><response>"
+            + "<result code=\"1000\"><msg>Command <![CDATA[completed]]> successfully</msg></result>"
+            + "<result code=\"1001\"><msg>Command pending</msg></result>"
+            + "<msgQ count=\"0\"/>"
+            + "</response></epp>";
+
+    private XMLDocument doc;
+
+    @Before
+    public void setUp() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Element root = factory.newDocumentBuilder().parse(new ByteArrayInputStream(XML.getBytes("UTF-8")))
+                .getDocumentElement();
+        doc = new XMLDocument(root);
+    }
+
+    @Test
+    public void testNodeValueIsThatOfFirstNode() throws Exception {
+        assertEquals("1000", doc.getNodeValue("/e:epp/e:response/e:result/@code"));
+        assertEquals("1001", doc.getNodeValue("/e:epp/e:response/e:result[2]/@code"));
+    }
+
+    @Test
+    public void testNodeValueOfNoNodeIsNull() throws Exception {
+        assertNull(doc.getNodeValue("/e:epp/e:response/e:trID/e:clTRID/text()"));
+        assertEquals("", doc.getNodeValue("/e:epp/e:response/e:msgQ"));
+    }
+
+    @Test
+    public void testNodeValueJoinsAdjacentTextAndCData() throws Exception {
+        assertEquals("Command completed successfully",
+                doc.getNodeValue("/e:epp/e:response/e:result/e:msg/text()"));
+    }
+
+    @Test
+    public void testNodeCountAndRepeatedQueries() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, doc.getNodeCount("count(/e:epp/e:response/e:result)"));
+        }
+    }
+
+    @Test
+    public void testChildElementsQueriedRelatively() throws Exception {
+        List<Element> children = doc.getChildElements("/e:epp/e:response");
+        assertEquals(3, children.size());
+
+        XMLDocument result = new XMLDocument(children.get(1));
+        assertEquals("1001", result.getNodeValue("@code"));
+        assertEquals("Command pending", result.getNodeValue("./e:msg/text()"));
+        assertEquals("msgQ", children.get(2).getLocalName());
+    }
+
+    @Test
+    public void testChildElementsOfNoNodeIsEmpty() throws Exception {
+        assertTrue(doc.getChildElements("/e:epp/e:response/e:resData").isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package godaddy.registry.jtoolkit2.xml;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import godaddy.registry.jtoolkit2.Timer;
+import godaddy.registry.jtoolkit2.se.CLTRID;
+import godaddy.registry.jtoolkit2.se.DomainCheckCommand;
+
+public class XMLWriterTest {
+    // Longer than the 255 characters allowed by the domain schema.
+    private static final String INVALID_NAME = new String(new char[300]).replace('\0', 'a') + ".com.au";
+
+    @Before
+    public void setUp() throws Exception {
+        Timer.setTime("20070101.010101");
+        CLTRID.setClID("JTKUTEST");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        XMLWriter.setValidationMode(ValidationMode.ALWAYS, 100);
+    }
+
+    @Test
+    public void testAlwaysValidatesEveryCommand() throws Exception {
+        XMLWriter.setValidationMode(ValidationMode.ALWAYS, 0);
+        assertNotNull(new DomainCheckCommand("example.com.au").toXML());
+        assertInvalid(new DomainCheckCommand(INVALID_NAME));
+    }
+
+    @Test
+    public void testFirstValidatesOnlyUnseenShapes() throws Exception {
+        XMLWriter.setValidationMode(ValidationMode.FIRST, 0);
+        assertNotNull(new DomainCheckCommand("example.com.au").toXML());
+
+        // Same shape as a command already validated.
+        assertNotNull(new DomainCheckCommand(INVALID_NAME).toXML());
+
+        // Checking two names is a different shape.
+        assertInvalid(new DomainCheckCommand(new String[] {"example.com.au", INVALID_NAME }));
+    }
+
+    @Test
+    public void testFirstDoesNotRememberInvalidShapes() throws Exception {
+        XMLWriter.setValidationMode(ValidationMode.FIRST, 0);
+        assertInvalid(new DomainCheckCommand(INVALID_NAME));
+        assertInvalid(new DomainCheckCommand(INVALID_NAME));
+    }
+
+    @Test
+    public void testSampledValidatesConfiguredPercentage() throws Exception {
+        XMLWriter.setValidationMode(ValidationMode.SAMPLED, 0);
+        assertNotNull(new DomainCheckCommand(INVALID_NAME).toXML());
+
+        XMLWriter.setValidationMode(ValidationMode.SAMPLED, 100);
+        assertInvalid(new DomainCheckCommand(INVALID_NAME));
+    }
+
+    @Test
+    public void testOffValidatesNothing() throws Exception {
+        XMLWriter.setValidationMode(ValidationMode.OFF, 100);
+        assertNotNull(new DomainCheckCommand(INVALID_NAME).toXML());
+    }
+
+    private static void assertInvalid(DomainCheckCommand command) {
+        try {
+            command.toXML();
+            fail("Expected validation failure");
+        } catch (SAXException saxe) {
+            // expected
+        }
+    }
+}